@@ -0,0 +1,43 @@
+package com.polytechnique.tiibntick.benchmarks;
+
+import com.polytechnique.tiibntick.elasticsearch.models.DeliveryPersonDocument;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of spatial index entries to DeliveryPersonDocument, as done for
+ * every eligible courier of the SQL fallback.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentConversionBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int couriers;
+
+    private List<CourierSpatialIndex.IndexedCourier> population;
+
+    @Setup
+    public void setUp() {
+        population = SyntheticCouriers.indexedCouriers(couriers);
+    }
+
+    @Benchmark
+    public void toDocument(Blackhole blackhole) {
+        for (CourierSpatialIndex.IndexedCourier courier : population) {
+            DeliveryPersonDocument document = courier.toDocument();
+            blackhole.consume(document);
+        }
+    }
+}
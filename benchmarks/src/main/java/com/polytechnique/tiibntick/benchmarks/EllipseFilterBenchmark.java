@@ -0,0 +1,102 @@
+package com.polytechnique.tiibntick.benchmarks;
+
+import com.polytechnique.tiibntick.repositories.DeliveryPersonRepository;
+import com.polytechnique.tiibntick.services.matching.CourierCoordinates;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
+import com.polytechnique.tiibntick.services.matching.DistanceEngine;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ellipse filter over a whole courier population, for a Yaoundé announcement.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EllipseFilterBenchmark {
+
+    private static final double F1_LAT = 3.8667;
+    private static final double F1_LON = 11.5167;
+    private static final double F2_LAT = 3.8800;
+    private static final double F2_LON = 11.5400;
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int couriers;
+
+    private List<CourierSpatialIndex.IndexedCourier> population;
+    private CourierCoordinates coordinates;
+    private CourierSpatialIndex index;
+    private double distF1F2;
+    private DistanceEngine distanceEngine;
+    private double dMax;
+    private int[] rows;
+    private double[] sums;
+
+    @Setup
+    public void setUp() {
+        population = SyntheticCouriers.indexedCouriers(couriers);
+        coordinates = CourierCoordinates.of(population);
+        distanceEngine = new DistanceEngine(0.01);
+        distF1F2 = DistanceEngine.haversineKm(F1_LAT, F1_LON, F2_LAT, F2_LON);
+        dMax = distF1F2 + 20.0;
+
+        DeliveryPersonRepository deliveryPersonRepository = mock(DeliveryPersonRepository.class);
+        when(deliveryPersonRepository.findAllByIsActiveTrueAndLatitudeGpsIsNotNullAndLongitudeGpsIsNotNull())
+                .thenReturn(Flux.fromIterable(SyntheticCouriers.deliveryPersons(couriers)));
+        index = new CourierSpatialIndex(deliveryPersonRepository, 0.02, null, null);
+        index.reload().block();
+        rows = new int[couriers];
+        sums = new double[couriers];
+    }
+
+    /**
+     * Columnar two-stage kernel used by MatchingService.
+     */
+    @Benchmark
+    public int columnarKernel() {
+        return distanceEngine.filterEllipse(coordinates, 0, coordinates.size(), F1_LAT, F1_LON, F2_LAT, F2_LON,
+                dMax, rows, sums);
+    }
+
+    /**
+     * Same kernel over the precomputed columns of the index cells inside the
+     * ellipse's bounding box, as MatchingService scans them.
+     */
+    @Benchmark
+    public int columnarKernelOverIndexCells() {
+        int count = 0;
+        for (CourierCoordinates cell : index.findInEllipse(F1_LAT, F1_LON, F2_LAT, F2_LON, distF1F2, dMax).block()) {
+            count += distanceEngine.filterEllipse(cell, 0, cell.size(), F1_LAT, F1_LON, F2_LAT, F2_LON, dMax,
+                    rows, sums);
+        }
+        return count;
+    }
+
+    /**
+     * Per-courier loop computing the exact Haversine twice per courier.
+     */
+    @Benchmark
+    public int exactLoop() {
+        int count = 0;
+        for (CourierSpatialIndex.IndexedCourier courier : population) {
+            double sum = DistanceEngine.haversineKm(courier.latitude(), courier.longitude(), F1_LAT, F1_LON)
+                    + DistanceEngine.haversineKm(courier.latitude(), courier.longitude(), F2_LAT, F2_LON);
+            if (sum <= dMax) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,46 @@
+package com.polytechnique.tiibntick.benchmarks;
+
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
+import com.polytechnique.tiibntick.services.matching.DistanceEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the Haversine distance used for every matching candidate.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HaversineBenchmark {
+
+    private static final int POINTS = 1024;
+
+    private double[] lats;
+    private double[] lons;
+
+    @Setup
+    public void setUp() {
+        List<CourierSpatialIndex.IndexedCourier> couriers = SyntheticCouriers.indexedCouriers(POINTS);
+        lats = couriers.stream().mapToDouble(CourierSpatialIndex.IndexedCourier::latitude).toArray();
+        lons = couriers.stream().mapToDouble(CourierSpatialIndex.IndexedCourier::longitude).toArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double haversineToPickup() {
+        double sum = 0;
+        for (int i = 0; i < POINTS; i++) {
+            sum += DistanceEngine.haversineKm(lats[i], lons[i], SyntheticCouriers.YAOUNDE_LAT,
+                    SyntheticCouriers.YAOUNDE_LON);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,124 @@
+package com.polytechnique.tiibntick.benchmarks;
+
+import com.polytechnique.tiibntick.dtos.address.AddressDTO;
+import com.polytechnique.tiibntick.dtos.announcement.AnnouncementResponseDTO;
+import com.polytechnique.tiibntick.elasticsearch.repositories.AnnouncementSearchRepository;
+import com.polytechnique.tiibntick.elasticsearch.repositories.DeliveryPersonSearchRepository;
+import com.polytechnique.tiibntick.repositories.DeliveryPersonRepository;
+import com.polytechnique.tiibntick.services.MatchingService;
+import com.polytechnique.tiibntick.services.NotificationService;
+import com.polytechnique.tiibntick.services.location.CourierDensityGrid;
+import com.polytechnique.tiibntick.services.location.CourierPresenceService;
+import com.polytechnique.tiibntick.services.matching.BatchEllipseMatcher;
+import com.polytechnique.tiibntick.services.matching.CandidateRanker;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
+import com.polytechnique.tiibntick.services.matching.DistanceEngine;
+import com.polytechnique.tiibntick.services.matching.MatchingRetryService;
+import com.polytechnique.tiibntick.services.routing.RoadRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * End-to-end SQL fallback matching of one announcement, with Elasticsearch
+ * disabled and the repositories and notification side mocked out.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlFallbackMatchingBenchmark {
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int couriers;
+
+    private MatchingService matchingService;
+    private BatchEllipseMatcher batchEllipseMatcher;
+    private AnnouncementResponseDTO yaoundeAnnouncement;
+    private AnnouncementResponseDTO doualaAnnouncement;
+
+    @Setup
+    public void setUp() {
+        DeliveryPersonRepository deliveryPersonRepository = mock(DeliveryPersonRepository.class);
+        when(deliveryPersonRepository.findAllByIsActiveTrueAndLatitudeGpsIsNotNullAndLongitudeGpsIsNotNull())
+                .thenReturn(Flux.fromIterable(SyntheticCouriers.deliveryPersons(couriers)));
+        when(deliveryPersonRepository.findMatchProfilesByIdIn(anyCollection())).thenReturn(Flux.empty());
+
+        NotificationService notificationService = mock(NotificationService.class);
+        when(notificationService.notifyEligibleDeliveryPersons(anyList(), any())).thenReturn(Flux.empty());
+
+        MatchingRetryService matchingRetryService = mock(MatchingRetryService.class);
+        when(matchingRetryService.cancel(any())).thenReturn(Mono.empty());
+        when(matchingRetryService.schedule(any())).thenReturn(Mono.empty());
+
+        CourierSpatialIndex courierSpatialIndex = new CourierSpatialIndex(deliveryPersonRepository, 0.02,
+                new CourierPresenceService(new SimpleMeterRegistry(), 300, 1000),
+                new CourierDensityGrid(List.of(8, 10, 12, 14)));
+        courierSpatialIndex.reload().block();
+
+        DistanceEngine distanceEngine = new DistanceEngine(0.01);
+        batchEllipseMatcher = new BatchEllipseMatcher(courierSpatialIndex, distanceEngine, 0, 1024);
+        matchingService = new MatchingService(
+                Optional.<AnnouncementSearchRepository>empty(),
+                Optional.<DeliveryPersonSearchRepository>empty(),
+                notificationService,
+                courierSpatialIndex,
+                matchingRetryService,
+                new CandidateRanker(deliveryPersonRepository, 10, 0.5, 0.25, 0.5),
+                batchEllipseMatcher,
+                distanceEngine,
+                // No OSM extract: never ready, candidates keep straight-line distances
+                new RoadRouter("", 500, 500, 1000));
+
+        yaoundeAnnouncement = announcement(3.8667, 11.5167, 3.8800, 11.5400);
+        doualaAnnouncement = announcement(4.0511, 9.7679, 4.0600, 9.7000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        batchEllipseMatcher.shutdown();
+    }
+
+    private static AnnouncementResponseDTO announcement(double pickupLat, double pickupLon, double deliveryLat,
+            double deliveryLon) {
+        AddressDTO pickup = new AddressDTO();
+        pickup.setLatitude(pickupLat);
+        pickup.setLongitude(pickupLon);
+        AddressDTO delivery = new AddressDTO();
+        delivery.setLatitude(deliveryLat);
+        delivery.setLongitude(deliveryLon);
+
+        AnnouncementResponseDTO dto = new AnnouncementResponseDTO();
+        dto.setId(UUID.randomUUID());
+        dto.setPickupAddress(pickup);
+        dto.setDeliveryAddress(delivery);
+        return dto;
+    }
+
+    @Benchmark
+    public void matchYaounde() {
+        matchingService.matchAnnouncement(yaoundeAnnouncement).block();
+    }
+
+    @Benchmark
+    public void matchDouala() {
+        matchingService.matchAnnouncement(doualaAnnouncement).block();
+    }
+}
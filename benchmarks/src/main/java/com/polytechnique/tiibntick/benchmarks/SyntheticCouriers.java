@@ -0,0 +1,73 @@
+package com.polytechnique.tiibntick.benchmarks;
+
+import com.polytechnique.tiibntick.models.DeliveryPerson;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Deterministic synthetic courier populations.
+ *
+ * <p>
+ * Couriers are split evenly between Yaoundé and Douala and scattered around
+ * each city centre with a Gaussian spread of about 9 km. The same seed and
+ * size always produce the same population, so results stay comparable across
+ * commits.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+public final class SyntheticCouriers {
+
+    public static final double YAOUNDE_LAT = 3.8480;
+    public static final double YAOUNDE_LON = 11.5021;
+    public static final double DOUALA_LAT = 4.0511;
+    public static final double DOUALA_LON = 9.7679;
+
+    private static final long SEED = 20261018L;
+    private static final double SPREAD_DEG = 0.08;
+
+    private SyntheticCouriers() {
+    }
+
+    /**
+     * Generates {@code size} active delivery persons with GPS coordinates, all
+     * seen just now.
+     */
+    public static List<DeliveryPerson> deliveryPersons(int size) {
+        Random random = new Random(SEED);
+        Instant now = Instant.now();
+        List<DeliveryPerson> couriers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            boolean yaounde = (i & 1) == 0;
+            double lat = (yaounde ? YAOUNDE_LAT : DOUALA_LAT) + random.nextGaussian() * SPREAD_DEG;
+            double lon = (yaounde ? YAOUNDE_LON : DOUALA_LON) + random.nextGaussian() * SPREAD_DEG;
+
+            DeliveryPerson dp = new DeliveryPerson();
+            dp.setId(new UUID(SEED, i));
+            dp.setPersonId(new UUID(i, SEED));
+            dp.setCommercialName("Courier " + i);
+            dp.setIsActive(true);
+            dp.setLatitudeGps((float) lat);
+            dp.setLongitudeGps((float) lon);
+            dp.setLastSeenAt(now);
+            couriers.add(dp);
+        }
+        return couriers;
+    }
+
+    /**
+     * Generates {@code size} spatial index entries matching
+     * {@link #deliveryPersons(int)}.
+     */
+    public static List<CourierSpatialIndex.IndexedCourier> indexedCouriers(int size) {
+        return deliveryPersons(size).stream()
+                .map(dp -> new CourierSpatialIndex.IndexedCourier(dp.getId(), dp.getPersonId(),
+                        dp.getCommercialName(), dp.getLatitudeGps(), dp.getLongitudeGps(), 0L))
+                .toList();
+    }
+}
@@ -0,0 +1,60 @@
+import requests
+import os
+
+# Load .env manually if it exists
+if os.path.exists(".env"):
+    with open(".env") as f:
+        for line in f:
+            if line.strip() and not line.startswith("#"):
+                key, value = line.strip().split("=", 1)
+                os.environ[key] = value
+
+# Output file read by the road router (matching.routing.osm-file)
+OUTPUT_FILE = os.getenv("MATCHING_ROUTING_OSM_FILE", "data/osm/roads.osm")
+
+# Cities to fetch: (Name, AreaID), same areas as load_osm_addresses.py
+CITIES = [
+    ("Yaoundé", 3602746229),
+    ("Douala", 3603832073)
+]
+
+def get_query(area_ids):
+    areas = "\n".join(f"      area({area_id});" for area_id in area_ids)
+    return f"""
+    [out:xml][timeout:600];
+    (
+{areas}
+    )->.searchArea;
+    way["highway"](area.searchArea);
+    (._;>;);
+    out body;
+    """
+
+def fetch_roads():
+    print(f"Fetching road network from Overpass API for {', '.join(name for name, _ in CITIES)}...")
+    url = "https://overpass-api.de/api/interpreter"
+    query = get_query([area_id for _, area_id in CITIES])
+
+    directory = os.path.dirname(OUTPUT_FILE)
+    if directory:
+        os.makedirs(directory, exist_ok=True)
+
+    # Write to a temporary file first so a failed download never replaces a good extract
+    partial_file = OUTPUT_FILE + ".part"
+    try:
+        with requests.get(url, params={"data": query}, timeout=900, stream=True) as response:
+            response.raise_for_status()
+            size = 0
+            with open(partial_file, "wb") as out:
+                for chunk in response.iter_content(chunk_size=1 << 20):
+                    out.write(chunk)
+                    size += len(chunk)
+        os.replace(partial_file, OUTPUT_FILE)
+        print(f"Saved {size / (1 << 20):.1f} MB to {OUTPUT_FILE}. Restart the application to load it.")
+    except Exception as e:
+        print(f"Error fetching road network: {e}")
+        if os.path.exists(partial_file):
+            os.remove(partial_file)
+
+if __name__ == "__main__":
+    fetch_roads()
@@ -1,7 +1,10 @@
 package com.polytechnique.tiibntick.config;
 
+import com.polytechnique.tiibntick.events.AnnouncementPublishedEvent;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -10,9 +13,15 @@ import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.core.reactive.ReactiveKafkaConsumerTemplate;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import reactor.kafka.receiver.ReceiverOptions;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -90,6 +99,19 @@ public class KafkaConfig {
                 .build();
     }
 
+    /**
+     * Creates the courier-arrived topic.
+     *
+     * @return the NewTopic bean
+     */
+    @Bean
+    public NewTopic courierArrivedTopic() {
+        return TopicBuilder.name("courier-arrived")
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
+
     /**
      * Creates the Kafka consumer factory.
      *
@@ -108,6 +130,42 @@ public class KafkaConfig {
         return new org.springframework.kafka.core.DefaultKafkaConsumerFactory<>(configProps);
     }
 
+    /**
+     * Creates the reactive consumer used for announcement matching.
+     *
+     * <p>
+     * Offsets are committed only after the matching pipeline acknowledges a
+     * record. Deferred commits let records complete out of order while still
+     * committing contiguous offsets only. Malformed payloads are turned into null
+     * values by the ErrorHandlingDeserializer instead of killing the stream.
+     *
+     * @param maxDeferredCommits maximum number of acknowledged but uncommitted
+     *                           records held while an earlier one is in flight
+     * @return the ReactiveKafkaConsumerTemplate bean
+     */
+    @Bean
+    public ReactiveKafkaConsumerTemplate<String, AnnouncementPublishedEvent> announcementPublishedConsumerTemplate(
+            @Value("${matching.consumer.max-deferred-commits:1000}") int maxDeferredCommits) {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        // Same group as the former @KafkaListener so committed offsets are preserved
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "tiibntick-group");
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, AnnouncementPublishedEvent.class.getName());
+
+        ReceiverOptions<String, AnnouncementPublishedEvent> receiverOptions = ReceiverOptions
+                .<String, AnnouncementPublishedEvent>create(configProps)
+                .subscription(List.of("announcement-published"))
+                .commitInterval(Duration.ofSeconds(1))
+                .maxDeferredCommits(maxDeferredCommits);
+
+        return new ReactiveKafkaConsumerTemplate<>(receiverOptions);
+    }
+
     /**
      * Creates the Kafka listener container factory with robust error handling.
      *
@@ -43,6 +43,7 @@ public class SecurityConfig {
                                                 .permitAll()
                                                 .pathMatchers("/uploads/**").permitAll()
                                                 .pathMatchers("/api/notifications/stream/**").permitAll()
+                                                .pathMatchers(WebSocketConfig.COURIER_GATEWAY_PATH).hasRole("LIVREUR")
                                                 .pathMatchers("/api/admin/**").hasRole("ADMIN")
                                                 .anyExchange().authenticated())
                                 .build();
@@ -0,0 +1,27 @@
+package com.polytechnique.tiibntick.config;
+
+import com.polytechnique.tiibntick.controllers.CourierGatewayHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Registers the WebSocket endpoints.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Configuration
+public class WebSocketConfig {
+
+    public static final String COURIER_GATEWAY_PATH = "/ws/couriers";
+
+    @Bean
+    public HandlerMapping courierGatewayHandlerMapping(CourierGatewayHandler courierGatewayHandler) {
+        // Ordered before the annotated controllers
+        return new SimpleUrlHandlerMapping(Map.of(COURIER_GATEWAY_PATH, courierGatewayHandler), -1);
+    }
+}
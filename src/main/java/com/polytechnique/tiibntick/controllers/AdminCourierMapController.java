@@ -0,0 +1,70 @@
+package com.polytechnique.tiibntick.controllers;
+
+import com.polytechnique.tiibntick.dtos.admin.CourierDensityDTO;
+import com.polytechnique.tiibntick.services.location.CourierDensityGrid;
+import com.polytechnique.tiibntick.services.map.CourierTileService;
+import com.polytechnique.tiibntick.services.map.WebMercator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Admin map views of the couriers available for matching.
+ * All endpoints require ADMIN role.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminCourierMapController {
+
+    private static final MediaType VECTOR_TILE = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+
+    private final CourierDensityGrid courierDensityGrid;
+    private final CourierTileService courierTileService;
+
+    /**
+     * Returns the courier count of every non-empty tile in the bounding box.
+     */
+    @GetMapping("/couriers/density")
+    public Mono<CourierDensityDTO> getDensity(
+            @RequestParam(defaultValue = "12") int zoom,
+            @RequestParam(defaultValue = "-90") double minLat,
+            @RequestParam(defaultValue = "-180") double minLon,
+            @RequestParam(defaultValue = "90") double maxLat,
+            @RequestParam(defaultValue = "180") double maxLon) {
+        return Mono.fromSupplier(() -> courierDensityGrid.snapshot(zoom, minLat, minLon, maxLat, maxLon));
+    }
+
+    /**
+     * Streams a snapshot of the level, then the counts of the tiles that change.
+     */
+    @GetMapping(value = "/couriers/density/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<CourierDensityDTO> streamDensity(@RequestParam(defaultValue = "12") int zoom) {
+        return courierDensityGrid.stream(zoom);
+    }
+
+    /**
+     * Returns a Mapbox Vector Tile of courier positions, clustered at low zoom.
+     */
+    @GetMapping("/tiles/{z}/{x}/{y}")
+    public Mono<ResponseEntity<byte[]>> getTile(@PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        if (!WebMercator.isValidTile(z, x, y)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return Mono.fromSupplier(() -> ResponseEntity.ok()
+                .contentType(VECTOR_TILE)
+                .cacheControl(CacheControl.maxAge(courierTileService.cacheTtl()).cachePrivate())
+                .body(courierTileService.tile(z, x, y)));
+    }
+}
@@ -3,13 +3,18 @@ package com.polytechnique.tiibntick.controllers;
 import com.polytechnique.tiibntick.dtos.requests.AdminDeliveryPersonValidationRequest;
 import com.polytechnique.tiibntick.dtos.responses.DeliveryPersonDetailsResponse;
 import com.polytechnique.tiibntick.services.AdminDeliveryPersonService;
+import com.polytechnique.tiibntick.services.location.CourierTrackPoint;
+import com.polytechnique.tiibntick.services.location.CourierTrackStore;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 import java.util.UUID;
@@ -24,6 +29,7 @@ import java.util.UUID;
  * <li>Suspension of active accounts</li>
  * <li>Revocation of accounts</li>
  * <li>Retrieval of detailed account information</li>
+ * <li>Replay of a courier's recorded positions</li>
  * </ul>
  *
  * <p>
@@ -39,6 +45,7 @@ import java.util.UUID;
 public class AdminDeliveryPersonController {
 
     private final AdminDeliveryPersonService adminService;
+    private final CourierTrackStore courierTrackStore;
 
     /**
      * Validates or rejects a delivery person's registration.
@@ -102,6 +109,25 @@ public class AdminDeliveryPersonController {
                 });
     }
 
+    /**
+     * Replays the positions recorded for a delivery person, oldest first.
+     *
+     * @param id   the UUID of the delivery person
+     * @param from start of the window (ISO-8601), defaults to one hour before
+     *             {@code to}
+     * @param to   end of the window (ISO-8601), defaults to now
+     * @return the recorded positions within the window
+     */
+    @GetMapping("/{id}/track")
+    public Flux<CourierTrackPoint> getTrack(
+            @PathVariable UUID id,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofHours(1));
+        return courierTrackStore.replay(id, start, end);
+    }
+
     /**
      * Suspends a delivery person's account.
      *
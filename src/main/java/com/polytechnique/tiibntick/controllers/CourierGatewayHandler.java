@@ -0,0 +1,220 @@
+package com.polytechnique.tiibntick.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polytechnique.tiibntick.dtos.gateway.CourierGatewayFrame;
+import com.polytechnique.tiibntick.security.JwtUtil;
+import com.polytechnique.tiibntick.services.AnnouncementService;
+import com.polytechnique.tiibntick.services.DeliveryPersonLocationService;
+import com.polytechnique.tiibntick.services.support.NotificationStreamService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * WebSocket gateway giving each courier a single connection for location
+ * pings and subscriptions (upstream) and match notifications, location and
+ * subscription acknowledgements (downstream).
+ *
+ * <p>
+ * The JWT is checked once at handshake time by the security filter chain;
+ * frames are then attributed to the {@code deliveryPersonId} claim of that
+ * token, so a courier can only report its own position and bid in its own
+ * name. The server sends a HEARTBEAT frame every {@code heartbeatInterval}
+ * and closes the connection when nothing was received from the courier for
+ * {@code idleTimeout}. Downstream frames wait in a bounded buffer while the
+ * socket is slow; once it is full the oldest frames are dropped.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Component
+public class CourierGatewayHandler implements WebSocketHandler {
+
+    private final ObjectMapper objectMapper;
+    private final JwtUtil jwtUtil;
+    private final DeliveryPersonLocationService deliveryPersonLocationService;
+    private final AnnouncementService announcementService;
+    private final NotificationStreamService notificationStreamService;
+    private final Duration heartbeatInterval;
+    private final Duration idleTimeout;
+    private final int outboundBufferSize;
+
+    public CourierGatewayHandler(
+            ObjectMapper objectMapper,
+            JwtUtil jwtUtil,
+            DeliveryPersonLocationService deliveryPersonLocationService,
+            AnnouncementService announcementService,
+            NotificationStreamService notificationStreamService,
+            @Value("${courier.gateway.heartbeat-interval-ms:20000}") long heartbeatIntervalMs,
+            @Value("${courier.gateway.idle-timeout-ms:60000}") long idleTimeoutMs,
+            @Value("${courier.gateway.outbound-buffer-size:256}") int outboundBufferSize) {
+        this.objectMapper = objectMapper;
+        this.jwtUtil = jwtUtil;
+        this.deliveryPersonLocationService = deliveryPersonLocationService;
+        this.announcementService = announcementService;
+        this.notificationStreamService = notificationStreamService;
+        this.heartbeatInterval = Duration.ofMillis(Math.max(1, heartbeatIntervalMs));
+        this.idleTimeout = Duration.ofMillis(Math.max(1, idleTimeoutMs));
+        this.outboundBufferSize = Math.max(1, outboundBufferSize);
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        return session.getHandshakeInfo().getPrincipal()
+                .mapNotNull(this::resolveDeliveryPersonId)
+                .map(deliveryPersonId -> serve(session, deliveryPersonId))
+                .defaultIfEmpty(Mono.defer(() -> {
+                    log.warn("Rejecting courier gateway session {} without a delivery person token", session.getId());
+                    return session.close(CloseStatus.POLICY_VIOLATION);
+                }))
+                .flatMap(Function.identity());
+    }
+
+    /**
+     * Runs a session until the courier disconnects or stops sending frames.
+     */
+    private Mono<Void> serve(WebSocketSession session, UUID deliveryPersonId) {
+        log.info("Courier {} connected to the gateway (session {})", deliveryPersonId, session.getId());
+
+        Sinks.Many<CourierGatewayFrame> replies = Sinks.many().unicast().onBackpressureBuffer();
+
+        Mono<Void> inbound = session.receive()
+                .timeout(idleTimeout)
+                .map(WebSocketMessage::getPayloadAsText)
+                .concatMap(payload -> handleFrame(deliveryPersonId, payload)
+                        .doOnNext(replies::tryEmitNext))
+                .then()
+                .onErrorResume(TimeoutException.class, e -> {
+                    log.info("Closing idle gateway session of courier {}", deliveryPersonId);
+                    return session.close(CloseStatus.GOING_AWAY.withReason("Heartbeat timeout"));
+                });
+
+        Flux<CourierGatewayFrame> outbound = Flux.merge(
+                notificationStreamService.getNotificationStream(deliveryPersonId)
+                        .map(event -> CourierGatewayFrame.builder()
+                                .type(CourierGatewayFrame.Type.MATCH)
+                                .announcementId(event.getAnnouncementId())
+                                .notification(event)
+                                .build()),
+                replies.asFlux(),
+                Flux.interval(heartbeatInterval)
+                        .map(tick -> CourierGatewayFrame.builder().type(CourierGatewayFrame.Type.HEARTBEAT).build()))
+                .onBackpressureBuffer(outboundBufferSize,
+                        dropped -> log.debug("Dropping {} frame for slow courier {}", dropped.getType(),
+                                deliveryPersonId),
+                        BufferOverflowStrategy.DROP_OLDEST);
+
+        Mono<Void> send = session.send(outbound.mapNotNull(this::write).map(session::textMessage));
+
+        // The downstream never completes on its own: the session ends with the upstream
+        return Mono.firstWithSignal(inbound, send)
+                .doFinally(signal -> log.info("Courier {} disconnected from the gateway ({})",
+                        deliveryPersonId, signal));
+    }
+
+    /**
+     * Processes one upstream frame.
+     *
+     * @param deliveryPersonId the courier owning the session
+     * @param payload          the raw JSON frame
+     * @return the frame to send back, empty when none is due
+     */
+    Mono<CourierGatewayFrame> handleFrame(UUID deliveryPersonId, String payload) {
+        CourierGatewayFrame frame;
+        try {
+            frame = objectMapper.readValue(payload, CourierGatewayFrame.class);
+        } catch (JsonProcessingException e) {
+            return Mono.just(error(null, "Unreadable frame"));
+        }
+        if (frame.getType() == null) {
+            return Mono.just(error(frame.getRequestId(), "Missing frame type"));
+        }
+
+        switch (frame.getType()) {
+            case LOCATION:
+                if (!isValidPosition(frame.getLatitude(), frame.getLongitude())) {
+                    return Mono.just(error(frame.getRequestId(), "Invalid coordinates"));
+                }
+                return deliveryPersonLocationService
+                        .updateLocation(deliveryPersonId, frame.getLatitude(), frame.getLongitude())
+                        .map(response -> CourierGatewayFrame.builder()
+                                .type(CourierGatewayFrame.Type.LOCATION_ACK)
+                                .requestId(frame.getRequestId())
+                                .nextPingSeconds(response.getNextPingSeconds())
+                                .build());
+            case SUBSCRIBE:
+                if (frame.getAnnouncementId() == null) {
+                    return Mono.just(error(frame.getRequestId(), "Missing announcementId"));
+                }
+                return announcementService.initiateSubscription(frame.getAnnouncementId(), deliveryPersonId)
+                        .then(Mono.fromCallable(() -> CourierGatewayFrame.builder()
+                                .type(CourierGatewayFrame.Type.SUBSCRIPTION_ACK)
+                                .requestId(frame.getRequestId())
+                                .announcementId(frame.getAnnouncementId())
+                                .build()))
+                        .onErrorResume(e -> {
+                            log.error("Gateway subscription of courier {} to announcement {} failed",
+                                    deliveryPersonId, frame.getAnnouncementId(), e);
+                            return Mono.just(error(frame.getRequestId(), "Subscription failed"));
+                        });
+            case HEARTBEAT:
+                // Receiving it already reset the idle timeout
+                return Mono.empty();
+            default:
+                return Mono.just(error(frame.getRequestId(), "Unsupported frame type " + frame.getType()));
+        }
+    }
+
+    private UUID resolveDeliveryPersonId(Principal principal) {
+        if (!(principal instanceof Authentication authentication)
+                || !(authentication.getCredentials() instanceof String token)) {
+            return null;
+        }
+        try {
+            String claim = jwtUtil.extractDeliveryPersonId(token);
+            return claim == null ? null : UUID.fromString(claim);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static boolean isValidPosition(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && latitude >= -90 && latitude <= 90
+                && longitude >= -180 && longitude <= 180;
+    }
+
+    private static CourierGatewayFrame error(String requestId, String message) {
+        return CourierGatewayFrame.builder()
+                .type(CourierGatewayFrame.Type.ERROR)
+                .requestId(requestId)
+                .message(message)
+                .build();
+    }
+
+    private String write(CourierGatewayFrame frame) {
+        try {
+            return objectMapper.writeValueAsString(frame);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize gateway frame {}", frame.getType(), e);
+            return null;
+        }
+    }
+}
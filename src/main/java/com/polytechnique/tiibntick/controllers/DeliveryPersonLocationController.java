@@ -1,6 +1,7 @@
 package com.polytechnique.tiibntick.controllers;
 
 import com.polytechnique.tiibntick.dtos.requests.DeliveryPersonLocationUpdateRequest;
+import com.polytechnique.tiibntick.dtos.responses.LocationUpdateResponse;
 import com.polytechnique.tiibntick.services.DeliveryPersonLocationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -24,11 +25,11 @@ public class DeliveryPersonLocationController {
     private final DeliveryPersonLocationService deliveryPersonLocationService;
 
     @PatchMapping("/{id}/location")
-    public Mono<ResponseEntity<Void>> updateLocation(
+    public Mono<ResponseEntity<LocationUpdateResponse>> updateLocation(
             @PathVariable UUID id,
             @Valid @RequestBody DeliveryPersonLocationUpdateRequest request) {
 
         return deliveryPersonLocationService.updateLocation(id, request.getLatitude(), request.getLongitude())
-                .then(Mono.just(ResponseEntity.ok().build()));
+                .map(ResponseEntity::ok);
     }
 }
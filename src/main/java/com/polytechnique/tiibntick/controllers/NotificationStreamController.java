@@ -4,9 +4,12 @@ import com.polytechnique.tiibntick.events.MatchingNotificationEvent;
 import com.polytechnique.tiibntick.services.support.NotificationStreamService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 
@@ -22,8 +25,31 @@ public class NotificationStreamController {
 
     private final NotificationStreamService notificationStreamService;
 
+    /**
+     * Opens the SSE stream. A client reconnecting with the {@code Last-Event-ID}
+     * header, or the {@code lastEventId} parameter for clients that cannot set
+     * headers, first receives the notifications it missed.
+     */
     @GetMapping(value = "/stream/{deliveryPersonId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<MatchingNotificationEvent> getNotificationStream(@PathVariable UUID deliveryPersonId) {
-        return notificationStreamService.getNotificationStream(deliveryPersonId);
+    public Flux<ServerSentEvent<MatchingNotificationEvent>> getNotificationStream(
+            @PathVariable UUID deliveryPersonId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        Long lastEventId = parseEventId(lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam);
+        return notificationStreamService.getServerSentEventStream(deliveryPersonId, lastEventId);
+    }
+
+    /**
+     * An unreadable event id opens a plain live stream rather than failing.
+     */
+    private static Long parseEventId(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,33 @@
+package com.polytechnique.tiibntick.dtos.admin;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Courier counts per Web Mercator tile at one zoom level.
+ *
+ * <p>
+ * {@code cells} is a flat array of {@code x, y, count} triplets, one per
+ * tile. A snapshot lists the non-empty tiles; a delta lists the tiles whose
+ * count changed, with their new count (0 once a tile is empty).
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourierDensityDTO {
+
+    public enum Type {
+        SNAPSHOT,
+        DELTA
+    }
+
+    private Type type;
+    private int zoom;
+    private int[] cells;
+}
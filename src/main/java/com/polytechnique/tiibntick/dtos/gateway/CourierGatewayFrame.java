@@ -0,0 +1,55 @@
+package com.polytechnique.tiibntick.dtos.gateway;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.polytechnique.tiibntick.events.MatchingNotificationEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * JSON frame exchanged with a courier over the WebSocket gateway.
+ * Only the fields relevant to the frame type are set.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CourierGatewayFrame {
+
+    public enum Type {
+        /** Courier → server: current position. */
+        LOCATION,
+        /** Courier → server: bid on an announcement. */
+        SUBSCRIBE,
+        /** Both directions: keeps the connection alive. */
+        HEARTBEAT,
+        /** Server → courier: a new announcement matched the courier. */
+        MATCH,
+        /** Server → courier: a LOCATION frame was received, with the next ping delay. */
+        LOCATION_ACK,
+        /** Server → courier: a SUBSCRIBE frame was accepted. */
+        SUBSCRIPTION_ACK,
+        /** Server → courier: a frame could not be processed. */
+        ERROR
+    }
+
+    private Type type;
+
+    /** Optional client-chosen id, echoed in the matching ack or error. */
+    private String requestId;
+
+    private Double latitude;
+    private Double longitude;
+    private UUID announcementId;
+    /** Suggested delay before the next LOCATION frame, in seconds. */
+    private Integer nextPingSeconds;
+    private MatchingNotificationEvent notification;
+    private String message;
+}
@@ -0,0 +1,50 @@
+package com.polytechnique.tiibntick.dtos.geofence;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Column;
+
+import java.util.UUID;
+
+/**
+ * Read projection of an accepted subscription with the coordinates of its
+ * announcement's pickup and delivery addresses, and whether its courier already
+ * reached each of them. Coordinates are null when the address was never
+ * geocoded.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AcceptedSubscriptionStops {
+
+    @Column("subscription_id")
+    private UUID subscriptionId;
+
+    @Column("announcement_id")
+    private UUID announcementId;
+
+    @Column("delivery_person_id")
+    private UUID deliveryPersonId;
+
+    @Column("pickup_latitude")
+    private Double pickupLatitude;
+
+    @Column("pickup_longitude")
+    private Double pickupLongitude;
+
+    @Column("delivery_latitude")
+    private Double deliveryLatitude;
+
+    @Column("delivery_longitude")
+    private Double deliveryLongitude;
+
+    @Column("pickup_reached")
+    private boolean pickupReached;
+
+    @Column("delivery_reached")
+    private boolean deliveryReached;
+}
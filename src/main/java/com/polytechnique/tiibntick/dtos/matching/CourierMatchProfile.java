@@ -0,0 +1,50 @@
+package com.polytechnique.tiibntick.dtos.matching;
+
+import com.polytechnique.tiibntick.models.enums.logistics.LogisticsClass;
+import com.polytechnique.tiibntick.models.enums.logistics.LogisticsType;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Column;
+
+/**
+ * Read projection joining a delivery person with its person rating and one of
+ * its logistics vehicles. Used to rank matching candidates; a delivery person
+ * owning several vehicles yields one row per vehicle.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourierMatchProfile {
+
+    @Column("delivery_person_id")
+    private UUID deliveryPersonId;
+
+    @Column("rating")
+    private Double rating;
+
+    @Column("failed_deliveries")
+    private Integer failedDeliveries;
+
+    @Column("logistics_type")
+    private LogisticsType logisticsType;
+
+    @Column("logistics_class")
+    private LogisticsClass logisticsClass;
+
+    @Column("length")
+    private Double length;
+
+    @Column("width")
+    private Double width;
+
+    @Column("height")
+    private Double height;
+
+    @Column("unit")
+    private String unit;
+}
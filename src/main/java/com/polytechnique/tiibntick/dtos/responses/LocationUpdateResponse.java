@@ -0,0 +1,21 @@
+package com.polytechnique.tiibntick.dtos.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for a delivery person location update.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationUpdateResponse {
+    /** False when the position was too close to the last one to be stored. */
+    private boolean accepted;
+    /** Suggested delay before the next location update. */
+    private int nextPingSeconds;
+}
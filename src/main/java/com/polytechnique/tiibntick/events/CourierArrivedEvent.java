@@ -0,0 +1,38 @@
+package com.polytechnique.tiibntick.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Event published when a courier enters the pickup or delivery geofence of an
+ * announcement it was accepted for. Published at most once per subscription and
+ * stop, across nodes and restarts: the arrival is recorded in SQL first and
+ * only the node that recorded it publishes.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourierArrivedEvent {
+
+    public enum Stop {
+        PICKUP,
+        DELIVERY
+    }
+
+    private UUID subscriptionId;
+    private UUID announcementId;
+    private UUID deliveryPersonId;
+    private Stop stop;
+    private Double latitude;
+    private Double longitude;
+    private Instant arrivedAt;
+}
@@ -22,4 +22,6 @@ public class MatchingNotificationEvent {
     private UUID announcementId;
     private String title;
     private String message;
+    /** Event id of the persisted notification, sent as the SSE id. */
+    private Long eventId;
 }
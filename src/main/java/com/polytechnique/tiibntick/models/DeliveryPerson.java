@@ -78,4 +78,7 @@ public class DeliveryPerson {
 
     @Column("subscription_id")
     private UUID subscriptionId;
+
+    @Column("last_seen_at")
+    private Instant lastSeenAt;
 }
\ No newline at end of file
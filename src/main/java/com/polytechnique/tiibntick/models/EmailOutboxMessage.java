@@ -0,0 +1,54 @@
+package com.polytechnique.tiibntick.models;
+
+import com.polytechnique.tiibntick.models.enums.notification.EmailOutboxStatus;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Represents an email waiting in the outbox to be sent.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("email_outbox")
+public class EmailOutboxMessage {
+
+    @Id
+    @Column("id")
+    private UUID id;
+
+    @Column("recipient")
+    private String recipient;
+
+    @Column("subject")
+    private String subject;
+
+    @Column("body")
+    private String body;
+
+    @Column("status")
+    private EmailOutboxStatus status;
+
+    @Column("attempts")
+    private Integer attempts;
+
+    @Column("next_attempt_at")
+    private Instant nextAttemptAt;
+
+    @Column("last_error")
+    private String lastError;
+
+    @Column("created_at")
+    private Instant createdAt;
+}
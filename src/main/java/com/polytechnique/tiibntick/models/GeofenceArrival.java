@@ -0,0 +1,31 @@
+package com.polytechnique.tiibntick.models;
+
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Records that the courier of a subscription reached one of its stops.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("geofence_arrivals")
+public class GeofenceArrival {
+
+    @Column("subscription_id")
+    private UUID subscriptionId;
+
+    @Column("stop")
+    private String stop;
+
+    @Column("arrived_at")
+    private Instant arrivedAt;
+}
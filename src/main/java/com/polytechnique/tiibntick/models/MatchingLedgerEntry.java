@@ -0,0 +1,31 @@
+package com.polytechnique.tiibntick.models;
+
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Records that a delivery person was notified about an announcement.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("matching_ledger")
+public class MatchingLedgerEntry {
+
+    @Column("announcement_id")
+    private UUID announcementId;
+
+    @Column("delivery_person_id")
+    private UUID deliveryPersonId;
+
+    @Column("notified_at")
+    private Instant notifiedAt;
+}
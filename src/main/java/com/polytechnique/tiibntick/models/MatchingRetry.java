@@ -0,0 +1,40 @@
+package com.polytechnique.tiibntick.models;
+
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Represents a pending re-matching attempt for an announcement that found no
+ * eligible delivery person.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("matching_retries")
+public class MatchingRetry {
+
+    @Id
+    @Column("announcement_id")
+    private UUID announcementId;
+
+    @Column("attempts")
+    private Integer attempts;
+
+    @Column("next_attempt_at")
+    private Instant nextAttemptAt;
+
+    @Column("created_at")
+    private Instant createdAt;
+
+    @Column("updated_at")
+    private Instant updatedAt;
+}
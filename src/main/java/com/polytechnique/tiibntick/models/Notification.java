@@ -3,11 +3,13 @@ package com.polytechnique.tiibntick.models;
 import com.polytechnique.tiibntick.models.enums.notification.NotificationStatus;
 import com.polytechnique.tiibntick.models.enums.notification.NotificationType;
 import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -47,4 +49,19 @@ public class Notification {
     @NotNull
     @Column("notification_status")
     private NotificationStatus notificationStatus;
+
+    @Column("announcement_id")
+    private UUID announcementId;
+
+    /**
+     * Insertion order, generated by the database. Used as the SSE event id of
+     * matching notifications.
+     */
+    @ReadOnlyProperty
+    @Column("event_id")
+    private Long eventId;
+
+    @ReadOnlyProperty
+    @Column("created_at")
+    private Instant createdAt;
 }
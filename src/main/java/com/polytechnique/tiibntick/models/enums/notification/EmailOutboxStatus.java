@@ -0,0 +1,15 @@
+package com.polytechnique.tiibntick.models.enums.notification;
+
+/**
+ * Represents the status of an email waiting in the outbox.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+public enum EmailOutboxStatus {
+
+    /** Waiting to be sent, or to be retried. */
+    PENDING,
+    /** Every attempt failed; kept for inspection. */
+    FAILED
+}
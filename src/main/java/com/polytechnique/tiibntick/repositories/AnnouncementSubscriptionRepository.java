@@ -1,8 +1,11 @@
 package com.polytechnique.tiibntick.repositories;
 
+import com.polytechnique.tiibntick.dtos.geofence.AcceptedSubscriptionStops;
 import com.polytechnique.tiibntick.models.AnnouncementSubscription;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 
 import java.util.UUID;
 
@@ -17,4 +20,26 @@ import java.util.UUID;
 public interface AnnouncementSubscriptionRepository extends ReactiveCrudRepository<AnnouncementSubscription, UUID> {
     reactor.core.publisher.Mono<AnnouncementSubscription> findByAnnouncementIdAndDeliveryPersonId(UUID announcementId,
             UUID deliveryPersonId);
+
+    /**
+     * Lists the accepted subscriptions whose announcement is still under way,
+     * with the coordinates of its pickup and delivery addresses and whether each
+     * of them was already reached.
+     *
+     * @return one row per accepted subscription
+     */
+    @Query("SELECT s.id AS subscription_id, s.announcement_id AS announcement_id, "
+            + "s.delivery_person_id AS delivery_person_id, "
+            + "pa.latitude AS pickup_latitude, pa.longitude AS pickup_longitude, "
+            + "da.latitude AS delivery_latitude, da.longitude AS delivery_longitude, "
+            + "EXISTS (SELECT 1 FROM geofence_arrivals g WHERE g.subscription_id = s.id AND g.stop = 'PICKUP') "
+            + "AS pickup_reached, "
+            + "EXISTS (SELECT 1 FROM geofence_arrivals g WHERE g.subscription_id = s.id AND g.stop = 'DELIVERY') "
+            + "AS delivery_reached "
+            + "FROM announcement_subscriptions s "
+            + "JOIN announcements a ON a.id = s.announcement_id "
+            + "JOIN addresses pa ON pa.id = a.pickup_address_id "
+            + "JOIN addresses da ON da.id = a.delivery_address_id "
+            + "WHERE s.status = 'ACCEPTED' AND a.status NOT IN ('COMPLETED', 'CANCELLED')")
+    Flux<AcceptedSubscriptionStops> findAcceptedStops();
 }
@@ -1,11 +1,14 @@
 package com.polytechnique.tiibntick.repositories;
 
+import com.polytechnique.tiibntick.dtos.matching.CourierMatchProfile;
 import com.polytechnique.tiibntick.models.DeliveryPerson;
 import com.polytechnique.tiibntick.models.enums.deliveryPerson.DeliveryPersonStatus;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.UUID;
 
 /**
@@ -43,4 +46,50 @@ public interface DeliveryPersonRepository extends ReactiveCrudRepository<Deliver
      * @return a Flux of delivery persons with GPS coordinates
      */
     Flux<DeliveryPerson> findAllByIsActiveTrueAndLatitudeGpsIsNotNullAndLongitudeGpsIsNotNull();
+
+    /**
+     * Finds all active delivery persons located inside a lat/lon bounding box.
+     * The predicate matches the partial GiST index on positions, so only the rows
+     * inside the box are read.
+     *
+     * @return a Flux of delivery persons inside the box
+     */
+    @Query("SELECT * FROM delivery_persons "
+            + "WHERE is_active = TRUE AND latitude_gps IS NOT NULL AND longitude_gps IS NOT NULL "
+            + "AND point(longitude_gps, latitude_gps) <@ box(point(:minLon, :minLat), point(:maxLon, :maxLat))")
+    Flux<DeliveryPerson> findActiveInBoundingBox(double minLat, double minLon, double maxLat, double maxLon);
+
+    /**
+     * Writes the GPS positions of several delivery persons in one statement and
+     * marks them as seen now. Arrays are matched by index.
+     *
+     * @param ids        delivery person identifiers
+     * @param latitudes  new latitudes
+     * @param longitudes new longitudes
+     * @return the updated delivery persons; unknown identifiers are skipped
+     */
+    @Query("UPDATE delivery_persons AS dp "
+            + "SET latitude_gps = v.lat, longitude_gps = v.lon, last_seen_at = (NOW() AT TIME ZONE 'UTC') "
+            + "FROM UNNEST(CAST(:ids AS UUID[]), CAST(:latitudes AS FLOAT8[]), CAST(:longitudes AS FLOAT8[])) "
+            + "AS v(id, lat, lon) "
+            + "WHERE dp.id = v.id "
+            + "RETURNING dp.*")
+    Flux<DeliveryPerson> updateLocations(UUID[] ids, Double[] latitudes, Double[] longitudes);
+
+    /**
+     * Loads the ranking attributes of matching candidates in a single query:
+     * person rating, failed deliveries and vehicle capacity.
+     *
+     * @param ids delivery person identifiers
+     * @return one row per delivery person and vehicle (vehicle columns are null
+     *         when the delivery person has none)
+     */
+    @Query("SELECT dp.id AS delivery_person_id, p.rating AS rating, dp.failed_deliveries AS failed_deliveries, "
+            + "l.logistics_type AS logistics_type, l.logistics_class AS logistics_class, "
+            + "l.length AS length, l.width AS width, l.height AS height, l.unit AS unit "
+            + "FROM delivery_persons dp "
+            + "JOIN persons p ON p.id = dp.person_id "
+            + "LEFT JOIN logistics l ON l.delivery_person_id = dp.id "
+            + "WHERE dp.id IN (:ids)")
+    Flux<CourierMatchProfile> findMatchProfilesByIdIn(Collection<UUID> ids);
 }
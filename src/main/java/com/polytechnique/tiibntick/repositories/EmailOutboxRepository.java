@@ -0,0 +1,99 @@
+package com.polytechnique.tiibntick.repositories;
+
+import com.polytechnique.tiibntick.models.EmailOutboxMessage;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Reactive repository for the email outbox.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+public interface EmailOutboxRepository extends ReactiveCrudRepository<EmailOutboxMessage, UUID> {
+
+    /**
+     * Queues an email, due immediately.
+     *
+     * @param recipient recipient address
+     * @param subject   email subject
+     * @param body      plain text body
+     * @return number of inserted rows
+     */
+    @Modifying
+    @Query("INSERT INTO email_outbox (recipient, subject, body) VALUES (:recipient, :subject, :body)")
+    Mono<Integer> enqueue(String recipient, String subject, String body);
+
+    /**
+     * Queues the same email for several recipients in one statement, due
+     * immediately.
+     *
+     * @param recipients recipient addresses
+     * @param subject    email subject
+     * @param body       plain text body
+     * @return number of inserted rows
+     */
+    @Modifying
+    @Query("INSERT INTO email_outbox (recipient, subject, body) "
+            + "SELECT r, :subject, :body FROM UNNEST(CAST(:recipients AS TEXT[])) AS r")
+    Mono<Integer> enqueueAll(String[] recipients, String subject, String body);
+
+    /**
+     * Atomically claims a batch of due emails by leasing them for
+     * {@code leaseSeconds}. SKIP LOCKED lets several nodes poll concurrently
+     * without claiming the same rows; a lease expiring after a crash makes the
+     * row due again.
+     *
+     * @param batchSize    maximum number of rows to claim
+     * @param leaseSeconds how long claimed rows stay invisible to other pollers
+     * @return the claimed emails, oldest due first
+     */
+    @Query("UPDATE email_outbox SET next_attempt_at = NOW() + make_interval(secs => :leaseSeconds) "
+            + "WHERE id IN ("
+            + "SELECT id FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= NOW() "
+            + "ORDER BY next_attempt_at LIMIT :batchSize FOR UPDATE SKIP LOCKED) "
+            + "RETURNING *")
+    Flux<EmailOutboxMessage> claimDue(int batchSize, double leaseSeconds);
+
+    /**
+     * Removes sent emails from the outbox.
+     *
+     * @param ids identifiers of the sent emails
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM email_outbox WHERE id = ANY(CAST(:ids AS UUID[]))")
+    Mono<Integer> deleteSent(UUID[] ids);
+
+    /**
+     * Records a failed attempt and makes the email due again after a delay.
+     *
+     * @param id           email identifier
+     * @param attempts     attempts made so far
+     * @param delaySeconds delay before the next attempt
+     * @param lastError    error of the failed attempt
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE email_outbox SET attempts = :attempts, last_error = :lastError, "
+            + "next_attempt_at = NOW() + make_interval(secs => :delaySeconds) WHERE id = :id")
+    Mono<Integer> reschedule(UUID id, int attempts, double delaySeconds, String lastError);
+
+    /**
+     * Records the last failed attempt of an email, which is not retried.
+     *
+     * @param id        email identifier
+     * @param attempts  attempts made
+     * @param lastError error of the last attempt
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE email_outbox SET status = 'FAILED', attempts = :attempts, last_error = :lastError "
+            + "WHERE id = :id")
+    Mono<Integer> markFailed(UUID id, int attempts, String lastError);
+}
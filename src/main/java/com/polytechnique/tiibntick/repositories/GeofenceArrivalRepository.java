@@ -0,0 +1,35 @@
+package com.polytechnique.tiibntick.repositories;
+
+import com.polytechnique.tiibntick.models.GeofenceArrival;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Reactive repository for geofence arrivals. Entries are keyed by
+ * (subscription, stop), so only query methods are exposed.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+public interface GeofenceArrivalRepository extends Repository<GeofenceArrival, UUID> {
+
+    /**
+     * Records an arrival unless one is already recorded for the same
+     * subscription and stop.
+     *
+     * @param subscriptionId subscription identifier
+     * @param stop           PICKUP or DELIVERY
+     * @param arrivedAt      time of the ping inside the fence
+     * @return the subscription identifier if the arrival was recorded, empty if
+     *         it already was
+     */
+    @Query("INSERT INTO geofence_arrivals (subscription_id, stop, arrived_at) "
+            + "VALUES (:subscriptionId, :stop, :arrivedAt) "
+            + "ON CONFLICT (subscription_id, stop) DO NOTHING "
+            + "RETURNING subscription_id")
+    Mono<UUID> claim(UUID subscriptionId, String stop, Instant arrivedAt);
+}
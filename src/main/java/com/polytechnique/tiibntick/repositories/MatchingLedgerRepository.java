@@ -0,0 +1,32 @@
+package com.polytechnique.tiibntick.repositories;
+
+import com.polytechnique.tiibntick.models.MatchingLedgerEntry;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+/**
+ * Reactive repository for the matching ledger. Entries are keyed by
+ * (announcement, delivery person), so only query methods are exposed.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+public interface MatchingLedgerRepository extends Repository<MatchingLedgerEntry, UUID> {
+
+    /**
+     * Records the given delivery persons as notified for an announcement,
+     * skipping those already recorded.
+     *
+     * @param announcementId    announcement identifier
+     * @param deliveryPersonIds delivery person identifiers
+     * @return the identifiers that were not recorded yet
+     */
+    @Query("INSERT INTO matching_ledger (announcement_id, delivery_person_id, notified_at) "
+            + "SELECT :announcementId, dp_id, NOW() FROM UNNEST(CAST(:deliveryPersonIds AS UUID[])) AS dp_id "
+            + "ON CONFLICT (announcement_id, delivery_person_id) DO NOTHING "
+            + "RETURNING delivery_person_id")
+    Flux<UUID> claim(UUID announcementId, UUID[] deliveryPersonIds);
+}
@@ -0,0 +1,54 @@
+package com.polytechnique.tiibntick.repositories;
+
+import com.polytechnique.tiibntick.models.MatchingRetry;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Reactive repository for MatchingRetry entity.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+public interface MatchingRetryRepository extends ReactiveCrudRepository<MatchingRetry, UUID> {
+
+    /**
+     * Schedules a re-matching attempt, or pushes back an existing one with
+     * exponential backoff ({@code base * 2^attempts}, capped at {@code max}).
+     *
+     * @param announcementId     announcement identifier
+     * @param baseDelaySeconds   delay before the first retry
+     * @param maxDelaySeconds    upper bound of the backoff
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query("INSERT INTO matching_retries (announcement_id, attempts, next_attempt_at, created_at, updated_at) "
+            + "VALUES (:announcementId, 1, NOW() + make_interval(secs => :baseDelaySeconds), NOW(), NOW()) "
+            + "ON CONFLICT (announcement_id) DO UPDATE SET "
+            + "attempts = matching_retries.attempts + 1, "
+            + "next_attempt_at = NOW() + make_interval(secs => LEAST(:baseDelaySeconds * POWER(2, matching_retries.attempts), :maxDelaySeconds)), "
+            + "updated_at = NOW()")
+    Mono<Integer> upsertWithBackoff(UUID announcementId, double baseDelaySeconds, double maxDelaySeconds);
+
+    /**
+     * Atomically claims a batch of due retries by leasing them for
+     * {@code leaseSeconds}. SKIP LOCKED lets several nodes poll concurrently
+     * without claiming the same rows; a lease expiring after a crash makes the
+     * row due again.
+     *
+     * @param batchSize    maximum number of rows to claim
+     * @param leaseSeconds how long claimed rows stay invisible to other pollers
+     * @return the claimed retries
+     */
+    @Query("UPDATE matching_retries SET next_attempt_at = NOW() + make_interval(secs => :leaseSeconds) "
+            + "WHERE announcement_id IN ("
+            + "SELECT announcement_id FROM matching_retries WHERE next_attempt_at <= NOW() "
+            + "ORDER BY next_attempt_at LIMIT :batchSize FOR UPDATE SKIP LOCKED) "
+            + "RETURNING *")
+    Flux<MatchingRetry> claimDue(int batchSize, double leaseSeconds);
+}
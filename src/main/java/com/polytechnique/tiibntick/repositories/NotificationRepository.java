@@ -1,9 +1,12 @@
 package com.polytechnique.tiibntick.repositories;
 
 import com.polytechnique.tiibntick.models.Notification;
+import java.time.Instant;
 import java.util.UUID;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 
 /**
  * Repository for Notification entity operations.
@@ -13,4 +16,40 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface NotificationRepository extends ReactiveCrudRepository<Notification, UUID> {
+
+    /**
+     * Inserts the same notification for several persons in one statement and
+     * returns the rows with the columns generated by the database, including
+     * their event ids.
+     *
+     * @param personIds          recipient person identifiers
+     * @param notificationType   notification type name
+     * @param title              notification title
+     * @param message            notification message
+     * @param notificationStatus notification status name
+     * @param announcementId     announcement the notification is about
+     * @return the inserted notifications
+     */
+    @Query("INSERT INTO notifications (person_id, notification_type, title, message, notification_status, "
+            + "announcement_id) SELECT p_id, :notificationType, :title, :message, :notificationStatus, "
+            + ":announcementId FROM UNNEST(CAST(:personIds AS UUID[])) AS p_id RETURNING *")
+    Flux<Notification> insertAll(UUID[] personIds, String notificationType, String title, String message,
+            String notificationStatus, UUID announcementId);
+
+    /**
+     * Returns the newest announcement notifications of a delivery person after
+     * an event id, newest first. Served by the (person_id, event_id) index.
+     *
+     * @param deliveryPersonId the delivery person ID
+     * @param afterEventId     exclusive lower bound of the event ids
+     * @param since            notifications created before are ignored
+     * @param limit            maximum number of notifications
+     * @return the notifications, newest first
+     */
+    @Query("SELECT n.* FROM notifications n JOIN delivery_persons dp ON dp.person_id = n.person_id "
+            + "WHERE dp.id = :deliveryPersonId AND n.event_id > :afterEventId "
+            + "AND n.announcement_id IS NOT NULL AND n.created_at >= :since "
+            + "ORDER BY n.event_id DESC LIMIT :limit")
+    Flux<Notification> findNewestAnnouncementNotifications(UUID deliveryPersonId, long afterEventId, Instant since,
+            int limit);
 }
@@ -51,6 +51,11 @@ public class JwtUtil {
         return claims.get("userType", String.class);
     }
 
+    public String extractDeliveryPersonId(String token) {
+        final Claims claims = extractAllClaims(token);
+        return claims.get("deliveryPersonId", String.class);
+    }
+
     private Claims extractAllClaims(String token) {
         return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
     }
@@ -8,6 +8,8 @@ import com.polytechnique.tiibntick.exceptions.ForbiddenOperationException;
 import com.polytechnique.tiibntick.models.enums.deliveryPerson.DeliveryPersonStatus;
 import com.polytechnique.tiibntick.services.deliveryperson.LectureDeliveryPersonService;
 import com.polytechnique.tiibntick.services.deliveryperson.ModificationDeliveryPersonService;
+import com.polytechnique.tiibntick.services.deliveryperson.DeliveryPersonSearchIndexer;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
 import com.polytechnique.tiibntick.services.person.LecturePersonService;
 import com.polytechnique.tiibntick.services.support.EmailService;
 import com.polytechnique.tiibntick.services.support.KafkaEventPublisher;
@@ -44,6 +46,8 @@ public class AdminDeliveryPersonService {
     private final KafkaEventPublisher kafkaEventPublisher;
     private final com.polytechnique.tiibntick.repositories.LogisticsRepository logisticsRepository;
     private final com.polytechnique.tiibntick.repositories.DeliveryPersonRepository deliveryPersonRepository;
+    private final CourierSpatialIndex courierSpatialIndex;
+    private final DeliveryPersonSearchIndexer deliveryPersonSearchIndexer;
 
     /**
      * Validates or rejects a delivery person registration application.
@@ -71,6 +75,7 @@ public class AdminDeliveryPersonService {
                     if (request.isApproved()) {
                         dp.setStatus(DeliveryPersonStatus.APPROVED);
                         return modificationDeliveryPersonService.updateDeliveryPerson(dp)
+                                .flatMap(updated -> deliveryPersonSearchIndexer.reindex(updated).thenReturn(updated))
                                 .flatMap(updated -> lecturePersonService.findById(updated.getPersonId())
                                         .doOnNext(person -> {
                                             emailService.sendAccountApproved(person.getEmail());
@@ -83,6 +88,8 @@ public class AdminDeliveryPersonService {
                         dp.setStatus(DeliveryPersonStatus.REJECTED);
                         // dp.setIsActive(false); // Optional: ensure they are offline if rejected
                         return modificationDeliveryPersonService.updateDeliveryPerson(dp)
+                                .flatMap(updated -> deliveryPersonSearchIndexer.reindex(updated).thenReturn(updated))
+                                .doOnNext(updated -> courierSpatialIndex.evict(updated.getId()))
                                 .flatMap(updated -> lecturePersonService.findById(updated.getPersonId())
                                         .doOnNext(person -> {
                                             emailService.sendAccountRejected(person.getEmail(), request.getReason());
@@ -121,6 +128,8 @@ public class AdminDeliveryPersonService {
                     dp.setStatus(DeliveryPersonStatus.SUSPENDED);
                     dp.setIsActive(false); // Force offline
                     return modificationDeliveryPersonService.updateDeliveryPerson(dp)
+                            .flatMap(updated -> deliveryPersonSearchIndexer.reindex(updated).thenReturn(updated))
+                            .doOnNext(updated -> courierSpatialIndex.evict(updated.getId()))
                             .flatMap(updated -> lecturePersonService.findById(updated.getPersonId())
                                     .doOnNext(person -> {
                                         emailService.sendAccountSuspended(person.getEmail());
@@ -158,6 +167,8 @@ public class AdminDeliveryPersonService {
                     dp.setStatus(DeliveryPersonStatus.REVOKED);
                     dp.setIsActive(false); // Force offline
                     return modificationDeliveryPersonService.updateDeliveryPerson(dp)
+                            .flatMap(updated -> deliveryPersonSearchIndexer.reindex(updated).thenReturn(updated))
+                            .doOnNext(updated -> courierSpatialIndex.evict(updated.getId()))
                             .flatMap(updated -> lecturePersonService.findById(updated.getPersonId())
                                     .doOnNext(person -> {
                                         emailService.sendAccountRevoked(person.getEmail());
@@ -193,6 +204,8 @@ public class AdminDeliveryPersonService {
                     dp.setStatus(DeliveryPersonStatus.APPROVED);
                     dp.setIsActive(true);
                     return modificationDeliveryPersonService.updateDeliveryPerson(dp)
+                            .flatMap(updated -> deliveryPersonSearchIndexer.reindex(updated).thenReturn(updated))
+                            .doOnNext(courierSpatialIndex::upsert)
                             .flatMap(updated -> lecturePersonService.findById(updated.getPersonId())
                                     .doOnNext(person -> {
                                         emailService.sendAccountApproved(person.getEmail());
@@ -1,21 +1,33 @@
 package com.polytechnique.tiibntick.services;
 
-import com.polytechnique.tiibntick.elasticsearch.models.DeliveryPersonDocument;
-import com.polytechnique.tiibntick.elasticsearch.repositories.DeliveryPersonSearchRepository;
+import com.polytechnique.tiibntick.dtos.responses.LocationUpdateResponse;
 import com.polytechnique.tiibntick.repositories.DeliveryPersonRepository;
-import com.polytechnique.tiibntick.services.deliveryperson.LectureDeliveryPersonService;
-import com.polytechnique.tiibntick.services.person.LecturePersonService;
+import com.polytechnique.tiibntick.services.deliveryperson.DeliveryPersonSearchIndexer;
+import com.polytechnique.tiibntick.services.location.CourierLocationBuffer;
+import com.polytechnique.tiibntick.services.location.CourierPresenceService;
+import com.polytechnique.tiibntick.services.location.CourierTrackStore;
+import com.polytechnique.tiibntick.services.location.GeofenceEngine;
+import com.polytechnique.tiibntick.services.location.LocationDeadBand;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Service handling updating of Delivery Person location.
- * Always persists to SQL DB. Optionally syncs to Elasticsearch if available.
+ * Pings are acknowledged immediately and written behind in batches: always to
+ * the SQL DB, optionally to Elasticsearch if available. Pings too close to the
+ * last written position are not written. Every ping is also appended to the
+ * on-disk track history and checked against the courier's pickup and delivery
+ * geofences. Couriers that stop pinging are taken out of matching until their
+ * next ping.
  *
  * @author François-Charles ATANGA
  * @date 03/02/2026
@@ -24,104 +36,148 @@ import java.util.UUID;
 @Service
 public class DeliveryPersonLocationService {
 
-        private final DeliveryPersonSearchRepository deliveryPersonSearchRepository;
+        private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
         private final DeliveryPersonRepository deliveryPersonRepository;
-        private final LectureDeliveryPersonService lectureDeliveryPersonService;
-        private final LecturePersonService lecturePersonService;
+        private final DeliveryPersonSearchIndexer deliveryPersonSearchIndexer;
+        private final CourierSpatialIndex courierSpatialIndex;
+        private final CourierLocationBuffer courierLocationBuffer;
+        private final CourierTrackStore courierTrackStore;
+        private final GeofenceEngine geofenceEngine;
+        private final CourierPresenceService courierPresenceService;
+        private final LocationDeadBand locationDeadBand;
+
+        private final AtomicBoolean flushing = new AtomicBoolean(false);
 
         public DeliveryPersonLocationService(
-                        Optional<DeliveryPersonSearchRepository> deliveryPersonSearchRepository,
                         DeliveryPersonRepository deliveryPersonRepository,
-                        LectureDeliveryPersonService lectureDeliveryPersonService,
-                        LecturePersonService lecturePersonService) {
-                this.deliveryPersonSearchRepository = deliveryPersonSearchRepository.orElse(null);
+                        DeliveryPersonSearchIndexer deliveryPersonSearchIndexer,
+                        CourierSpatialIndex courierSpatialIndex,
+                        CourierLocationBuffer courierLocationBuffer,
+                        CourierTrackStore courierTrackStore,
+                        GeofenceEngine geofenceEngine,
+                        CourierPresenceService courierPresenceService,
+                        LocationDeadBand locationDeadBand) {
                 this.deliveryPersonRepository = deliveryPersonRepository;
-                this.lectureDeliveryPersonService = lectureDeliveryPersonService;
-                this.lecturePersonService = lecturePersonService;
+                this.deliveryPersonSearchIndexer = deliveryPersonSearchIndexer;
+                this.courierSpatialIndex = courierSpatialIndex;
+                this.courierLocationBuffer = courierLocationBuffer;
+                this.courierTrackStore = courierTrackStore;
+                this.geofenceEngine = geofenceEngine;
+                this.courierPresenceService = courierPresenceService;
+                this.locationDeadBand = locationDeadBand;
         }
 
         /**
          * Updates the location of a delivery person.
-         * 1. Always saves latitude/longitude to the SQL database.
-         * 2. Optionally syncs to Elasticsearch if available.
+         * The position is buffered and written by the next flush, unless the
+         * dead-band rejects it; a newer ping received before that flush replaces
+         * it. The track history, geofences and presence see every ping.
          *
          * @param deliveryPersonId ID of the delivery person
          * @param latitude         New latitude
          * @param longitude        New longitude
-         * @return Mono<Void>
+         * @return whether the position will be written, and when to ping next
+         */
+        public Mono<LocationUpdateResponse> updateLocation(UUID deliveryPersonId, Double latitude,
+                        Double longitude) {
+                return Mono.fromCallable(() -> {
+                        courierPresenceService.recordPing(deliveryPersonId);
+                        courierTrackStore.append(deliveryPersonId, latitude, longitude);
+                        geofenceEngine.evaluate(deliveryPersonId, latitude, longitude);
+
+                        LocationDeadBand.Decision decision = locationDeadBand.evaluate(deliveryPersonId, latitude,
+                                        longitude, geofenceEngine.hasPendingStops(deliveryPersonId));
+                        if (decision.accepted()) {
+                                courierLocationBuffer.offer(deliveryPersonId, latitude, longitude);
+                        }
+                        return new LocationUpdateResponse(decision.accepted(), decision.nextPingSeconds());
+                });
+        }
+
+        /**
+         * Flushes buffered positions. Skips the tick if the previous flush is
+         * still running.
          */
-        public Mono<Void> updateLocation(UUID deliveryPersonId, Double latitude, Double longitude) {
-                return lectureDeliveryPersonService.findById(deliveryPersonId)
-                                .switchIfEmpty(
-                                                Mono.error(new RuntimeException("Delivery Person not found with ID: "
-                                                                + deliveryPersonId)))
-                                .flatMap(deliveryPerson -> {
-                                        // 1. Always persist location to SQL DB
-                                        deliveryPerson.setLatitudeGps(latitude.floatValue());
-                                        deliveryPerson.setLongitudeGps(longitude.floatValue());
+        @Scheduled(fixedDelayString = "${location.buffer.flush-interval-ms:1000}")
+        public void scheduledFlush() {
+                if (!flushing.compareAndSet(false, true)) {
+                        return;
+                }
+                flush()
+                                .doFinally(signal -> flushing.set(false))
+                                .subscribe();
+        }
 
-                                        return deliveryPersonRepository.save(deliveryPerson)
-                                                        .doOnSuccess(saved -> log.debug(
-                                                                        "Saved GPS location to SQL for delivery person {}: ({}, {})",
-                                                                        deliveryPersonId, latitude, longitude))
-                                                        .flatMap(savedDeliveryPerson -> {
-                                                                // 2. Optionally sync to Elasticsearch
-                                                                if (deliveryPersonSearchRepository == null) {
-                                                                        log.info("Elasticsearch is disabled. Location saved to SQL only for {}",
-                                                                                        deliveryPersonId);
-                                                                        return Mono.just(savedDeliveryPerson);
-                                                                }
+        /**
+         * Takes the couriers silent for longer than the presence TTL out of
+         * matching: out of the node-local spatial index and unavailable in
+         * Elasticsearch, in one batch per tick. Their next ping is written by the
+         * regular flush, which puts them back.
+         */
+        @Scheduled(fixedDelayString = "${presence.tick-ms:1000}")
+        public void expireStaleCouriers() {
+                List<UUID> stale = courierPresenceService.expire();
+                if (stale.isEmpty()) {
+                        return;
+                }
+                log.info("{} couriers stopped sending locations, removing them from matching", stale.size());
+                stale.forEach(courierSpatialIndex::evict);
+                locationDeadBand.forget(stale);
+                deliveryPersonSearchIndexer.markUnavailable(stale).subscribe();
+        }
+
+        /**
+         * Writes what is left in the buffer before shutting down.
+         */
+        @PreDestroy
+        public void flushOnShutdown() {
+                flush().block(SHUTDOWN_FLUSH_TIMEOUT);
+        }
+
+        /**
+         * Writes every buffered position.
+         * 1. One batched UPDATE to the SQL database.
+         * 2. Refreshes the node-local courier spatial index.
+         * 3. Optionally one bulk request of partial location updates to
+         * Elasticsearch.
+         * Positions are put back in the buffer if the SQL write fails.
+         *
+         * @return a Mono completing once the batch is written
+         */
+        Mono<Void> flush() {
+                List<CourierLocationBuffer.PendingLocation> batch = courierLocationBuffer.drain();
+                if (batch.isEmpty()) {
+                        return Mono.empty();
+                }
+                long startedAt = System.nanoTime();
 
-                                                                return lecturePersonService
-                                                                                .findById(savedDeliveryPerson
-                                                                                                .getPersonId())
-                                                                                .flatMap(person -> {
-                                                                                        DeliveryPersonDocument document = DeliveryPersonDocument
-                                                                                                        .builder()
-                                                                                                        .id(savedDeliveryPerson
-                                                                                                                        .getId())
-                                                                                                        .personId(savedDeliveryPerson
-                                                                                                                        .getPersonId())
-                                                                                                        .location(new GeoPoint(
-                                                                                                                        latitude,
-                                                                                                                        longitude))
-                                                                                                        .firstName(person
-                                                                                                                        .getFirstName())
-                                                                                                        .lastName(person.getLastName())
-                                                                                                        .email(person.getEmail())
-                                                                                                        .phone(person.getPhone())
-                                                                                                        .commercialName(savedDeliveryPerson
-                                                                                                                        .getCommercialName())
-                                                                                                        .status(savedDeliveryPerson
-                                                                                                                        .getStatus() != null
-                                                                                                                                        ? savedDeliveryPerson
-                                                                                                                                                        .getStatus()
-                                                                                                                                                        .toString()
-                                                                                                                                        : null)
-                                                                                                        .isActive(savedDeliveryPerson
-                                                                                                                        .getIsActive())
-                                                                                                        .isAvailable(true)
-                                                                                                        .build();
+                UUID[] ids = new UUID[batch.size()];
+                Double[] latitudes = new Double[batch.size()];
+                Double[] longitudes = new Double[batch.size()];
+                for (int i = 0; i < batch.size(); i++) {
+                        ids[i] = batch.get(i).deliveryPersonId();
+                        latitudes[i] = batch.get(i).latitude();
+                        longitudes[i] = batch.get(i).longitude();
+                }
 
-                                                                                        return deliveryPersonSearchRepository
-                                                                                                        .save(document)
-                                                                                                        .doOnSuccess(doc -> log
-                                                                                                                        .debug(
-                                                                                                                                        "Synced location to Elasticsearch for delivery person {}",
-                                                                                                                                        deliveryPersonId))
-                                                                                                        .doOnError(e -> log
-                                                                                                                        .warn(
-                                                                                                                                        "Failed to sync location to Elasticsearch for {}. SQL update was successful.",
-                                                                                                                                        deliveryPersonId,
-                                                                                                                                        e))
-                                                                                                        .onErrorResume(e -> Mono
-                                                                                                                        .just(document))
-                                                                                                        .thenReturn(savedDeliveryPerson);
-                                                                                });
-                                                        });
+                return deliveryPersonRepository.updateLocations(ids, latitudes, longitudes)
+                                .doOnNext(courierSpatialIndex::upsert)
+                                .collectList()
+                                .doOnNext(updated -> {
+                                        log.debug("Saved {} GPS locations to SQL", updated.size());
+                                        if (updated.size() < batch.size()) {
+                                                log.warn("{} GPS locations were for unknown delivery persons",
+                                                                batch.size() - updated.size());
+                                        }
                                 })
-                                .doOnError(e -> log.error("Failed to update location for delivery person {}",
-                                                deliveryPersonId, e))
-                                .then();
+                                .flatMap(deliveryPersonSearchIndexer::updateLocations)
+                                .doOnSuccess(v -> courierLocationBuffer.recordFlush(batch, startedAt))
+                                .onErrorResume(e -> {
+                                        log.error("Failed to save {} GPS locations. Retrying on next flush.",
+                                                        batch.size(), e);
+                                        courierLocationBuffer.requeue(batch);
+                                        return Mono.empty();
+                                });
         }
 }
@@ -10,6 +10,7 @@ import com.polytechnique.tiibntick.repositories.AddressRepository;
 import com.polytechnique.tiibntick.repositories.PersonAddressRepository;
 import com.polytechnique.tiibntick.services.address.CreationAddressService;
 import com.polytechnique.tiibntick.services.address.ModificationAddressService;
+import com.polytechnique.tiibntick.services.deliveryperson.DeliveryPersonSearchIndexer;
 import com.polytechnique.tiibntick.services.deliveryperson.LectureDeliveryPersonService;
 import com.polytechnique.tiibntick.services.deliveryperson.ModificationDeliveryPersonService;
 import com.polytechnique.tiibntick.services.logistics.LectureLogisticsService;
@@ -55,6 +56,7 @@ public class DeliveryPersonProfileService {
     private final SuppressionPersonService suppressionPersonService;
     private final SuppressionLogisticsService suppressionLogisticsService;
     private final PasswordEncoder passwordEncoder;
+    private final DeliveryPersonSearchIndexer deliveryPersonSearchIndexer;
 
     /**
      * Updates a delivery person's profile with the provided data.
@@ -82,7 +84,8 @@ public class DeliveryPersonProfileService {
                     Mono<Void> updateLogistics = updateLogisticsFields(dp.getId(), request);
                     Mono<Void> updateAddress = updateAddressFields(dp.getPersonId(), request);
 
-                    return Mono.when(updatePerson, updateDeliveryPerson, updateLogistics, updateAddress);
+                    return Mono.when(updatePerson, updateDeliveryPerson, updateLogistics, updateAddress)
+                            .then(Mono.defer(() -> deliveryPersonSearchIndexer.reindex(deliveryPersonId)));
                 });
     }
 
@@ -101,7 +104,8 @@ public class DeliveryPersonProfileService {
                     UUID personId = dp.getPersonId();
                     return suppressionLogisticsService.deleteByDeliveryPersonId(deliveryPersonId)
                             .then(suppressionDeliveryPersonService.deleteById(deliveryPersonId))
-                            .then(suppressionPersonService.deleteById(personId));
+                            .then(suppressionPersonService.deleteById(personId))
+                            .then(Mono.defer(() -> deliveryPersonSearchIndexer.remove(deliveryPersonId)));
                 });
     }
 
@@ -5,29 +5,36 @@ import com.polytechnique.tiibntick.elasticsearch.models.AnnouncementDocument;
 import com.polytechnique.tiibntick.elasticsearch.models.DeliveryPersonDocument;
 import com.polytechnique.tiibntick.elasticsearch.repositories.AnnouncementSearchRepository;
 import com.polytechnique.tiibntick.elasticsearch.repositories.DeliveryPersonSearchRepository;
-import com.polytechnique.tiibntick.events.AnnouncementPublishedEvent;
-import com.polytechnique.tiibntick.models.DeliveryPerson;
-import com.polytechnique.tiibntick.repositories.DeliveryPersonRepository;
+import com.polytechnique.tiibntick.services.matching.BatchEllipseMatcher;
+import com.polytechnique.tiibntick.services.matching.CandidateRanker;
+import com.polytechnique.tiibntick.services.matching.CourierCoordinates;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
+import com.polytechnique.tiibntick.services.matching.DistanceEngine;
+import com.polytechnique.tiibntick.services.matching.MatchCandidate;
+import com.polytechnique.tiibntick.services.matching.MatchingRetryService;
+import com.polytechnique.tiibntick.services.routing.RoadRouter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.elasticsearch.core.geo.GeoPoint;
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.Metrics;
-import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * Service responsible for matching announcements with eligible delivery
  * persons.
- * Consumes Kafka events and performs spatial filtering.
+ * Invoked by the reactive announcement consumer and performs spatial filtering.
  * Falls back to SQL-based matching when Elasticsearch is unavailable.
  *
  * @author François-Charles ATANGA
@@ -39,96 +46,178 @@ public class MatchingService {
 
     private final AnnouncementSearchRepository announcementSearchRepository;
     private final DeliveryPersonSearchRepository deliveryPersonSearchRepository;
-    private final DeliveryPersonRepository deliveryPersonRepository;
     private final NotificationService notificationService;
+    private final CourierSpatialIndex courierSpatialIndex;
+    private final MatchingRetryService matchingRetryService;
+    private final CandidateRanker candidateRanker;
+    private final BatchEllipseMatcher batchEllipseMatcher;
+    private final DistanceEngine distanceEngine;
+    private final RoadRouter roadRouter;
 
     public MatchingService(
             Optional<AnnouncementSearchRepository> announcementSearchRepository,
             Optional<DeliveryPersonSearchRepository> deliveryPersonSearchRepository,
-            DeliveryPersonRepository deliveryPersonRepository,
-            NotificationService notificationService) {
+            NotificationService notificationService,
+            CourierSpatialIndex courierSpatialIndex,
+            MatchingRetryService matchingRetryService,
+            CandidateRanker candidateRanker,
+            BatchEllipseMatcher batchEllipseMatcher,
+            DistanceEngine distanceEngine,
+            RoadRouter roadRouter) {
         this.announcementSearchRepository = announcementSearchRepository.orElse(null);
         this.deliveryPersonSearchRepository = deliveryPersonSearchRepository.orElse(null);
-        this.deliveryPersonRepository = deliveryPersonRepository;
         this.notificationService = notificationService;
+        this.courierSpatialIndex = courierSpatialIndex;
+        this.matchingRetryService = matchingRetryService;
+        this.candidateRanker = candidateRanker;
+        this.batchEllipseMatcher = batchEllipseMatcher;
+        this.distanceEngine = distanceEngine;
+        this.roadRouter = roadRouter;
     }
 
-    private static final double EARTH_RADIUS_KM = 6371.0;
     private static final double INITIAL_DELTA_KM = 1.5;
     private static final double DELTA_INCREMENT_KM = 0.5;
     private static final double MAX_DELTA_KM = 10.0;
-    private static final long RETRY_WAIT_TIME_MINUTES = 1;
 
     /**
-     * Consumes the AnnouncementPublishedEvent and triggers the matching process.
+     * Runs the matching process for a published announcement.
      *
-     * @param event The published announcement event.
+     * <p>
+     * Fully non-blocking: tries Elasticsearch-based matching first and falls back
+     * to SQL-based matching on error. When no delivery person is found, or both
+     * strategies fail, a durable re-matching attempt is scheduled instead of
+     * waiting in place; a successful match clears any pending attempt. Failures
+     * are logged and swallowed so the caller can acknowledge the record.
+     *
+     * @param announcementDTO The published announcement.
+     * @return a Mono completing once matching and notifications are done
      */
-    @KafkaListener(topics = "announcement-published", groupId = "tiibntick-group")
-    public void consumeAnnouncementPublishedEvent(AnnouncementPublishedEvent event) {
-        log.info("Received AnnouncementPublishedEvent: {}", event);
+    public Mono<Void> matchAnnouncement(AnnouncementResponseDTO announcementDTO) {
+        if (!hasCoordinates(announcementDTO)) {
+            return Mono.empty();
+        }
 
-        AnnouncementResponseDTO announcementDTO = event.getAnnouncement();
+        Mono<Boolean> matching;
+        // Try Elasticsearch-based matching first
+        if (announcementSearchRepository != null && deliveryPersonSearchRepository != null) {
+            matching = processWithElasticsearch(announcementDTO)
+                    .onErrorResume(esException -> {
+                        log.warn("Elasticsearch unavailable for announcement {}. Falling back to SQL-based matching.",
+                                announcementDTO.getId(), esException);
+                        return processWithSqlFallback(announcementDTO);
+                    });
+        } else {
+            log.info("Elasticsearch repositories not available. Using SQL-based matching.");
+            matching = processWithSqlFallback(announcementDTO);
+        }
+
+        return settle(announcementDTO, matching);
+    }
 
+    /**
+     * Runs the matching process for a batch of published announcements.
+     *
+     * <p>
+     * Announcements matched through Elasticsearch are processed concurrently as
+     * in {@link #matchAnnouncement}. The others, either because Elasticsearch is
+     * unavailable or failed for them, are matched together against one shared
+     * courier snapshot in a single parallel pass. Notifications and re-matching
+     * are then handled per announcement.
+     *
+     * @param batch The published announcements.
+     * @return a Mono completing once matching and notifications are done for the
+     *         whole batch
+     */
+    public Mono<Void> matchBatch(List<AnnouncementResponseDTO> batch) {
+        List<AnnouncementResponseDTO> valid = batch.stream().filter(this::hasCoordinates).toList();
+        if (valid.isEmpty()) {
+            return Mono.empty();
+        }
+
+        if (announcementSearchRepository == null || deliveryPersonSearchRepository == null) {
+            log.info("Elasticsearch repositories not available. Using SQL-based batch matching for {} announcements.",
+                    valid.size());
+            return matchBatchWithSnapshot(valid);
+        }
+
+        List<AnnouncementResponseDTO> fallback = Collections.synchronizedList(new ArrayList<>());
+        return Flux.fromIterable(valid)
+                .flatMap(dto -> settle(dto, processWithElasticsearch(dto)
+                        .onErrorResume(esException -> {
+                            log.warn("Elasticsearch unavailable for announcement {}. Deferring to SQL batch matching.",
+                                    dto.getId(), esException);
+                            fallback.add(dto);
+                            return Mono.empty();
+                        })))
+                .then(Mono.defer(() -> fallback.isEmpty()
+                        ? Mono.<Void>empty()
+                        : matchBatchWithSnapshot(List.copyOf(fallback))));
+    }
+
+    private boolean hasCoordinates(AnnouncementResponseDTO announcementDTO) {
         // Validate addresses
         if (announcementDTO.getPickupAddress() == null
                 || announcementDTO.getPickupAddress().getLatitude() == null
                 || announcementDTO.getPickupAddress().getLongitude() == null) {
             log.error("Pickup address or coordinates missing for announcement {}", announcementDTO.getId());
-            return;
+            return false;
         }
 
         if (announcementDTO.getDeliveryAddress() == null
                 || announcementDTO.getDeliveryAddress().getLatitude() == null
                 || announcementDTO.getDeliveryAddress().getLongitude() == null) {
             log.error("Delivery address or coordinates missing for announcement {}", announcementDTO.getId());
-            return;
+            return false;
         }
+        return true;
+    }
 
-        try {
-            // Try Elasticsearch-based matching first
-            if (announcementSearchRepository != null && deliveryPersonSearchRepository != null) {
-                try {
-                    processWithElasticsearch(announcementDTO);
-                    return; // Success with ES
-                } catch (Exception esException) {
-                    log.warn("Elasticsearch unavailable for announcement {}. Falling back to SQL-based matching.",
-                            announcementDTO.getId(), esException);
-                }
-            } else {
-                log.info("Elasticsearch repositories not available. Using SQL-based matching.");
-            }
-
-            // Fallback: SQL-based matching
-            processWithSqlFallback(announcementDTO);
-
-        } catch (Exception e) {
-            log.error(
-                    "Failed to process announcement {} after all attempts. Message will be acknowledged to prevent infinite retry loop.",
-                    announcementDTO.getId(), e);
-            // Don't rethrow — this prevents Kafka from endlessly retrying the same message
-        }
+    /**
+     * Clears or schedules the durable re-matching attempt of an announcement
+     * depending on the matching outcome. An empty outcome leaves it untouched.
+     */
+    private Mono<Void> settle(AnnouncementResponseDTO announcementDTO, Mono<Boolean> matching) {
+        return matching
+                .flatMap(matched -> matched
+                        ? matchingRetryService.cancel(announcementDTO.getId())
+                        : matchingRetryService.schedule(announcementDTO.getId()))
+                .onErrorResume(e -> {
+                    log.error(
+                            "Failed to process announcement {} after all attempts. Scheduling a durable re-matching attempt.",
+                            announcementDTO.getId(), e);
+                    // Don't propagate — this prevents Kafka from endlessly retrying the same message
+                    return matchingRetryService.schedule(announcementDTO.getId())
+                            .onErrorResume(scheduleError -> {
+                                log.error("Could not schedule re-matching for announcement {}",
+                                        announcementDTO.getId(), scheduleError);
+                                return Mono.empty();
+                            });
+                });
     }
 
     /**
      * Elasticsearch-based matching (original flow).
      */
-    private void processWithElasticsearch(AnnouncementResponseDTO announcementDTO) {
-        AnnouncementDocument announcementDoc = buildAnnouncementDocument(announcementDTO);
-
-        announcementSearchRepository.save(announcementDoc)
-                .doOnSuccess(saved -> log.info("Announcement indexed in Elasticsearch: {}", saved.getId()))
-                .flatMap(saved -> performMatchingES(saved, INITIAL_DELTA_KM))
-                .doOnError(e -> log.error("Error during ES matching for announcement {}", announcementDTO.getId(), e))
-                .block();
+    private Mono<Boolean> processWithElasticsearch(AnnouncementResponseDTO announcementDTO) {
+        return Mono.defer(() -> {
+            AnnouncementDocument announcementDoc = buildAnnouncementDocument(announcementDTO);
+
+            return announcementSearchRepository.save(announcementDoc)
+                    .doOnSuccess(saved -> log.info("Announcement indexed in Elasticsearch: {}", saved.getId()))
+                    .flatMap(this::performMatchingES)
+                    .doOnError(e -> log.error("Error during ES matching for announcement {}", announcementDTO.getId(),
+                            e));
+        });
     }
 
     /**
      * SQL-based fallback matching.
-     * Queries delivery persons with GPS coordinates from the SQL database
-     * and performs Haversine filtering in Java.
+     * Reads candidate delivery persons from the node-local spatial index, or from
+     * a bounding box query in the SQL database while the index is still loading,
+     * and runs the DistanceEngine ellipse filter directly over the precomputed
+     * coordinate columns of the index cells inside the ellipse's bounding box.
      */
-    private void processWithSqlFallback(AnnouncementResponseDTO announcementDTO) {
+    private Mono<Boolean> processWithSqlFallback(AnnouncementResponseDTO announcementDTO) {
         double pickupLat = announcementDTO.getPickupAddress().getLatitude();
         double pickupLon = announcementDTO.getPickupAddress().getLongitude();
         double deliveryLat = announcementDTO.getDeliveryAddress().getLatitude();
@@ -139,54 +228,109 @@ public class MatchingService {
 
         log.info("SQL fallback matching for announcement {} with Dmax={} km", announcementDTO.getId(), dMax);
 
-        List<DeliveryPerson> allWithGps = deliveryPersonRepository
-                .findAllByIsActiveTrueAndLatitudeGpsIsNotNullAndLongitudeGpsIsNotNull()
-                .collectList()
-                .block();
+        return courierSpatialIndex.findInEllipse(pickupLat, pickupLon, deliveryLat, deliveryLon, distF1F2, dMax)
+                .flatMap(nearby -> matchNearby(announcementDTO, nearby, distF1F2, dMax));
+    }
 
-        if (allWithGps == null || allWithGps.isEmpty()) {
-            log.info("No delivery persons with GPS coordinates found in SQL database for announcement {}",
+    private Mono<Boolean> matchNearby(AnnouncementResponseDTO announcementDTO, List<CourierCoordinates> nearby,
+            double distF1F2, double dMax) {
+        double pickupLat = announcementDTO.getPickupAddress().getLatitude();
+        double pickupLon = announcementDTO.getPickupAddress().getLongitude();
+        double deliveryLat = announcementDTO.getDeliveryAddress().getLatitude();
+        double deliveryLon = announcementDTO.getDeliveryAddress().getLongitude();
+
+        int largest = nearby.stream().mapToInt(CourierCoordinates::size).max().orElse(0);
+        if (largest == 0) {
+            log.info("No delivery persons with GPS coordinates found near announcement {}",
                     announcementDTO.getId());
-            return;
+            return Mono.just(false);
         }
 
-        // Spatial filtering using spherical ellipse
-        List<DeliveryPersonDocument> eligibleCandidates = new ArrayList<>();
-        for (DeliveryPerson dp : allWithGps) {
-            double dpLat = dp.getLatitudeGps();
-            double dpLon = dp.getLongitudeGps();
-
-            double distP_F1 = calculateHaversineDistance(dpLat, dpLon, pickupLat, pickupLon);
-            double distP_F2 = calculateHaversineDistance(dpLat, dpLon, deliveryLat, deliveryLon);
-
-            if (distP_F1 + distP_F2 <= dMax) {
-                // Convert SQL model to Document for notification compatibility
-                DeliveryPersonDocument doc = DeliveryPersonDocument.builder()
-                        .id(dp.getId())
-                        .personId(dp.getPersonId())
-                        .location(new GeoPoint(dpLat, dpLon))
-                        .isActive(dp.getIsActive())
-                        .isAvailable(true)
-                        .commercialName(dp.getCommercialName())
-                        .build();
-                eligibleCandidates.add(doc);
+        // Spatial filtering using spherical ellipse, cell by cell
+        int[] rows = new int[largest];
+        double[] sums = new double[largest];
+        List<MatchCandidate> eligible = new ArrayList<>();
+        for (CourierCoordinates cell : nearby) {
+            int count = distanceEngine.filterEllipse(cell, 0, cell.size(), pickupLat, pickupLon,
+                    deliveryLat, deliveryLon, dMax, rows, sums);
+            for (int i = 0; i < count; i++) {
+                // Convert index entry to Document for notification compatibility
+                eligible.add(new MatchCandidate(cell.courier(rows[i]).toDocument(), sums[i], sums[i] - distF1F2));
             }
         }
 
-        if (eligibleCandidates.isEmpty()) {
+        return rankAndNotify(announcementDTO, eligible);
+    }
+
+    /**
+     * SQL-based matching for a batch: one courier snapshot, one parallel ellipse
+     * pass for all announcements, then per-announcement ranking and notification.
+     */
+    private Mono<Void> matchBatchWithSnapshot(List<AnnouncementResponseDTO> batch) {
+        List<BatchEllipseMatcher.Ellipse> ellipses = batch.stream()
+                .map(dto -> {
+                    double pickupLat = dto.getPickupAddress().getLatitude();
+                    double pickupLon = dto.getPickupAddress().getLongitude();
+                    double deliveryLat = dto.getDeliveryAddress().getLatitude();
+                    double deliveryLon = dto.getDeliveryAddress().getLongitude();
+                    double distF1F2 = calculateHaversineDistance(pickupLat, pickupLon, deliveryLat, deliveryLon);
+                    return BatchEllipseMatcher.Ellipse.of(pickupLat, pickupLon, deliveryLat, deliveryLon, distF1F2,
+                            distF1F2 + (2 * MAX_DELTA_KM));
+                })
+                .toList();
+
+        return batchEllipseMatcher.match(ellipses)
+                .flatMapMany(results -> Flux.range(0, batch.size())
+                        .flatMap(i -> settle(batch.get(i), rankAndNotify(batch.get(i), results.get(i)))))
+                .onErrorResume(e -> Flux.fromIterable(batch)
+                        .flatMap(dto -> settle(dto, Mono.error(e))))
+                .then();
+    }
+
+    /**
+     * Keeps the candidates able to carry the packet and notifies the top K.
+     * Those already notified for the announcement are skipped by the matching
+     * ledger, so a re-matching never reaches past the top K.
+     *
+     * @return true when at least one delivery person was newly notified
+     */
+    private Mono<Boolean> rankAndNotify(AnnouncementResponseDTO announcementDTO, List<MatchCandidate> eligible) {
+        if (eligible.isEmpty()) {
             log.info("No eligible candidates found via SQL fallback for announcement {}", announcementDTO.getId());
-            return;
+            return Mono.just(false);
         }
 
-        log.info("SQL fallback found {} eligible candidates: {}", eligibleCandidates.size(),
-                eligibleCandidates.stream().map(DeliveryPersonDocument::getId).toList());
+        // A courier moving between two index cells during the scan may be found in both
+        Set<UUID> seen = new HashSet<>();
+        List<MatchCandidate> distinct = eligible.stream()
+                .filter(candidate -> seen.add(candidate.deliveryPerson().getId()))
+                .toList();
 
         // Build a minimal AnnouncementDocument for notification
         AnnouncementDocument announcementDoc = buildAnnouncementDocument(announcementDTO);
 
-        notificationService.notifyEligibleDeliveryPersons(eligibleCandidates, announcementDoc)
-                .then()
-                .block();
+        return candidateRanker.scoreAndFilter(distinct, announcementDTO.getPacket())
+                .flatMap(fitting -> {
+                    if (fitting.isEmpty()) {
+                        log.info("No candidate can carry the packet of announcement {}", announcementDTO.getId());
+                        return Mono.just(false);
+                    }
+
+                    List<DeliveryPersonDocument> selected = topKByRoad(fitting,
+                            announcementDTO.getPickupAddress().getLatitude(),
+                            announcementDTO.getPickupAddress().getLongitude(),
+                            announcementDTO.getDeliveryAddress().getLatitude(),
+                            announcementDTO.getDeliveryAddress().getLongitude()).stream()
+                            .map(MatchCandidate::deliveryPerson)
+                            .toList();
+
+                    log.info("SQL fallback found {} eligible candidates for announcement {}, notifying top {}: {}",
+                            fitting.size(), announcementDTO.getId(), selected.size(),
+                            selected.stream().map(DeliveryPersonDocument::getId).toList());
+
+                    return notificationService.notifyEligibleDeliveryPersons(selected, announcementDoc)
+                            .hasElements();
+                });
     }
 
     /**
@@ -213,75 +357,164 @@ public class MatchingService {
     }
 
     /**
-     * Elasticsearch-based matching with expanding delta.
+     * Elasticsearch-based matching in a single round trip.
+     *
+     * <p>
+     * Queries once at the maximum radius, computes each candidate's detour
+     * ({@code distP_F1 + distP_F2 - distF1F2}) and sorts by it. The smallest delta
+     * of the {@code INITIAL_DELTA_KM} + k * {@code DELTA_INCREMENT_KM} sequence
+     * that admits at least one candidate able to carry the packet is then derived
+     * locally, which yields the same ellipse as expanding it query by query. Only
+     * the top K candidates of that ellipse are notified.
      */
-    private Mono<Void> performMatchingES(AnnouncementDocument announcement, double delta) {
+    private Mono<Boolean> performMatchingES(AnnouncementDocument announcement) {
         GeoPoint F1 = announcement.getPickupLocation();
         GeoPoint F2 = announcement.getDeliveryLocation();
 
         double distF1F2 = calculateHaversineDistance(F1.getLat(), F1.getLon(), F2.getLat(), F2.getLon());
-        double dMax = distF1F2 + (2 * delta);
+        double dMaxLimit = distF1F2 + (2 * MAX_DELTA_KM);
 
-        log.info("Starting ES matching for Announcement {} with delta={} km, Dmax={} km", announcement.getId(), delta,
-                dMax);
+        log.info("Starting ES matching for Announcement {} with max delta={} km, Dmax={} km", announcement.getId(),
+                MAX_DELTA_KM, dMaxLimit);
 
         if (deliveryPersonSearchRepository == null) {
             log.warn("Elasticsearch is disabled. Cannot find candidates for matching.");
-            return Mono.empty();
+            return Mono.just(false);
         }
 
         return deliveryPersonSearchRepository
-                .findByIsAvailableTrueAndIsActiveTrueAndLocationNear(F1, new Distance(dMax, Metrics.KILOMETERS))
+                .findByIsAvailableTrueAndIsActiveTrueAndLocationNear(F1, new Distance(dMaxLimit, Metrics.KILOMETERS))
                 .collectList()
                 .flatMap(candidates -> {
-                    List<DeliveryPersonDocument> eligibleCandidates = new ArrayList<>();
+                    List<MatchCandidate> ranked = new ArrayList<>(candidates.size());
                     for (DeliveryPersonDocument candidate : candidates) {
                         double distP_F1 = calculateHaversineDistance(candidate.getLocation().getLat(),
                                 candidate.getLocation().getLon(), F1.getLat(), F1.getLon());
                         double distP_F2 = calculateHaversineDistance(candidate.getLocation().getLat(),
                                 candidate.getLocation().getLon(), F2.getLat(), F2.getLon());
+                        double distanceSum = distP_F1 + distP_F2;
 
-                        if (distP_F1 + distP_F2 <= dMax) {
-                            eligibleCandidates.add(candidate);
+                        if (distanceSum <= dMaxLimit) {
+                            ranked.add(new MatchCandidate(candidate, distanceSum, distanceSum - distF1F2));
                         }
                     }
+                    ranked.sort(Comparator.comparingDouble(MatchCandidate::detourKm));
 
-                    if (eligibleCandidates.isEmpty()) {
-                        log.info("No eligible candidates found for delta={}. Current search expansion...", delta);
-                        if (delta < MAX_DELTA_KM) {
-                            return performMatchingES(announcement, delta + DELTA_INCREMENT_KM);
-                        } else {
-                            log.info(
-                                    "No candidates found up to max delta of {} km. Waiting {} minute(s) before retry for announcement {}",
-                                    MAX_DELTA_KM, RETRY_WAIT_TIME_MINUTES, announcement.getId());
-                            return Mono.delay(Duration.ofMinutes(RETRY_WAIT_TIME_MINUTES))
-                                    .then(performMatchingES(announcement, INITIAL_DELTA_KM));
-                        }
-                    } else {
-                        log.info("Found {} eligible candidates: {}", eligibleCandidates.size(),
-                                eligibleCandidates.stream().map(DeliveryPersonDocument::getId).toList());
-
-                        return notificationService.notifyEligibleDeliveryPersons(eligibleCandidates, announcement)
-                                .then();
+                    if (ranked.isEmpty()) {
+                        log.info("No candidates found up to max delta of {} km for announcement {}",
+                                MAX_DELTA_KM, announcement.getId());
+                        return Mono.just(false);
                     }
+
+                    return candidateRanker.scoreAndFilter(ranked, announcement.getPacket())
+                            .flatMap(fitting -> notifyBestFitting(announcement, fitting, distF1F2));
                 });
     }
 
     /**
-     * Calculates the Haversine distance between two points in Kilometers.
+     * Derives the smallest delta admitting a fitting candidate, then notifies the
+     * top K of the candidates inside that ellipse.
+     *
+     * @param fitting candidates able to carry the packet, sorted by detour
      */
-    private double calculateHaversineDistance(double lat1, double lon1, double lat2, double lon2) {
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
+    private Mono<Boolean> notifyBestFitting(AnnouncementDocument announcement, List<MatchCandidate> fitting,
+            double distF1F2) {
+        if (fitting.isEmpty()) {
+            log.info("No candidate can carry the packet of announcement {}", announcement.getId());
+            return Mono.just(false);
+        }
+
+        // Smallest delta on the expansion grid admitting the best candidate
+        double bestSum = fitting.get(0).distanceSumKm();
+        double delta = INITIAL_DELTA_KM;
+        while (delta < MAX_DELTA_KM && bestSum > distF1F2 + (2 * delta)) {
+            delta += DELTA_INCREMENT_KM;
+        }
+        double dMax = distF1F2 + (2 * delta);
+
+        List<MatchCandidate> eligible = new ArrayList<>();
+        for (MatchCandidate candidate : fitting) {
+            if (candidate.distanceSumKm() > dMax) {
+                break;
+            }
+            eligible.add(candidate);
+        }
 
-        double lat1Rad = Math.toRadians(lat1);
-        double lat2Rad = Math.toRadians(lat2);
+        GeoPoint pickup = announcement.getPickupLocation();
+        GeoPoint delivery = announcement.getDeliveryLocation();
+        List<DeliveryPersonDocument> selected = topKByRoad(eligible,
+                pickup.getLat(), pickup.getLon(), delivery.getLat(), delivery.getLon()).stream()
+                .map(MatchCandidate::deliveryPerson)
+                .toList();
 
-        double a = Math.pow(Math.sin(dLat / 2), 2) +
-                Math.pow(Math.sin(dLon / 2), 2) * Math.cos(lat1Rad) * Math.cos(lat2Rad);
+        log.info("Found {} eligible candidates at delta={} km (Dmax={} km), notifying top {}: {}", eligible.size(),
+                delta, dMax, selected.size(), selected.stream().map(DeliveryPersonDocument::getId).toList());
 
-        double c = 2 * Math.asin(Math.sqrt(a));
+        return notificationService.notifyEligibleDeliveryPersons(selected, announcement)
+                .hasElements();
+    }
 
-        return EARTH_RADIUS_KM * c;
+    /**
+     * Selects the top K candidates, by road distances once the road network is
+     * loaded so they are chosen by real detour. The ellipse admitting the
+     * candidates stays straight-line, which never exceeds the road distance.
+     *
+     * <p>
+     * A candidate the router cannot place on the network only has its
+     * straight-line distances, which would undercut the road distances of the
+     * others: such candidates only fill the places the routed ones leave.
+     */
+    private List<MatchCandidate> topKByRoad(List<MatchCandidate> candidates, double pickupLat, double pickupLon,
+            double deliveryLat, double deliveryLon) {
+        if (candidates.isEmpty() || !roadRouter.isReady()) {
+            return candidateRanker.topK(candidates);
+        }
+
+        // Rows: the candidates, then the pickup; columns: pickup, delivery
+        int n = candidates.size();
+        double[] fromLat = new double[n + 1];
+        double[] fromLon = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            GeoPoint location = candidates.get(i).deliveryPerson().getLocation();
+            fromLat[i] = location != null ? location.getLat() : Double.NaN;
+            fromLon[i] = location != null ? location.getLon() : Double.NaN;
+        }
+        fromLat[n] = pickupLat;
+        fromLon[n] = pickupLon;
+        double[][] km = roadRouter.distanceMatrixKm(fromLat, fromLon, new double[] { pickupLat, deliveryLat },
+                new double[] { pickupLon, deliveryLon });
+
+        double roadF1F2 = km[n][1];
+        if (Double.isNaN(roadF1F2)) {
+            // No route between pickup and delivery: compare everyone straight-line
+            return candidateRanker.topK(candidates);
+        }
+        List<MatchCandidate> routed = new ArrayList<>(n);
+        List<MatchCandidate> unroutable = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            double sum = km[i][0] + km[i][1];
+            MatchCandidate candidate = candidates.get(i);
+            if (Double.isNaN(sum)) {
+                unroutable.add(candidate);
+            } else {
+                routed.add(candidate.withDistances(sum, sum - roadF1F2));
+            }
+        }
+
+        List<MatchCandidate> selected = new ArrayList<>(candidateRanker.topK(routed));
+        int remaining = candidateRanker.getTopK() - selected.size();
+        if (remaining > 0 && !unroutable.isEmpty()) {
+            log.debug("{} candidates could not be routed, ranking them after the routed ones", unroutable.size());
+            List<MatchCandidate> fill = candidateRanker.topK(unroutable);
+            selected.addAll(fill.subList(0, Math.min(remaining, fill.size())));
+        }
+        return selected;
+    }
+
+    /**
+     * Calculates the Haversine distance between two points in Kilometers.
+     */
+    private double calculateHaversineDistance(double lat1, double lon1, double lat2, double lon2) {
+        return DistanceEngine.haversineKm(lat1, lon1, lat2, lon2);
     }
 }
@@ -6,18 +6,25 @@ import com.polytechnique.tiibntick.models.Notification;
 import com.polytechnique.tiibntick.models.enums.notification.NotificationStatus;
 import com.polytechnique.tiibntick.models.enums.notification.NotificationType;
 import com.polytechnique.tiibntick.repositories.NotificationRepository;
+import com.polytechnique.tiibntick.services.matching.MatchingLedgerService;
 import com.polytechnique.tiibntick.services.support.EmailService;
-import com.polytechnique.tiibntick.services.support.PushNotificationService;
 import com.polytechnique.tiibntick.services.support.KafkaEventPublisher;
+import com.polytechnique.tiibntick.services.support.NotificationDispatchQueue;
 import com.polytechnique.tiibntick.events.MatchingNotificationEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Service responsible for managing and sending notifications.
@@ -35,77 +42,93 @@ public class NotificationService {
 
     private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
 
+    private static final String TITLE = "Nouvelle course disponible !";
+    private static final String MESSAGE = "Une course correspond à votre position. Cliquez pour voir les détails.";
+
     private final NotificationRepository notificationRepository;
+    private final NotificationDispatchQueue notificationDispatchQueue;
     private final EmailService emailService;
-    private final PushNotificationService pushNotificationService;
     private final KafkaEventPublisher kafkaEventPublisher;
+    private final MatchingLedgerService matchingLedgerService;
+    private final TransactionalOperator transactionalOperator;
 
     /**
      * Notifies eligible delivery persons about a new announcement match.
+     * Delivery persons already notified for this announcement are skipped, so a
+     * redelivered or re-matched announcement only reaches newcomers.
+     *
+     * <p>
+     * The ledger entries, the notification rows and the emails are written in
+     * one short transaction, the rows and the emails each with a single
+     * multi-row insert into their table and the durable email outbox. Only once
+     * it is committed are the Kafka events published, as one batch, and the
+     * push notifications queued, so no connection is held while waiting on
+     * Kafka and a rolled back matching notifies nobody.
      *
      * @param deliveryPersons List of eligible delivery persons.
      * @param announcement    The matched announcement.
      * @return A Flux of saved Notifications.
      */
-    @Transactional("connectionFactoryTransactionManager")
     public Flux<Notification> notifyEligibleDeliveryPersons(List<DeliveryPersonDocument> deliveryPersons,
             AnnouncementDocument announcement) {
-        log.info("Notifying {} delivery persons for Announcement {}", deliveryPersons.size(), announcement.getId());
-
-        return Flux.fromIterable(deliveryPersons)
-                .flatMap(dp -> sendNotification(dp, announcement));
-    }
-
-    private Mono<Notification> sendNotification(DeliveryPersonDocument dp, AnnouncementDocument announcement) {
-        String title = "Nouvelle course disponible !";
-        String message = "Une course correspond à votre position. Cliquez pour voir les détails.";
-
-        // 1. Create Notification Entity
-        Notification notification = new Notification();
-        notification.setPersonId(dp.getPersonId());
-        notification.setNotificationType(NotificationType.NEW_ANNOUNCEMENT);
-        notification.setTitle(title);
-        notification.setMessage(message);
-        notification.setNotificationStatus(NotificationStatus.SENT);
+        List<UUID> ids = deliveryPersons.stream().map(DeliveryPersonDocument::getId).distinct().toList();
 
-        // 2. Persist to DB
-        return notificationRepository.save(notification)
-                .flatMap(savedNotification -> {
-                    // 3. Send Email
-                    Mono<Void> emailMono = emailService.sendSimpleMessageReactive(
-                            dp.getEmail(),
-                            title,
-                            message + "\n\nAnnonce ID: " + announcement.getId()).onErrorResume(e -> {
-                                log.error("Error sending email to {}: {}", dp.getEmail(), e.getMessage());
-                                return Mono.empty();
-                            });
+        Mono<List<Notification>> persisted = matchingLedgerService.claim(announcement.getId(), ids)
+                .flatMap(claimed -> {
+                    Set<UUID> personIds = new LinkedHashSet<>();
+                    List<String> emails = new ArrayList<>();
+                    deliveryPersons.stream()
+                            .filter(dp -> claimed.contains(dp.getId()))
+                            .filter(dp -> personIds.add(dp.getPersonId()))
+                            .filter(dp -> dp.getEmail() != null)
+                            .forEach(dp -> emails.add(dp.getEmail()));
+                    log.info("Notifying {} delivery persons for Announcement {}", personIds.size(),
+                            announcement.getId());
+                    if (personIds.isEmpty()) {
+                        return Mono.just(List.<Notification>of());
+                    }
+                    return notificationRepository.insertAll(personIds.toArray(UUID[]::new),
+                            NotificationType.NEW_ANNOUNCEMENT.name(), TITLE, MESSAGE, NotificationStatus.SENT.name(),
+                            announcement.getId())
+                            .collectList()
+                            .flatMap(saved -> emailService.queueAll(emails, TITLE,
+                                    MESSAGE + "\n\nAnnonce ID: " + announcement.getId())
+                                    .thenReturn(saved));
+                });
 
-                    // 4. Send Push Notification
-                    Mono<Void> pushMono = pushNotificationService.sendPushNotification(
-                            dp.getId(),
-                            title,
-                            message).onErrorResume(e -> {
-                                return Mono.empty();
-                            });
+        return transactionalOperator.transactional(persisted)
+                .flatMapMany(saved -> dispatch(saved, deliveryPersons, announcement));
+    }
 
-                    // 5. Send Kafka Notification
-                    MatchingNotificationEvent kafkaEvent = MatchingNotificationEvent.builder()
-                            .deliveryPersonId(dp.getId())
-                            .announcementId(announcement.getId())
-                            .title(title)
-                            .message(message)
-                            .build();
+    private Flux<Notification> dispatch(List<Notification> saved, List<DeliveryPersonDocument> deliveryPersons,
+            AnnouncementDocument announcement) {
+        if (saved.isEmpty()) {
+            return Flux.empty();
+        }
+        Map<UUID, DeliveryPersonDocument> byPersonId = new HashMap<>();
+        deliveryPersons.forEach(dp -> byPersonId.putIfAbsent(dp.getPersonId(), dp));
 
-                    try {
-                        kafkaEventPublisher.publishMatchingNotification(kafkaEvent);
-                    } catch (Exception e) {
-                        log.error("Error sending Kafka notification for delivery person {}: {}", dp.getId(),
-                                e.getMessage());
-                    }
+        List<MatchingNotificationEvent> events = new ArrayList<>(saved.size());
+        List<NotificationDispatchQueue.Dispatch> dispatches = new ArrayList<>(saved.size());
+        for (Notification notification : saved) {
+            DeliveryPersonDocument dp = byPersonId.get(notification.getPersonId());
+            events.add(MatchingNotificationEvent.builder()
+                    .deliveryPersonId(dp.getId())
+                    .announcementId(announcement.getId())
+                    .title(TITLE)
+                    .message(MESSAGE)
+                    .eventId(notification.getEventId())
+                    .build());
+            dispatches.add(new NotificationDispatchQueue.Dispatch(dp.getId(), TITLE, MESSAGE));
+        }
 
-                    // execute side effects without blocking the return of the saved notification
-                    return Mono.when(emailMono, pushMono)
-                            .thenReturn(savedNotification);
-                });
+        notificationDispatchQueue.enqueueAll(dispatches);
+        return kafkaEventPublisher.publishMatchingNotifications(events)
+                .onErrorResume(e -> {
+                    log.error("Error sending Kafka notifications for announcement {}: {}", announcement.getId(),
+                            e.getMessage());
+                    return Mono.empty();
+                })
+                .thenMany(Flux.fromIterable(saved));
     }
 }
@@ -0,0 +1,176 @@
+package com.polytechnique.tiibntick.services.consumers;
+
+import com.polytechnique.tiibntick.dtos.announcement.AnnouncementResponseDTO;
+import com.polytechnique.tiibntick.events.AnnouncementPublishedEvent;
+import com.polytechnique.tiibntick.services.MatchingService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.reactive.ReactiveKafkaConsumerTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Non-blocking Kafka consumer for the "announcement-published" topic.
+ *
+ * <p>
+ * Records are spread over {@code concurrency} lanes by key hash. Each lane
+ * processes its records one after the other, which preserves per-announcement
+ * ordering, while lanes run in parallel. A record's offset is acknowledged only
+ * once its matching pipeline has completed, so throughput scales with the
+ * configured concurrency instead of with listener threads.
+ *
+ * <p>
+ * When batching is enabled, records are instead collected until
+ * {@code batchMaxSize} records arrived or {@code batchWindow} elapsed, and each
+ * batch is matched against one shared courier snapshot. Batches are processed
+ * one at a time and acknowledged together; records are only pulled as batches
+ * get processed, so a slow batch holds the receiver back instead of
+ * overflowing the buffer.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Service
+public class AnnouncementPublishedConsumer {
+
+    private final ReactiveKafkaConsumerTemplate<String, AnnouncementPublishedEvent> consumerTemplate;
+    private final MatchingService matchingService;
+    private final int concurrency;
+    private final boolean batchEnabled;
+    private final int batchMaxSize;
+    private final Duration batchWindow;
+
+    private Disposable subscription;
+
+    public AnnouncementPublishedConsumer(
+            ReactiveKafkaConsumerTemplate<String, AnnouncementPublishedEvent> consumerTemplate,
+            MatchingService matchingService,
+            @Value("${matching.consumer.concurrency:8}") int concurrency,
+            @Value("${matching.batch.enabled:false}") boolean batchEnabled,
+            @Value("${matching.batch.max-size:32}") int batchMaxSize,
+            @Value("${matching.batch.window-ms:200}") long batchWindowMs) {
+        this.consumerTemplate = consumerTemplate;
+        this.matchingService = matchingService;
+        this.concurrency = Math.max(1, concurrency);
+        this.batchEnabled = batchEnabled;
+        this.batchMaxSize = Math.max(1, batchMaxSize);
+        this.batchWindow = Duration.ofMillis(Math.max(1, batchWindowMs));
+    }
+
+    /**
+     * Starts consuming once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (batchEnabled) {
+            log.info("Starting reactive AnnouncementPublishedEvent consumer in batch mode (max {} records, {} ms)",
+                    batchMaxSize, batchWindow.toMillis());
+        } else {
+            log.info("Starting reactive AnnouncementPublishedEvent consumer with concurrency {}", concurrency);
+        }
+        subscription = consume().subscribe();
+    }
+
+    /**
+     * Stops consuming on shutdown.
+     */
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Builds the consuming pipeline. Broker errors restart the receiver with
+     * exponential backoff.
+     *
+     * @return a Flux completing only when the consumer is disposed
+     */
+    Flux<Void> consume() {
+        Flux<ReceiverRecord<String, AnnouncementPublishedEvent>> records = consumerTemplate.receive();
+        Flux<Void> processed = batchEnabled
+                ? records.bufferTimeout(batchMaxSize, batchWindow, true).concatMap(this::processBatch)
+                : records.groupBy(record -> Math.floorMod(Objects.hashCode(record.key()), concurrency))
+                        .flatMap(lane -> lane.concatMap(this::process), concurrency);
+        return processed
+                .doOnError(e -> log.error("AnnouncementPublishedEvent consumer failed, restarting", e))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30)));
+    }
+
+    /**
+     * Runs matching for one record and acknowledges its offset afterwards.
+     * Matching failures are already logged and swallowed by MatchingService so a
+     * poison record cannot be retried endlessly.
+     *
+     * @param record the received record
+     * @return a Mono completing once the record is acknowledged
+     */
+    Mono<Void> process(ReceiverRecord<String, AnnouncementPublishedEvent> record) {
+        AnnouncementPublishedEvent event = record.value();
+
+        Mono<Void> matching;
+        if (event == null || event.getAnnouncement() == null) {
+            log.warn("Skipping unreadable AnnouncementPublishedEvent at offset {} of {}",
+                    record.receiverOffset().offset(), record.receiverOffset().topicPartition());
+            matching = Mono.empty();
+        } else {
+            log.info("Received AnnouncementPublishedEvent: {}", event);
+            matching = matchingService.matchAnnouncement(event.getAnnouncement());
+        }
+
+        return matching
+                .onErrorResume(e -> {
+                    log.error("Unexpected error while matching record at offset {}",
+                            record.receiverOffset().offset(), e);
+                    return Mono.empty();
+                })
+                .then(Mono.fromRunnable(() -> record.receiverOffset().acknowledge()));
+    }
+
+    /**
+     * Runs matching for a batch of records and acknowledges all their offsets
+     * afterwards.
+     *
+     * @param records the received records
+     * @return a Mono completing once every record is acknowledged
+     */
+    Mono<Void> processBatch(List<ReceiverRecord<String, AnnouncementPublishedEvent>> records) {
+        List<AnnouncementResponseDTO> announcements = new ArrayList<>(records.size());
+        for (ReceiverRecord<String, AnnouncementPublishedEvent> record : records) {
+            AnnouncementPublishedEvent event = record.value();
+            if (event == null || event.getAnnouncement() == null) {
+                log.warn("Skipping unreadable AnnouncementPublishedEvent at offset {} of {}",
+                        record.receiverOffset().offset(), record.receiverOffset().topicPartition());
+            } else {
+                announcements.add(event.getAnnouncement());
+            }
+        }
+
+        log.info("Received batch of {} AnnouncementPublishedEvents", announcements.size());
+        Mono<Void> matching = announcements.isEmpty()
+                ? Mono.empty()
+                : matchingService.matchBatch(announcements);
+
+        return matching
+                .onErrorResume(e -> {
+                    log.error("Unexpected error while matching a batch of {} records", records.size(), e);
+                    return Mono.empty();
+                })
+                .then(Mono.fromRunnable(() -> records.forEach(record -> record.receiverOffset().acknowledge())));
+    }
+}
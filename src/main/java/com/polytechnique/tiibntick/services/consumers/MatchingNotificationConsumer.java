@@ -9,7 +9,9 @@ import org.springframework.stereotype.Service;
 
 /**
  * Kafka consumer that listens for matching notifications and forwards them
- * to the real-time stream service.
+ * to the real-time stream service. The group is shared, so each notification
+ * is consumed by one node; the stream service routes it to the nodes holding
+ * the courier's streams.
  */
 @Service
 @Slf4j
@@ -0,0 +1,223 @@
+package com.polytechnique.tiibntick.services.deliveryperson;
+
+import com.polytechnique.tiibntick.elasticsearch.models.DeliveryPersonDocument;
+import com.polytechnique.tiibntick.elasticsearch.repositories.DeliveryPersonSearchRepository;
+import com.polytechnique.tiibntick.models.DeliveryPerson;
+import com.polytechnique.tiibntick.models.Person;
+import com.polytechnique.tiibntick.repositories.DeliveryPersonRepository;
+import com.polytechnique.tiibntick.services.location.CourierPresenceService;
+import com.polytechnique.tiibntick.services.person.LecturePersonService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Service keeping the Elasticsearch delivery person index in sync with SQL.
+ *
+ * <p>
+ * Location pings only send a partial {@code _update} of the {@code location}
+ * field through one {@code _bulk} request, so the hot path neither reads the
+ * Person nor re-indexes unchanged text fields. The same partial updates flip
+ * {@code isAvailable} as couriers go silent and come back. The full document is indexed
+ * when profile or status data changes, or when a partial update finds no
+ * document to update. Indexing failures are logged and never fail the caller:
+ * SQL stays the source of truth.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Service
+public class DeliveryPersonSearchIndexer {
+
+    private final ReactiveElasticsearchOperations elasticsearchOperations;
+    private final DeliveryPersonSearchRepository deliveryPersonSearchRepository;
+    private final DeliveryPersonRepository deliveryPersonRepository;
+    private final LecturePersonService lecturePersonService;
+    private final CourierPresenceService courierPresenceService;
+
+    public DeliveryPersonSearchIndexer(
+            Optional<ReactiveElasticsearchOperations> elasticsearchOperations,
+            Optional<DeliveryPersonSearchRepository> deliveryPersonSearchRepository,
+            DeliveryPersonRepository deliveryPersonRepository,
+            LecturePersonService lecturePersonService,
+            CourierPresenceService courierPresenceService) {
+        this.elasticsearchOperations = elasticsearchOperations.orElse(null);
+        this.deliveryPersonSearchRepository = deliveryPersonSearchRepository.orElse(null);
+        this.deliveryPersonRepository = deliveryPersonRepository;
+        this.lecturePersonService = lecturePersonService;
+        this.courierPresenceService = courierPresenceService;
+    }
+
+    /**
+     * Updates the location of already indexed delivery persons with one bulk
+     * request of partial updates, marking them available again. Delivery persons
+     * missing from the index are indexed in full.
+     *
+     * @param deliveryPersons delivery persons whose GPS position changed
+     * @return a Mono completing once the index is updated
+     */
+    public Mono<Void> updateLocations(List<DeliveryPerson> deliveryPersons) {
+        if (elasticsearchOperations == null || deliveryPersons.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<UpdateQuery> queries = deliveryPersons.stream()
+                .filter(dp -> dp.getLatitudeGps() != null && dp.getLongitudeGps() != null)
+                .map(dp -> UpdateQuery.builder(dp.getId().toString())
+                        .withDocument(Document.create()
+                                .append("location", Map.of(
+                                        "lat", dp.getLatitudeGps().doubleValue(),
+                                        "lon", dp.getLongitudeGps().doubleValue()))
+                                .append("isAvailable", true))
+                        .build())
+                .toList();
+        if (queries.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return elasticsearchOperations.bulkUpdate(queries,
+                elasticsearchOperations.getIndexCoordinatesFor(DeliveryPersonDocument.class))
+                .doOnSuccess(v -> log.debug("Updated {} locations in Elasticsearch", queries.size()))
+                .onErrorResume(BulkFailureException.class, e -> {
+                    Set<String> failed = e.getFailedDocuments().keySet();
+                    List<DeliveryPerson> missing = deliveryPersons.stream()
+                            .filter(dp -> failed.contains(dp.getId().toString()))
+                            .toList();
+                    log.info("{} location updates failed in Elasticsearch. Indexing full documents instead.",
+                            missing.size());
+                    return reindex(missing);
+                })
+                .doOnError(e -> log.warn("Failed to sync {} locations to Elasticsearch. SQL update was successful.",
+                        queries.size(), e))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * Marks delivery persons unavailable with one bulk request of partial
+     * updates. Delivery persons missing from the index are skipped.
+     *
+     * @param deliveryPersonIds couriers that stopped sending pings
+     * @return a Mono completing once the index is updated
+     */
+    public Mono<Void> markUnavailable(Collection<UUID> deliveryPersonIds) {
+        if (elasticsearchOperations == null || deliveryPersonIds.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<UpdateQuery> queries = deliveryPersonIds.stream()
+                .map(id -> UpdateQuery.builder(id.toString())
+                        .withDocument(Document.create().append("isAvailable", false))
+                        .build())
+                .toList();
+
+        return elasticsearchOperations.bulkUpdate(queries,
+                elasticsearchOperations.getIndexCoordinatesFor(DeliveryPersonDocument.class))
+                .doOnSuccess(v -> log.debug("Marked {} delivery persons unavailable in Elasticsearch",
+                        queries.size()))
+                .doOnError(e -> log.warn("Failed to mark {} delivery persons unavailable in Elasticsearch",
+                        queries.size(), e))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * Indexes the full document of a delivery person after a profile or status
+     * change.
+     *
+     * @param deliveryPersonId the delivery person ID
+     * @return a Mono completing once the document is indexed
+     */
+    public Mono<Void> reindex(UUID deliveryPersonId) {
+        if (deliveryPersonSearchRepository == null) {
+            return Mono.empty();
+        }
+        return deliveryPersonRepository.findById(deliveryPersonId)
+                .flatMap(this::reindex);
+    }
+
+    /**
+     * Indexes the full document of a delivery person after a profile or status
+     * change.
+     *
+     * @param deliveryPerson the delivery person as persisted in SQL
+     * @return a Mono completing once the document is indexed
+     */
+    public Mono<Void> reindex(DeliveryPerson deliveryPerson) {
+        return reindex(List.of(deliveryPerson));
+    }
+
+    /**
+     * Indexes full documents with one Person lookup and one bulk request.
+     *
+     * @param deliveryPersons the delivery persons as persisted in SQL
+     * @return a Mono completing once the documents are indexed
+     */
+    public Mono<Void> reindex(List<DeliveryPerson> deliveryPersons) {
+        if (deliveryPersonSearchRepository == null || deliveryPersons.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<UUID> personIds = deliveryPersons.stream().map(DeliveryPerson::getPersonId).distinct().toList();
+        return lecturePersonService.findAllByIds(personIds)
+                .collectMap(Person::getId)
+                .flatMap(persons -> {
+                    List<DeliveryPersonDocument> documents = deliveryPersons.stream()
+                            .filter(dp -> persons.containsKey(dp.getPersonId()))
+                            .map(dp -> toDocument(dp, persons.get(dp.getPersonId())))
+                            .toList();
+                    return deliveryPersonSearchRepository.saveAll(documents)
+                            .then()
+                            .doOnSuccess(v -> log.debug("Indexed {} delivery persons in Elasticsearch",
+                                    documents.size()));
+                })
+                .doOnError(e -> log.warn("Failed to index {} delivery persons in Elasticsearch",
+                        deliveryPersons.size(), e))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * Removes a deleted delivery person from the index.
+     *
+     * @param deliveryPersonId the delivery person ID
+     * @return a Mono completing once the document is removed
+     */
+    public Mono<Void> remove(UUID deliveryPersonId) {
+        if (deliveryPersonSearchRepository == null) {
+            return Mono.empty();
+        }
+        return deliveryPersonSearchRepository.deleteById(deliveryPersonId)
+                .doOnError(e -> log.warn("Failed to remove delivery person {} from Elasticsearch",
+                        deliveryPersonId, e))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private DeliveryPersonDocument toDocument(DeliveryPerson deliveryPerson, Person person) {
+        return DeliveryPersonDocument.builder()
+                .id(deliveryPerson.getId())
+                .personId(deliveryPerson.getPersonId())
+                .location(deliveryPerson.getLatitudeGps() != null && deliveryPerson.getLongitudeGps() != null
+                        ? new GeoPoint(deliveryPerson.getLatitudeGps(), deliveryPerson.getLongitudeGps())
+                        : null)
+                .firstName(person.getFirstName())
+                .lastName(person.getLastName())
+                .email(person.getEmail())
+                .phone(person.getPhone())
+                .commercialName(deliveryPerson.getCommercialName())
+                .status(deliveryPerson.getStatus() != null ? deliveryPerson.getStatus().toString() : null)
+                .isActive(deliveryPerson.getIsActive())
+                .isAvailable(courierPresenceService.isFresh(deliveryPerson.getLastSeenAt()))
+                .build();
+    }
+}
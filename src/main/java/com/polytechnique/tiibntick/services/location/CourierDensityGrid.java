@@ -0,0 +1,231 @@
+package com.polytechnique.tiibntick.services.location;
+
+import com.polytechnique.tiibntick.dtos.admin.CourierDensityDTO;
+import com.polytechnique.tiibntick.services.map.WebMercator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live counts of the couriers available for matching, per Web Mercator tile,
+ * at several zoom levels.
+ *
+ * <p>
+ * The counts follow the node-local {@code CourierSpatialIndex}: every time a
+ * courier enters, moves in or leaves the index, the tiles it leaves and enters
+ * are updated at each level, so reading the counts never scans couriers.
+ * Changed tiles are marked dirty, and every {@code deltaInterval} their new
+ * counts are pushed to the live streams as one delta per level.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Component
+public class CourierDensityGrid {
+
+    private static final class Level {
+        final int zoom;
+        final Map<Long, Integer> counts = new ConcurrentHashMap<>();
+        final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+        Level(int zoom) {
+            this.zoom = zoom;
+        }
+    }
+
+    private final Level[] levels;
+    private final Sinks.Many<Map<Integer, CourierDensityDTO>> deltas = Sinks.many().multicast().directBestEffort();
+    /** Orders delta emission against stream subscription, so no delta falls between snapshot and live. */
+    private final Object emitLock = new Object();
+
+    public CourierDensityGrid(@Value("${admin.density.zoom-levels:8,10,12,14}") List<Integer> zoomLevels) {
+        this.levels = zoomLevels.stream()
+                .distinct()
+                .sorted()
+                .map(zoom -> new Level(Math.max(0, Math.min(WebMercator.MAX_ZOOM, zoom))))
+                .toArray(Level[]::new);
+    }
+
+    /**
+     * Moves one courier between positions; a null position means outside the
+     * index.
+     */
+    public void move(Double fromLat, Double fromLon, Double toLat, Double toLon) {
+        for (Level level : levels) {
+            long from = fromLat != null && fromLon != null ? tileKey(level.zoom, fromLat, fromLon) : -1;
+            long to = toLat != null && toLon != null ? tileKey(level.zoom, toLat, toLon) : -1;
+            if (from == to) {
+                continue;
+            }
+            if (from >= 0) {
+                level.counts.computeIfPresent(from, (key, count) -> count > 1 ? count - 1 : null);
+                level.dirty.add(from);
+            }
+            if (to >= 0) {
+                level.counts.merge(to, 1, Integer::sum);
+                level.dirty.add(to);
+            }
+        }
+    }
+
+    /**
+     * Returns the non-empty tiles inside a bounding box, at the configured
+     * level closest to {@code zoom} from below.
+     */
+    public CourierDensityDTO snapshot(int zoom, double minLat, double minLon, double maxLat, double maxLon) {
+        Level level = level(zoom);
+        // Tile rows grow southwards
+        int[] cells = collect(level, WebMercator.tileX(level.zoom, minLon), WebMercator.tileY(level.zoom, maxLat),
+                WebMercator.tileX(level.zoom, maxLon), WebMercator.tileY(level.zoom, minLat));
+        return new CourierDensityDTO(CourierDensityDTO.Type.SNAPSHOT, level.zoom, cells);
+    }
+
+    /**
+     * Returns the non-empty tiles covering one tile, at the finest configured
+     * level at most {@code maxDepth} zoom levels deeper than the tile, or else
+     * at the closest deeper level. When every level is coarser than the tile,
+     * the tile of the finest level containing it is returned.
+     */
+    public CourierDensityDTO cellsInTile(int zoom, int tileX, int tileY, int maxDepth) {
+        Level level = null;
+        for (Level candidate : levels) {
+            if (candidate.zoom <= zoom + maxDepth) {
+                level = candidate;
+            }
+        }
+        if (level == null || level.zoom < zoom) {
+            for (Level candidate : levels) {
+                if (candidate.zoom >= zoom) {
+                    level = candidate;
+                    break;
+                }
+            }
+        }
+        int depth = level.zoom - zoom;
+        int[] cells = depth >= 0
+                ? collect(level, tileX << depth, tileY << depth, ((tileX + 1) << depth) - 1,
+                        ((tileY + 1) << depth) - 1)
+                : collect(level, tileX >> -depth, tileY >> -depth, tileX >> -depth, tileY >> -depth);
+        return new CourierDensityDTO(CourierDensityDTO.Type.SNAPSHOT, level.zoom, cells);
+    }
+
+    /**
+     * Returns a live stream for one level: a snapshot of the whole level, then
+     * a delta each time tiles of that level changed.
+     */
+    public Flux<CourierDensityDTO> stream(int zoom) {
+        int resolved = level(zoom).zoom;
+        return Flux.create(sink -> {
+            synchronized (emitLock) {
+                sink.next(snapshot(resolved, -90, -180, 90, 180));
+                Disposable live = deltas.asFlux()
+                        .subscribe(byZoom -> {
+                            CourierDensityDTO delta = byZoom.get(resolved);
+                            if (delta != null) {
+                                sink.next(delta);
+                            }
+                        }, sink::error, sink::complete);
+                sink.onDispose(live);
+            }
+        });
+    }
+
+    /**
+     * Pushes the counts of the tiles changed since the previous tick.
+     */
+    @Scheduled(fixedDelayString = "${admin.density.delta-interval-ms:1000}")
+    public void publishDeltas() {
+        Map<Integer, CourierDensityDTO> byZoom = new HashMap<>();
+        for (Level level : levels) {
+            if (level.dirty.isEmpty()) {
+                continue;
+            }
+            int[] cells = new int[3 * level.dirty.size()];
+            int size = 0;
+            Iterator<Long> it = level.dirty.iterator();
+            while (it.hasNext()) {
+                long key = it.next();
+                // Removed before reading, so a change racing this tick is marked again
+                it.remove();
+                cells = append(cells, size, (int) (key >>> 32), (int) key, level.counts.getOrDefault(key, 0));
+                size += 3;
+            }
+            byZoom.put(level.zoom,
+                    new CourierDensityDTO(CourierDensityDTO.Type.DELTA, level.zoom, Arrays.copyOf(cells, size)));
+        }
+        if (byZoom.isEmpty()) {
+            return;
+        }
+        synchronized (emitLock) {
+            deltas.tryEmitNext(byZoom);
+        }
+    }
+
+    private Level level(int zoom) {
+        Level chosen = levels[0];
+        for (Level level : levels) {
+            if (level.zoom <= zoom) {
+                chosen = level;
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * Lists the non-empty tiles of a range, probing the range when it is
+     * smaller than the level and scanning the level otherwise.
+     */
+    private static int[] collect(Level level, int minX, int minY, int maxX, int maxY) {
+        int[] cells = new int[3 * 16];
+        int size = 0;
+        long rangeSize = (long) (maxX - minX + 1) * (maxY - minY + 1);
+        if (rangeSize <= level.counts.size()) {
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    Integer count = level.counts.get(key(x, y));
+                    if (count != null) {
+                        cells = append(cells, size, x, y, count);
+                        size += 3;
+                    }
+                }
+            }
+        } else {
+            for (Map.Entry<Long, Integer> entry : level.counts.entrySet()) {
+                int x = (int) (entry.getKey() >>> 32);
+                int y = (int) (long) entry.getKey();
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    cells = append(cells, size, x, y, entry.getValue());
+                    size += 3;
+                }
+            }
+        }
+        return Arrays.copyOf(cells, size);
+    }
+
+    private static int[] append(int[] cells, int size, int x, int y, int count) {
+        int[] target = size + 3 > cells.length ? Arrays.copyOf(cells, cells.length * 2) : cells;
+        target[size] = x;
+        target[size + 1] = y;
+        target[size + 2] = count;
+        return target;
+    }
+
+    static long tileKey(int zoom, double lat, double lon) {
+        return key(WebMercator.tileX(zoom, lon), WebMercator.tileY(zoom, lat));
+    }
+
+    private static long key(int tileX, int tileY) {
+        return ((long) tileX << 32) | tileY;
+    }
+}
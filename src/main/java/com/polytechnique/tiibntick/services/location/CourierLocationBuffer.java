@@ -0,0 +1,124 @@
+package com.polytechnique.tiibntick.services.location;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer of courier GPS pings.
+ *
+ * <p>
+ * Holds at most one pending position per courier: a newer ping replaces the
+ * buffered one, so a courier pinging several times between two flushes costs a
+ * single write. The age of the oldest ping is kept across replacements so the
+ * flush lag reflects how long a courier's position has been stale in storage.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Component
+public class CourierLocationBuffer {
+
+    private final Map<UUID, PendingLocation> pending = new ConcurrentHashMap<>();
+
+    private final Counter received;
+    private final Counter coalesced;
+    private final Timer flushLag;
+    private final Timer flushDuration;
+    private final DistributionSummary flushSize;
+
+    public CourierLocationBuffer(MeterRegistry meterRegistry) {
+        this.received = Counter.builder("courier.location.pings.received")
+                .description("GPS pings accepted into the write-behind buffer")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("courier.location.pings.coalesced")
+                .description("GPS pings replaced by a newer ping before being flushed")
+                .register(meterRegistry);
+        this.flushLag = Timer.builder("courier.location.flush.lag")
+                .description("Age of the oldest buffered ping when its flush starts")
+                .register(meterRegistry);
+        this.flushDuration = Timer.builder("courier.location.flush.duration")
+                .description("Time spent writing one batch of positions")
+                .register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("courier.location.flush.size")
+                .description("Positions written per flush")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("courier.location.buffer.pending", Tags.empty(), pending);
+    }
+
+    /**
+     * Latest known position of a courier, waiting to be written.
+     *
+     * @param firstReceivedAtNanos {@link System#nanoTime()} of the oldest ping
+     *                             coalesced into this entry
+     */
+    public record PendingLocation(UUID deliveryPersonId, double latitude, double longitude,
+            long firstReceivedAtNanos) {
+    }
+
+    /**
+     * Buffers a ping, replacing any position not flushed yet.
+     */
+    public void offer(UUID deliveryPersonId, double latitude, double longitude) {
+        received.increment();
+        pending.merge(deliveryPersonId,
+                new PendingLocation(deliveryPersonId, latitude, longitude, System.nanoTime()),
+                (previous, latest) -> {
+                    coalesced.increment();
+                    return new PendingLocation(deliveryPersonId, latest.latitude(), latest.longitude(),
+                            previous.firstReceivedAtNanos());
+                });
+    }
+
+    /**
+     * Removes and returns every pending position. Pings arriving meanwhile are
+     * either part of the result or left for the next drain.
+     */
+    public List<PendingLocation> drain() {
+        List<PendingLocation> batch = new ArrayList<>(pending.size());
+        for (UUID deliveryPersonId : pending.keySet()) {
+            PendingLocation location = pending.remove(deliveryPersonId);
+            if (location != null) {
+                batch.add(location);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Puts back positions whose flush failed, unless a newer ping arrived since.
+     */
+    public void requeue(List<PendingLocation> batch) {
+        batch.forEach(location -> pending.putIfAbsent(location.deliveryPersonId(), location));
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Records the metrics of a completed flush.
+     *
+     * @param batch          the flushed positions
+     * @param startedAtNanos {@link System#nanoTime()} when the flush started
+     */
+    public void recordFlush(List<PendingLocation> batch, long startedAtNanos) {
+        long now = System.nanoTime();
+        batch.stream()
+                .mapToLong(PendingLocation::firstReceivedAtNanos)
+                .min()
+                .ifPresent(oldest -> flushLag.record(startedAtNanos - oldest, TimeUnit.NANOSECONDS));
+        flushDuration.record(now - startedAtNanos, TimeUnit.NANOSECONDS);
+        flushSize.record(batch.size());
+    }
+}
@@ -0,0 +1,129 @@
+package com.polytechnique.tiibntick.services.location;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which couriers are still sending location pings.
+ *
+ * <p>
+ * A ping only updates the courier's entry in the heartbeat map. Each online
+ * courier has a single timer in a {@link HierarchicalTimingWheel}, set when it
+ * comes online; when the timer fires the courier's last ping is checked, and
+ * the timer is set again if the courier pinged meanwhile. Steady pings
+ * therefore never touch the wheel, and a courier is reported stale at most one
+ * tick after {@code ttl} of silence.
+ *
+ * <p>
+ * {@link #isFresh(Instant)} applies the same TTL to the {@code last_seen_at}
+ * persisted in SQL, for couriers whose pings were received by other nodes.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Component
+public class CourierPresenceService {
+
+    private static final int SLOT_BITS = 6;
+    private static final int LEVELS = 3;
+
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<UUID, Long> lastSeen = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel<UUID> wheel;
+    private final Counter expired;
+    private final Counter restored;
+
+    @Autowired
+    public CourierPresenceService(MeterRegistry meterRegistry,
+            @Value("${presence.ttl-seconds:300}") long ttlSeconds,
+            @Value("${presence.tick-ms:1000}") long tickMillis) {
+        this(meterRegistry, Duration.ofSeconds(ttlSeconds), tickMillis, Clock.systemUTC());
+    }
+
+    CourierPresenceService(MeterRegistry meterRegistry, Duration ttl, long tickMillis, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, SLOT_BITS, LEVELS, clock.millis());
+        this.expired = Counter.builder("courier.presence.expired")
+                .description("Couriers marked stale after a silence longer than the presence TTL")
+                .register(meterRegistry);
+        this.restored = Counter.builder("courier.presence.restored")
+                .description("Couriers back online after being stale or unknown to this node")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("courier.presence.online", Tags.empty(), lastSeen);
+    }
+
+    /**
+     * Records a ping.
+     *
+     * @return true if the courier was not online on this node before this ping
+     */
+    public boolean recordPing(UUID deliveryPersonId) {
+        long now = clock.millis();
+        if (lastSeen.put(deliveryPersonId, now) != null) {
+            return false;
+        }
+        synchronized (wheel) {
+            wheel.schedule(deliveryPersonId, now + ttl.toMillis());
+        }
+        restored.increment();
+        return true;
+    }
+
+    /**
+     * Advances the wheel to now and removes the couriers whose silence exceeded
+     * the TTL.
+     *
+     * @return the couriers that just became stale
+     */
+    public List<UUID> expire() {
+        long now = clock.millis();
+        List<UUID> stale = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(now, deliveryPersonId -> {
+                Long seen = lastSeen.get(deliveryPersonId);
+                if (seen == null) {
+                    return;
+                }
+                long deadline = seen + ttl.toMillis();
+                // A conditional remove loses to a concurrent ping, which keeps the courier online
+                if (deadline <= now && lastSeen.remove(deliveryPersonId, seen)) {
+                    stale.add(deliveryPersonId);
+                } else {
+                    wheel.schedule(deliveryPersonId, deadline);
+                }
+            });
+        }
+        expired.increment(stale.size());
+        return stale;
+    }
+
+    /**
+     * Whether a courier is online on this node.
+     */
+    public boolean isOnline(UUID deliveryPersonId) {
+        return lastSeen.containsKey(deliveryPersonId);
+    }
+
+    /**
+     * Whether a persisted last ping time is recent enough for the courier to be
+     * matched. Couriers never seen since presence tracking started are stale.
+     */
+    public boolean isFresh(Instant lastSeenAt) {
+        return lastSeenAt != null && !lastSeenAt.isBefore(clock.instant().minus(ttl));
+    }
+}
@@ -0,0 +1,18 @@
+package com.polytechnique.tiibntick.services.location;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One recorded position of a courier.
+ *
+ * @param deliveryPersonId the courier
+ * @param recordedAt       when the ping was received
+ * @param latitude         latitude, rounded to 1e-6 degree
+ * @param longitude        longitude, rounded to 1e-6 degree
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+public record CourierTrackPoint(UUID deliveryPersonId, Instant recordedAt, double latitude, double longitude) {
+}
@@ -0,0 +1,449 @@
+package com.polytechnique.tiibntick.services.location;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Append-only history of courier positions, kept on local disk outside the
+ * database.
+ *
+ * <p>
+ * Positions are appended to memory-mapped segment files named after the epoch
+ * millisecond they were opened at. A new segment is started every
+ * {@code segmentDuration}, or earlier when the current one is full; segments
+ * older than {@code retention} are deleted. Files are sparse, so a segment only
+ * occupies the pages actually written.
+ *
+ * <p>
+ * Within a segment, the first position of a courier is written in full and
+ * assigns it the next local number. Later positions only store the differences
+ * to the courier's previous one as zigzag varints, typically 8 bytes per ping
+ * instead of 40. Coordinates are stored in micro-degrees (about 11 cm).
+ *
+ * <pre>
+ * FULL : 0x01 | uuid (16 bytes) | varlong millis | zigzag latE6 | zigzag lonE6
+ * DELTA: 0x02 | varint local number | zigzag Δmillis | zigzag ΔlatE6 | zigzag ΔlonE6
+ * </pre>
+ *
+ * A zero byte marks the end of the written data. Appends come from a single
+ * lock; readers only look at bytes below the published end, so range scans run
+ * without blocking writers.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Component
+public class CourierTrackStore {
+
+    static final String SEGMENT_SUFFIX = ".track";
+
+    private static final byte FULL = 1;
+    private static final byte DELTA = 2;
+    private static final double SCALE = 1_000_000d;
+    /** Largest possible record: FULL with a 10-byte timestamp and two 5-byte coordinates. */
+    private static final int MAX_RECORD_BYTES = 1 + 16 + 10 + 5 + 5;
+
+    private final Path directory;
+    private final boolean enabled;
+    private final long segmentDurationMillis;
+    private final int segmentSizeBytes;
+    private final long retentionMillis;
+    private final Clock clock;
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final byte[] scratch = new byte[MAX_RECORD_BYTES];
+    private Segment active;
+    private volatile boolean open;
+
+    @Autowired
+    public CourierTrackStore(
+            @Value("${location.track.enabled:true}") boolean enabled,
+            @Value("${location.track.directory:data/tracks}") String directory,
+            @Value("${location.track.segment-duration-minutes:60}") long segmentDurationMinutes,
+            @Value("${location.track.segment-size-bytes:67108864}") int segmentSizeBytes,
+            @Value("${location.track.retention-hours:72}") long retentionHours) {
+        this(enabled, Paths.get(directory), Duration.ofMinutes(segmentDurationMinutes), segmentSizeBytes,
+                Duration.ofHours(retentionHours), Clock.systemUTC());
+    }
+
+    CourierTrackStore(boolean enabled, Path directory, Duration segmentDuration, int segmentSizeBytes,
+            Duration retention, Clock clock) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentDurationMillis = Math.max(1, segmentDuration.toMillis());
+        this.segmentSizeBytes = Math.max(MAX_RECORD_BYTES, segmentSizeBytes);
+        this.retentionMillis = retention.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Maps the segments left by previous runs. New positions always go to a new
+     * segment.
+     */
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                    Segment segment = Segment.recover(file);
+                    if (segment != null) {
+                        segments.put(segment.startMillis, segment);
+                    }
+                }
+            }
+            open = true;
+            log.info("Courier track store opened at {} with {} existing segments", directory, segments.size());
+        } catch (IOException e) {
+            log.error("Courier track store disabled: cannot open {}", directory, e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        open = false;
+        if (active != null) {
+            active.buffer.force();
+            active = null;
+        }
+    }
+
+    /**
+     * Records a courier position at the current time. Never throws: a position
+     * that cannot be written is logged and dropped.
+     */
+    public void append(UUID deliveryPersonId, double latitude, double longitude) {
+        if (!open) {
+            return;
+        }
+        synchronized (this) {
+            long now = clock.millis();
+            try {
+                if (active == null || now >= active.startMillis + segmentDurationMillis
+                        || active.end + MAX_RECORD_BYTES > active.capacity) {
+                    roll(now);
+                }
+                int length = active.encode(scratch, deliveryPersonId, now,
+                        (int) Math.round(latitude * SCALE), (int) Math.round(longitude * SCALE));
+                active.buffer.put(active.end, scratch, 0, length);
+                active.end += length;
+            } catch (IOException e) {
+                log.error("Failed to record position of courier {}", deliveryPersonId, e);
+                active = null;
+            }
+        }
+    }
+
+    /**
+     * Replays the positions of a courier recorded in {@code [from, to]}, oldest
+     * first. Segments are read on the bounded elastic scheduler since cold pages
+     * are faulted in from disk.
+     */
+    public Flux<CourierTrackPoint> replay(UUID deliveryPersonId, Instant from, Instant to) {
+        if (!enabled || from.isAfter(to)) {
+            return Flux.empty();
+        }
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        return Flux.defer(() -> Flux.fromIterable(overlapping(fromMillis, toMillis)))
+                .concatMapIterable(segment -> segment.scan(deliveryPersonId, fromMillis, toMillis))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Deletes segments whose whole time span is older than the retention.
+     */
+    @Scheduled(fixedDelayString = "${location.track.retention-check-interval-ms:600000}")
+    public void enforceRetention() {
+        long cutoff = clock.millis() - retentionMillis;
+        for (Map.Entry<Long, Segment> entry : segments.entrySet()) {
+            Long nextStart = segments.higherKey(entry.getKey());
+            // The active segment (no successor) is never deleted
+            if (nextStart == null || nextStart > cutoff) {
+                break;
+            }
+            segments.remove(entry.getKey());
+            try {
+                // The mapping itself is released once the buffer is garbage collected
+                Files.deleteIfExists(entry.getValue().path);
+                log.debug("Deleted expired courier track segment {}", entry.getValue().path);
+            } catch (IOException e) {
+                log.warn("Failed to delete expired courier track segment {}", entry.getValue().path, e);
+            }
+        }
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    private List<Segment> overlapping(long fromMillis, long toMillis) {
+        Long first = segments.floorKey(fromMillis);
+        NavigableMap<Long, Segment> range = segments.subMap(first == null ? Long.MIN_VALUE : first, true,
+                toMillis, true);
+        return new ArrayList<>(range.values());
+    }
+
+    private void roll(long now) throws IOException {
+        if (active != null) {
+            active.buffer.force();
+        }
+        long start = Math.max(now, segments.isEmpty() ? now : segments.lastKey() + 1);
+        Path file = directory.resolve(String.format("%020d%s", start, SEGMENT_SUFFIX));
+        active = Segment.create(file, start, segmentSizeBytes);
+        segments.put(start, active);
+        log.debug("Started courier track segment {}", file);
+    }
+
+    /**
+     * One mapped segment file.
+     */
+    private static final class Segment {
+
+        final long startMillis;
+        final Path path;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        /** Bytes written so far; readers never look past it. */
+        volatile int end;
+
+        /** Writer-side delta state, by courier. Only used for the active segment. */
+        private final Map<UUID, Cursor> cursors = new HashMap<>();
+
+        private Segment(long startMillis, Path path, MappedByteBuffer buffer, int end) {
+            this.startMillis = startMillis;
+            this.path = path;
+            this.buffer = buffer;
+            this.capacity = buffer.capacity();
+            this.end = end;
+        }
+
+        static Segment create(Path path, long startMillis, int size) throws IOException {
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+                    FileChannel channel = file.getChannel()) {
+                file.setLength(size);
+                return new Segment(startMillis, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), 0);
+            }
+        }
+
+        /**
+         * Maps an existing segment read-only and finds where its data ends,
+         * ignoring a record cut short by a crash.
+         */
+        static Segment recover(Path path) {
+            String name = path.getFileName().toString();
+            long startMillis;
+            try {
+                startMillis = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring unexpected file {} in the courier track store", path);
+                return null;
+            }
+            try (FileChannel channel = FileChannel.open(path)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                Segment segment = new Segment(startMillis, path, buffer, buffer.capacity());
+                segment.end = segment.decode(null, Long.MIN_VALUE, Long.MAX_VALUE, null);
+                return segment;
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable courier track segment {}", path, e);
+                return null;
+            }
+        }
+
+        int encode(byte[] out, UUID deliveryPersonId, long millis, int latE6, int lonE6) {
+            int pos = 0;
+            Cursor cursor = cursors.get(deliveryPersonId);
+            if (cursor == null) {
+                cursors.put(deliveryPersonId, new Cursor(cursors.size(), millis, latE6, lonE6));
+                out[pos++] = FULL;
+                pos = putLong(out, pos, deliveryPersonId.getMostSignificantBits());
+                pos = putLong(out, pos, deliveryPersonId.getLeastSignificantBits());
+                pos = putVarLong(out, pos, millis);
+                pos = putVarLong(out, pos, zigzag(latE6));
+                return putVarLong(out, pos, zigzag(lonE6));
+            }
+            out[pos++] = DELTA;
+            pos = putVarLong(out, pos, cursor.localNumber);
+            pos = putVarLong(out, pos, zigzag(millis - cursor.millis));
+            pos = putVarLong(out, pos, zigzag((long) latE6 - cursor.latE6));
+            pos = putVarLong(out, pos, zigzag((long) lonE6 - cursor.lonE6));
+            cursor.millis = millis;
+            cursor.latE6 = latE6;
+            cursor.lonE6 = lonE6;
+            return pos;
+        }
+
+        List<CourierTrackPoint> scan(UUID deliveryPersonId, long fromMillis, long toMillis) {
+            List<CourierTrackPoint> points = new ArrayList<>();
+            decode(deliveryPersonId, fromMillis, toMillis, points);
+            return points;
+        }
+
+        /**
+         * Walks the records up to {@link #end}, collecting those of one courier
+         * within the time window.
+         *
+         * @return the offset right after the last complete record
+         */
+        private int decode(UUID wanted, long fromMillis, long toMillis, List<CourierTrackPoint> out) {
+            Decoder in = new Decoder(buffer, end);
+            List<UUID> ids = new ArrayList<>();
+            long[] millis = new long[16];
+            int[] lat = new int[16];
+            int[] lon = new int[16];
+            int wantedNumber = -1;
+            int complete = 0;
+            try {
+                while (in.pos < in.limit) {
+                    int tag = in.readByte();
+                    int number;
+                    if (tag == FULL) {
+                        UUID id = new UUID(in.readLong(), in.readLong());
+                        number = ids.size();
+                        if (number == millis.length) {
+                            millis = Arrays.copyOf(millis, number * 2);
+                            lat = Arrays.copyOf(lat, number * 2);
+                            lon = Arrays.copyOf(lon, number * 2);
+                        }
+                        ids.add(id);
+                        millis[number] = in.readVarLong();
+                        lat[number] = (int) unzigzag(in.readVarLong());
+                        lon[number] = (int) unzigzag(in.readVarLong());
+                        if (id.equals(wanted)) {
+                            wantedNumber = number;
+                        }
+                    } else if (tag == DELTA) {
+                        number = (int) in.readVarLong();
+                        if (number >= ids.size()) {
+                            break;
+                        }
+                        millis[number] += unzigzag(in.readVarLong());
+                        lat[number] += (int) unzigzag(in.readVarLong());
+                        lon[number] += (int) unzigzag(in.readVarLong());
+                    } else {
+                        break;
+                    }
+                    complete = in.pos;
+                    if (number == wantedNumber && millis[number] >= fromMillis && millis[number] <= toMillis) {
+                        out.add(new CourierTrackPoint(wanted, Instant.ofEpochMilli(millis[number]),
+                                lat[number] / SCALE, lon[number] / SCALE));
+                    }
+                }
+            } catch (IndexOutOfBoundsException e) {
+                // Truncated last record
+            }
+            return complete;
+        }
+    }
+
+    private static final class Cursor {
+        final int localNumber;
+        long millis;
+        int latE6;
+        int lonE6;
+
+        Cursor(int localNumber, long millis, int latE6, int lonE6) {
+            this.localNumber = localNumber;
+            this.millis = millis;
+            this.latE6 = latE6;
+            this.lonE6 = lonE6;
+        }
+    }
+
+    /**
+     * Bounded reader over a mapped buffer, using absolute reads only so several
+     * scans can share the buffer.
+     */
+    private static final class Decoder {
+        final MappedByteBuffer buffer;
+        final int limit;
+        int pos;
+
+        Decoder(MappedByteBuffer buffer, int limit) {
+            this.buffer = buffer;
+            this.limit = limit;
+        }
+
+        int readByte() {
+            if (pos >= limit) {
+                throw new IndexOutOfBoundsException(pos);
+            }
+            return buffer.get(pos++) & 0xFF;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IndexOutOfBoundsException("Malformed varint at " + pos);
+        }
+    }
+
+    private static int putLong(byte[] out, int pos, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out[pos++] = (byte) (value >>> shift);
+        }
+        return pos;
+    }
+
+    private static int putVarLong(byte[] out, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
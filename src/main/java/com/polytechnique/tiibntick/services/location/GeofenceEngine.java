@@ -0,0 +1,226 @@
+package com.polytechnique.tiibntick.services.location;
+
+import com.polytechnique.tiibntick.dtos.geofence.AcceptedSubscriptionStops;
+import com.polytechnique.tiibntick.events.CourierArrivedEvent;
+import com.polytechnique.tiibntick.repositories.AnnouncementSubscriptionRepository;
+import com.polytechnique.tiibntick.repositories.GeofenceArrivalRepository;
+import com.polytechnique.tiibntick.services.matching.DistanceEngine;
+import com.polytechnique.tiibntick.services.support.KafkaEventPublisher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Detects couriers arriving at the pickup and delivery points of the
+ * announcements they were accepted for, and publishes a
+ * {@link CourierArrivedEvent} for each arrival.
+ *
+ * <p>
+ * Fences are circles around the stops of accepted subscriptions, indexed by
+ * courier, so a location ping is only tested against the few fences of the
+ * courier that sent it: a bounding box check first, then the great-circle
+ * distance. Each fence fires once: the arrival is first recorded in SQL, keyed
+ * by subscription and stop, and only the node whose insert wins publishes the
+ * event. Fences are reloaded from SQL at a fixed interval together with the
+ * recorded arrivals, so a restarted node or one serving the courier for the
+ * first time does not fire them again.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Component
+public class GeofenceEngine {
+
+    private static final double KM_PER_DEGREE = Math.PI * DistanceEngine.EARTH_RADIUS_KM / 180.0;
+
+    private final AnnouncementSubscriptionRepository subscriptionRepository;
+    private final GeofenceArrivalRepository geofenceArrivalRepository;
+    private final KafkaEventPublisher kafkaEventPublisher;
+    private final double pickupRadiusKm;
+    private final double deliveryRadiusKm;
+
+    /** Replaced wholesale on reload, never mutated afterwards. */
+    private volatile Map<UUID, List<Fence>> fencesByCourier = Map.of();
+    private final AtomicBoolean loading = new AtomicBoolean(false);
+
+    public GeofenceEngine(AnnouncementSubscriptionRepository subscriptionRepository,
+            GeofenceArrivalRepository geofenceArrivalRepository,
+            KafkaEventPublisher kafkaEventPublisher,
+            @Value("${geofence.pickup-radius-m:75}") double pickupRadiusMeters,
+            @Value("${geofence.delivery-radius-m:75}") double deliveryRadiusMeters) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.geofenceArrivalRepository = geofenceArrivalRepository;
+        this.kafkaEventPublisher = kafkaEventPublisher;
+        this.pickupRadiusKm = pickupRadiusMeters / 1000.0;
+        this.deliveryRadiusKm = deliveryRadiusMeters / 1000.0;
+    }
+
+    /**
+     * Tests a location ping against the fences of its courier and publishes an
+     * event for every fence entered for the first time.
+     */
+    public void evaluate(UUID deliveryPersonId, double latitude, double longitude) {
+        List<Fence> fences = fencesByCourier.get(deliveryPersonId);
+        if (fences == null) {
+            return;
+        }
+        for (Fence fence : fences) {
+            if (fence.contains(latitude, longitude) && fence.fired.compareAndSet(false, true)) {
+                publishOnce(deliveryPersonId, fence, latitude, longitude);
+            }
+        }
+    }
+
+    /**
+     * Records the arrival and publishes it if no node recorded it before. If the
+     * arrival cannot be recorded, the fence is re-armed so a later ping retries.
+     */
+    private void publishOnce(UUID deliveryPersonId, Fence fence, double latitude, double longitude) {
+        CourierArrivedEvent event = CourierArrivedEvent.builder()
+                .subscriptionId(fence.subscriptionId)
+                .announcementId(fence.announcementId)
+                .deliveryPersonId(deliveryPersonId)
+                .stop(fence.stop)
+                .latitude(latitude)
+                .longitude(longitude)
+                .arrivedAt(Instant.now())
+                .build();
+        geofenceArrivalRepository.claim(fence.subscriptionId, fence.stop.name(), event.getArrivedAt())
+                .subscribe(claimed -> kafkaEventPublisher.publishCourierArrived(event), e -> {
+                    log.warn("Could not record arrival at {} of subscription {}: {}", fence.stop,
+                            fence.subscriptionId, e.getMessage());
+                    fence.fired.set(false);
+                });
+    }
+
+    /**
+     * Whether the courier still has a pickup or delivery stop it has not
+     * reached.
+     */
+    public boolean hasPendingStops(UUID deliveryPersonId) {
+        List<Fence> fences = fencesByCourier.get(deliveryPersonId);
+        if (fences == null) {
+            return false;
+        }
+        for (Fence fence : fences) {
+            if (!fence.fired.get()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reloads the fences, starting at application startup. Skips the tick if
+     * the previous reload is still running.
+     */
+    @Scheduled(fixedDelayString = "${geofence.refresh-interval-ms:30000}")
+    public void scheduledReload() {
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+        reload()
+                .doOnError(e -> log.warn("Geofence refresh failed: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .doFinally(signal -> loading.set(false))
+                .subscribe();
+    }
+
+    /**
+     * Rebuilds the fences from the accepted subscriptions in SQL.
+     *
+     * @return a Mono completing once the new fences are in place
+     */
+    public Mono<Void> reload() {
+        return subscriptionRepository.findAcceptedStops()
+                .collectList()
+                .doOnNext(this::replaceFences)
+                .then();
+    }
+
+    int fenceCount() {
+        return fencesByCourier.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void replaceFences(List<AcceptedSubscriptionStops> rows) {
+        Map<UUID, List<Fence>> previous = fencesByCourier;
+        Map<UUID, List<Fence>> next = new HashMap<>();
+        for (AcceptedSubscriptionStops row : rows) {
+            addFence(next, previous, row, CourierArrivedEvent.Stop.PICKUP,
+                    row.getPickupLatitude(), row.getPickupLongitude(), pickupRadiusKm, row.isPickupReached());
+            addFence(next, previous, row, CourierArrivedEvent.Stop.DELIVERY,
+                    row.getDeliveryLatitude(), row.getDeliveryLongitude(), deliveryRadiusKm,
+                    row.isDeliveryReached());
+        }
+        fencesByCourier = next;
+        log.debug("Geofences reloaded: {} fences for {} couriers", fenceCount(), next.size());
+    }
+
+    private static void addFence(Map<UUID, List<Fence>> next, Map<UUID, List<Fence>> previous,
+            AcceptedSubscriptionStops row, CourierArrivedEvent.Stop stop, Double latitude, Double longitude,
+            double radiusKm, boolean reached) {
+        if (latitude == null || longitude == null) {
+            return;
+        }
+        // Share the flag with the fence being replaced so an arrival racing the reload fires once
+        AtomicBoolean fired = new AtomicBoolean(false);
+        for (Fence old : previous.getOrDefault(row.getDeliveryPersonId(), List.of())) {
+            if (old.subscriptionId.equals(row.getSubscriptionId()) && old.stop == stop) {
+                fired = old.fired;
+            }
+        }
+        if (reached) {
+            fired.set(true);
+        }
+        Fence fence = new Fence(row.getSubscriptionId(), row.getAnnouncementId(), stop, latitude, longitude,
+                radiusKm, fired);
+        next.computeIfAbsent(row.getDeliveryPersonId(), id -> new ArrayList<>(2)).add(fence);
+    }
+
+    private static final class Fence {
+        final UUID subscriptionId;
+        final UUID announcementId;
+        final CourierArrivedEvent.Stop stop;
+        final double latitude;
+        final double longitude;
+        final double radiusKm;
+        final double minLat;
+        final double maxLat;
+        final double minLon;
+        final double maxLon;
+        final AtomicBoolean fired;
+
+        Fence(UUID subscriptionId, UUID announcementId, CourierArrivedEvent.Stop stop, double latitude,
+                double longitude, double radiusKm, AtomicBoolean fired) {
+            this.subscriptionId = subscriptionId;
+            this.announcementId = announcementId;
+            this.stop = stop;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusKm = radiusKm;
+            this.fired = fired;
+            double dLat = radiusKm / KM_PER_DEGREE;
+            double dLon = dLat / Math.max(Math.cos(Math.toRadians(latitude)), 1e-6);
+            this.minLat = latitude - dLat;
+            this.maxLat = latitude + dLat;
+            this.minLon = longitude - dLon;
+            this.maxLon = longitude + dLon;
+        }
+
+        boolean contains(double lat, double lon) {
+            return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon
+                    && DistanceEngine.haversineKm(latitude, longitude, lat, lon) <= radiusKm;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.polytechnique.tiibntick.services.location;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical hashed timing wheel: O(1) scheduling and O(1) amortised expiry
+ * per timer, whatever the number of pending timers.
+ *
+ * <p>
+ * Level 0 has one slot per tick. Each higher level has slots spanning a whole
+ * turn of the level below, so {@code levels} levels of {@code 2^slotBits}
+ * slots cover {@code 2^(slotBits * levels)} ticks. When a level-0 turn
+ * completes, the next slot of level 1 is emptied and its timers re-placed one
+ * level down, and so on up the hierarchy. Timers due further than the wheel
+ * covers wait in the top level and are re-placed each time their slot comes
+ * round.
+ *
+ * <p>
+ * Not thread-safe; callers synchronize.
+ *
+ * @param <K> timer key type
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+public final class HierarchicalTimingWheel<K> {
+
+    private record Timer<K>(K key, long deadlineTick) {
+    }
+
+    private final long tickMillis;
+    private final int slotBits;
+    private final int mask;
+    private final List<List<Timer<K>>[]> levels;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int slotBits, int levelCount, long startMillis) {
+        this.tickMillis = Math.max(1, tickMillis);
+        this.slotBits = slotBits;
+        this.mask = (1 << slotBits) - 1;
+        this.levels = new ArrayList<>(levelCount);
+        for (int level = 0; level < levelCount; level++) {
+            List<Timer<K>>[] slots = new List[1 << slotBits];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = new ArrayList<>();
+            }
+            levels.add(slots);
+        }
+        this.currentTick = startMillis / this.tickMillis;
+    }
+
+    /**
+     * Schedules {@code key} to expire at {@code deadlineMillis}. A deadline in
+     * the past expires on the next tick.
+     */
+    public void schedule(K key, long deadlineMillis) {
+        long deadlineTick = Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis);
+        place(new Timer<>(key, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Advances the wheel to {@code nowMillis}, handing every expired key to
+     * {@code expired} in deadline order (within one tick, in no particular
+     * order).
+     */
+    public void advance(long nowMillis, Consumer<K> expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(1);
+            List<Timer<K>> slot = levels.get(0)[(int) (currentTick & mask)];
+            if (slot.isEmpty()) {
+                continue;
+            }
+            List<Timer<K>> due = new ArrayList<>(slot);
+            slot.clear();
+            for (Timer<K> timer : due) {
+                if (timer.deadlineTick() <= currentTick) {
+                    size--;
+                    expired.accept(timer.key());
+                } else {
+                    place(timer);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Re-places the timers of the level {@code level} slot reached by the
+     * current tick, if the level below just completed a turn.
+     */
+    private void cascade(int level) {
+        if (level >= levels.size() || (currentTick & ((1L << (slotBits * level)) - 1)) != 0) {
+            return;
+        }
+        cascade(level + 1);
+        List<Timer<K>> slot = levels.get(level)[(int) ((currentTick >>> (slotBits * level)) & mask)];
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Timer<K>> moved = new ArrayList<>(slot);
+        slot.clear();
+        moved.forEach(this::place);
+    }
+
+    private void place(Timer<K> timer) {
+        long delta = timer.deadlineTick() - currentTick;
+        int top = levels.size() - 1;
+        for (int level = 0; level < top; level++) {
+            if (delta < (1L << (slotBits * (level + 1)))) {
+                levels.get(level)[(int) ((timer.deadlineTick() >>> (slotBits * level)) & mask)].add(timer);
+                return;
+            }
+        }
+        // Beyond the wheel's span: park in the furthest top-level slot reachable
+        long tick = Math.min(timer.deadlineTick(), currentTick + (1L << (slotBits * (top + 1))) - 1);
+        levels.get(top)[(int) ((tick >>> (slotBits * top)) & mask)].add(timer);
+    }
+}
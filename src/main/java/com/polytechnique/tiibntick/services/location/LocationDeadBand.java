@@ -0,0 +1,147 @@
+package com.polytechnique.tiibntick.services.location;
+
+import com.polytechnique.tiibntick.services.matching.DistanceEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which courier pings are worth persisting, and how soon the courier
+ * should ping again.
+ *
+ * <p>
+ * A ping is accepted when the courier moved at least {@code minDistance} from
+ * its last accepted position and that position is at least
+ * {@code minInterval} old. A ping arriving {@code maxSilence} after the last
+ * accepted one is accepted regardless, which keeps {@code last_seen_at} fresh
+ * for the other nodes while a courier waits in place.
+ *
+ * <p>
+ * The suggested interval is the shortest while the courier has pickup or
+ * delivery stops pending, so arrivals are detected promptly. Otherwise it aims
+ * at one {@code targetDisplacement} of travel between pings at the courier's
+ * speed, measured from its last accepted ping, and is the longest when the
+ * courier is stationary.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Component
+public class LocationDeadBand {
+
+    /** Below this speed a courier is considered stationary. */
+    private static final double STATIONARY_SPEED_MPS = 0.5;
+
+    /**
+     * Outcome of a ping.
+     *
+     * @param accepted        whether the ping should be persisted
+     * @param nextPingSeconds suggested delay before the courier's next ping
+     */
+    public record Decision(boolean accepted, int nextPingSeconds) {
+    }
+
+    /**
+     * @param speedMps speed measured when this ping was accepted
+     */
+    private record AcceptedPing(double latitude, double longitude, long atMillis, double speedMps) {
+    }
+
+    private final double minDistanceMeters;
+    private final long minIntervalMillis;
+    private final long maxSilenceMillis;
+    private final int minPingSeconds;
+    private final int maxPingSeconds;
+    private final double targetDisplacementMeters;
+    private final Clock clock;
+    private final Map<UUID, AcceptedPing> lastAccepted = new ConcurrentHashMap<>();
+    private final Counter suppressed;
+
+    @Autowired
+    public LocationDeadBand(MeterRegistry meterRegistry,
+            @Value("${location.deadband.min-distance-m:25}") double minDistanceMeters,
+            @Value("${location.deadband.min-interval-ms:2000}") long minIntervalMillis,
+            @Value("${location.deadband.max-silence-ms:60000}") long maxSilenceMillis,
+            @Value("${location.ping.min-interval-seconds:5}") int minPingSeconds,
+            @Value("${location.ping.max-interval-seconds:60}") int maxPingSeconds,
+            @Value("${location.ping.target-displacement-m:150}") double targetDisplacementMeters) {
+        this(meterRegistry, minDistanceMeters, minIntervalMillis, maxSilenceMillis, minPingSeconds, maxPingSeconds,
+                targetDisplacementMeters, Clock.systemUTC());
+    }
+
+    LocationDeadBand(MeterRegistry meterRegistry, double minDistanceMeters, long minIntervalMillis,
+            long maxSilenceMillis, int minPingSeconds, int maxPingSeconds, double targetDisplacementMeters,
+            Clock clock) {
+        this.minDistanceMeters = minDistanceMeters;
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxSilenceMillis = maxSilenceMillis;
+        this.minPingSeconds = Math.max(1, minPingSeconds);
+        this.maxPingSeconds = Math.max(this.minPingSeconds, maxPingSeconds);
+        this.targetDisplacementMeters = targetDisplacementMeters;
+        this.clock = clock;
+        this.suppressed = Counter.builder("courier.location.pings.suppressed")
+                .description("GPS pings not persisted because the courier barely moved or pinged too soon")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Evaluates a ping and records it as the courier's last accepted position
+     * if it is accepted.
+     *
+     * @param hasPendingStops whether the courier has pickup or delivery stops
+     *                        left on accepted announcements
+     */
+    public Decision evaluate(UUID deliveryPersonId, double latitude, double longitude, boolean hasPendingStops) {
+        long now = clock.millis();
+        double[] speed = { 0.0 };
+        boolean[] accepted = { false };
+
+        lastAccepted.compute(deliveryPersonId, (id, previous) -> {
+            if (previous == null) {
+                accepted[0] = true;
+                return new AcceptedPing(latitude, longitude, now, 0.0);
+            }
+            double meters = 1000 * DistanceEngine.haversineKm(previous.latitude(), previous.longitude(),
+                    latitude, longitude);
+            long elapsed = now - previous.atMillis();
+            // Over very short intervals GPS jitter dominates, keep the last measured speed
+            speed[0] = elapsed >= minIntervalMillis && elapsed > 0 ? meters * 1000.0 / elapsed : previous.speedMps();
+            if (elapsed >= maxSilenceMillis || (elapsed >= minIntervalMillis && meters >= minDistanceMeters)) {
+                accepted[0] = true;
+                return new AcceptedPing(latitude, longitude, now, speed[0]);
+            }
+            return previous;
+        });
+
+        if (!accepted[0]) {
+            suppressed.increment();
+        }
+        return new Decision(accepted[0], nextPingSeconds(speed[0], hasPendingStops));
+    }
+
+    /**
+     * Forgets couriers that went offline, so their next ping is accepted.
+     */
+    public void forget(Collection<UUID> deliveryPersonIds) {
+        deliveryPersonIds.forEach(lastAccepted::remove);
+    }
+
+    private int nextPingSeconds(double speedMetersPerSecond, boolean hasPendingStops) {
+        if (hasPendingStops) {
+            return minPingSeconds;
+        }
+        if (speedMetersPerSecond < STATIONARY_SPEED_MPS) {
+            return maxPingSeconds;
+        }
+        long seconds = Math.round(targetDisplacementMeters / speedMetersPerSecond);
+        return (int) Math.max(minPingSeconds, Math.min(maxPingSeconds, seconds));
+    }
+}
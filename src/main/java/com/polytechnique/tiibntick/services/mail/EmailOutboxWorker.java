@@ -0,0 +1,280 @@
+package com.polytechnique.tiibntick.services.mail;
+
+import com.polytechnique.tiibntick.models.EmailOutboxMessage;
+import com.polytechnique.tiibntick.repositories.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends the emails queued in the {@code email_outbox} table.
+ *
+ * <p>
+ * Due emails are claimed in batches, leased like the re-matching retries so
+ * several nodes can poll the outbox at once. Each batch is split between
+ * {@code workers} threads of a dedicated scheduler; a worker sends its share
+ * over one pooled SMTP connection, reconnecting only when the provider's
+ * per-session limit is reached or the connection fails. All workers share a
+ * token bucket that keeps the node under the provider's rate limit. The lease
+ * must outlast a batch, i.e. exceed {@code batchSize / rate-per-second}.
+ *
+ * <p>
+ * Sent emails are deleted. A failed email is retried with exponential backoff
+ * ({@code base * 2^(attempts - 1)}, capped at {@code max}) and marked FAILED
+ * after {@code maxAttempts}, or at once if its address is invalid. When the
+ * SMTP server cannot be reached, the rest of the worker's share is retried
+ * later without trying each email in turn.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Component
+public class EmailOutboxWorker {
+
+    static final String FROM = "noreply@tiibntick.com";
+
+    /**
+     * @param error     null if the email was sent
+     * @param permanent whether retrying cannot help
+     */
+    private record Outcome(EmailOutboxMessage message, String error, boolean permanent) {
+    }
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final SmtpConnectionPool connectionPool;
+    private final SendRateLimiter rateLimiter;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int workers;
+    private final double leaseSeconds;
+    private final int maxAttempts;
+    private final double baseDelaySeconds;
+    private final double maxDelaySeconds;
+    private final Scheduler scheduler;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Autowired
+    public EmailOutboxWorker(EmailOutboxRepository emailOutboxRepository, JavaMailSenderImpl mailSender,
+            MeterRegistry meterRegistry,
+            @Value("${mail.outbox.enabled:true}") boolean enabled,
+            @Value("${mail.outbox.batch-size:100}") int batchSize,
+            @Value("${mail.outbox.workers:2}") int workers,
+            @Value("${mail.outbox.lease-seconds:300}") double leaseSeconds,
+            @Value("${mail.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${mail.outbox.base-delay-seconds:30}") double baseDelaySeconds,
+            @Value("${mail.outbox.max-delay-seconds:3600}") double maxDelaySeconds,
+            @Value("${mail.outbox.rate-per-second:5}") double ratePerSecond,
+            @Value("${mail.outbox.rate-burst:10}") int rateBurst,
+            @Value("${mail.outbox.messages-per-connection:100}") int messagesPerConnection,
+            @Value("${mail.outbox.connection-max-idle-ms:30000}") long connectionMaxIdleMs) {
+        this(emailOutboxRepository,
+                new SmtpConnectionPool(mailSender, workers, messagesPerConnection, connectionMaxIdleMs),
+                new SendRateLimiter(ratePerSecond, rateBurst), meterRegistry, enabled, batchSize, workers,
+                leaseSeconds, maxAttempts, baseDelaySeconds, maxDelaySeconds);
+    }
+
+    EmailOutboxWorker(EmailOutboxRepository emailOutboxRepository, SmtpConnectionPool connectionPool,
+            SendRateLimiter rateLimiter, MeterRegistry meterRegistry, boolean enabled, int batchSize, int workers,
+            double leaseSeconds, int maxAttempts, double baseDelaySeconds, double maxDelaySeconds) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.connectionPool = connectionPool;
+        this.rateLimiter = rateLimiter;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.workers = Math.max(1, workers);
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelaySeconds = baseDelaySeconds;
+        this.maxDelaySeconds = maxDelaySeconds;
+        // SMTP is blocking: its own threads, so a burst never starves boundedElastic
+        this.scheduler = Schedulers.newBoundedElastic(this.workers, 16 * this.workers, "email-outbox");
+        this.sentCounter = Counter.builder("mail.outbox.sent")
+                .description("Emails sent from the outbox")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("mail.outbox.retried")
+                .description("Failed email attempts scheduled for a retry")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("mail.outbox.failed")
+                .description("Emails given up after their last attempt")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Polls for due emails. Skips the tick if the previous batch is still
+     * running.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:2000}")
+    public void drain() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        runBatch()
+                .doOnError(e -> log.warn("Email outbox batch failed: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .doFinally(signal -> running.set(false))
+                .subscribe();
+    }
+
+    /**
+     * Claims, sends and records one batch of due emails.
+     *
+     * @return a Mono completing once the outcomes are persisted
+     */
+    Mono<Void> runBatch() {
+        return emailOutboxRepository.claimDue(batchSize, leaseSeconds)
+                .collectList()
+                .flatMapMany(claimed -> Flux.fromIterable(split(claimed)))
+                .flatMap(share -> Mono.fromCallable(() -> send(share)).subscribeOn(scheduler), workers)
+                .concatMap(this::record)
+                .then();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+        connectionPool.close();
+    }
+
+    private List<List<EmailOutboxMessage>> split(List<EmailOutboxMessage> claimed) {
+        int shares = Math.min(workers, claimed.size());
+        List<List<EmailOutboxMessage>> split = new ArrayList<>(shares);
+        for (int i = 0; i < shares; i++) {
+            split.add(new ArrayList<>());
+        }
+        for (int i = 0; i < claimed.size(); i++) {
+            split.get(i % shares).add(claimed.get(i));
+        }
+        return split;
+    }
+
+    /**
+     * Sends a share of the batch over pooled connections, blocking.
+     */
+    private List<Outcome> send(List<EmailOutboxMessage> share) {
+        List<Outcome> outcomes = new ArrayList<>(share.size());
+        SmtpConnectionPool.PooledConnection connection = null;
+        try {
+            for (int i = 0; i < share.size(); i++) {
+                EmailOutboxMessage message = share.get(i);
+                MimeMessage mime;
+                try {
+                    mime = toMimeMessage(message);
+                } catch (AddressException e) {
+                    outcomes.add(new Outcome(message, "Invalid address: " + e.getMessage(), true));
+                    continue;
+                } catch (MessagingException e) {
+                    outcomes.add(new Outcome(message, e.getMessage(), false));
+                    continue;
+                }
+
+                if (connection == null) {
+                    try {
+                        connection = connectionPool.borrow();
+                    } catch (MessagingException e) {
+                        log.warn("Could not connect to the SMTP server: {}", e.getMessage());
+                        for (int j = i; j < share.size(); j++) {
+                            outcomes.add(new Outcome(share.get(j), "SMTP connection failed: " + e.getMessage(),
+                                    false));
+                        }
+                        return outcomes;
+                    }
+                }
+
+                rateLimiter.acquire();
+                try {
+                    connection.transport.sendMessage(mime, mime.getAllRecipients());
+                    connection.sent();
+                    outcomes.add(new Outcome(message, null, false));
+                    if (connectionPool.exhausted(connection)) {
+                        connectionPool.release(connection, true);
+                        connection = null;
+                    }
+                } catch (MessagingException e) {
+                    outcomes.add(new Outcome(message, e.getMessage(), false));
+                    // A rejected recipient leaves the session usable, other failures may not
+                    boolean healthy = e instanceof SendFailedException && connection.transport.isConnected();
+                    connectionPool.release(connection, healthy);
+                    connection = null;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Emails without an outcome become due again when their lease expires
+            Thread.currentThread().interrupt();
+        } finally {
+            if (connection != null) {
+                connectionPool.release(connection, true);
+            }
+        }
+        return outcomes;
+    }
+
+    private MimeMessage toMimeMessage(EmailOutboxMessage message) throws MessagingException {
+        MimeMessage mime = new MimeMessage(connectionPool.session());
+        mime.setFrom(new InternetAddress(FROM));
+        mime.setRecipients(Message.RecipientType.TO, InternetAddress.parse(message.getRecipient(), true));
+        mime.setSubject(message.getSubject(), StandardCharsets.UTF_8.name());
+        mime.setText(message.getBody(), StandardCharsets.UTF_8.name());
+        mime.setSentDate(new Date());
+        mime.saveChanges();
+        return mime;
+    }
+
+    private Mono<Void> record(List<Outcome> outcomes) {
+        UUID[] sent = outcomes.stream()
+                .filter(outcome -> outcome.error() == null)
+                .map(outcome -> outcome.message().getId())
+                .toArray(UUID[]::new);
+        Mono<Void> deleted = sent.length == 0 ? Mono.empty()
+                : emailOutboxRepository.deleteSent(sent)
+                        .doOnNext(rows -> sentCounter.increment(sent.length))
+                        .then();
+        return deleted.thenMany(Flux.fromIterable(outcomes)
+                .filter(outcome -> outcome.error() != null)
+                .concatMap(this::recordFailure))
+                .then();
+    }
+
+    private Mono<Integer> recordFailure(Outcome outcome) {
+        EmailOutboxMessage message = outcome.message();
+        int attempts = (message.getAttempts() != null ? message.getAttempts() : 0) + 1;
+        if (outcome.permanent() || attempts >= maxAttempts) {
+            log.error("Giving up email {} to {} after {} attempts: {}", message.getId(), message.getRecipient(),
+                    attempts, outcome.error());
+            failedCounter.increment();
+            return emailOutboxRepository.markFailed(message.getId(), attempts, outcome.error());
+        }
+        double delaySeconds = Math.min(baseDelaySeconds * Math.pow(2, attempts - 1), maxDelaySeconds);
+        log.warn("Email {} to {} failed (attempt {}), retrying in {} s: {}", message.getId(),
+                message.getRecipient(), attempts, delaySeconds, outcome.error());
+        retriedCounter.increment();
+        return emailOutboxRepository.reschedule(message.getId(), attempts, delaySeconds, outcome.error());
+    }
+}
@@ -0,0 +1,63 @@
+package com.polytechnique.tiibntick.services.mail;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket spacing the emails handed to the SMTP provider, shared by all
+ * the outbox workers of a node.
+ *
+ * <p>
+ * Up to {@code burst} emails go out at once after an idle period; beyond that
+ * one email is allowed every {@code 1 / permitsPerSecond} seconds. A rate of
+ * zero or less disables the limit.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+final class SendRateLimiter {
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private final LongSupplier nanoTime;
+    private double tokens;
+    private long refilledAt;
+
+    SendRateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    SendRateLimiter(double permitsPerSecond, int burst, LongSupplier nanoTime) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = Math.max(1, burst);
+        this.nanoTime = nanoTime;
+        this.tokens = this.burst;
+        this.refilledAt = nanoTime.getAsLong();
+    }
+
+    /**
+     * Blocks until an email may be sent.
+     */
+    void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    /**
+     * Takes a token, possibly ahead of time.
+     *
+     * @return how long the caller must wait before using it, in nanoseconds
+     */
+    synchronized long reserve() {
+        if (permitsPerSecond <= 0) {
+            return 0;
+        }
+        long now = nanoTime.getAsLong();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerSecond / 1e9);
+        refilledAt = now;
+        // Tokens go negative while callers are queued, each waiting for its own turn
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerSecond * 1e9);
+    }
+}
@@ -0,0 +1,141 @@
+package com.polytechnique.tiibntick.services.mail;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * Pool of open SMTP connections, so consecutive emails reuse one session
+ * instead of paying the TCP, TLS and AUTH handshakes each time.
+ *
+ * <p>
+ * The connection settings come from the application's
+ * {@link JavaMailSenderImpl} ({@code spring.mail.*}). A connection is closed
+ * after {@code maxMessagesPerConnection} emails, as providers cap the emails
+ * per session, or when it stayed idle longer than {@code maxIdleMillis}, as
+ * they drop idle sessions. A connection that failed is never returned to the
+ * pool.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+final class SmtpConnectionPool implements AutoCloseable {
+
+    /**
+     * A connected transport borrowed from the pool.
+     */
+    static final class PooledConnection {
+
+        final Transport transport;
+        private int sent;
+        private long idleSince;
+
+        private PooledConnection(Transport transport) {
+            this.transport = transport;
+        }
+
+        void sent() {
+            sent++;
+        }
+    }
+
+    private final JavaMailSenderImpl mailSender;
+    private final int maxMessagesPerConnection;
+    private final long maxIdleMillis;
+    private final LongSupplier clockMillis;
+    private final BlockingQueue<PooledConnection> idle;
+
+    SmtpConnectionPool(JavaMailSenderImpl mailSender, int maxIdleConnections, int maxMessagesPerConnection,
+            long maxIdleMillis) {
+        this(mailSender, maxIdleConnections, maxMessagesPerConnection, maxIdleMillis, System::currentTimeMillis);
+    }
+
+    SmtpConnectionPool(JavaMailSenderImpl mailSender, int maxIdleConnections, int maxMessagesPerConnection,
+            long maxIdleMillis, LongSupplier clockMillis) {
+        this.mailSender = mailSender;
+        this.maxMessagesPerConnection = Math.max(1, maxMessagesPerConnection);
+        this.maxIdleMillis = maxIdleMillis;
+        this.clockMillis = clockMillis;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, maxIdleConnections));
+    }
+
+    Session session() {
+        return mailSender.getSession();
+    }
+
+    /**
+     * Returns an open connection, reusing an idle one when it is still usable.
+     *
+     * @throws MessagingException if a new connection cannot be opened
+     */
+    PooledConnection borrow() throws MessagingException {
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            boolean fresh = clockMillis.getAsLong() - connection.idleSince <= maxIdleMillis;
+            if (fresh && connection.transport.isConnected()) {
+                return connection;
+            }
+            close(connection);
+        }
+        return new PooledConnection(connect());
+    }
+
+    /**
+     * Whether the connection sent its last email and must be released.
+     */
+    boolean exhausted(PooledConnection connection) {
+        return connection.sent >= maxMessagesPerConnection;
+    }
+
+    /**
+     * Hands a connection back after use.
+     *
+     * @param healthy false if sending failed, in which case the connection is
+     *                closed
+     */
+    void release(PooledConnection connection, boolean healthy) {
+        connection.idleSince = clockMillis.getAsLong();
+        if (!healthy || exhausted(connection) || !idle.offer(connection)) {
+            close(connection);
+        }
+    }
+
+    @Override
+    public void close() {
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            close(connection);
+        }
+    }
+
+    private Transport connect() throws MessagingException {
+        String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp";
+        Transport transport = session().getTransport(protocol);
+        // Same credentials handling as JavaMailSenderImpl: empty means none
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        if ("".equals(username)) {
+            username = null;
+            if ("".equals(password)) {
+                password = null;
+            }
+        }
+        transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+        return transport;
+    }
+
+    private void close(PooledConnection connection) {
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Could not close SMTP connection cleanly: {}", e.getMessage());
+        }
+    }
+}
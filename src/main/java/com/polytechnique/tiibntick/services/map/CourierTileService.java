@@ -0,0 +1,151 @@
+package com.polytechnique.tiibntick.services.map;
+
+import com.polytechnique.tiibntick.dtos.admin.CourierDensityDTO;
+import com.polytechnique.tiibntick.services.location.CourierDensityGrid;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders the live courier map as Mapbox Vector Tiles, one layer named
+ * {@value #LAYER} of point features.
+ *
+ * <p>
+ * From {@code admin.tiles.points-min-zoom} onwards a tile holds one point per
+ * courier of the {@link CourierSpatialIndex} inside it, with its {@code id}
+ * and {@code name}. Below that zoom, couriers are clustered on the server: the
+ * tile holds one point per non-empty tile of the {@link CourierDensityGrid},
+ * at that tile's centre, so at most 64 by 64 clusters when a grid level is
+ * six zoom levels deeper than the tile. Every feature has
+ * {@code cluster} and {@code point_count} properties, as supercluster writes
+ * them.
+ *
+ * <p>
+ * Either way, rendering a tile costs what lies inside the tile, not the size
+ * of the fleet. Rendered tiles are cached for {@code admin.tiles.cache-ttl-ms},
+ * and concurrent requests for the same tile render it once.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Component
+public class CourierTileService {
+
+    public static final String LAYER = "couriers";
+    public static final int EXTENT = 4096;
+    private static final int CLUSTER_DEPTH = 6;
+
+    private record CachedTile(byte[] body, long expiresAtMillis) {
+    }
+
+    private final CourierSpatialIndex courierSpatialIndex;
+    private final CourierDensityGrid courierDensityGrid;
+    private final int pointsMinZoom;
+    private final Duration cacheTtl;
+    private final int cacheMaxEntries;
+    private final Clock clock;
+    private final Map<Long, CachedTile> cache = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CourierTileService(CourierSpatialIndex courierSpatialIndex, CourierDensityGrid courierDensityGrid,
+            @Value("${admin.tiles.points-min-zoom:13}") int pointsMinZoom,
+            @Value("${admin.tiles.cache-ttl-ms:2000}") long cacheTtlMillis,
+            @Value("${admin.tiles.cache-max-entries:10000}") int cacheMaxEntries) {
+        this(courierSpatialIndex, courierDensityGrid, pointsMinZoom, Duration.ofMillis(cacheTtlMillis),
+                cacheMaxEntries, Clock.systemUTC());
+    }
+
+    CourierTileService(CourierSpatialIndex courierSpatialIndex, CourierDensityGrid courierDensityGrid,
+            int pointsMinZoom, Duration cacheTtl, int cacheMaxEntries, Clock clock) {
+        this.courierSpatialIndex = courierSpatialIndex;
+        this.courierDensityGrid = courierDensityGrid;
+        this.pointsMinZoom = pointsMinZoom;
+        this.cacheTtl = cacheTtl;
+        this.cacheMaxEntries = cacheMaxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the encoded tile; the coordinates must satisfy
+     * {@link WebMercator#isValidTile}.
+     */
+    public byte[] tile(int zoom, int tileX, int tileY) {
+        long now = clock.millis();
+        long key = ((long) zoom << 48) | ((long) tileX << 24) | tileY;
+        CachedTile tile = cache.compute(key, (k, cached) -> cached != null && cached.expiresAtMillis() > now
+                ? cached
+                : new CachedTile(render(zoom, tileX, tileY), now + cacheTtl.toMillis()));
+        if (cache.size() > cacheMaxEntries) {
+            cache.values().removeIf(cached -> cached.expiresAtMillis() <= now);
+            if (cache.size() > cacheMaxEntries) {
+                cache.clear();
+            }
+        }
+        return tile.body();
+    }
+
+    public Duration cacheTtl() {
+        return cacheTtl;
+    }
+
+    private byte[] render(int zoom, int tileX, int tileY) {
+        VectorTileEncoder encoder = new VectorTileEncoder(LAYER, EXTENT);
+        if (zoom >= pointsMinZoom) {
+            addCouriers(encoder, zoom, tileX, tileY);
+        } else {
+            addClusters(encoder, zoom, tileX, tileY);
+        }
+        return encoder.encode();
+    }
+
+    private void addCouriers(VectorTileEncoder encoder, int zoom, int tileX, int tileY) {
+        // Tile rows grow southwards, so the next row holds the southern edge
+        double minLat = WebMercator.latitude(zoom, tileY + 1);
+        double maxLat = WebMercator.latitude(zoom, tileY);
+        double minLon = WebMercator.longitude(zoom, tileX);
+        double maxLon = WebMercator.longitude(zoom, tileX + 1);
+
+        for (CourierSpatialIndex.IndexedCourier courier : courierSpatialIndex.queryBoundingBox(minLat, minLon,
+                maxLat, maxLon)) {
+            int x = (int) Math.floor((WebMercator.x(zoom, courier.longitude()) - tileX) * EXTENT);
+            int y = (int) Math.floor((WebMercator.y(zoom, courier.latitude()) - tileY) * EXTENT);
+            // The index answers by whole cells, which overlap the tile edges
+            if (x < 0 || x >= EXTENT || y < 0 || y >= EXTENT) {
+                continue;
+            }
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("cluster", false);
+            properties.put("point_count", 1);
+            properties.put("id", courier.id().toString());
+            properties.put("name", courier.commercialName());
+            encoder.addPoint(x, y, properties);
+        }
+    }
+
+    private void addClusters(VectorTileEncoder encoder, int zoom, int tileX, int tileY) {
+        CourierDensityDTO density = courierDensityGrid.cellsInTile(zoom, tileX, tileY, CLUSTER_DEPTH);
+        int depth = density.getZoom() - zoom;
+        int[] cells = density.getCells();
+
+        for (int i = 0; i < cells.length; i += 3) {
+            int x = EXTENT / 2;
+            int y = EXTENT / 2;
+            if (depth >= 0) {
+                double span = 1L << depth;
+                x = (int) (((cells[i] + 0.5) / span - tileX) * EXTENT);
+                y = (int) (((cells[i + 1] + 0.5) / span - tileY) * EXTENT);
+            }
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("cluster", true);
+            properties.put("point_count", cells[i + 2]);
+            encoder.addPoint(x, y, properties);
+        }
+    }
+}
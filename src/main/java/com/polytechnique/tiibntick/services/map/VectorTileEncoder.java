@@ -0,0 +1,144 @@
+package com.polytechnique.tiibntick.services.map;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a single-layer Mapbox Vector Tile (specification 2.1) of point
+ * features, encoding the protobuf wire format directly.
+ *
+ * <p>
+ * Property keys and values are shared across the features of the layer, as the
+ * specification requires. Values may be strings, booleans or integers.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+final class VectorTileEncoder {
+
+    private static final int VERSION = 2;
+    private static final int GEOM_TYPE_POINT = 1;
+    private static final int CMD_MOVE_TO_ONE = (1 << 3) | 1;
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+
+    private final String layerName;
+    private final int extent;
+    private final Map<String, Integer> keys = new LinkedHashMap<>();
+    private final Map<Object, Integer> values = new LinkedHashMap<>();
+    private final List<byte[]> features = new ArrayList<>();
+
+    VectorTileEncoder(String layerName, int extent) {
+        this.layerName = layerName;
+        this.extent = extent;
+    }
+
+    /**
+     * Adds a point, in tile coordinates from 0 to {@code extent}.
+     */
+    void addPoint(int x, int y, Map<String, ?> properties) {
+        Buffer tags = new Buffer();
+        properties.forEach((key, value) -> {
+            if (value == null) {
+                return;
+            }
+            Object normalized = value instanceof Number number ? (Object) number.longValue() : value;
+            tags.varint(keys.computeIfAbsent(key, k -> keys.size()));
+            tags.varint(values.computeIfAbsent(normalized, v -> values.size()));
+        });
+
+        Buffer geometry = new Buffer();
+        geometry.varint(CMD_MOVE_TO_ONE);
+        geometry.varint(zigZag(x));
+        geometry.varint(zigZag(y));
+
+        Buffer feature = new Buffer();
+        if (tags.size() > 0) {
+            feature.bytes(2, tags.toByteArray());
+        }
+        feature.tag(3, WIRE_VARINT);
+        feature.varint(GEOM_TYPE_POINT);
+        feature.bytes(4, geometry.toByteArray());
+        features.add(feature.toByteArray());
+    }
+
+    /**
+     * Returns the encoded tile; a tile without features has no layer.
+     */
+    byte[] encode() {
+        if (features.isEmpty()) {
+            return new byte[0];
+        }
+        Buffer layer = new Buffer();
+        layer.tag(15, WIRE_VARINT);
+        layer.varint(VERSION);
+        layer.bytes(1, layerName.getBytes(StandardCharsets.UTF_8));
+        for (byte[] feature : features) {
+            layer.bytes(2, feature);
+        }
+        for (String key : keys.keySet()) {
+            layer.bytes(3, key.getBytes(StandardCharsets.UTF_8));
+        }
+        for (Object value : values.keySet()) {
+            layer.bytes(4, encodeValue(value));
+        }
+        layer.tag(5, WIRE_VARINT);
+        layer.varint(extent);
+
+        Buffer tile = new Buffer();
+        tile.bytes(3, layer.toByteArray());
+        return tile.toByteArray();
+    }
+
+    private static byte[] encodeValue(Object value) {
+        Buffer buffer = new Buffer();
+        if (value instanceof Boolean bool) {
+            buffer.tag(7, WIRE_VARINT);
+            buffer.varint(bool ? 1 : 0);
+        } else if (value instanceof Long number) {
+            if (number >= 0) {
+                buffer.tag(5, WIRE_VARINT);
+                buffer.varint(number);
+            } else {
+                buffer.tag(6, WIRE_VARINT);
+                buffer.varint(zigZag(number));
+            }
+        } else {
+            buffer.bytes(1, value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return buffer.toByteArray();
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Protobuf output buffer.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        void tag(int field, int wireType) {
+            varint(((long) field << 3) | wireType);
+        }
+
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void bytes(int field, byte[] payload) {
+            tag(field, WIRE_LENGTH_DELIMITED);
+            varint(payload.length);
+            write(payload, 0, payload.length);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.polytechnique.tiibntick.services.map;
+
+/**
+ * Web Mercator tile math (the XYZ scheme of OpenStreetMap and Mapbox): at zoom
+ * {@code z} the world is a grid of {@code 2^z} by {@code 2^z} tiles, with
+ * column 0 at longitude -180 and row 0 at the northern edge.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+public final class WebMercator {
+
+    public static final int MAX_ZOOM = 22;
+
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private WebMercator() {
+    }
+
+    /**
+     * Fractional tile column of a longitude.
+     */
+    public static double x(int zoom, double lon) {
+        return (lon + 180.0) / 360.0 * (1 << zoom);
+    }
+
+    /**
+     * Fractional tile row of a latitude, clamped to the Mercator range.
+     */
+    public static double y(int zoom, double lat) {
+        double latRad = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat)));
+        return (1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * (1 << zoom);
+    }
+
+    public static int tileX(int zoom, double lon) {
+        return clamp(zoom, (int) Math.floor(x(zoom, lon)));
+    }
+
+    public static int tileY(int zoom, double lat) {
+        return clamp(zoom, (int) Math.floor(y(zoom, lat)));
+    }
+
+    /**
+     * Longitude of the western edge of a tile column.
+     */
+    public static double longitude(int zoom, int tileX) {
+        return (double) tileX / (1 << zoom) * 360.0 - 180.0;
+    }
+
+    /**
+     * Latitude of the northern edge of a tile row.
+     */
+    public static double latitude(int zoom, int tileY) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2.0 * tileY / (1 << zoom)))));
+    }
+
+    public static boolean isValidTile(int zoom, int tileX, int tileY) {
+        return zoom >= 0 && zoom <= MAX_ZOOM && tileX >= 0 && tileY >= 0 && tileX < (1 << zoom)
+                && tileY < (1 << zoom);
+    }
+
+    private static int clamp(int zoom, int tile) {
+        return Math.max(0, Math.min((1 << zoom) - 1, tile));
+    }
+}
@@ -0,0 +1,165 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs the spherical ellipse filter for a batch of announcements in a single
+ * pass over one courier snapshot.
+ *
+ * <p>
+ * The snapshot is read once through the {@link CourierSpatialIndex} using the
+ * union of the batch's bounding boxes, so every announcement of the batch sees
+ * the same courier positions. It concatenates the precomputed columns of the
+ * index cells, without any trigonometry. The snapshot is then split into
+ * chunks processed in parallel on a dedicated fork-join pool; each chunk tests
+ * its couriers against every ellipse of the batch with the
+ * {@link DistanceEngine} kernel.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Component
+public class BatchEllipseMatcher {
+
+    private final CourierSpatialIndex courierSpatialIndex;
+    private final DistanceEngine distanceEngine;
+    private final ForkJoinPool pool;
+    private final int leafSize;
+
+    public BatchEllipseMatcher(CourierSpatialIndex courierSpatialIndex, DistanceEngine distanceEngine,
+            @Value("${matching.batch.parallelism:0}") int parallelism,
+            @Value("${matching.batch.leaf-size:1024}") int leafSize) {
+        this.courierSpatialIndex = courierSpatialIndex;
+        this.distanceEngine = distanceEngine;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.leafSize = Math.max(1, leafSize);
+    }
+
+    /**
+     * Ellipse of foci F1 (pickup) and F2 (delivery) with a maximum distance sum.
+     *
+     * @param box lat/lon bounding box as {minLat, minLon, maxLat, maxLon}, or null
+     *            when the ellipse is empty
+     */
+    public record Ellipse(double f1Lat, double f1Lon, double f2Lat, double f2Lon, double distF1F2Km,
+            double dMaxKm, double[] box) {
+
+        public static Ellipse of(double f1Lat, double f1Lon, double f2Lat, double f2Lon, double distF1F2Km,
+                double dMaxKm) {
+            return new Ellipse(f1Lat, f1Lon, f2Lat, f2Lon, distF1F2Km, dMaxKm,
+                    CourierSpatialIndex.ellipseBoundingBox(f1Lat, f1Lon, f2Lat, f2Lon, distF1F2Km, dMaxKm));
+        }
+    }
+
+    /**
+     * Finds the couriers inside each ellipse of the batch.
+     *
+     * @param ellipses the batch, one ellipse per announcement
+     * @return the candidates of each ellipse, in the order of {@code ellipses}
+     */
+    public Mono<List<List<MatchCandidate>>> match(List<Ellipse> ellipses) {
+        return snapshot(ellipses)
+                .publishOn(Schedulers.boundedElastic())
+                .map(snapshot -> filter(snapshot, ellipses));
+    }
+
+    /**
+     * Reads every courier inside the union of the batch's bounding boxes.
+     */
+    Mono<CourierCoordinates> snapshot(List<Ellipse> ellipses) {
+        double minLat = Double.POSITIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+        for (Ellipse ellipse : ellipses) {
+            if (ellipse.box() == null) {
+                continue;
+            }
+            minLat = Math.min(minLat, ellipse.box()[0]);
+            minLon = Math.min(minLon, ellipse.box()[1]);
+            maxLat = Math.max(maxLat, ellipse.box()[2]);
+            maxLon = Math.max(maxLon, ellipse.box()[3]);
+        }
+        if (minLat > maxLat) {
+            return Mono.just(CourierCoordinates.EMPTY);
+        }
+        return courierSpatialIndex.findInBoundingBox(minLat, minLon, maxLat, maxLon)
+                .map(CourierCoordinates::concat);
+    }
+
+    /**
+     * Filters the snapshot against every ellipse of the batch on the fork-join
+     * pool.
+     */
+    List<List<MatchCandidate>> filter(CourierCoordinates coordinates, List<Ellipse> ellipses) {
+        List<List<MatchCandidate>> result = pool.invoke(new FilterTask(coordinates, ellipses, 0, coordinates.size()));
+        log.debug("Filtered {} couriers against {} ellipses", coordinates.size(), ellipses.size());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private final class FilterTask extends RecursiveTask<List<List<MatchCandidate>>> {
+
+        private final CourierCoordinates coordinates;
+        private final List<Ellipse> ellipses;
+        private final int from;
+        private final int to;
+
+        private FilterTask(CourierCoordinates coordinates, List<Ellipse> ellipses, int from, int to) {
+            this.coordinates = coordinates;
+            this.ellipses = ellipses;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<List<MatchCandidate>> compute() {
+            if (to - from <= leafSize) {
+                return computeDirectly();
+            }
+            int mid = (from + to) >>> 1;
+            FilterTask left = new FilterTask(coordinates, ellipses, from, mid);
+            left.fork();
+            List<List<MatchCandidate>> right = new FilterTask(coordinates, ellipses, mid, to).compute();
+            List<List<MatchCandidate>> merged = left.join();
+            for (int i = 0; i < merged.size(); i++) {
+                merged.get(i).addAll(right.get(i));
+            }
+            return merged;
+        }
+
+        private List<List<MatchCandidate>> computeDirectly() {
+            List<List<MatchCandidate>> hits = new ArrayList<>(ellipses.size());
+            int[] rows = new int[to - from];
+            double[] sums = new double[to - from];
+            for (Ellipse ellipse : ellipses) {
+                List<MatchCandidate> ellipseHits = new ArrayList<>();
+                if (ellipse.box() != null) {
+                    int count = distanceEngine.filterEllipse(coordinates, from, to, ellipse.f1Lat(), ellipse.f1Lon(),
+                            ellipse.f2Lat(), ellipse.f2Lon(), ellipse.dMaxKm(), rows, sums);
+                    for (int i = 0; i < count; i++) {
+                        ellipseHits.add(new MatchCandidate(coordinates.courier(rows[i]).toDocument(), sums[i],
+                                sums[i] - ellipse.distF1F2Km()));
+                    }
+                }
+                hits.add(ellipseHits);
+            }
+            return hits;
+        }
+    }
+}
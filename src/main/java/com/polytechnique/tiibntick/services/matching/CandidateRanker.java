@@ -0,0 +1,213 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import com.polytechnique.tiibntick.dtos.matching.CourierMatchProfile;
+import com.polytechnique.tiibntick.dtos.packet.PacketDTO;
+import com.polytechnique.tiibntick.models.enums.logistics.LogisticsClass;
+import com.polytechnique.tiibntick.models.enums.logistics.LogisticsType;
+import com.polytechnique.tiibntick.repositories.DeliveryPersonRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Scores matching candidates and keeps only the best K of them.
+ *
+ * <p>
+ * The score is a cost expressed in km-equivalent (lower is better): the detour
+ * distance, minus a bonus per rating star and for PREMIUM vehicles, plus a
+ * penalty per failed delivery. Candidates whose vehicles cannot carry the
+ * packet are dropped beforehand. A courier with several vehicles is kept if at
+ * least one of them fits; missing vehicle or packet data never excludes a
+ * courier.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Component
+public class CandidateRanker {
+
+    /**
+     * Maximum payload in kg by vehicle type. The logistics table stores no
+     * weight capacity, so the vehicle type is used as a proxy.
+     */
+    private static final Map<LogisticsType, Double> MAX_PAYLOAD_KG = new EnumMap<>(LogisticsType.class);
+
+    static {
+        MAX_PAYLOAD_KG.put(LogisticsType.BIKE, 15.0);
+        MAX_PAYLOAD_KG.put(LogisticsType.SCOOTER, 25.0);
+        MAX_PAYLOAD_KG.put(LogisticsType.MOTORBIKE, 50.0);
+        MAX_PAYLOAD_KG.put(LogisticsType.CAR, 300.0);
+        MAX_PAYLOAD_KG.put(LogisticsType.VAN, 1200.0);
+        MAX_PAYLOAD_KG.put(LogisticsType.TRUCK, 10000.0);
+    }
+
+    private final DeliveryPersonRepository deliveryPersonRepository;
+    private final int topK;
+    private final double ratingWeightKm;
+    private final double failureWeightKm;
+    private final double premiumBonusKm;
+
+    public CandidateRanker(DeliveryPersonRepository deliveryPersonRepository,
+            @Value("${matching.ranking.top-k:10}") int topK,
+            @Value("${matching.ranking.rating-weight-km:0.5}") double ratingWeightKm,
+            @Value("${matching.ranking.failure-weight-km:0.25}") double failureWeightKm,
+            @Value("${matching.ranking.premium-bonus-km:0.5}") double premiumBonusKm) {
+        this.deliveryPersonRepository = deliveryPersonRepository;
+        this.topK = Math.max(1, topK);
+        this.ratingWeightKm = ratingWeightKm;
+        this.failureWeightKm = failureWeightKm;
+        this.premiumBonusKm = premiumBonusKm;
+    }
+
+    /**
+     * Drops the candidates that cannot carry the packet and scores the others.
+     * The input order is preserved. If the profiles cannot be loaded, the
+     * candidates are returned unchanged (scored by detour only).
+     *
+     * @param candidates candidates inside the ellipse
+     * @param packet     the packet to carry, may be null
+     * @return the fitting candidates with their score
+     */
+    public Mono<List<MatchCandidate>> scoreAndFilter(List<MatchCandidate> candidates, PacketDTO packet) {
+        if (candidates.isEmpty()) {
+            return Mono.just(candidates);
+        }
+        List<UUID> ids = candidates.stream().map(c -> c.deliveryPerson().getId()).toList();
+
+        return deliveryPersonRepository.findMatchProfilesByIdIn(ids)
+                .collectMultimap(CourierMatchProfile::getDeliveryPersonId)
+                .map(profiles -> {
+                    List<MatchCandidate> scored = new ArrayList<>(candidates.size());
+                    for (MatchCandidate candidate : candidates) {
+                        Collection<CourierMatchProfile> rows = profiles.get(candidate.deliveryPerson().getId());
+                        Double cost = cost(candidate, rows, packet);
+                        if (cost != null) {
+                            scored.add(candidate.withScore(cost));
+                        }
+                    }
+                    log.debug("{} of {} candidates can carry the packet", scored.size(), candidates.size());
+                    return scored;
+                })
+                .onErrorResume(e -> {
+                    log.warn("Could not load candidate profiles, ranking by detour only: {}", e.getMessage());
+                    return Mono.just(candidates);
+                });
+    }
+
+    /**
+     * Keeps the K best candidates using a bounded max-heap, so selection is
+     * O(n log K) whatever the number of candidates.
+     *
+     * @param candidates scored candidates
+     * @return at most K candidates, best first
+     */
+    public List<MatchCandidate> topK(List<MatchCandidate> candidates) {
+        Comparator<MatchCandidate> byScore = Comparator.comparingDouble(MatchCandidate::score)
+                .thenComparingDouble(MatchCandidate::detourKm);
+
+        PriorityQueue<MatchCandidate> worstFirst = new PriorityQueue<>(topK + 1, byScore.reversed());
+        for (MatchCandidate candidate : candidates) {
+            worstFirst.offer(candidate);
+            if (worstFirst.size() > topK) {
+                worstFirst.poll();
+            }
+        }
+
+        List<MatchCandidate> best = new ArrayList<>(worstFirst);
+        best.sort(byScore);
+        return best;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * Returns the candidate's cost using its best fitting vehicle, or null when
+     * none of its vehicles can carry the packet.
+     */
+    private Double cost(MatchCandidate candidate, Collection<CourierMatchProfile> rows, PacketDTO packet) {
+        if (rows == null || rows.isEmpty()) {
+            return candidate.detourKm();
+        }
+
+        Double best = null;
+        for (CourierMatchProfile row : rows) {
+            if (!fits(row, packet)) {
+                continue;
+            }
+            double cost = candidate.detourKm();
+            if (row.getRating() != null) {
+                cost -= ratingWeightKm * row.getRating();
+            }
+            if (row.getFailedDeliveries() != null) {
+                cost += failureWeightKm * row.getFailedDeliveries();
+            }
+            if (row.getLogisticsClass() == LogisticsClass.PREMIUM) {
+                cost -= premiumBonusKm;
+            }
+            if (best == null || cost < best) {
+                best = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks whether a vehicle can carry the packet: payload by vehicle type,
+     * packet dimensions against the vehicle's storage (in any orientation), and
+     * no fragile packet in a DAMAGED vehicle.
+     */
+    static boolean fits(CourierMatchProfile vehicle, PacketDTO packet) {
+        if (packet == null) {
+            return true;
+        }
+        if (vehicle.getLogisticsClass() == LogisticsClass.DAMAGED && Boolean.TRUE.equals(packet.getFragile())) {
+            return false;
+        }
+        if (packet.getWeight() != null && vehicle.getLogisticsType() != null) {
+            Double maxPayload = MAX_PAYLOAD_KG.get(vehicle.getLogisticsType());
+            if (maxPayload != null && packet.getWeight() > maxPayload) {
+                return false;
+            }
+        }
+
+        double[] packetDims = dimensions(packet.getLength(), packet.getWidth(), packet.getHeight(), 1.0);
+        double toCm = "m".equalsIgnoreCase(vehicle.getUnit()) ? 100.0 : 1.0;
+        double[] vehicleDims = dimensions(vehicle.getLength(), vehicle.getWidth(), vehicle.getHeight(), toCm);
+        if (packetDims == null || vehicleDims == null) {
+            return true;
+        }
+        for (int i = 0; i < 3; i++) {
+            if (packetDims[i] > vehicleDims[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the three dimensions in cm sorted in ascending order, or null if
+     * any of them is unknown.
+     */
+    private static double[] dimensions(Double length, Double width, Double height, double toCm) {
+        if (length == null || width == null || height == null) {
+            return null;
+        }
+        double[] dims = { length * toCm, width * toCm, height * toCm };
+        Arrays.sort(dims);
+        return dims;
+    }
+}
@@ -0,0 +1,157 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable struct-of-arrays snapshot of courier positions.
+ *
+ * <p>
+ * Latitudes and longitudes are stored in radians in primitive columns, next to
+ * the cosine of each latitude, so the distance kernels of
+ * {@link DistanceEngine} run over contiguous {@code double[]} data without
+ * boxing or repeated trigonometry. Row {@code i} of every column describes
+ * {@code courier(i)}. The {@link CourierSpatialIndex} keeps one snapshot per
+ * grid cell and replaces it on every change with {@link #withAll} and
+ * {@link #withoutAll}, which copy the other rows as they are, so the
+ * trigonometry of a courier is computed once per position update.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+public final class CourierCoordinates {
+
+    static final CourierCoordinates EMPTY = new CourierCoordinates(new CourierSpatialIndex.IndexedCourier[0],
+            new double[0], new double[0], new double[0]);
+
+    private final CourierSpatialIndex.IndexedCourier[] couriers;
+    final double[] latRad;
+    final double[] lonRad;
+    final double[] cosLat;
+
+    private CourierCoordinates(CourierSpatialIndex.IndexedCourier[] couriers, double[] latRad, double[] lonRad,
+            double[] cosLat) {
+        this.couriers = couriers;
+        this.latRad = latRad;
+        this.lonRad = lonRad;
+        this.cosLat = cosLat;
+    }
+
+    /**
+     * Builds the columns for the given couriers, in list order.
+     *
+     * @param couriers the couriers to store
+     * @return the columnar snapshot
+     */
+    public static CourierCoordinates of(List<CourierSpatialIndex.IndexedCourier> couriers) {
+        int size = couriers.size();
+        CourierCoordinates coordinates = new CourierCoordinates(
+                couriers.toArray(CourierSpatialIndex.IndexedCourier[]::new),
+                new double[size], new double[size], new double[size]);
+        for (int i = 0; i < size; i++) {
+            coordinates.set(i, coordinates.couriers[i]);
+        }
+        return coordinates;
+    }
+
+    /**
+     * Concatenates snapshots without recomputing any column.
+     *
+     * @param parts the snapshots, in order
+     * @return one snapshot holding the rows of every part
+     */
+    public static CourierCoordinates concat(List<CourierCoordinates> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        int size = parts.stream().mapToInt(CourierCoordinates::size).sum();
+        CourierCoordinates coordinates = new CourierCoordinates(new CourierSpatialIndex.IndexedCourier[size],
+                new double[size], new double[size], new double[size]);
+        int offset = 0;
+        for (CourierCoordinates part : parts) {
+            coordinates.copyRows(part, 0, offset, part.size());
+            offset += part.size();
+        }
+        return coordinates;
+    }
+
+    /**
+     * Returns a copy in which the rows of the given couriers, matched by ID, are
+     * replaced, and the couriers without a row are appended.
+     */
+    CourierCoordinates withAll(Collection<CourierSpatialIndex.IndexedCourier> updates) {
+        Map<UUID, CourierSpatialIndex.IndexedCourier> pending = new LinkedHashMap<>();
+        updates.forEach(courier -> pending.put(courier.id(), courier));
+        int size = couriers.length;
+        for (CourierSpatialIndex.IndexedCourier courier : couriers) {
+            if (pending.containsKey(courier.id())) {
+                size--;
+            }
+        }
+        size += pending.size();
+
+        CourierCoordinates copy = new CourierCoordinates(Arrays.copyOf(couriers, size),
+                Arrays.copyOf(latRad, size), Arrays.copyOf(lonRad, size), Arrays.copyOf(cosLat, size));
+        for (int i = 0; i < couriers.length; i++) {
+            CourierSpatialIndex.IndexedCourier update = pending.remove(couriers[i].id());
+            if (update != null) {
+                copy.set(i, update);
+            }
+        }
+        int row = size - pending.size();
+        for (CourierSpatialIndex.IndexedCourier courier : pending.values()) {
+            copy.set(row++, courier);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a copy without the rows of the given couriers, or this snapshot
+     * when it holds none of them.
+     */
+    CourierCoordinates withoutAll(Set<UUID> ids) {
+        int[] kept = new int[couriers.length];
+        int size = 0;
+        for (int i = 0; i < couriers.length; i++) {
+            if (!ids.contains(couriers[i].id())) {
+                kept[size++] = i;
+            }
+        }
+        if (size == couriers.length) {
+            return this;
+        }
+        CourierCoordinates copy = new CourierCoordinates(new CourierSpatialIndex.IndexedCourier[size],
+                new double[size], new double[size], new double[size]);
+        for (int i = 0; i < size; i++) {
+            copy.copyRows(this, kept[i], i, 1);
+        }
+        return copy;
+    }
+
+    public int size() {
+        return couriers.length;
+    }
+
+    public CourierSpatialIndex.IndexedCourier courier(int i) {
+        return couriers[i];
+    }
+
+    private void set(int row, CourierSpatialIndex.IndexedCourier courier) {
+        couriers[row] = courier;
+        latRad[row] = Math.toRadians(courier.latitude());
+        lonRad[row] = Math.toRadians(courier.longitude());
+        cosLat[row] = Math.cos(latRad[row]);
+    }
+
+    private void copyRows(CourierCoordinates source, int from, int to, int length) {
+        System.arraycopy(source.couriers, from, couriers, to, length);
+        System.arraycopy(source.latRad, from, latRad, to, length);
+        System.arraycopy(source.lonRad, from, lonRad, to, length);
+        System.arraycopy(source.cosLat, from, cosLat, to, length);
+    }
+}
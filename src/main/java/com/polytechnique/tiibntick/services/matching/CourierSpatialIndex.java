@@ -0,0 +1,434 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import com.polytechnique.tiibntick.elasticsearch.models.DeliveryPersonDocument;
+import com.polytechnique.tiibntick.models.DeliveryPerson;
+import com.polytechnique.tiibntick.repositories.DeliveryPersonRepository;
+import com.polytechnique.tiibntick.services.location.CourierDensityGrid;
+import com.polytechnique.tiibntick.services.location.CourierPresenceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Node-local uniform grid index of active delivery person positions.
+ *
+ * <p>
+ * The grid splits the globe into square cells of {@code cellSizeDeg} degrees.
+ * Each courier lives in exactly one cell, so a spatial query only has to visit
+ * the cells intersecting the requested bounding box instead of every courier.
+ * Every cell stores its couriers as a {@link CourierCoordinates} snapshot whose
+ * radian and cosine columns are computed on upsert, so matching scans the
+ * cells' columns as they are. A change replaces the cell's snapshot, which
+ * readers therefore never see half-written.
+ * The index is fed by location updates, evicted on admin status changes and
+ * fully reloaded from SQL at a fixed interval to pick up changes made by other
+ * nodes. Until the first load completes, lookups are answered by a bounding
+ * box query in Postgres. Couriers whose last ping is older than the presence
+ * TTL are left out. Every entry, move and exit is mirrored into the
+ * {@link CourierDensityGrid} when one is given.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Component
+public class CourierSpatialIndex {
+
+    private static final double KM_PER_DEGREE_LAT = 111.195;
+
+    private final DeliveryPersonRepository deliveryPersonRepository;
+    private final double cellSizeDeg;
+    private final CourierPresenceService courierPresenceService;
+    private final CourierDensityGrid courierDensityGrid;
+
+    private final Map<UUID, IndexedCourier> couriers = new ConcurrentHashMap<>();
+    private final Map<Long, CourierCoordinates> cells = new ConcurrentHashMap<>();
+    private final AtomicBoolean loaded = new AtomicBoolean(false);
+    private final AtomicBoolean loading = new AtomicBoolean(false);
+
+    @Autowired
+    public CourierSpatialIndex(DeliveryPersonRepository deliveryPersonRepository,
+            @Value("${matching.index.cell-size-deg:0.02}") double cellSizeDeg,
+            CourierPresenceService courierPresenceService,
+            CourierDensityGrid courierDensityGrid) {
+        this.deliveryPersonRepository = deliveryPersonRepository;
+        this.cellSizeDeg = cellSizeDeg;
+        this.courierPresenceService = courierPresenceService;
+        this.courierDensityGrid = courierDensityGrid;
+    }
+
+    /**
+     * Creates an index that ignores presence, keeping every active courier,
+     * and feeds no density grid. For tests.
+     */
+    CourierSpatialIndex(DeliveryPersonRepository deliveryPersonRepository, double cellSizeDeg) {
+        this(deliveryPersonRepository, cellSizeDeg, null, null);
+    }
+
+    /**
+     * Immutable snapshot of an indexed courier.
+     */
+    public record IndexedCourier(UUID id, UUID personId, String commercialName, double latitude,
+            double longitude, long cellKey) {
+
+        /**
+         * Converts the entry to a document for notification compatibility.
+         */
+        public DeliveryPersonDocument toDocument() {
+            return DeliveryPersonDocument.builder()
+                    .id(id)
+                    .personId(personId)
+                    .location(new GeoPoint(latitude, longitude))
+                    .isActive(true)
+                    .isAvailable(true)
+                    .commercialName(commercialName)
+                    .build();
+        }
+    }
+
+    /**
+     * Returns the coordinates of the couriers that may lie inside the given
+     * bounding box. Served from memory once the index is loaded, as the
+     * snapshots of the intersecting cells; until then the box is pushed down to
+     * Postgres, its rows are returned as a single snapshot and a background load
+     * of the index is started, so a cold node never streams the whole table on
+     * the request path.
+     *
+     * @param minLat minimum latitude
+     * @param minLon minimum longitude
+     * @param maxLat maximum latitude
+     * @param maxLon maximum longitude
+     * @return candidate couriers, as one snapshot per cell
+     */
+    public Mono<List<CourierCoordinates>> findInBoundingBox(double minLat, double minLon, double maxLat,
+            double maxLon) {
+        if (loaded.get()) {
+            return Mono.fromSupplier(() -> queryCells(minLat, minLon, maxLat, maxLon));
+        }
+        warmUp();
+        return deliveryPersonRepository.findActiveInBoundingBox(minLat, minLon, maxLat, maxLon)
+                .filter(this::isPresent)
+                .map(this::toEntry)
+                .collectList()
+                .map(couriers -> List.of(CourierCoordinates.of(couriers)));
+    }
+
+    /**
+     * Ellipse variant of {@link #findInBoundingBox}; see {@link #queryEllipse}.
+     */
+    public Mono<List<CourierCoordinates>> findInEllipse(double f1Lat, double f1Lon, double f2Lat, double f2Lon,
+            double distF1F2Km, double dMaxKm) {
+        double[] box = ellipseBoundingBox(f1Lat, f1Lon, f2Lat, f2Lon, distF1F2Km, dMaxKm);
+        if (box == null) {
+            return Mono.just(List.of());
+        }
+        return findInBoundingBox(box[0], box[1], box[2], box[3]);
+    }
+
+    /**
+     * Starts loading the index in the background unless it is loaded or already
+     * loading.
+     */
+    void warmUp() {
+        if (loaded.get() || !loading.compareAndSet(false, true)) {
+            return;
+        }
+        reload()
+                .doOnError(e -> log.warn("Courier spatial index load failed: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .doFinally(signal -> loading.set(false))
+                .subscribe();
+    }
+
+    /**
+     * Rebuilds the index from all active delivery persons with GPS coordinates.
+     *
+     * @return a Mono completing once the reload is done
+     */
+    public Mono<Void> reload() {
+        return deliveryPersonRepository.findAllByIsActiveTrueAndLatitudeGpsIsNotNullAndLongitudeGpsIsNotNull()
+                .collectList()
+                .doOnNext(all -> {
+                    Set<UUID> seen = new HashSet<>();
+                    upsertAll(all);
+                    all.forEach(dp -> seen.add(dp.getId()));
+                    couriers.keySet().stream()
+                            .filter(id -> !seen.contains(id))
+                            .toList()
+                            .forEach(this::evict);
+                    loaded.set(true);
+                    log.info("Courier spatial index loaded with {} couriers in {} cells", couriers.size(),
+                            cells.size());
+                })
+                .then();
+    }
+
+    /**
+     * Periodic full refresh so positions written by other nodes are eventually
+     * visible.
+     */
+    @Scheduled(fixedDelayString = "${matching.index.refresh-interval-ms:300000}")
+    public void scheduledReload() {
+        if (!loaded.get()) {
+            return;
+        }
+        reload()
+                .doOnError(e -> log.warn("Courier spatial index refresh failed: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .subscribe();
+    }
+
+    /**
+     * Inserts or moves a courier. Inactive couriers, couriers without GPS and
+     * stale couriers are evicted instead.
+     *
+     * @param dp the delivery person as persisted in SQL
+     */
+    public void upsert(DeliveryPerson dp) {
+        if (dp == null || dp.getId() == null) {
+            return;
+        }
+        if (!isIndexable(dp)) {
+            evict(dp.getId());
+            return;
+        }
+
+        IndexedCourier entry = toEntry(dp);
+        long cellKey = entry.cellKey();
+
+        couriers.compute(dp.getId(), (id, previous) -> {
+            if (entry.equals(previous)) {
+                return previous;
+            }
+            if (previous != null && previous.cellKey() != cellKey) {
+                removeFromCell(previous.cellKey(), Set.of(id));
+            }
+            cells.compute(cellKey, (k, cell) -> (cell != null ? cell : CourierCoordinates.EMPTY)
+                    .withAll(List.of(entry)));
+            if (courierDensityGrid != null) {
+                courierDensityGrid.move(previous != null ? previous.latitude() : null,
+                        previous != null ? previous.longitude() : null, entry.latitude(), entry.longitude());
+            }
+            return entry;
+        });
+    }
+
+    /**
+     * Bulk variant of {@link #upsert} used by reloads: every touched cell is
+     * rewritten once rather than once per courier.
+     */
+    private void upsertAll(List<DeliveryPerson> all) {
+        Map<Long, List<IndexedCourier>> arrivals = new HashMap<>();
+        Map<Long, Set<UUID>> departures = new HashMap<>();
+        for (DeliveryPerson dp : all) {
+            if (dp.getId() == null) {
+                continue;
+            }
+            if (!isIndexable(dp)) {
+                evict(dp.getId());
+                continue;
+            }
+            IndexedCourier entry = toEntry(dp);
+            IndexedCourier previous = couriers.put(dp.getId(), entry);
+            if (entry.equals(previous)) {
+                continue;
+            }
+            if (previous != null && previous.cellKey() != entry.cellKey()) {
+                departures.computeIfAbsent(previous.cellKey(), k -> new HashSet<>()).add(entry.id());
+            }
+            arrivals.computeIfAbsent(entry.cellKey(), k -> new ArrayList<>()).add(entry);
+            if (courierDensityGrid != null) {
+                courierDensityGrid.move(previous != null ? previous.latitude() : null,
+                        previous != null ? previous.longitude() : null, entry.latitude(), entry.longitude());
+            }
+        }
+        departures.forEach(this::removeFromCell);
+        arrivals.forEach((cellKey, entries) -> cells.compute(cellKey,
+                (k, cell) -> (cell != null ? cell : CourierCoordinates.EMPTY).withAll(entries)));
+    }
+
+    /**
+     * Removes a courier from the index.
+     *
+     * @param deliveryPersonId the delivery person ID
+     */
+    public void evict(UUID deliveryPersonId) {
+        if (deliveryPersonId == null) {
+            return;
+        }
+        couriers.computeIfPresent(deliveryPersonId, (id, previous) -> {
+            removeFromCell(previous.cellKey(), Set.of(id));
+            if (courierDensityGrid != null) {
+                courierDensityGrid.move(previous.latitude(), previous.longitude(), null, null);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns every courier whose cell intersects the given bounding box. The
+     * result is a superset of the couriers inside the box; callers refine it with
+     * an exact distance check.
+     *
+     * @param minLat minimum latitude
+     * @param minLon minimum longitude
+     * @param maxLat maximum latitude
+     * @param maxLon maximum longitude
+     * @return candidate couriers
+     */
+    public List<IndexedCourier> queryBoundingBox(double minLat, double minLon, double maxLat, double maxLon) {
+        List<IndexedCourier> result = new ArrayList<>();
+        for (CourierCoordinates cell : queryCells(minLat, minLon, maxLat, maxLon)) {
+            for (int i = 0; i < cell.size(); i++) {
+                IndexedCourier courier = couriers.get(cell.courier(i).id());
+                // Skip entries caught mid-move so a courier is never returned twice
+                if (courier != null && courier.cellKey() == cell.courier(i).cellKey()) {
+                    result.add(courier);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the snapshots of the cells intersecting the given bounding box, as
+     * stored. A courier moving between two cells during the call may appear in
+     * both.
+     *
+     * @param minLat minimum latitude
+     * @param minLon minimum longitude
+     * @param maxLat maximum latitude
+     * @param maxLon maximum longitude
+     * @return one snapshot per non-empty cell
+     */
+    public List<CourierCoordinates> queryCells(double minLat, double minLon, double maxLat, double maxLon) {
+        List<CourierCoordinates> result = new ArrayList<>();
+        int minLatIdx = cellIndex(minLat);
+        int maxLatIdx = cellIndex(maxLat);
+        int minLonIdx = cellIndex(minLon);
+        int maxLonIdx = cellIndex(maxLon);
+
+        for (int latIdx = minLatIdx; latIdx <= maxLatIdx; latIdx++) {
+            for (int lonIdx = minLonIdx; lonIdx <= maxLonIdx; lonIdx++) {
+                CourierCoordinates cell = cells.get(packCell(latIdx, lonIdx));
+                if (cell != null) {
+                    result.add(cell);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the couriers that may lie inside the ellipse of foci F1 and F2 with
+     * a distance sum of {@code dMaxKm}. Any such point is within
+     * {@code (dMax + |F1F2|) / 2} of both foci, so the query box is the
+     * intersection of the two circles' bounding boxes.
+     *
+     * @param f1Lat   pickup latitude
+     * @param f1Lon   pickup longitude
+     * @param f2Lat   delivery latitude
+     * @param f2Lon   delivery longitude
+     * @param distF1F2Km distance between the foci in km
+     * @param dMaxKm  maximum distance sum in km
+     * @return candidate couriers
+     */
+    public List<IndexedCourier> queryEllipse(double f1Lat, double f1Lon, double f2Lat, double f2Lon,
+            double distF1F2Km, double dMaxKm) {
+        double[] box = ellipseBoundingBox(f1Lat, f1Lon, f2Lat, f2Lon, distF1F2Km, dMaxKm);
+        if (box == null) {
+            return List.of();
+        }
+        return queryBoundingBox(box[0], box[1], box[2], box[3]);
+    }
+
+    public boolean isLoaded() {
+        return loaded.get();
+    }
+
+    public int size() {
+        return couriers.size();
+    }
+
+    /**
+     * Lat/lon bounding box of a circle, as {minLat, minLon, maxLat, maxLon}.
+     */
+    static double[] boundingBox(double lat, double lon, double radiusKm) {
+        double dLat = radiusKm / KM_PER_DEGREE_LAT;
+        double minLat = Math.max(-90.0, lat - dLat);
+        double maxLat = Math.min(90.0, lat + dLat);
+        double maxAbsLat = Math.max(Math.abs(minLat), Math.abs(maxLat));
+        double cosLat = Math.cos(Math.toRadians(maxAbsLat));
+        double dLon = cosLat < 1e-6 ? 180.0 : Math.min(180.0, dLat / cosLat);
+        return new double[] { minLat, lon - dLon, maxLat, lon + dLon };
+    }
+
+    /**
+     * Lat/lon bounding box of an ellipse, as {minLat, minLon, maxLat, maxLon}, or
+     * null when the ellipse is empty.
+     */
+    static double[] ellipseBoundingBox(double f1Lat, double f1Lon, double f2Lat, double f2Lon,
+            double distF1F2Km, double dMaxKm) {
+        double radiusKm = (dMaxKm + distF1F2Km) / 2;
+        double[] box1 = boundingBox(f1Lat, f1Lon, radiusKm);
+        double[] box2 = boundingBox(f2Lat, f2Lon, radiusKm);
+
+        double minLat = Math.max(box1[0], box2[0]);
+        double minLon = Math.max(box1[1], box2[1]);
+        double maxLat = Math.min(box1[2], box2[2]);
+        double maxLon = Math.min(box1[3], box2[3]);
+        if (minLat > maxLat || minLon > maxLon) {
+            return null;
+        }
+        return new double[] { minLat, minLon, maxLat, maxLon };
+    }
+
+    private boolean isIndexable(DeliveryPerson dp) {
+        return Boolean.TRUE.equals(dp.getIsActive()) && dp.getLatitudeGps() != null && dp.getLongitudeGps() != null
+                && isPresent(dp);
+    }
+
+    private boolean isPresent(DeliveryPerson dp) {
+        return courierPresenceService == null || courierPresenceService.isFresh(dp.getLastSeenAt());
+    }
+
+    private IndexedCourier toEntry(DeliveryPerson dp) {
+        double lat = dp.getLatitudeGps();
+        double lon = dp.getLongitudeGps();
+        return new IndexedCourier(dp.getId(), dp.getPersonId(), dp.getCommercialName(), lat, lon,
+                cellKey(lat, lon));
+    }
+
+    private void removeFromCell(long cellKey, Set<UUID> ids) {
+        cells.computeIfPresent(cellKey, (k, cell) -> {
+            CourierCoordinates remaining = cell.withoutAll(ids);
+            return remaining.size() == 0 ? null : remaining;
+        });
+    }
+
+    private long cellKey(double lat, double lon) {
+        return packCell(cellIndex(lat), cellIndex(lon));
+    }
+
+    private int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / cellSizeDeg);
+    }
+
+    private static long packCell(int latIdx, int lonIdx) {
+        return ((long) latIdx << 32) | (lonIdx & 0xFFFFFFFFL);
+    }
+}
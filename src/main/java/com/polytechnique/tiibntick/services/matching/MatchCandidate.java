@@ -0,0 +1,38 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import com.polytechnique.tiibntick.elasticsearch.models.DeliveryPersonDocument;
+
+/**
+ * A delivery person found inside a matching ellipse, together with the
+ * distances computed while filtering it. Distances are straight-line, or by
+ * road once re-ranked with the road network.
+ *
+ * @param deliveryPerson the candidate delivery person
+ * @param distanceSumKm  distance courier → pickup plus courier → delivery, in km
+ * @param detourKm       extra distance compared to the direct pickup → delivery
+ *                       route ({@code distP_F1 + distP_F2 - distF1F2}), in km
+ * @param score          ranking cost in km-equivalent, lower is better;
+ *                       defaults to the detour until {@link CandidateRanker}
+ *                       scores the candidate
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+public record MatchCandidate(DeliveryPersonDocument deliveryPerson, double distanceSumKm, double detourKm,
+        double score) {
+
+    public MatchCandidate(DeliveryPersonDocument deliveryPerson, double distanceSumKm, double detourKm) {
+        this(deliveryPerson, distanceSumKm, detourKm, detourKm);
+    }
+
+    public MatchCandidate withScore(double newScore) {
+        return new MatchCandidate(deliveryPerson, distanceSumKm, detourKm, newScore);
+    }
+
+    /**
+     * Replaces the distances, shifting the score by the change in detour.
+     */
+    public MatchCandidate withDistances(double newDistanceSumKm, double newDetourKm) {
+        return new MatchCandidate(deliveryPerson, newDistanceSumKm, newDetourKm, score + newDetourKm - detourKm);
+    }
+}
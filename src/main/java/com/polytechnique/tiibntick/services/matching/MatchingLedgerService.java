@@ -0,0 +1,54 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import com.polytechnique.tiibntick.repositories.MatchingLedgerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Service keeping track of which delivery persons were already notified for an
+ * announcement.
+ *
+ * <p>
+ * Claiming is a single INSERT ... ON CONFLICT DO NOTHING, so two concurrent
+ * matchings of the same announcement (Kafka redelivery, scheduled re-matching)
+ * can never both claim the same delivery person.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MatchingLedgerService {
+
+    private final MatchingLedgerRepository matchingLedgerRepository;
+
+    /**
+     * Claims the given delivery persons for an announcement.
+     *
+     * @param announcementId    the announcement ID
+     * @param deliveryPersonIds the delivery persons about to be notified
+     * @return the delivery persons not notified before, which the caller must
+     *         notify
+     */
+    public Mono<Set<UUID>> claim(UUID announcementId, Collection<UUID> deliveryPersonIds) {
+        if (deliveryPersonIds.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        return matchingLedgerRepository.claim(announcementId, deliveryPersonIds.toArray(UUID[]::new))
+                .collect(Collectors.toSet())
+                .doOnNext(claimed -> {
+                    if (claimed.size() < deliveryPersonIds.size()) {
+                        log.info("{} of {} delivery persons were already notified for announcement {}",
+                                deliveryPersonIds.size() - claimed.size(), deliveryPersonIds.size(), announcementId);
+                    }
+                });
+    }
+}
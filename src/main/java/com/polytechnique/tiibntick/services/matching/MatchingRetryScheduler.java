@@ -0,0 +1,100 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import com.polytechnique.tiibntick.models.MatchingRetry;
+import com.polytechnique.tiibntick.models.enums.announcement.AnnouncementStatus;
+import com.polytechnique.tiibntick.services.AnnouncementService;
+import com.polytechnique.tiibntick.services.MatchingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Periodically re-runs matching for PUBLISHED announcements whose previous
+ * attempt found no eligible delivery person.
+ *
+ * <p>
+ * Due retries are claimed in batches from the {@code matching_retries} table.
+ * Announcements that left the PUBLISHED status (or were deleted) are dropped
+ * from the schedule; the others go through {@link MatchingService} again, which
+ * either clears the retry on success or pushes it back with a longer delay.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Component
+public class MatchingRetryScheduler {
+
+    private final MatchingRetryService matchingRetryService;
+    private final AnnouncementService announcementService;
+    private final MatchingService matchingService;
+    private final int batchSize;
+    private final int concurrency;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public MatchingRetryScheduler(MatchingRetryService matchingRetryService,
+            AnnouncementService announcementService,
+            MatchingService matchingService,
+            @Value("${matching.retry.batch-size:50}") int batchSize,
+            @Value("${matching.retry.concurrency:4}") int concurrency) {
+        this.matchingRetryService = matchingRetryService;
+        this.announcementService = announcementService;
+        this.matchingService = matchingService;
+        this.batchSize = batchSize;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Polls for due retries. Skips the tick if the previous batch is still
+     * running.
+     */
+    @Scheduled(fixedDelayString = "${matching.retry.poll-interval-ms:30000}")
+    public void processDueRetries() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        runBatch()
+                .doOnError(e -> log.warn("Re-matching batch failed: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .doFinally(signal -> running.set(false))
+                .subscribe();
+    }
+
+    /**
+     * Claims and processes one batch of due retries.
+     *
+     * @return a Mono completing once the batch is processed
+     */
+    Mono<Void> runBatch() {
+        return matchingRetryService.claimDue(batchSize)
+                .flatMap(this::retry, concurrency)
+                .then();
+    }
+
+    private Mono<Void> retry(MatchingRetry retry) {
+        return announcementService.getAnnouncement(retry.getAnnouncementId())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(found -> {
+                    if (found.isEmpty() || found.get().getStatus() != AnnouncementStatus.PUBLISHED) {
+                        log.info("Announcement {} is no longer PUBLISHED. Stopping re-matching.",
+                                retry.getAnnouncementId());
+                        return matchingRetryService.cancel(retry.getAnnouncementId());
+                    }
+                    log.info("Re-matching announcement {} (attempt {})", retry.getAnnouncementId(),
+                            retry.getAttempts() + 1);
+                    return matchingService.matchAnnouncement(found.get());
+                })
+                .onErrorResume(e -> {
+                    // The lease on the row makes it due again later
+                    log.error("Re-matching failed for announcement {}", retry.getAnnouncementId(), e);
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,74 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import com.polytechnique.tiibntick.models.MatchingRetry;
+import com.polytechnique.tiibntick.repositories.MatchingRetryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Service managing the durable re-matching schedule of announcements.
+ *
+ * <p>
+ * Unmatched announcements are stored in the {@code matching_retries} table with
+ * an exponential backoff, so pending retries survive restarts and never hold a
+ * consumer thread while waiting.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Service
+public class MatchingRetryService {
+
+    private final MatchingRetryRepository matchingRetryRepository;
+    private final double baseDelaySeconds;
+    private final double maxDelaySeconds;
+    private final double leaseSeconds;
+
+    public MatchingRetryService(MatchingRetryRepository matchingRetryRepository,
+            @Value("${matching.retry.base-delay-seconds:60}") double baseDelaySeconds,
+            @Value("${matching.retry.max-delay-seconds:1800}") double maxDelaySeconds,
+            @Value("${matching.retry.lease-seconds:300}") double leaseSeconds) {
+        this.matchingRetryRepository = matchingRetryRepository;
+        this.baseDelaySeconds = baseDelaySeconds;
+        this.maxDelaySeconds = maxDelaySeconds;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * Schedules (or pushes back) a re-matching attempt for an announcement.
+     *
+     * @param announcementId the announcement ID
+     * @return a Mono completing once the schedule is persisted
+     */
+    public Mono<Void> schedule(UUID announcementId) {
+        return matchingRetryRepository.upsertWithBackoff(announcementId, baseDelaySeconds, maxDelaySeconds)
+                .doOnSuccess(rows -> log.info("Re-matching scheduled for announcement {}", announcementId))
+                .then();
+    }
+
+    /**
+     * Removes any pending re-matching attempt for an announcement.
+     *
+     * @param announcementId the announcement ID
+     * @return a Mono completing once the schedule is removed
+     */
+    public Mono<Void> cancel(UUID announcementId) {
+        return matchingRetryRepository.deleteById(announcementId);
+    }
+
+    /**
+     * Claims a batch of due retries, leasing them so other nodes skip them.
+     *
+     * @param batchSize maximum number of retries to claim
+     * @return the claimed retries
+     */
+    public Flux<MatchingRetry> claimDue(int batchSize) {
+        return matchingRetryRepository.claimDue(batchSize, leaseSeconds);
+    }
+}
@@ -4,8 +4,10 @@ import com.polytechnique.tiibntick.models.Person;
 import com.polytechnique.tiibntick.repositories.PersonRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.UUID;
 
 /**
@@ -32,6 +34,16 @@ public class LecturePersonService {
         return personRepository.findById(id);
     }
 
+    /**
+     * Retrieves several Persons by their identifiers in a single query.
+     *
+     * @param ids the UUIDs of the persons to retrieve
+     * @return a Flux of the Persons found
+     */
+    public Flux<Person> findAllByIds(Collection<UUID> ids) {
+        return personRepository.findAllById(ids);
+    }
+
     /**
      * Retrieves a Person by their email address.
      *
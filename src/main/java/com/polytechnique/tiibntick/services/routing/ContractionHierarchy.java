@@ -0,0 +1,538 @@
+package com.polytechnique.tiibntick.services.routing;
+
+import java.util.Arrays;
+
+/**
+ * Contraction hierarchy over a {@link RoadGraph}, answering exact shortest
+ * path lengths with small upward searches.
+ *
+ * <p>
+ * Nodes are contracted one at a time, least important first. A node's
+ * importance is its edge difference (shortcuts its contraction adds minus
+ * edges it removes) plus the number of its neighbours already contracted.
+ * Contracting a node adds a shortcut between two of its remaining neighbours
+ * unless a bounded witness search finds a path avoiding it that is no longer.
+ * Every shortest path then climbs to its highest node and descends, so a query
+ * only follows edges towards higher ranks, from both ends.
+ *
+ * <p>
+ * Distance matrices use bucket many-to-many: a backward upward search from
+ * each target leaves its distances in buckets on the nodes it settles, then a
+ * forward upward search from each source reads the buckets of the nodes it
+ * settles.
+ *
+ * <p>
+ * Immutable once built; queries are thread-safe.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+final class ContractionHierarchy {
+
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /** Edges u → v with rank(v) > rank(u). */
+    private final Csr up;
+    /** For each v, edges u → v with rank(u) > rank(v), stored at v. */
+    private final Csr down;
+    private final int shortcutCount;
+    private final ThreadLocal<Search> searches;
+
+    private ContractionHierarchy(int nodeCount, Csr up, Csr down, int shortcutCount) {
+        this.up = up;
+        this.down = down;
+        this.shortcutCount = shortcutCount;
+        this.searches = ThreadLocal.withInitial(() -> new Search(nodeCount));
+    }
+
+    /**
+     * Contracts the graph.
+     *
+     * @param graph              the road graph
+     * @param witnessSettleLimit nodes a witness search may settle before giving
+     *                           up; a lower limit builds faster but adds
+     *                           superfluous shortcuts
+     */
+    static ContractionHierarchy build(RoadGraph graph, int witnessSettleLimit) {
+        return new Builder(graph, Math.max(1, witnessSettleLimit)).build();
+    }
+
+    int shortcutCount() {
+        return shortcutCount;
+    }
+
+    /**
+     * Computes the shortest path lengths from every source to every target.
+     *
+     * @param sources source nodes; a negative entry yields an unreachable row
+     * @param targets target nodes; a negative entry yields an unreachable column
+     * @return lengths in meters, {@link #UNREACHABLE} where there is no path
+     */
+    int[][] manyToMany(int[] sources, int[] targets) {
+        int[][] result = new int[sources.length][targets.length];
+        for (int[] row : result) {
+            Arrays.fill(row, UNREACHABLE);
+        }
+        Search search = searches.get();
+        try {
+            for (int t = 0; t < targets.length; t++) {
+                if (targets[t] < 0) {
+                    continue;
+                }
+                search.exhaust(down, targets[t]);
+                for (int i = 0; i < search.settled.size; i++) {
+                    int node = search.settled.values[i];
+                    search.addToBucket(node, t, search.dist[node]);
+                }
+                search.reset();
+            }
+            for (int s = 0; s < sources.length; s++) {
+                if (sources[s] < 0) {
+                    continue;
+                }
+                int[] row = result[s];
+                search.exhaust(up, sources[s]);
+                for (int i = 0; i < search.settled.size; i++) {
+                    int node = search.settled.values[i];
+                    int d = search.dist[node];
+                    for (int b = search.bucketFirst[node]; b >= 0; b = search.bucketNext.values[b]) {
+                        int total = d + search.bucketDist.values[b];
+                        int target = search.bucketTarget.values[b];
+                        if (total < row[target]) {
+                            row[target] = total;
+                        }
+                    }
+                }
+                search.reset();
+            }
+        } finally {
+            search.reset();
+            search.clearBuckets();
+        }
+        return result;
+    }
+
+    /**
+     * Graph in compressed sparse row form.
+     */
+    private record Csr(int[] first, int[] head, int[] weight) {
+
+        static Csr of(int nodeCount, IntList tails, IntList heads, IntList weights) {
+            int[] first = new int[nodeCount + 1];
+            for (int e = 0; e < tails.size; e++) {
+                first[tails.values[e] + 1]++;
+            }
+            for (int u = 0; u < nodeCount; u++) {
+                first[u + 1] += first[u];
+            }
+            int[] next = Arrays.copyOf(first, nodeCount);
+            int[] head = new int[tails.size];
+            int[] weight = new int[tails.size];
+            for (int e = 0; e < tails.size; e++) {
+                int slot = next[tails.values[e]]++;
+                head[slot] = heads.values[e];
+                weight[slot] = weights.values[e];
+            }
+            return new Csr(first, head, weight);
+        }
+    }
+
+    private static final class Builder {
+
+        /** Keeps heap keys positive for negative priorities. */
+        private static final int PRIORITY_OFFSET = 1 << 30;
+
+        private final int nodeCount;
+        private final Adjacency[] out;
+        private final Adjacency[] in;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbours;
+        private final int[] priority;
+        private final int[] stamp;
+        private final Search witness;
+        private final int settleLimit;
+        private final IntList shortcutFrom = new IntList();
+        private final IntList shortcutTo = new IntList();
+        private final IntList shortcutWeight = new IntList();
+        private int stampCounter;
+
+        Builder(RoadGraph graph, int settleLimit) {
+            this.nodeCount = graph.nodeCount();
+            this.out = new Adjacency[nodeCount];
+            this.in = new Adjacency[nodeCount];
+            for (int v = 0; v < nodeCount; v++) {
+                out[v] = new Adjacency();
+                in[v] = new Adjacency();
+            }
+            for (int u = 0; u < nodeCount; u++) {
+                for (int e = graph.firstOut[u]; e < graph.firstOut[u + 1]; e++) {
+                    int v = graph.head[e];
+                    if (u != v) {
+                        out[u].putMin(v, graph.weight[e]);
+                        in[v].putMin(u, graph.weight[e]);
+                    }
+                }
+            }
+            this.contracted = new boolean[nodeCount];
+            this.contractedNeighbours = new int[nodeCount];
+            this.priority = new int[nodeCount];
+            this.stamp = new int[nodeCount];
+            this.witness = new Search(nodeCount);
+            this.settleLimit = settleLimit;
+        }
+
+        ContractionHierarchy build() {
+            LongHeap queue = new LongHeap();
+            for (int v = 0; v < nodeCount; v++) {
+                priority[v] = priority(v);
+                queue.push(key(priority[v], v));
+            }
+
+            IntList upTails = new IntList();
+            IntList upHeads = new IntList();
+            IntList upWeights = new IntList();
+            IntList downTails = new IntList();
+            IntList downHeads = new IntList();
+            IntList downWeights = new IntList();
+            int shortcuts = 0;
+
+            while (!queue.isEmpty()) {
+                long entry = queue.pop();
+                int v = (int) entry;
+                int queued = (int) (entry >>> 32) - PRIORITY_OFFSET;
+                if (contracted[v] || queued != priority[v]) {
+                    continue;
+                }
+                // Lazy update: contract only if the priority is still current
+                int current = priority(v);
+                if (current != queued) {
+                    priority[v] = current;
+                    queue.push(key(current, v));
+                    continue;
+                }
+
+                Adjacency outs = out[v];
+                for (int i = 0; i < outs.size; i++) {
+                    if (!contracted[outs.node[i]]) {
+                        upTails.add(v);
+                        upHeads.add(outs.node[i]);
+                        upWeights.add(outs.weight[i]);
+                    }
+                }
+                Adjacency ins = in[v];
+                for (int i = 0; i < ins.size; i++) {
+                    if (!contracted[ins.node[i]]) {
+                        downTails.add(v);
+                        downHeads.add(ins.node[i]);
+                        downWeights.add(ins.weight[i]);
+                    }
+                }
+
+                // priority(v) has just filled the shortcut lists for v
+                for (int i = 0; i < shortcutFrom.size; i++) {
+                    out[shortcutFrom.values[i]].putMin(shortcutTo.values[i], shortcutWeight.values[i]);
+                    in[shortcutTo.values[i]].putMin(shortcutFrom.values[i], shortcutWeight.values[i]);
+                }
+                shortcuts += shortcutFrom.size;
+                contracted[v] = true;
+                // Adjacency of a contracted node is no longer needed
+                out[v] = Adjacency.EMPTY;
+                in[v] = Adjacency.EMPTY;
+
+                stampCounter++;
+                updateNeighbours(outs, queue);
+                updateNeighbours(ins, queue);
+            }
+
+            return new ContractionHierarchy(nodeCount,
+                    Csr.of(nodeCount, upTails, upHeads, upWeights),
+                    Csr.of(nodeCount, downTails, downHeads, downWeights),
+                    shortcuts);
+        }
+
+        private void updateNeighbours(Adjacency neighbours, LongHeap queue) {
+            for (int i = 0; i < neighbours.size; i++) {
+                int x = neighbours.node[i];
+                if (contracted[x] || stamp[x] == stampCounter) {
+                    continue;
+                }
+                stamp[x] = stampCounter;
+                contractedNeighbours[x]++;
+                int updated = priority(x);
+                if (updated != priority[x]) {
+                    priority[x] = updated;
+                    queue.push(key(updated, x));
+                }
+            }
+        }
+
+        private int priority(int v) {
+            int degree = 0;
+            for (int i = 0; i < out[v].size; i++) {
+                if (!contracted[out[v].node[i]]) {
+                    degree++;
+                }
+            }
+            for (int i = 0; i < in[v].size; i++) {
+                if (!contracted[in[v].node[i]]) {
+                    degree++;
+                }
+            }
+            findShortcuts(v);
+            return shortcutFrom.size - degree + contractedNeighbours[v];
+        }
+
+        /**
+         * Fills the shortcut lists with the shortcuts contracting {@code v}
+         * requires.
+         */
+        private void findShortcuts(int v) {
+            shortcutFrom.clear();
+            shortcutTo.clear();
+            shortcutWeight.clear();
+            Adjacency ins = in[v];
+            Adjacency outs = out[v];
+
+            for (int i = 0; i < ins.size; i++) {
+                int u = ins.node[i];
+                if (contracted[u]) {
+                    continue;
+                }
+                int toV = ins.weight[i];
+                int limit = -1;
+                for (int j = 0; j < outs.size; j++) {
+                    int w = outs.node[j];
+                    if (w != u && !contracted[w]) {
+                        limit = Math.max(limit, toV + outs.weight[j]);
+                    }
+                }
+                if (limit < 0) {
+                    continue;
+                }
+
+                witness.witness(out, contracted, u, v, limit, settleLimit);
+                for (int j = 0; j < outs.size; j++) {
+                    int w = outs.node[j];
+                    int via = toV + outs.weight[j];
+                    if (w != u && !contracted[w] && witness.dist[w] > via) {
+                        shortcutFrom.add(u);
+                        shortcutTo.add(w);
+                        shortcutWeight.add(via);
+                    }
+                }
+                witness.reset();
+            }
+        }
+
+        private static long key(int priority, int node) {
+            return ((long) (priority + PRIORITY_OFFSET) << 32) | node;
+        }
+    }
+
+    /**
+     * Dijkstra scratch space, reset after each search by clearing only the
+     * nodes it touched.
+     */
+    private static final class Search {
+        final int[] dist;
+        final IntList touched = new IntList();
+        final IntList settled = new IntList();
+        final LongHeap heap = new LongHeap();
+
+        final int[] bucketFirst;
+        final IntList bucketNodes = new IntList();
+        final IntList bucketNext = new IntList();
+        final IntList bucketTarget = new IntList();
+        final IntList bucketDist = new IntList();
+
+        Search(int nodeCount) {
+            this.dist = new int[nodeCount];
+            this.bucketFirst = new int[nodeCount];
+            Arrays.fill(dist, UNREACHABLE);
+            Arrays.fill(bucketFirst, -1);
+        }
+
+        /**
+         * Settles every node reachable from {@code source} in the graph.
+         */
+        void exhaust(Csr graph, int source) {
+            relax(source, 0);
+            while (!heap.isEmpty()) {
+                long entry = heap.pop();
+                int node = (int) entry;
+                int d = (int) (entry >>> 32);
+                if (d > dist[node]) {
+                    continue;
+                }
+                settled.add(node);
+                for (int e = graph.first()[node]; e < graph.first()[node + 1]; e++) {
+                    relax(graph.head()[e], d + graph.weight()[e]);
+                }
+            }
+        }
+
+        /**
+         * Dijkstra from {@code source} over the uncontracted nodes other than
+         * {@code excluded}, stopping past {@code limit} meters or
+         * {@code settleLimit} settled nodes.
+         */
+        void witness(Adjacency[] out, boolean[] contracted, int source, int excluded, int limit,
+                int settleLimit) {
+            relax(source, 0);
+            int settledCount = 0;
+            while (!heap.isEmpty()) {
+                long entry = heap.pop();
+                int node = (int) entry;
+                int d = (int) (entry >>> 32);
+                if (d > dist[node]) {
+                    continue;
+                }
+                if (d > limit || ++settledCount > settleLimit) {
+                    break;
+                }
+                Adjacency edges = out[node];
+                for (int i = 0; i < edges.size; i++) {
+                    int next = edges.node[i];
+                    if (next != excluded && !contracted[next]) {
+                        relax(next, d + edges.weight[i]);
+                    }
+                }
+            }
+        }
+
+        void addToBucket(int node, int target, int distance) {
+            if (bucketFirst[node] < 0) {
+                bucketNodes.add(node);
+            }
+            bucketNext.add(bucketFirst[node]);
+            bucketTarget.add(target);
+            bucketDist.add(distance);
+            bucketFirst[node] = bucketNext.size - 1;
+        }
+
+        void reset() {
+            for (int i = 0; i < touched.size; i++) {
+                dist[touched.values[i]] = UNREACHABLE;
+            }
+            touched.clear();
+            settled.clear();
+            heap.clear();
+        }
+
+        void clearBuckets() {
+            for (int i = 0; i < bucketNodes.size; i++) {
+                bucketFirst[bucketNodes.values[i]] = -1;
+            }
+            bucketNodes.clear();
+            bucketNext.clear();
+            bucketTarget.clear();
+            bucketDist.clear();
+        }
+
+        private void relax(int node, int d) {
+            if (d < dist[node]) {
+                if (dist[node] == UNREACHABLE) {
+                    touched.add(node);
+                }
+                dist[node] = d;
+                heap.push(((long) d << 32) | node);
+            }
+        }
+    }
+
+    /**
+     * Mutable adjacency list used during contraction, keeping the lightest
+     * edge per neighbour.
+     */
+    private static final class Adjacency {
+        static final Adjacency EMPTY = new Adjacency();
+
+        int[] node = new int[4];
+        int[] weight = new int[4];
+        int size;
+
+        void putMin(int neighbour, int w) {
+            for (int i = 0; i < size; i++) {
+                if (node[i] == neighbour) {
+                    weight[i] = Math.min(weight[i], w);
+                    return;
+                }
+            }
+            if (size == node.length) {
+                node = Arrays.copyOf(node, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+            }
+            node[size] = neighbour;
+            weight[size] = w;
+            size++;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * Binary min-heap of longs, used with (key << 32 | node) entries.
+     */
+    private static final class LongHeap {
+        private long[] values = new long[64];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void push(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (values[parent] <= value) {
+                    break;
+                }
+                values[i] = values[parent];
+                i = parent;
+            }
+            values[i] = value;
+        }
+
+        long pop() {
+            long top = values[0];
+            long last = values[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && values[child + 1] < values[child]) {
+                    child++;
+                }
+                if (last <= values[child]) {
+                    break;
+                }
+                values[i] = values[child];
+                i = child;
+            }
+            values[i] = last;
+            return top;
+        }
+    }
+}
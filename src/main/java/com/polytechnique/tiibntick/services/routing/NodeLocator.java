@@ -0,0 +1,79 @@
+package com.polytechnique.tiibntick.services.routing;
+
+import com.polytechnique.tiibntick.services.matching.DistanceEngine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the road graph node nearest to a coordinate, using a uniform grid of
+ * {@code cellDegrees} cells over the nodes.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+final class NodeLocator {
+
+    private static final double KM_PER_DEGREE = Math.PI * DistanceEngine.EARTH_RADIUS_KM / 180.0;
+
+    private final RoadGraph graph;
+    private final double cellDegrees;
+    private final Map<Long, int[]> cells;
+
+    NodeLocator(RoadGraph graph, double cellDegrees) {
+        this.graph = graph;
+        this.cellDegrees = cellDegrees;
+
+        Map<Long, List<Integer>> building = new HashMap<>();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            building.computeIfAbsent(cellKey(cell(graph.latitude[node]), cell(graph.longitude[node])),
+                    key -> new ArrayList<>()).add(node);
+        }
+        this.cells = new HashMap<>(building.size() * 2);
+        building.forEach((key, nodes) -> cells.put(key, nodes.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Returns the node nearest to the coordinate within {@code maxKm}, or -1 if
+     * there is none.
+     */
+    int nearest(double latitude, double longitude, double maxKm) {
+        if (Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            return -1;
+        }
+        int latRings = (int) Math.ceil(maxKm / (cellDegrees * KM_PER_DEGREE));
+        int lonRings = (int) Math.ceil(latRings / Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+        long latCell = cell(latitude);
+        long lonCell = cell(longitude);
+
+        int best = -1;
+        double bestKm = maxKm;
+        for (long i = latCell - latRings; i <= latCell + latRings; i++) {
+            for (long j = lonCell - lonRings; j <= lonCell + lonRings; j++) {
+                int[] nodes = cells.get(cellKey(i, j));
+                if (nodes == null) {
+                    continue;
+                }
+                for (int node : nodes) {
+                    double km = DistanceEngine.haversineKm(latitude, longitude, graph.latitude[node],
+                            graph.longitude[node]);
+                    if (km <= bestKm) {
+                        bestKm = km;
+                        best = node;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private long cell(double degrees) {
+        return (long) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long cellKey(long latCell, long lonCell) {
+        return (latCell << 32) ^ (lonCell & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,270 @@
+package com.polytechnique.tiibntick.services.routing;
+
+import com.polytechnique.tiibntick.services.matching.DistanceEngine;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the drivable road network of an OpenStreetMap XML extract, as
+ * returned by the Overpass API ({@code [out:xml]}) or exported by osmium, into
+ * a {@link RoadGraph}. Files ending in {@code .gz} are decompressed on the fly.
+ *
+ * <p>
+ * Ways with a drivable {@code highway} tag become edges between consecutive
+ * nodes, in both directions unless the way is one-way ({@code oneway},
+ * roundabouts and motorways). Ways closed to motor vehicles are skipped.
+ *
+ * <p>
+ * Connected parts of the network with fewer than {@code minComponentNodes}
+ * nodes are dropped, so that a coordinate is never snapped onto an isolated
+ * fragment, while the separate networks of several cities in one extract are
+ * all kept. The largest part is always kept.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+final class OsmRoadNetworkReader {
+
+    private static final Set<String> DRIVABLE = Set.of(
+            "motorway", "motorway_link", "trunk", "trunk_link", "primary", "primary_link",
+            "secondary", "secondary_link", "tertiary", "tertiary_link", "unclassified", "residential",
+            "living_street", "service", "road", "track");
+
+    private static final Set<String> NO_ACCESS = Set.of("no", "private");
+
+    private OsmRoadNetworkReader() {
+    }
+
+    static RoadGraph read(Path file, int minComponentNodes) throws IOException {
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file))) {
+            InputStream in = file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(raw) : raw;
+            return read(in, minComponentNodes);
+        }
+    }
+
+    static RoadGraph read(InputStream in, int minComponentNodes) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        // Overpass writes the ways before their nodes, so ways are kept until the end
+        Map<Long, Integer> nodeIndex = new HashMap<>();
+        double[] lat = new double[1024];
+        double[] lon = new double[1024];
+        List<long[]> wayRefs = new ArrayList<>();
+        List<Integer> wayDirections = new ArrayList<>();
+
+        try {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            long[] refs = new long[64];
+            int refCount = 0;
+            Map<String, String> tags = new HashMap<>();
+            boolean inWay = false;
+
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (xml.getLocalName()) {
+                        case "node" -> {
+                            int index = nodeIndex.size();
+                            if (index == lat.length) {
+                                lat = Arrays.copyOf(lat, index * 2);
+                                lon = Arrays.copyOf(lon, index * 2);
+                            }
+                            nodeIndex.put(Long.parseLong(xml.getAttributeValue(null, "id")), index);
+                            lat[index] = Double.parseDouble(xml.getAttributeValue(null, "lat"));
+                            lon[index] = Double.parseDouble(xml.getAttributeValue(null, "lon"));
+                        }
+                        case "way" -> {
+                            inWay = true;
+                            refCount = 0;
+                            tags.clear();
+                        }
+                        case "nd" -> {
+                            if (inWay) {
+                                if (refCount == refs.length) {
+                                    refs = Arrays.copyOf(refs, refCount * 2);
+                                }
+                                refs[refCount++] = Long.parseLong(xml.getAttributeValue(null, "ref"));
+                            }
+                        }
+                        case "tag" -> {
+                            if (inWay) {
+                                tags.put(xml.getAttributeValue(null, "k"), xml.getAttributeValue(null, "v"));
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "way".equals(xml.getLocalName())) {
+                    inWay = false;
+                    Integer direction = direction(tags);
+                    if (direction != null && refCount > 1) {
+                        wayRefs.add(Arrays.copyOf(refs, refCount));
+                        wayDirections.add(direction);
+                    }
+                }
+            }
+            xml.close();
+        } catch (XMLStreamException | IllegalArgumentException e) {
+            throw new IOException("Invalid OSM XML: " + e.getMessage(), e);
+        }
+
+        return buildGraph(nodeIndex, lat, lon, wayRefs, wayDirections, minComponentNodes);
+    }
+
+    /**
+     * Returns 0 for a two-way road, 1 for a one-way road in node order, -1 for
+     * a one-way road against node order, or null if the way is not drivable.
+     */
+    private static Integer direction(Map<String, String> tags) {
+        String highway = tags.get("highway");
+        if (highway == null || !DRIVABLE.contains(highway) || "yes".equals(tags.get("area"))
+                || NO_ACCESS.contains(tags.getOrDefault("access", ""))
+                || NO_ACCESS.contains(tags.getOrDefault("motor_vehicle", ""))) {
+            return null;
+        }
+        String oneway = tags.getOrDefault("oneway", "");
+        return switch (oneway) {
+            case "yes", "true", "1" -> 1;
+            case "-1", "reverse" -> -1;
+            case "no", "false", "0" -> 0;
+            default -> "roundabout".equals(tags.get("junction")) || "motorway".equals(highway) ? 1 : 0;
+        };
+    }
+
+    private static RoadGraph buildGraph(Map<Long, Integer> nodeIndex, double[] lat, double[] lon,
+            List<long[]> wayRefs, List<Integer> wayDirections, int minComponentNodes) {
+        int nodeCount = nodeIndex.size();
+        IntArray tails = new IntArray();
+        IntArray heads = new IntArray();
+        IntArray weights = new IntArray();
+
+        for (int w = 0; w < wayRefs.size(); w++) {
+            long[] refs = wayRefs.get(w);
+            int direction = wayDirections.get(w);
+            int previous = -1;
+            for (long ref : refs) {
+                Integer current = nodeIndex.get(ref);
+                if (current == null) {
+                    // Node missing from the extract: the way is cut there
+                    previous = -1;
+                    continue;
+                }
+                if (previous >= 0 && previous != current) {
+                    int meters = (int) Math.max(1, Math.round(1000 * DistanceEngine.haversineKm(
+                            lat[previous], lon[previous], lat[current], lon[current])));
+                    if (direction >= 0) {
+                        tails.add(previous);
+                        heads.add(current);
+                        weights.add(meters);
+                    }
+                    if (direction <= 0) {
+                        tails.add(current);
+                        heads.add(previous);
+                        weights.add(meters);
+                    }
+                }
+                previous = current;
+            }
+        }
+
+        // Weakly connected components, by union-find over the edges
+        int[] parent = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            parent[i] = i;
+        }
+        for (int e = 0; e < tails.size; e++) {
+            int a = find(parent, tails.values[e]);
+            int b = find(parent, heads.values[e]);
+            if (a != b) {
+                parent[a] = b;
+            }
+        }
+        boolean[] onRoad = new boolean[nodeCount];
+        for (int e = 0; e < tails.size; e++) {
+            onRoad[tails.values[e]] = true;
+            onRoad[heads.values[e]] = true;
+        }
+        int[] componentNodes = new int[nodeCount];
+        int largest = -1;
+        for (int i = 0; i < nodeCount; i++) {
+            if (onRoad[i]) {
+                componentNodes[find(parent, i)]++;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            if (largest < 0 || componentNodes[i] > componentNodes[largest]) {
+                largest = i;
+            }
+        }
+
+        int[] newIndex = new int[nodeCount];
+        Arrays.fill(newIndex, -1);
+        int kept = 0;
+        for (int e = 0; e < tails.size; e++) {
+            for (int node : new int[] { tails.values[e], heads.values[e] }) {
+                int root = find(parent, node);
+                if (newIndex[node] < 0 && (root == largest || componentNodes[root] >= minComponentNodes)) {
+                    newIndex[node] = kept++;
+                }
+            }
+        }
+
+        double[] keptLat = new double[kept];
+        double[] keptLon = new double[kept];
+        for (int i = 0; i < nodeCount; i++) {
+            if (newIndex[i] >= 0) {
+                keptLat[newIndex[i]] = lat[i];
+                keptLon[newIndex[i]] = lon[i];
+            }
+        }
+        IntArray keptTails = new IntArray();
+        IntArray keptHeads = new IntArray();
+        IntArray keptWeights = new IntArray();
+        for (int e = 0; e < tails.size; e++) {
+            if (newIndex[tails.values[e]] >= 0) {
+                keptTails.add(newIndex[tails.values[e]]);
+                keptHeads.add(newIndex[heads.values[e]]);
+                keptWeights.add(weights.values[e]);
+            }
+        }
+        return new RoadGraph(keptLat, keptLon, keptTails.size, keptTails.values, keptHeads.values,
+                keptWeights.values);
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private static final class IntArray {
+        int[] values = new int[1024];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
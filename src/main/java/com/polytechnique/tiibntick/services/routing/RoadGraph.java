@@ -0,0 +1,57 @@
+package com.polytechnique.tiibntick.services.routing;
+
+/**
+ * Directed road graph in compressed sparse row form: the edges leaving node
+ * {@code u} are {@code [firstOut[u], firstOut[u + 1])}. Edge weights are
+ * lengths in meters.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+final class RoadGraph {
+
+    final double[] latitude;
+    final double[] longitude;
+    final int[] firstOut;
+    final int[] head;
+    final int[] weight;
+
+    /**
+     * @param latitude  node latitudes in degrees
+     * @param longitude node longitudes in degrees
+     * @param edgeCount number of edges in the three edge arrays
+     * @param tails     edge start nodes
+     * @param heads     edge end nodes
+     * @param weights   edge lengths in meters
+     */
+    RoadGraph(double[] latitude, double[] longitude, int edgeCount, int[] tails, int[] heads, int[] weights) {
+        int nodeCount = latitude.length;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.firstOut = new int[nodeCount + 1];
+        this.head = new int[edgeCount];
+        this.weight = new int[edgeCount];
+
+        for (int e = 0; e < edgeCount; e++) {
+            firstOut[tails[e] + 1]++;
+        }
+        for (int u = 0; u < nodeCount; u++) {
+            firstOut[u + 1] += firstOut[u];
+        }
+        int[] next = new int[nodeCount];
+        System.arraycopy(firstOut, 0, next, 0, nodeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            int slot = next[tails[e]]++;
+            head[slot] = heads[e];
+            weight[slot] = weights[e];
+        }
+    }
+
+    int nodeCount() {
+        return latitude.length;
+    }
+
+    int edgeCount() {
+        return head.length;
+    }
+}
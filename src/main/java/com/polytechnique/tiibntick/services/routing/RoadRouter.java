@@ -0,0 +1,145 @@
+package com.polytechnique.tiibntick.services.routing;
+
+import com.polytechnique.tiibntick.services.matching.DistanceEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Embedded road router answering road distance matrices from a local
+ * OpenStreetMap extract, without any network access.
+ *
+ * <p>
+ * At startup the extract at {@code matching.routing.osm-file} is read into a
+ * {@link RoadGraph} and contracted into a {@link ContractionHierarchy} in the
+ * background; until then, or if the file is missing, {@link #isReady()} is
+ * false and callers keep straight-line distances. Coordinates are snapped to
+ * the nearest road node within {@code matching.routing.max-snap-m}; the
+ * straight-line distance to that node is added to the road distance. Road
+ * networks smaller than {@code matching.routing.min-component-nodes} nodes
+ * are left out; larger ones, e.g. one per city, are routed independently.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Component
+public class RoadRouter {
+
+    private static final double LOCATOR_CELL_DEGREES = 0.005;
+
+    private record Network(RoadGraph graph, ContractionHierarchy hierarchy, NodeLocator locator) {
+    }
+
+    private final String osmFile;
+    private final double maxSnapKm;
+    private final int witnessSettleLimit;
+    private final int minComponentNodes;
+    private volatile Network network;
+
+    public RoadRouter(@Value("${matching.routing.osm-file:}") String osmFile,
+            @Value("${matching.routing.max-snap-m:500}") double maxSnapMeters,
+            @Value("${matching.routing.witness-settle-limit:500}") int witnessSettleLimit,
+            @Value("${matching.routing.min-component-nodes:1000}") int minComponentNodes) {
+        this.osmFile = osmFile;
+        this.maxSnapKm = maxSnapMeters / 1000.0;
+        this.witnessSettleLimit = witnessSettleLimit;
+        this.minComponentNodes = minComponentNodes;
+    }
+
+    /**
+     * Builds the road network in the background once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (osmFile == null || osmFile.isBlank()) {
+            log.info("No OSM extract configured, matching ranks candidates by straight-line detour");
+            return;
+        }
+        Path path = Path.of(osmFile);
+        if (!Files.isReadable(path)) {
+            log.info("OSM extract {} not found, matching ranks candidates by straight-line detour", path);
+            return;
+        }
+        Mono.fromCallable(() -> {
+            load(path);
+            return path;
+        })
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(loaded -> {
+                }, e -> log.error("Could not build the road network from {}", path, e));
+    }
+
+    /**
+     * Reads and contracts the extract, then makes it available to queries.
+     */
+    void load(Path path) throws IOException {
+        long start = System.nanoTime();
+        RoadGraph graph = OsmRoadNetworkReader.read(path, minComponentNodes);
+        long read = System.nanoTime();
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph, witnessSettleLimit);
+        network = new Network(graph, hierarchy, new NodeLocator(graph, LOCATOR_CELL_DEGREES));
+        log.info("Road network loaded from {}: {} nodes, {} edges, {} shortcuts (read {} ms, contracted {} ms)",
+                path, graph.nodeCount(), graph.edgeCount(), hierarchy.shortcutCount(),
+                (read - start) / 1_000_000, (System.nanoTime() - read) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return network != null;
+    }
+
+    /**
+     * Computes the road distance from every origin to every destination.
+     *
+     * @return distances in km, NaN where a point is too far from the road
+     *         network, no route exists, or the network is not loaded
+     */
+    public double[][] distanceMatrixKm(double[] fromLat, double[] fromLon, double[] toLat, double[] toLon) {
+        double[][] km = new double[fromLat.length][toLat.length];
+        Network current = network;
+        if (current == null) {
+            for (double[] row : km) {
+                Arrays.fill(row, Double.NaN);
+            }
+            return km;
+        }
+
+        double[] fromSnapKm = new double[fromLat.length];
+        double[] toSnapKm = new double[toLat.length];
+        int[] sources = snap(current, fromLat, fromLon, fromSnapKm);
+        int[] targets = snap(current, toLat, toLon, toSnapKm);
+        int[][] meters = current.hierarchy().manyToMany(sources, targets);
+
+        for (int s = 0; s < sources.length; s++) {
+            for (int t = 0; t < targets.length; t++) {
+                int m = meters[s][t];
+                km[s][t] = m == ContractionHierarchy.UNREACHABLE
+                        ? Double.NaN
+                        : m / 1000.0 + fromSnapKm[s] + toSnapKm[t];
+            }
+        }
+        return km;
+    }
+
+    private int[] snap(Network current, double[] lat, double[] lon, double[] snapKm) {
+        int[] nodes = new int[lat.length];
+        for (int i = 0; i < lat.length; i++) {
+            int node = current.locator().nearest(lat[i], lon[i], maxSnapKm);
+            nodes[i] = node;
+            if (node >= 0) {
+                snapKm[i] = DistanceEngine.haversineKm(lat[i], lon[i], current.graph().latitude[node],
+                        current.graph().longitude[node]);
+            }
+        }
+        return nodes;
+    }
+}
@@ -1,20 +1,21 @@
 package com.polytechnique.tiibntick.services.support;
 
+import com.polytechnique.tiibntick.repositories.EmailOutboxRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.MailException;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
 
 /**
  * Service for sending transactional emails via Gmail SMTP.
  *
  * <p>Provides methods for sending various notification emails related to
- * delivery person account lifecycle events. Uses Spring's JavaMailSender
- * configured with Gmail SMTP settings.
+ * delivery person account lifecycle events. Emails are written to the
+ * {@code email_outbox} table and sent by the
+ * {@link com.polytechnique.tiibntick.services.mail.EmailOutboxWorker}, which
+ * retries them until the SMTP server accepts them.
  *
  * <p>All email methods are fire-and-forget and log errors without throwing.
  *
@@ -30,13 +31,12 @@ public class EmailService {
 
     private static final Logger log = LoggerFactory.getLogger(EmailService.class);
 
-    private final JavaMailSender emailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
 
     /**
-     * Sends a simple email message synchronously.
+     * Queues a simple email message without waiting for it to be stored.
      *
      * <p>
-     * Constructs and sends an email using the configured JavaMailSender.
      * Errors are logged but not propagated to avoid breaking the main flow.
      *
      * @param to      the recipient's email address
@@ -44,25 +44,15 @@ public class EmailService {
      * @param text    the body text of the email
      */
     public void sendSimpleMessage(String to, String subject, String text) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(text);
-            message.setFrom("noreply@tiibntick.com");
-            emailSender.send(message);
-            log.info("Email sent successfully to: {}", to);
-        } catch (MailException e) {
-            log.error("Failed to send email to {}: {}", to, e.getMessage());
-        }
+        sendSimpleMessageReactive(to, subject, text).subscribe();
     }
 
     /**
-     * Sends a simple email message reactively.
+     * Queues a simple email message reactively.
      *
      * <p>
-     * Wraps the blocking email send operation in a Mono that executes
-     * on the bounded elastic scheduler to avoid blocking the event loop.
+     * Completes once the email is stored in the outbox, not once it is sent,
+     * so callers never wait on SMTP.
      *
      * @param to      the recipient's email address
      * @param subject the subject of the email
@@ -70,8 +60,33 @@ public class EmailService {
      * @return a Mono&lt;Void&gt; signaling completion
      */
     public Mono<Void> sendSimpleMessageReactive(String to, String subject, String text) {
-        return Mono.fromRunnable(() -> sendSimpleMessage(to, subject, text))
-                .subscribeOn(Schedulers.boundedElastic())
+        return emailOutboxRepository.enqueue(to, subject, text)
+                .doOnSuccess(rows -> log.info("Email queued for: {}", to))
+                .onErrorResume(e -> {
+                    log.error("Failed to queue email to {}: {}", to, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Queues the same email for several recipients with one insert.
+     *
+     * <p>
+     * Unlike the other methods, errors are propagated, so that a caller running
+     * it in a transaction rolls back with it.
+     *
+     * @param recipients the recipients' email addresses
+     * @param subject    the subject of the email
+     * @param text       the body text of the email
+     * @return a Mono&lt;Void&gt; completing once the emails are stored
+     */
+    public Mono<Void> queueAll(Collection<String> recipients, String subject, String text) {
+        if (recipients.isEmpty()) {
+            return Mono.empty();
+        }
+        return emailOutboxRepository.enqueueAll(recipients.toArray(String[]::new), subject, text)
+                .doOnSuccess(rows -> log.info("{} emails queued", rows))
                 .then();
     }
 
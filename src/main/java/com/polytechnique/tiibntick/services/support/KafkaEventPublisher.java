@@ -1,5 +1,6 @@
 package com.polytechnique.tiibntick.services.support;
 
+import com.polytechnique.tiibntick.events.CourierArrivedEvent;
 import com.polytechnique.tiibntick.events.DeliveryPersonCreatedEvent;
 import com.polytechnique.tiibntick.events.DeliveryPersonValidatedEvent;
 import com.polytechnique.tiibntick.events.MatchingNotificationEvent;
@@ -7,6 +8,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for publishing Kafka events.
@@ -25,6 +31,7 @@ public class KafkaEventPublisher {
     private static final String TOPIC_ANNOUNCEMENT_PUBLISHED = "announcement-published";
     private static final String TOPIC_SUBSCRIPTION_ATTEMPTS = "subscription-attempts";
     private static final String TOPIC_MATCHING_NOTIFICATIONS = "matching-notifications";
+    private static final String TOPIC_COURIER_ARRIVED = "courier-arrived";
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
@@ -80,4 +87,43 @@ public class KafkaEventPublisher {
                 event.getDeliveryPersonId(), event.getAnnouncementId());
         kafkaTemplate.send(TOPIC_MATCHING_NOTIFICATIONS, event.getDeliveryPersonId().toString(), event);
     }
+
+    /**
+     * Publishes MatchingNotificationEvents as one batch: every record is handed
+     * to the producer, which pipelines them, then a single flush sends what is
+     * still buffered.
+     *
+     * @param events the events to publish
+     * @return a Mono completing once every record is acknowledged
+     */
+    public Mono<Void> publishMatchingNotifications(List<MatchingNotificationEvent> events) {
+        if (events.isEmpty()) {
+            return Mono.empty();
+        }
+        // send() may block while the producer fetches metadata or its buffer is full
+        return Mono.fromCallable(() -> {
+            log.info("Publishing {} MatchingNotificationEvents for announcement: {}", events.size(),
+                    events.get(0).getAnnouncementId());
+            CompletableFuture<?>[] sends = events.stream()
+                    .map(event -> kafkaTemplate.send(TOPIC_MATCHING_NOTIFICATIONS,
+                            event.getDeliveryPersonId().toString(), event))
+                    .toArray(CompletableFuture[]::new);
+            kafkaTemplate.flush();
+            return CompletableFuture.allOf(sends);
+        })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(sent -> Mono.fromFuture(sent));
+    }
+
+    /**
+     * Publishes a CourierArrivedEvent to Kafka, keyed by announcement so the
+     * pickup and delivery arrivals of an announcement stay ordered.
+     *
+     * @param event the event to publish
+     */
+    public void publishCourierArrived(CourierArrivedEvent event) {
+        log.info("Publishing CourierArrivedEvent: deliveryPerson {} reached {} of announcement {}",
+                event.getDeliveryPersonId(), event.getStop(), event.getAnnouncementId());
+        kafkaTemplate.send(TOPIC_COURIER_ARRIVED, event.getAnnouncementId().toString(), event);
+    }
 }
@@ -0,0 +1,99 @@
+package com.polytechnique.tiibntick.services.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queue of the push notifications sent to couriers, drained in the background
+ * so that matching never waits on the push provider. Emails do not go through
+ * it: they are written to the durable email outbox with the notifications.
+ *
+ * <p>
+ * At most {@code capacity} dispatches wait in the queue; beyond that new ones
+ * are dropped and counted, the notification itself being already persisted
+ * and streamed. At most {@code concurrency} dispatches are sent at once.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Component
+public class NotificationDispatchQueue {
+
+    /**
+     * A push notification for one courier.
+     *
+     * @param deliveryPersonId push recipient
+     * @param title            push title
+     * @param message          push message
+     */
+    public record Dispatch(UUID deliveryPersonId, String title, String message) {
+    }
+
+    private final PushNotificationService pushNotificationService;
+    private final int capacity;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter dropped;
+    private final Sinks.Many<Dispatch> queue = Sinks.many().unicast().onBackpressureBuffer();
+
+    public NotificationDispatchQueue(PushNotificationService pushNotificationService, MeterRegistry meterRegistry,
+            @Value("${notifications.dispatch.capacity:10000}") int capacity,
+            @Value("${notifications.dispatch.concurrency:4}") int concurrency) {
+        this.pushNotificationService = pushNotificationService;
+        this.capacity = Math.max(1, capacity);
+        Gauge.builder("notification.dispatch.queued", queued, AtomicInteger::get)
+                .description("Push notifications waiting to be sent")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("notification.dispatch.dropped")
+                .description("Push notifications dropped because the dispatch queue was full")
+                .register(meterRegistry);
+        queue.asFlux()
+                .flatMap(dispatch -> send(dispatch).doFinally(signal -> queued.decrementAndGet()),
+                        Math.max(1, concurrency))
+                .subscribe();
+    }
+
+    /**
+     * Queues dispatches without waiting for them to be sent.
+     *
+     * @return the number of dispatches dropped because the queue was full
+     */
+    public int enqueueAll(Collection<Dispatch> dispatches) {
+        int droppedNow = 0;
+        for (Dispatch dispatch : dispatches) {
+            if (queued.incrementAndGet() > capacity) {
+                queued.decrementAndGet();
+                dropped.increment();
+                droppedNow++;
+                continue;
+            }
+            // Several matchings may enqueue at once: retry while another thread emits
+            queue.emitNext(dispatch, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        }
+        if (droppedNow > 0) {
+            log.warn("Notification dispatch queue full, dropped {} push notifications", droppedNow);
+        }
+        return droppedNow;
+    }
+
+    private Mono<Void> send(Dispatch dispatch) {
+        return pushNotificationService.sendPushNotification(dispatch.deliveryPersonId(), dispatch.title(),
+                dispatch.message())
+                .onErrorResume(e -> {
+                    log.error("Error sending push notification to {}: {}", dispatch.deliveryPersonId(),
+                            e.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
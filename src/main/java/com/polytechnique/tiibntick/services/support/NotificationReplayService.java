@@ -0,0 +1,116 @@
+package com.polytechnique.tiibntick.services.support;
+
+import com.polytechnique.tiibntick.events.MatchingNotificationEvent;
+import com.polytechnique.tiibntick.repositories.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the matching notifications a courier missed from the
+ * {@code notifications} table, for streams resumed with a
+ * {@code Last-Event-ID} that the node's recent events no longer cover.
+ *
+ * <p>
+ * Reads are bounded to the newest {@code maxEvents} notifications of the last
+ * {@code maxAge}. To keep a reconnect storm from flooding the database, at most
+ * {@code maxConcurrentQueries} reads run at once, the others wait in line, and
+ * identical reads (the same courier resuming from the same event twice) share
+ * one query. A failed read replays nothing: the stream still goes live.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Service
+public class NotificationReplayService {
+
+    private record ReplayKey(UUID deliveryPersonId, long afterEventId) {
+    }
+
+    private record ReplayQuery(ReplayKey key, Sinks.One<List<MatchingNotificationEvent>> result) {
+    }
+
+    private final NotificationRepository notificationRepository;
+    private final int maxEvents;
+    private final Duration maxAge;
+    private final Clock clock;
+    private final Map<ReplayKey, Sinks.One<List<MatchingNotificationEvent>>> inFlight = new ConcurrentHashMap<>();
+    private final Sinks.Many<ReplayQuery> queries = Sinks.many().unicast().onBackpressureBuffer();
+
+    @Autowired
+    public NotificationReplayService(NotificationRepository notificationRepository,
+            @Value("${notifications.replay.max-events:64}") int maxEvents,
+            @Value("${notifications.replay.max-age-seconds:86400}") long maxAgeSeconds,
+            @Value("${notifications.replay.max-concurrent-queries:8}") int maxConcurrentQueries) {
+        this(notificationRepository, maxEvents, Duration.ofSeconds(maxAgeSeconds), maxConcurrentQueries,
+                Clock.systemUTC());
+    }
+
+    NotificationReplayService(NotificationRepository notificationRepository, int maxEvents, Duration maxAge,
+            int maxConcurrentQueries, Clock clock) {
+        this.notificationRepository = notificationRepository;
+        this.maxEvents = Math.max(1, maxEvents);
+        this.maxAge = maxAge;
+        this.clock = clock;
+        queries.asFlux()
+                .flatMap(this::run, Math.max(1, maxConcurrentQueries))
+                .subscribe();
+    }
+
+    /**
+     * Returns the courier's notifications after an event id, oldest first.
+     */
+    public Mono<List<MatchingNotificationEvent>> missedSince(UUID deliveryPersonId, long afterEventId) {
+        ReplayKey key = new ReplayKey(deliveryPersonId, afterEventId);
+        Sinks.One<List<MatchingNotificationEvent>> result = Sinks.one();
+        Sinks.One<List<MatchingNotificationEvent>> running = inFlight.putIfAbsent(key, result);
+        if (running != null) {
+            return running.asMono();
+        }
+        // Emitted outside any map lock: a query answered synchronously removes its own entry
+        queries.emitNext(new ReplayQuery(key, result), Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        return result.asMono();
+    }
+
+    private Mono<Void> run(ReplayQuery query) {
+        ReplayKey key = query.key();
+        return notificationRepository.findNewestAnnouncementNotifications(key.deliveryPersonId(),
+                key.afterEventId(), clock.instant().minus(maxAge), maxEvents)
+                .map(notification -> MatchingNotificationEvent.builder()
+                        .deliveryPersonId(key.deliveryPersonId())
+                        .announcementId(notification.getAnnouncementId())
+                        .title(notification.getTitle())
+                        .message(notification.getMessage())
+                        .eventId(notification.getEventId())
+                        .build())
+                .collectList()
+                .map(newestFirst -> {
+                    List<MatchingNotificationEvent> oldestFirst = new ArrayList<>(newestFirst);
+                    Collections.reverse(oldestFirst);
+                    return oldestFirst;
+                })
+                .onErrorResume(e -> {
+                    log.warn("Could not read missed notifications of delivery person {}: {}",
+                            key.deliveryPersonId(), e.getMessage());
+                    return Mono.just(List.of());
+                })
+                .doOnNext(events -> {
+                    inFlight.remove(key, query.result());
+                    query.result().tryEmitValue(events);
+                })
+                .then();
+    }
+}
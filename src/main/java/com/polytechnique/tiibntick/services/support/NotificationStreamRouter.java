@@ -0,0 +1,285 @@
+package com.polytechnique.tiibntick.services.support;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polytechnique.tiibntick.events.MatchingNotificationEvent;
+import io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes notifications to the nodes holding the courier's streams, through
+ * PostgreSQL {@code LISTEN}/{@code NOTIFY}.
+ *
+ * <p>
+ * Each courier has a channel, {@code courier_<id>}. A node listens on the
+ * channel of every courier with an open stream on it, over one dedicated
+ * connection, so the database's listener registry is the directory of which
+ * node holds which courier: a notification sent on the channel reaches exactly
+ * those nodes, and a node that dies stops listening with its connection. The
+ * listening connection is opened outside the R2DBC pool, so it never holds a
+ * pool slot and is closed, with its channels, whenever it is dropped.
+ * Notifications are tagged with the sending node, which already delivered them
+ * locally and skips its own.
+ *
+ * <p>
+ * If the listening connection is lost it is reopened after
+ * {@code reconnectDelay} and every channel is listened to again; streams stay
+ * open meanwhile but only receive notifications consumed on their own node.
+ *
+ * @author TiiBnTick Team
+ * @date 18/10/2026
+ */
+@Slf4j
+@Component
+public class NotificationStreamRouter {
+
+    /** PostgreSQL rejects NOTIFY payloads of 8000 bytes or more. */
+    private static final int MAX_PAYLOAD_BYTES = 7999;
+    private static final String CHANNEL_PREFIX = "courier_";
+
+    private record RelayedNotification(UUID origin, MatchingNotificationEvent event) {
+    }
+
+    private record ChannelCommand(boolean listen, UUID deliveryPersonId) {
+    }
+
+    private static final String APPLICATION_NAME = "tiibntick-notification-router";
+
+    private final ConnectionFactory listenerConnectionFactory;
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration reconnectDelay;
+    private final UUID nodeId = UUID.randomUUID();
+
+    /** Channels this node should be listening on, replayed after a reconnect. */
+    private final Set<UUID> channels = ConcurrentHashMap.newKeySet();
+    private final Sinks.Many<ChannelCommand> commands = Sinks.many().unicast().onBackpressureBuffer();
+    private final Sinks.Many<MatchingNotificationEvent> inbound = Sinks.many().multicast().directBestEffort();
+    private volatile PostgresqlConnection listener;
+    private Disposable session;
+
+    @Autowired
+    public NotificationStreamRouter(R2dbcProperties r2dbcProperties, DatabaseClient databaseClient,
+            ObjectMapper objectMapper,
+            @Value("${notifications.cluster.enabled:true}") boolean enabled,
+            @Value("${notifications.cluster.reconnect-delay-ms:5000}") long reconnectDelayMs) {
+        this(enabled ? listenerConnectionFactory(r2dbcProperties) : null, databaseClient, objectMapper, enabled,
+                reconnectDelayMs);
+    }
+
+    NotificationStreamRouter(ConnectionFactory listenerConnectionFactory, DatabaseClient databaseClient,
+            ObjectMapper objectMapper, boolean enabled, long reconnectDelayMs) {
+        this.listenerConnectionFactory = listenerConnectionFactory;
+        this.databaseClient = databaseClient;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.reconnectDelay = Duration.ofMillis(Math.max(1, reconnectDelayMs));
+    }
+
+    /**
+     * Opens the listening connection once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Cluster notification routing disabled, streams only receive notifications consumed locally");
+            return;
+        }
+        session = Mono.usingWhen(Mono.from(listenerConnectionFactory.create()), this::listen,
+                connection -> Mono.from(connection.close()))
+                .doOnError(e -> log.warn("Notification routing connection lost: {}", e.getMessage()))
+                .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, reconnectDelay))
+                .subscribe();
+        commands.asFlux()
+                .concatMap(command -> execute(command)
+                        .onErrorResume(e -> {
+                            // The connection is being replaced, which listens on every channel again
+                            log.debug("Could not update channel of courier {}: {}", command.deliveryPersonId(),
+                                    e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (session != null) {
+            session.dispose();
+        }
+    }
+
+    /**
+     * Starts routing the courier's notifications to this node. Calls for a
+     * courier must follow its first stream opening and last stream closing.
+     */
+    public void register(UUID deliveryPersonId) {
+        channels.add(deliveryPersonId);
+        emit(new ChannelCommand(true, deliveryPersonId));
+    }
+
+    /**
+     * Stops routing the courier's notifications to this node.
+     */
+    public void unregister(UUID deliveryPersonId) {
+        channels.remove(deliveryPersonId);
+        emit(new ChannelCommand(false, deliveryPersonId));
+    }
+
+    /**
+     * Sends a notification to the other nodes holding a stream of its courier.
+     */
+    public Mono<Void> route(MatchingNotificationEvent event) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(new RelayedNotification(nodeId, event));
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            log.warn("Notification for courier {} too large to route to other nodes", event.getDeliveryPersonId());
+            return Mono.empty();
+        }
+        return databaseClient.sql("SELECT pg_notify(:channel, :payload)")
+                .bind("channel", channel(event.getDeliveryPersonId()))
+                .bind("payload", payload)
+                .then();
+    }
+
+    /**
+     * Notifications routed to this node by other nodes.
+     */
+    public Flux<MatchingNotificationEvent> inbound() {
+        return inbound.asFlux();
+    }
+
+    /**
+     * Listens on every registered channel and relays notifications until the
+     * connection fails.
+     */
+    Mono<Void> listen(Connection connection) {
+        if (!(connection instanceof PostgresqlConnection postgres)) {
+            log.warn("Notification routing needs a PostgreSQL connection, got {}", connection.getClass().getName());
+            return Mono.never();
+        }
+        // Published first, so channels registered during the replay are listened to by their own command
+        listener = postgres;
+        Mono<Void> notifications = postgres.getNotifications()
+                .doOnNext(notification -> relay(notification.getParameter()))
+                .then(Mono.error(new IllegalStateException("Notification stream ended")));
+        Mono<Void> replay = Flux.fromIterable(channels)
+                .concatMap(id -> run(postgres, "LISTEN " + quotedChannel(id)))
+                .then(Mono.fromRunnable(() -> log.info("Routing notifications of {} couriers to this node",
+                        channels.size())));
+        // Notifications are subscribed to before any LISTEN is sent
+        return Mono.when(notifications, replay)
+                .doFinally(signal -> listener = null);
+    }
+
+    void relay(String payload) {
+        try {
+            RelayedNotification relayed = objectMapper.readValue(payload, RelayedNotification.class);
+            if (!nodeId.equals(relayed.origin()) && relayed.event() != null) {
+                inbound.tryEmitNext(relayed.event());
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Dropping unreadable routed notification: {}", e.getMessage());
+        }
+    }
+
+    private Mono<Void> execute(ChannelCommand command) {
+        PostgresqlConnection current = listener;
+        if (current == null) {
+            return Mono.empty();
+        }
+        return run(current, (command.listen() ? "LISTEN " : "UNLISTEN ") + quotedChannel(command.deliveryPersonId()));
+    }
+
+    private static Mono<Void> run(PostgresqlConnection connection, String sql) {
+        return connection.createStatement(sql).execute()
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .then();
+    }
+
+    private void emit(ChannelCommand command) {
+        if (!enabled) {
+            return;
+        }
+        // Several streams may open or close at once: retry until this thread wins the sink
+        commands.emitNext(command, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+    }
+
+    /**
+     * Builds an unpooled factory for the listening connection from the
+     * {@code spring.r2dbc.*} settings.
+     */
+    static ConnectionFactory listenerConnectionFactory(R2dbcProperties properties) {
+        return new PostgresqlConnectionFactoryProvider().create(listenerConnectionOptions(properties));
+    }
+
+    /**
+     * Options of the main connection factory, with the pool left out: every
+     * option of the URL (SSL mode, timeouts, ...) and of
+     * {@code spring.r2dbc.properties} is kept, and the credentials are
+     * overridden by {@code spring.r2dbc.username} and {@code password} when set,
+     * as Spring Boot does for the main factory.
+     */
+    static ConnectionFactoryOptions listenerConnectionOptions(R2dbcProperties properties) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(properties.getUrl());
+        ConnectionFactoryOptions.Builder builder = options.mutate();
+        if ("pool".equals(options.getValue(ConnectionFactoryOptions.DRIVER))) {
+            // r2dbc:pool:postgresql://... - unwrap the driver the same way r2dbc-pool does
+            String[] protocol = options.getRequiredValue(ConnectionFactoryOptions.PROTOCOL).toString().split(":", 2);
+            builder.option(ConnectionFactoryOptions.DRIVER, protocol[0])
+                    .option(ConnectionFactoryOptions.PROTOCOL, protocol.length == 2 ? protocol[1] : "");
+        }
+        if (properties.getUsername() != null) {
+            builder.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        }
+        if (properties.getPassword() != null) {
+            builder.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        }
+        properties.getProperties().forEach((key, value) -> builder.option(Option.valueOf(key), value));
+        return builder.option(PostgresqlConnectionFactoryProvider.APPLICATION_NAME, APPLICATION_NAME).build();
+    }
+
+    static String channel(UUID deliveryPersonId) {
+        return CHANNEL_PREFIX + deliveryPersonId;
+    }
+
+    /**
+     * Channel as a quoted identifier. UUIDs only hold hex digits and dashes, so
+     * nothing needs escaping.
+     */
+    private static String quotedChannel(UUID deliveryPersonId) {
+        return "\"" + channel(deliveryPersonId) + "\"";
+    }
+}
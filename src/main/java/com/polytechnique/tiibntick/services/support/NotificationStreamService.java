@@ -1,49 +1,411 @@
 package com.polytechnique.tiibntick.services.support;
 
 import com.polytechnique.tiibntick.events.MatchingNotificationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service to manage real-time notification streams for delivery persons.
- * Uses Sinks.Many to multicast events to connected clients.
+ *
+ * <p>
+ * Every subscription is a connection registered under its delivery person, and
+ * a courier may hold several (SSE, gateway, other devices). Each connection
+ * buffers at most {@code bufferSize} events while its client is slow; once the
+ * buffer is full the oldest event is dropped. A connection is removed from the
+ * registry as soon as its client cancels, disconnects or fails, so the memory
+ * held by the registry follows the open connections only.
+ *
+ * <p>
+ * A notification is consumed from Kafka by a single node, which may not hold
+ * the courier's streams: it is delivered locally and handed to the
+ * {@link NotificationStreamRouter}, which forwards it to the other nodes where
+ * the courier has a stream open.
+ *
+ * <p>
+ * Streams can be resumed from the id of the last event received. The node
+ * keeps the last {@code ringSize} events of each courier it streams to, and
+ * keeps receiving the courier's events for {@code linger} after its last
+ * stream closed. A courier coming back within that time to the same node is
+ * replayed from memory; otherwise the missed events are read by the
+ * {@link NotificationReplayService}. Live events arriving meanwhile wait behind
+ * the replay and are never sent twice.
  */
 @Service
 @Slf4j
 public class NotificationStreamService {
 
-    private final Map<UUID, Sinks.Many<MatchingNotificationEvent>> userSinks = new ConcurrentHashMap<>();
+    private final Map<UUID, CourierStreams> couriers = new ConcurrentHashMap<>();
+    private final NotificationStreamRouter notificationStreamRouter;
+    private final NotificationReplayService notificationReplayService;
+    private final int bufferSize;
+    private final int ringSize;
+    private final Duration heartbeatInterval;
+    private final Duration linger;
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final AtomicLong bufferedEvents = new AtomicLong();
+    private final Counter droppedEvents;
+    private final Counter replayedFromMemory;
+    private final Counter replayedFromDatabase;
+
+    public NotificationStreamService(MeterRegistry meterRegistry, NotificationStreamRouter notificationStreamRouter,
+            NotificationReplayService notificationReplayService,
+            @Value("${notifications.stream.buffer-size:64}") int bufferSize,
+            @Value("${notifications.stream.heartbeat-interval-ms:15000}") long heartbeatIntervalMs,
+            @Value("${notifications.replay.ring-size:32}") int ringSize,
+            @Value("${notifications.replay.linger-ms:120000}") long lingerMs) {
+        this.notificationStreamRouter = notificationStreamRouter;
+        this.notificationReplayService = notificationReplayService;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.ringSize = Math.max(1, ringSize);
+        this.heartbeatInterval = Duration.ofMillis(Math.max(1, heartbeatIntervalMs));
+        this.linger = Duration.ofMillis(Math.max(0, lingerMs));
+        Gauge.builder("notification.streams.open", openStreams, AtomicInteger::get)
+                .description("Open notification stream connections on this node")
+                .register(meterRegistry);
+        Gauge.builder("notification.streams.buffered", bufferedEvents, AtomicLong::get)
+                .description("Notifications waiting for slow stream clients")
+                .register(meterRegistry);
+        this.droppedEvents = Counter.builder("notification.streams.dropped")
+                .description("Notifications dropped because a stream client's buffer was full")
+                .register(meterRegistry);
+        this.replayedFromMemory = Counter.builder("notification.streams.resumed")
+                .description("Streams resumed after a Last-Event-ID")
+                .tag("source", "memory")
+                .register(meterRegistry);
+        this.replayedFromDatabase = Counter.builder("notification.streams.resumed")
+                .description("Streams resumed after a Last-Event-ID")
+                .tag("source", "database")
+                .register(meterRegistry);
+    }
 
     /**
-     * Retrieves or creates a stream for a specific delivery person.
+     * Delivers the notifications other nodes route to this one.
+     */
+    @PostConstruct
+    public void subscribeToRoutedNotifications() {
+        notificationStreamRouter.inbound().subscribe(this::deliverLocally);
+    }
+
+    /**
+     * Opens a stream for a specific delivery person.
      *
      * @param deliveryPersonId The ID of the delivery person.
-     * @return A Flux of MatchingNotificationEvents.
+     * @return A Flux of MatchingNotificationEvents, unregistered on cancel.
      */
     public Flux<MatchingNotificationEvent> getNotificationStream(UUID deliveryPersonId) {
-        log.info("Client connected to notification stream: {}", deliveryPersonId);
-        return userSinks.computeIfAbsent(deliveryPersonId, id -> Sinks.many().multicast().onBackpressureBuffer())
-                .asFlux();
+        return getNotificationStream(deliveryPersonId, null);
+    }
+
+    /**
+     * Opens a stream for a specific delivery person, first replaying the
+     * events after {@code lastEventId}.
+     *
+     * @param deliveryPersonId The ID of the delivery person.
+     * @param lastEventId      The id of the last event received, or null.
+     * @return A Flux of MatchingNotificationEvents, unregistered on cancel.
+     */
+    public Flux<MatchingNotificationEvent> getNotificationStream(UUID deliveryPersonId, Long lastEventId) {
+        return Flux.create(sink -> {
+            Connection connection = new Connection(sink, lastEventId != null);
+            // Registered with the router under the map lock, so first-open and last-close calls stay ordered
+            CourierStreams streams = couriers.compute(deliveryPersonId, (id, existing) -> {
+                CourierStreams courier = existing != null ? existing : new CourierStreams();
+                if (existing == null) {
+                    notificationStreamRouter.register(id);
+                }
+                courier.cancelLinger();
+                courier.open.add(connection);
+                return courier;
+            });
+            openStreams.incrementAndGet();
+            log.info("Client connected to notification stream: {}", deliveryPersonId);
+
+            // Read after registering, so an event is either in the replay or in the live buffer
+            Disposable replay = lastEventId == null ? null : missedSince(deliveryPersonId, streams, lastEventId)
+                    .subscribe(connection::resume, e -> connection.resume(List.of()));
+
+            sink.onRequest(n -> connection.drain());
+            sink.onDispose(() -> {
+                if (replay != null) {
+                    replay.dispose();
+                }
+                close(deliveryPersonId, connection);
+                log.info("Client disconnected from notification stream: {}", deliveryPersonId);
+            });
+        });
     }
 
     /**
-     * Pushes a notification to the delivery person's stream if they are connected.
+     * Opens a stream for SSE clients. Each event carries its event id, and a
+     * comment line is sent every {@code heartbeatInterval} so idle connections
+     * stay open through proxies and dead ones are detected by the failed write.
+     *
+     * @param deliveryPersonId The ID of the delivery person.
+     * @param lastEventId      The Last-Event-ID sent by a reconnecting client, or null.
+     * @return A Flux of server-sent events.
+     */
+    public Flux<ServerSentEvent<MatchingNotificationEvent>> getServerSentEventStream(UUID deliveryPersonId,
+            Long lastEventId) {
+        return Flux.merge(
+                getNotificationStream(deliveryPersonId, lastEventId)
+                        .map(event -> ServerSentEvent.builder(event)
+                                .id(event.getEventId() != null ? event.getEventId().toString() : null)
+                                .build()),
+                Flux.interval(heartbeatInterval)
+                        .map(tick -> ServerSentEvent.<MatchingNotificationEvent>builder().comment("heartbeat").build()));
+    }
+
+    /**
+     * Pushes a notification to every open stream of the delivery person, on
+     * this node and on the others.
      *
      * @param event The notification event.
      */
     public void pushNotification(MatchingNotificationEvent event) {
-        Sinks.Many<MatchingNotificationEvent> sink = userSinks.get(event.getDeliveryPersonId());
-        if (sink != null) {
-            log.info("Pushing real-time notification to client: {}", event.getDeliveryPersonId());
-            sink.emitNext(event, Sinks.EmitFailureHandler.FAIL_FAST);
-        } else {
-            log.debug("No active stream for delivery person: {}", event.getDeliveryPersonId());
+        deliverLocally(event);
+        notificationStreamRouter.route(event)
+                .subscribe(null, e -> log.warn("Could not route notification for delivery person {}: {}",
+                        event.getDeliveryPersonId(), e.getMessage()));
+    }
+
+    private void deliverLocally(MatchingNotificationEvent event) {
+        CourierStreams streams = couriers.get(event.getDeliveryPersonId());
+        if (streams == null) {
+            log.debug("No active stream on this node for delivery person: {}", event.getDeliveryPersonId());
+            return;
+        }
+        if (event.getEventId() != null) {
+            streams.recent.add(event);
+        }
+        if (streams.open.isEmpty()) {
+            log.debug("Keeping notification for reconnecting delivery person: {}", event.getDeliveryPersonId());
+            return;
+        }
+        log.info("Pushing real-time notification to client: {}", event.getDeliveryPersonId());
+        for (Connection connection : streams.open) {
+            connection.offer(event);
+        }
+    }
+
+    private Mono<List<MatchingNotificationEvent>> missedSince(UUID deliveryPersonId, CourierStreams streams,
+            long lastEventId) {
+        List<MatchingNotificationEvent> fromMemory = streams.recent.after(lastEventId);
+        if (fromMemory != null) {
+            replayedFromMemory.increment();
+            return Mono.just(fromMemory);
+        }
+        replayedFromDatabase.increment();
+        return notificationReplayService.missedSince(deliveryPersonId, lastEventId);
+    }
+
+    private void close(UUID deliveryPersonId, Connection connection) {
+        couriers.computeIfPresent(deliveryPersonId, (id, streams) -> {
+            streams.open.remove(connection);
+            if (!streams.open.isEmpty()) {
+                return streams;
+            }
+            if (linger.isZero()) {
+                notificationStreamRouter.unregister(id);
+                return null;
+            }
+            streams.startLinger(id);
+            return streams;
+        });
+        openStreams.decrementAndGet();
+        connection.clear();
+    }
+
+    /**
+     * Forgets a courier whose streams stayed closed for the whole linger.
+     */
+    private void expire(UUID deliveryPersonId, CourierStreams expected, long generation) {
+        couriers.computeIfPresent(deliveryPersonId, (id, streams) -> {
+            if (streams != expected || streams.lingerGeneration != generation || !streams.open.isEmpty()) {
+                return streams;
+            }
+            notificationStreamRouter.unregister(id);
+            return null;
+        });
+    }
+
+    /**
+     * The streams of one courier on this node and its recent events. Mutated
+     * under the courier's map entry lock, except the thread-safe members.
+     */
+    private final class CourierStreams {
+
+        final Set<Connection> open = ConcurrentHashMap.newKeySet();
+        final RecentEvents recent = new RecentEvents(ringSize);
+        private Disposable lingerTimer;
+        private long lingerGeneration;
+
+        void startLinger(UUID deliveryPersonId) {
+            long generation = ++lingerGeneration;
+            lingerTimer = Mono.delay(linger).subscribe(tick -> expire(deliveryPersonId, this, generation));
+        }
+
+        void cancelLinger() {
+            lingerGeneration++;
+            if (lingerTimer != null) {
+                lingerTimer.dispose();
+                lingerTimer = null;
+            }
+        }
+    }
+
+    /**
+     * Ring of the last events of a courier, in arrival order.
+     */
+    private static final class RecentEvents {
+
+        private final MatchingNotificationEvent[] events;
+        private int next;
+        private int size;
+
+        RecentEvents(int capacity) {
+            this.events = new MatchingNotificationEvent[capacity];
+        }
+
+        synchronized void add(MatchingNotificationEvent event) {
+            events[next] = event;
+            next = (next + 1) % events.length;
+            size = Math.min(size + 1, events.length);
+        }
+
+        /**
+         * Returns the events after the given one, or null if it is no longer
+         * (or was never) in the ring.
+         */
+        synchronized List<MatchingNotificationEvent> after(long eventId) {
+            List<MatchingNotificationEvent> after = new ArrayList<>();
+            boolean found = false;
+            for (int i = 0; i < size; i++) {
+                MatchingNotificationEvent event = events[(next - size + i + events.length) % events.length];
+                if (found) {
+                    after.add(event);
+                } else if (event.getEventId() == eventId) {
+                    found = true;
+                }
+            }
+            return found ? after : null;
+        }
+    }
+
+    /**
+     * One subscriber, with its bounded buffer. Events are handed to the sink
+     * only against downstream demand, by a single draining thread at a time.
+     */
+    private final class Connection {
+
+        private final FluxSink<MatchingNotificationEvent> sink;
+        private final ArrayDeque<MatchingNotificationEvent> buffer = new ArrayDeque<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        /** Set while a replay is being read; live events wait in the buffer. */
+        private volatile boolean holding;
+        /** Replayed event ids, skipped if they also arrive live. Guarded by the buffer. */
+        private Set<Long> replayedIds = Set.of();
+        /** Set once the connection is unregistered; guarded by the buffer. */
+        private boolean closed;
+
+        Connection(FluxSink<MatchingNotificationEvent> sink, boolean holding) {
+            this.sink = sink;
+            this.holding = holding;
+        }
+
+        void offer(MatchingNotificationEvent event) {
+            synchronized (buffer) {
+                if (closed || (event.getEventId() != null && replayedIds.contains(event.getEventId()))) {
+                    return;
+                }
+                if (buffer.size() == bufferSize) {
+                    buffer.pollFirst();
+                    droppedEvents.increment();
+                } else {
+                    bufferedEvents.incrementAndGet();
+                }
+                buffer.addLast(event);
+            }
+            drain();
+        }
+
+        /**
+         * Puts the replayed events ahead of the live ones received meanwhile,
+         * then starts sending.
+         */
+        void resume(List<MatchingNotificationEvent> missed) {
+            synchronized (buffer) {
+                if (closed) {
+                    return;
+                }
+                Set<Long> ids = new HashSet<>();
+                for (MatchingNotificationEvent event : missed) {
+                    ids.add(event.getEventId());
+                }
+                int before = buffer.size();
+                buffer.removeIf(event -> event.getEventId() != null && ids.contains(event.getEventId()));
+                for (int i = missed.size() - 1; i >= 0; i--) {
+                    buffer.addFirst(missed.get(i));
+                }
+                while (buffer.size() > bufferSize) {
+                    buffer.pollFirst();
+                    droppedEvents.increment();
+                }
+                bufferedEvents.addAndGet(buffer.size() - before);
+                replayedIds = ids;
+                holding = false;
+            }
+            drain();
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (!holding && sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                    MatchingNotificationEvent next;
+                    synchronized (buffer) {
+                        next = buffer.pollFirst();
+                    }
+                    if (next == null) {
+                        break;
+                    }
+                    bufferedEvents.decrementAndGet();
+                    sink.next(next);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        void clear() {
+            synchronized (buffer) {
+                closed = true;
+                bufferedEvents.addAndGet(-buffer.size());
+                buffer.clear();
+            }
         }
     }
 }
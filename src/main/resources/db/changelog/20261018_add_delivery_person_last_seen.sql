@@ -0,0 +1,3 @@
+-- Time of the last GPS ping written for a delivery person. Couriers silent for longer
+-- than presence.ttl-seconds are left out of matching.
+ALTER TABLE delivery_persons ADD COLUMN IF NOT EXISTS last_seen_at TIMESTAMP;
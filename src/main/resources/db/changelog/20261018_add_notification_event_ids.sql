@@ -0,0 +1,7 @@
+-- Resumable notification streams: ordered event ids and the announcement of each notification
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS announcement_id UUID;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW();
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS event_id BIGINT GENERATED BY DEFAULT AS IDENTITY;
+
+-- Replay reads: one person's notifications after a given event id
+CREATE INDEX IF NOT EXISTS idx_notifications_person_event ON notifications (person_id, event_id);
@@ -0,0 +1,10 @@
+-- Stops already reached for each accepted subscription, so an arrival is published once
+-- whichever node sees it and survives restarts
+CREATE TABLE IF NOT EXISTS geofence_arrivals (
+    subscription_id UUID NOT NULL,
+    stop VARCHAR(16) NOT NULL,
+    arrived_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+
+    PRIMARY KEY (subscription_id, stop),
+    CONSTRAINT fk_geofence_arrivals_subscription FOREIGN KEY (subscription_id) REFERENCES announcement_subscriptions(id) ON DELETE CASCADE
+);
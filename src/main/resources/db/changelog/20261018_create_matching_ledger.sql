@@ -0,0 +1,10 @@
+-- Delivery persons already notified for each announcement, so redelivered or re-matched
+-- announcements only notify couriers that newly entered the matching ellipse
+CREATE TABLE IF NOT EXISTS matching_ledger (
+    announcement_id UUID NOT NULL,
+    delivery_person_id UUID NOT NULL,
+    notified_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+
+    PRIMARY KEY (announcement_id, delivery_person_id),
+    CONSTRAINT fk_matching_ledger_announcement FOREIGN KEY (announcement_id) REFERENCES announcements(id) ON DELETE CASCADE
+);
@@ -0,0 +1,12 @@
+-- Durable re-matching schedule for announcements that found no eligible delivery person
+CREATE TABLE IF NOT EXISTS matching_retries (
+    announcement_id UUID PRIMARY KEY,
+    attempts INTEGER NOT NULL DEFAULT 1,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+
+    CONSTRAINT fk_matching_retry_announcement FOREIGN KEY (announcement_id) REFERENCES announcements(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_matching_retries_next_attempt_at ON matching_retries (next_attempt_at);
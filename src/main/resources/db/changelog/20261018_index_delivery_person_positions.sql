@@ -0,0 +1,5 @@
+-- Spatial index on active delivery person positions, used by the SQL matching fallback
+-- to fetch only the couriers inside an ellipse's bounding box.
+CREATE INDEX IF NOT EXISTS idx_delivery_persons_active_position
+    ON delivery_persons USING GIST (point(longitude_gps, latitude_gps))
+    WHERE is_active = TRUE AND latitude_gps IS NOT NULL AND longitude_gps IS NOT NULL;
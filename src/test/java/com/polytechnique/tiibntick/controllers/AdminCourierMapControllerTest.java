@@ -0,0 +1,75 @@
+package com.polytechnique.tiibntick.controllers;
+
+import com.polytechnique.tiibntick.dtos.admin.CourierDensityDTO;
+import com.polytechnique.tiibntick.services.location.CourierDensityGrid;
+import com.polytechnique.tiibntick.services.map.CourierTileService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.CacheControl;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
+
+@WebFluxTest(controllers = AdminCourierMapController.class)
+class AdminCourierMapControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private CourierDensityGrid courierDensityGrid;
+
+    @MockBean
+    private CourierTileService courierTileService;
+
+    @Test
+    @WithMockUser
+    void getDensity_ShouldReturnCellTriplets() {
+        when(courierDensityGrid.snapshot(12, 3.8, 11.4, 3.9, 11.6)).thenReturn(
+                new CourierDensityDTO(CourierDensityDTO.Type.SNAPSHOT, 12, new int[] { 2179, 2004, 3 }));
+
+        webTestClient.mutateWith(csrf())
+                .get().uri("/api/admin/couriers/density?zoom=12&minLat=3.8&minLon=11.4&maxLat=3.9&maxLon=11.6")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.type").isEqualTo("SNAPSHOT")
+                .jsonPath("$.zoom").isEqualTo(12)
+                .jsonPath("$.cells.length()").isEqualTo(3)
+                .jsonPath("$.cells[2]").isEqualTo(3);
+    }
+
+    @Test
+    @WithMockUser
+    void getTile_ShouldReturnVectorTile() {
+        byte[] tile = { 0x1A, 0x00 };
+        when(courierTileService.tile(12, 2179, 2003)).thenReturn(tile);
+        when(courierTileService.cacheTtl()).thenReturn(Duration.ofSeconds(2));
+
+        webTestClient.mutateWith(csrf())
+                .get().uri("/api/admin/tiles/12/2179/2003")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/vnd.mapbox-vector-tile")
+                .expectHeader().cacheControl(CacheControl.maxAge(Duration.ofSeconds(2)).cachePrivate())
+                .expectBody(byte[].class).isEqualTo(tile);
+    }
+
+    @Test
+    @WithMockUser
+    void getTile_OutsideTheZoomGrid_ShouldReturnBadRequest() {
+        webTestClient.mutateWith(csrf())
+                .get().uri("/api/admin/tiles/2/4/0")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(courierTileService);
+    }
+}
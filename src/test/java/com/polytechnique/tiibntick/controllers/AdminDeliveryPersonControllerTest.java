@@ -3,17 +3,22 @@ package com.polytechnique.tiibntick.controllers;
 import com.polytechnique.tiibntick.dtos.requests.AdminDeliveryPersonValidationRequest;
 import com.polytechnique.tiibntick.dtos.responses.DeliveryPersonDetailsResponse;
 import com.polytechnique.tiibntick.services.AdminDeliveryPersonService;
+import com.polytechnique.tiibntick.services.location.CourierTrackPoint;
+import com.polytechnique.tiibntick.services.location.CourierTrackStore;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
 
@@ -26,6 +31,9 @@ class AdminDeliveryPersonControllerTest {
     @MockBean
     private AdminDeliveryPersonService adminService;
 
+    @MockBean
+    private CourierTrackStore courierTrackStore;
+
     @Test
     @WithMockUser
     void validateRegistration_Success() {
@@ -83,4 +91,22 @@ class AdminDeliveryPersonControllerTest {
                 .exchange()
                 .expectStatus().isOk();
     }
+
+    @Test
+    @WithMockUser
+    void getTrack_ShouldReplayWindow() {
+        UUID id = UUID.randomUUID();
+        Instant from = Instant.parse("2026-10-18T08:00:00Z");
+        Instant to = Instant.parse("2026-10-18T09:00:00Z");
+
+        when(courierTrackStore.replay(eq(id), eq(from), eq(to)))
+                .thenReturn(Flux.just(new CourierTrackPoint(id, from.plusSeconds(60), 3.86, 11.5)));
+
+        webTestClient.get()
+                .uri("/api/admin/delivery-persons/{id}/track?from={from}&to={to}", id, from, to)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].latitude").isEqualTo(3.86);
+    }
 }
@@ -0,0 +1,119 @@
+package com.polytechnique.tiibntick.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polytechnique.tiibntick.dtos.gateway.CourierGatewayFrame;
+import com.polytechnique.tiibntick.dtos.responses.LocationUpdateResponse;
+import com.polytechnique.tiibntick.security.JwtUtil;
+import com.polytechnique.tiibntick.services.AnnouncementService;
+import com.polytechnique.tiibntick.services.DeliveryPersonLocationService;
+import com.polytechnique.tiibntick.services.support.NotificationStreamService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.HandshakeInfo;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CourierGatewayHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+class CourierGatewayHandlerTest {
+
+    @Mock
+    private JwtUtil jwtUtil;
+    @Mock
+    private DeliveryPersonLocationService deliveryPersonLocationService;
+    @Mock
+    private AnnouncementService announcementService;
+    @Mock
+    private NotificationStreamService notificationStreamService;
+
+    private CourierGatewayHandler handler;
+    private final UUID deliveryPersonId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        handler = new CourierGatewayHandler(new ObjectMapper(), jwtUtil, deliveryPersonLocationService,
+                announcementService, notificationStreamService, 20000, 60000, 16);
+    }
+
+    @Test
+    void handleFrame_Location_ShouldAcknowledgeWithNextPingDelay() {
+        when(deliveryPersonLocationService.updateLocation(deliveryPersonId, 3.87, 11.52))
+                .thenReturn(Mono.just(new LocationUpdateResponse(true, 30)));
+
+        StepVerifier.create(handler.handleFrame(deliveryPersonId,
+                "{\"type\":\"LOCATION\",\"requestId\":\"r0\",\"latitude\":3.87,\"longitude\":11.52}"))
+                .assertNext(frame -> {
+                    assertEquals(CourierGatewayFrame.Type.LOCATION_ACK, frame.getType());
+                    assertEquals("r0", frame.getRequestId());
+                    assertEquals(30, frame.getNextPingSeconds());
+                })
+                .verifyComplete();
+
+        verify(deliveryPersonLocationService).updateLocation(deliveryPersonId, 3.87, 11.52);
+    }
+
+    @Test
+    void handleFrame_LocationOutOfRange_ShouldReplyWithError() {
+        StepVerifier.create(handler.handleFrame(deliveryPersonId,
+                "{\"type\":\"LOCATION\",\"requestId\":\"r1\",\"latitude\":120.0,\"longitude\":11.52}"))
+                .assertNext(frame -> {
+                    assertEquals(CourierGatewayFrame.Type.ERROR, frame.getType());
+                    assertEquals("r1", frame.getRequestId());
+                })
+                .verifyComplete();
+
+        verify(deliveryPersonLocationService, never()).updateLocation(any(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void handleFrame_Subscribe_ShouldAcknowledgeForSessionCourier() {
+        UUID announcementId = UUID.randomUUID();
+        when(announcementService.initiateSubscription(announcementId, deliveryPersonId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(handler.handleFrame(deliveryPersonId,
+                "{\"type\":\"SUBSCRIBE\",\"requestId\":\"r2\",\"announcementId\":\"" + announcementId + "\"}"))
+                .assertNext(frame -> {
+                    assertEquals(CourierGatewayFrame.Type.SUBSCRIPTION_ACK, frame.getType());
+                    assertEquals("r2", frame.getRequestId());
+                    assertEquals(announcementId, frame.getAnnouncementId());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void handleFrame_UnreadablePayload_ShouldReplyWithError() {
+        StepVerifier.create(handler.handleFrame(deliveryPersonId, "not json"))
+                .assertNext(frame -> assertEquals(CourierGatewayFrame.Type.ERROR, frame.getType()))
+                .verifyComplete();
+    }
+
+    @Test
+    void handle_WithoutDeliveryPersonToken_ShouldCloseSession() {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getHandshakeInfo()).thenReturn(new HandshakeInfo(
+                URI.create("ws://localhost/ws/couriers"), new HttpHeaders(), Mono.empty(), null));
+        when(session.getId()).thenReturn("s1");
+        when(session.close(CloseStatus.POLICY_VIOLATION)).thenReturn(Mono.empty());
+
+        StepVerifier.create(handler.handle(session)).verifyComplete();
+
+        verify(session).close(CloseStatus.POLICY_VIOLATION);
+        verifyNoInteractions(notificationStreamService);
+    }
+}
@@ -1,6 +1,7 @@
 package com.polytechnique.tiibntick.controllers;
 
 import com.polytechnique.tiibntick.dtos.requests.DeliveryPersonLocationUpdateRequest;
+import com.polytechnique.tiibntick.dtos.responses.LocationUpdateResponse;
 import com.polytechnique.tiibntick.services.DeliveryPersonLocationService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,12 +35,15 @@ class DeliveryPersonLocationControllerTest {
         request.setLongitude(2.3522);
 
         when(locationService.updateLocation(eq(id), eq(48.8566), eq(2.3522)))
-                .thenReturn(Mono.empty());
+                .thenReturn(Mono.just(new LocationUpdateResponse(true, 30)));
 
         webTestClient.mutateWith(csrf())
                 .patch().uri("/api/delivery-persons/{id}/location", id)
                 .bodyValue(request)
                 .exchange()
-                .expectStatus().isOk();
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accepted").isEqualTo(true)
+                .jsonPath("$.nextPingSeconds").isEqualTo(30);
     }
 }
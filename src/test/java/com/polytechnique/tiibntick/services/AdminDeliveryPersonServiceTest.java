@@ -5,7 +5,9 @@ import com.polytechnique.tiibntick.models.DeliveryPerson;
 import com.polytechnique.tiibntick.models.Person;
 import com.polytechnique.tiibntick.models.enums.deliveryPerson.DeliveryPersonStatus;
 import com.polytechnique.tiibntick.services.deliveryperson.LectureDeliveryPersonService;
+import com.polytechnique.tiibntick.services.deliveryperson.DeliveryPersonSearchIndexer;
 import com.polytechnique.tiibntick.services.deliveryperson.ModificationDeliveryPersonService;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
 import com.polytechnique.tiibntick.services.person.LecturePersonService;
 import com.polytechnique.tiibntick.services.support.EmailService;
 import com.polytechnique.tiibntick.services.support.KafkaEventPublisher;
@@ -46,6 +48,10 @@ class AdminDeliveryPersonServiceTest {
     private EmailService emailService;
     @Mock
     private KafkaEventPublisher kafkaEventPublisher;
+    @Mock
+    private CourierSpatialIndex courierSpatialIndex;
+    @Mock
+    private DeliveryPersonSearchIndexer deliveryPersonSearchIndexer;
 
     @InjectMocks
     private AdminDeliveryPersonService service;
@@ -69,6 +75,7 @@ class AdminDeliveryPersonServiceTest {
 
         when(lectureDeliveryPersonService.findById(dpId)).thenReturn(Mono.just(dp));
         when(modificationDeliveryPersonService.updateDeliveryPerson(any(DeliveryPerson.class))).thenReturn(Mono.just(dp));
+        when(deliveryPersonSearchIndexer.reindex(any(DeliveryPerson.class))).thenReturn(Mono.empty());
         when(lecturePersonService.findById(personId)).thenReturn(Mono.just(person));
 
         // Act & Assert
@@ -99,6 +106,7 @@ class AdminDeliveryPersonServiceTest {
 
         when(lectureDeliveryPersonService.findById(dpId)).thenReturn(Mono.just(dp));
         when(modificationDeliveryPersonService.updateDeliveryPerson(any(DeliveryPerson.class))).thenReturn(Mono.just(dp));
+        when(deliveryPersonSearchIndexer.reindex(any(DeliveryPerson.class))).thenReturn(Mono.empty());
         when(lecturePersonService.findById(personId)).thenReturn(Mono.just(person));
 
         // Act & Assert
@@ -125,6 +133,7 @@ class AdminDeliveryPersonServiceTest {
 
         when(lectureDeliveryPersonService.findById(dpId)).thenReturn(Mono.just(dp));
         when(modificationDeliveryPersonService.updateDeliveryPerson(any(DeliveryPerson.class))).thenReturn(Mono.just(dp));
+        when(deliveryPersonSearchIndexer.reindex(any(DeliveryPerson.class))).thenReturn(Mono.empty());
         when(lecturePersonService.findById(personId)).thenReturn(Mono.just(person));
 
         // Act & Assert
@@ -133,6 +142,7 @@ class AdminDeliveryPersonServiceTest {
 
         verify(modificationDeliveryPersonService).updateDeliveryPerson(argThat(d -> d.getStatus() == DeliveryPersonStatus.SUSPENDED));
         verify(emailService).sendAccountSuspended("test@example.com");
+        verify(courierSpatialIndex).evict(dpId);
     }
 
     @Test
@@ -151,6 +161,7 @@ class AdminDeliveryPersonServiceTest {
 
         when(lectureDeliveryPersonService.findById(dpId)).thenReturn(Mono.just(dp));
         when(modificationDeliveryPersonService.updateDeliveryPerson(any(DeliveryPerson.class))).thenReturn(Mono.just(dp));
+        when(deliveryPersonSearchIndexer.reindex(any(DeliveryPerson.class))).thenReturn(Mono.empty());
         when(lecturePersonService.findById(personId)).thenReturn(Mono.just(person));
 
         // Act & Assert
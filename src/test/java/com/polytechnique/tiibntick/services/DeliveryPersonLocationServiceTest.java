@@ -0,0 +1,156 @@
+package com.polytechnique.tiibntick.services;
+
+import com.polytechnique.tiibntick.models.DeliveryPerson;
+import com.polytechnique.tiibntick.repositories.DeliveryPersonRepository;
+import com.polytechnique.tiibntick.services.deliveryperson.DeliveryPersonSearchIndexer;
+import com.polytechnique.tiibntick.services.location.CourierLocationBuffer;
+import com.polytechnique.tiibntick.services.location.CourierPresenceService;
+import com.polytechnique.tiibntick.services.location.CourierTrackStore;
+import com.polytechnique.tiibntick.services.location.GeofenceEngine;
+import com.polytechnique.tiibntick.services.location.LocationDeadBand;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DeliveryPersonLocationService.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeliveryPersonLocationServiceTest {
+
+    @Mock
+    private DeliveryPersonRepository deliveryPersonRepository;
+    @Mock
+    private DeliveryPersonSearchIndexer deliveryPersonSearchIndexer;
+    @Mock
+    private CourierSpatialIndex courierSpatialIndex;
+    @Mock
+    private CourierTrackStore courierTrackStore;
+    @Mock
+    private GeofenceEngine geofenceEngine;
+    @Mock
+    private CourierPresenceService courierPresenceService;
+    @Mock
+    private LocationDeadBand locationDeadBand;
+
+    private CourierLocationBuffer buffer;
+    private DeliveryPersonLocationService service;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new CourierLocationBuffer(new SimpleMeterRegistry());
+        service = new DeliveryPersonLocationService(deliveryPersonRepository, deliveryPersonSearchIndexer,
+                courierSpatialIndex, buffer, courierTrackStore,
+                geofenceEngine, courierPresenceService, locationDeadBand);
+    }
+
+    private void acceptPings() {
+        when(locationDeadBand.evaluate(any(), anyDouble(), anyDouble(), anyBoolean()))
+                .thenReturn(new LocationDeadBand.Decision(true, 20));
+    }
+
+    @Test
+    void updateLocation_ShouldOnlyBufferThePing() {
+        UUID id = UUID.randomUUID();
+        acceptPings();
+
+        StepVerifier.create(service.updateLocation(id, 3.86, 11.50))
+                .assertNext(response -> {
+                    assertTrue(response.isAccepted());
+                    assertEquals(20, response.getNextPingSeconds());
+                })
+                .verifyComplete();
+
+        assertEquals(1, buffer.size());
+        verify(courierTrackStore).append(id, 3.86, 11.50);
+        verify(geofenceEngine).evaluate(id, 3.86, 11.50);
+        verify(courierPresenceService).recordPing(id);
+        verifyNoInteractions(deliveryPersonRepository);
+    }
+
+    @Test
+    void updateLocation_InsideDeadBand_ShouldSkipTheBufferButNotTheTrack() {
+        UUID id = UUID.randomUUID();
+        when(geofenceEngine.hasPendingStops(id)).thenReturn(true);
+        when(locationDeadBand.evaluate(id, 3.86, 11.50, true)).thenReturn(new LocationDeadBand.Decision(false, 5));
+
+        StepVerifier.create(service.updateLocation(id, 3.86, 11.50))
+                .assertNext(response -> {
+                    assertFalse(response.isAccepted());
+                    assertEquals(5, response.getNextPingSeconds());
+                })
+                .verifyComplete();
+
+        assertEquals(0, buffer.size());
+        verify(courierTrackStore).append(id, 3.86, 11.50);
+        verify(geofenceEngine).evaluate(id, 3.86, 11.50);
+        verify(courierPresenceService).recordPing(id);
+    }
+
+    @Test
+    void flush_ShouldWriteCoalescedPositionsInOneStatement() {
+        UUID id = UUID.randomUUID();
+        acceptPings();
+        service.updateLocation(id, 3.86, 11.50).block();
+        service.updateLocation(id, 3.87, 11.51).block();
+
+        DeliveryPerson updated = new DeliveryPerson();
+        updated.setId(id);
+        when(deliveryPersonRepository.updateLocations(any(), any(), any())).thenReturn(Flux.just(updated));
+        when(deliveryPersonSearchIndexer.updateLocations(List.of(updated))).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.flush()).verifyComplete();
+
+        verify(deliveryPersonRepository, times(1)).updateLocations(
+                argThat(ids -> ids.length == 1 && ids[0].equals(id)),
+                argThat(lats -> lats[0] == 3.87),
+                argThat(lons -> lons[0] == 11.51));
+        verify(courierSpatialIndex).upsert(updated);
+        verify(deliveryPersonSearchIndexer).updateLocations(List.of(updated));
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void flush_SqlFailure_ShouldRequeuePositions() {
+        acceptPings();
+        service.updateLocation(UUID.randomUUID(), 3.86, 11.50).block();
+        when(deliveryPersonRepository.updateLocations(any(), any(), any()))
+                .thenReturn(Flux.error(new IllegalStateException("db down")));
+
+        StepVerifier.create(service.flush()).verifyComplete();
+
+        assertEquals(1, buffer.size());
+    }
+
+    @Test
+    void expireStaleCouriers_ShouldEvictAndMarkUnavailableInOneBatch() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(courierPresenceService.expire()).thenReturn(List.of(first, second));
+        when(deliveryPersonSearchIndexer.markUnavailable(List.of(first, second))).thenReturn(Mono.empty());
+
+        service.expireStaleCouriers();
+
+        verify(courierSpatialIndex).evict(first);
+        verify(courierSpatialIndex).evict(second);
+        verify(locationDeadBand).forget(List.of(first, second));
+        verify(deliveryPersonSearchIndexer, times(1)).markUnavailable(List.of(first, second));
+    }
+}
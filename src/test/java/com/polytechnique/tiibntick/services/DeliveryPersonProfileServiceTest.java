@@ -11,6 +11,7 @@ import com.polytechnique.tiibntick.repositories.PersonAddressRepository;
 import com.polytechnique.tiibntick.services.address.CreationAddressService;
 import com.polytechnique.tiibntick.services.address.ModificationAddressService;
 import com.polytechnique.tiibntick.services.deliveryperson.LectureDeliveryPersonService;
+import com.polytechnique.tiibntick.services.deliveryperson.DeliveryPersonSearchIndexer;
 import com.polytechnique.tiibntick.services.deliveryperson.ModificationDeliveryPersonService;
 import com.polytechnique.tiibntick.services.logistics.LectureLogisticsService;
 import com.polytechnique.tiibntick.services.logistics.ModificationLogisticsService;
@@ -73,6 +74,8 @@ class DeliveryPersonProfileServiceTest {
     private SuppressionLogisticsService suppressionLogisticsService;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Mock
+    private DeliveryPersonSearchIndexer deliveryPersonSearchIndexer;
 
     @InjectMocks
     private DeliveryPersonProfileService service;
@@ -113,6 +116,8 @@ class DeliveryPersonProfileServiceTest {
         when(modificationAddressService.updateAddress(any())).thenReturn(Mono.just(address));
         when(passwordEncoder.encode(any())).thenReturn("ENCODED");
 
+        when(deliveryPersonSearchIndexer.reindex(dpId)).thenReturn(Mono.empty());
+
         // Act & Assert
         StepVerifier.create(service.updateProfile(dpId, request))
                 .verifyComplete();
@@ -143,6 +148,8 @@ class DeliveryPersonProfileServiceTest {
         when(lectureLogisticsService.findByDeliveryPersonId(dpId)).thenReturn(Mono.empty());
         // Address update skipped if no fields
 
+        when(deliveryPersonSearchIndexer.reindex(dpId)).thenReturn(Mono.empty());
+
         // Act & Assert
         StepVerifier.create(service.updateProfile(dpId, request))
                 .verifyComplete();
@@ -172,6 +179,8 @@ class DeliveryPersonProfileServiceTest {
         when(modificationDeliveryPersonService.updateDeliveryPerson(any())).thenReturn(Mono.just(dp));
         when(lectureLogisticsService.findByDeliveryPersonId(dpId)).thenReturn(Mono.empty());
 
+        when(deliveryPersonSearchIndexer.reindex(dpId)).thenReturn(Mono.empty());
+
         // Act & Assert
         StepVerifier.create(service.updateProfile(dpId, request))
                 .verifyComplete();
@@ -194,6 +203,7 @@ class DeliveryPersonProfileServiceTest {
         when(suppressionLogisticsService.deleteByDeliveryPersonId(dpId)).thenReturn(Mono.empty());
         when(suppressionDeliveryPersonService.deleteById(dpId)).thenReturn(Mono.empty());
         when(suppressionPersonService.deleteById(personId)).thenReturn(Mono.empty());
+        when(deliveryPersonSearchIndexer.remove(dpId)).thenReturn(Mono.empty());
 
         // Act & Assert
         StepVerifier.create(service.deleteProfile(dpId))
@@ -202,5 +212,6 @@ class DeliveryPersonProfileServiceTest {
         verify(suppressionLogisticsService).deleteByDeliveryPersonId(dpId);
         verify(suppressionDeliveryPersonService).deleteById(dpId);
         verify(suppressionPersonService).deleteById(personId);
+        verify(deliveryPersonSearchIndexer).remove(dpId);
     }
 }
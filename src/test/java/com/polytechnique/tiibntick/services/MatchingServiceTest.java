@@ -0,0 +1,187 @@
+package com.polytechnique.tiibntick.services;
+
+import com.polytechnique.tiibntick.dtos.address.AddressDTO;
+import com.polytechnique.tiibntick.dtos.announcement.AnnouncementResponseDTO;
+import com.polytechnique.tiibntick.elasticsearch.models.DeliveryPersonDocument;
+import com.polytechnique.tiibntick.models.Notification;
+import com.polytechnique.tiibntick.repositories.DeliveryPersonRepository;
+import com.polytechnique.tiibntick.services.matching.BatchEllipseMatcher;
+import com.polytechnique.tiibntick.services.matching.CandidateRanker;
+import com.polytechnique.tiibntick.services.matching.CourierCoordinates;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex.IndexedCourier;
+import com.polytechnique.tiibntick.services.matching.DistanceEngine;
+import com.polytechnique.tiibntick.services.matching.MatchingRetryService;
+import com.polytechnique.tiibntick.services.routing.RoadRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for MatchingService, on the SQL fallback path.
+ */
+@ExtendWith(MockitoExtension.class)
+class MatchingServiceTest {
+
+    private static final double PICKUP_LAT = 3.8667;
+    private static final double PICKUP_LON = 11.5167;
+    private static final double DELIVERY_LAT = 3.8800;
+    private static final double DELIVERY_LON = 11.5400;
+
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private CourierSpatialIndex courierSpatialIndex;
+    @Mock
+    private MatchingRetryService matchingRetryService;
+    @Mock
+    private BatchEllipseMatcher batchEllipseMatcher;
+    @Mock
+    private DeliveryPersonRepository deliveryPersonRepository;
+    @Mock
+    private RoadRouter roadRouter;
+
+    private MatchingService service;
+    private AnnouncementResponseDTO announcement;
+
+    @BeforeEach
+    void setUp() {
+        // No profiles: candidates are ranked by detour
+        lenient().when(deliveryPersonRepository.findMatchProfilesByIdIn(anyCollection())).thenReturn(Flux.empty());
+        lenient().when(matchingRetryService.cancel(any())).thenReturn(Mono.empty());
+        lenient().when(matchingRetryService.schedule(any())).thenReturn(Mono.empty());
+
+        service = new MatchingService(Optional.empty(), Optional.empty(), notificationService, courierSpatialIndex,
+                matchingRetryService, new CandidateRanker(deliveryPersonRepository, 2, 0.5, 0.25, 0.5),
+                batchEllipseMatcher, new DistanceEngine(0.01), roadRouter);
+
+        AddressDTO pickup = new AddressDTO();
+        pickup.setLatitude(PICKUP_LAT);
+        pickup.setLongitude(PICKUP_LON);
+        AddressDTO delivery = new AddressDTO();
+        delivery.setLatitude(DELIVERY_LAT);
+        delivery.setLongitude(DELIVERY_LON);
+        announcement = new AnnouncementResponseDTO();
+        announcement.setId(UUID.randomUUID());
+        announcement.setPickupAddress(pickup);
+        announcement.setDeliveryAddress(delivery);
+    }
+
+    /**
+     * A courier halfway along the route, moved north by the given offset.
+     */
+    private IndexedCourier courier(double northOffset) {
+        return new IndexedCourier(UUID.randomUUID(), UUID.randomUUID(), "courier", 3.87335 + northOffset,
+                11.52835, 0L);
+    }
+
+    private void nearby(IndexedCourier... couriers) {
+        when(courierSpatialIndex.findInEllipse(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyDouble(),
+                anyDouble())).thenReturn(Mono.just(List.of(CourierCoordinates.of(List.of(couriers)))));
+    }
+
+    private static List<UUID> ids(List<DeliveryPersonDocument> deliveryPersons) {
+        return deliveryPersons.stream().map(DeliveryPersonDocument::getId).toList();
+    }
+
+    @Test
+    void matchAnnouncement_ShouldNotifyTheTopKAndCancelRematching() {
+        IndexedCourier closest = courier(0.0);
+        IndexedCourier close = courier(0.002);
+        IndexedCourier farther = courier(0.01);
+        nearby(farther, closest, close);
+        when(notificationService.notifyEligibleDeliveryPersons(anyList(), any()))
+                .thenReturn(Flux.just(new Notification()));
+
+        StepVerifier.create(service.matchAnnouncement(announcement)).verifyComplete();
+
+        verify(notificationService).notifyEligibleDeliveryPersons(
+                argThat(selected -> ids(selected).equals(List.of(closest.id(), close.id()))), any());
+        verify(matchingRetryService).cancel(announcement.getId());
+    }
+
+    @Test
+    void matchAnnouncement_TopKAlreadyNotified_ShouldNotReachPastTheTopK() {
+        IndexedCourier closest = courier(0.0);
+        IndexedCourier close = courier(0.002);
+        IndexedCourier farther = courier(0.01);
+        nearby(closest, close, farther);
+        // The ledger already holds the top 2: nobody is newly notified
+        when(notificationService.notifyEligibleDeliveryPersons(anyList(), any())).thenReturn(Flux.empty());
+
+        StepVerifier.create(service.matchAnnouncement(announcement)).verifyComplete();
+
+        verify(notificationService).notifyEligibleDeliveryPersons(
+                argThat(selected -> ids(selected).equals(List.of(closest.id(), close.id()))), any());
+        verify(matchingRetryService).schedule(announcement.getId());
+        verify(matchingRetryService, never()).cancel(any());
+    }
+
+    /**
+     * Road network where the given courier cannot be placed, and where the
+     * others' road distances grow with their latitude.
+     */
+    private void roadNetworkWithout(IndexedCourier unroutable) {
+        when(roadRouter.isReady()).thenReturn(true);
+        when(roadRouter.distanceMatrixKm(any(), any(), any(), any())).thenAnswer(invocation -> {
+            double[] fromLat = invocation.getArgument(0);
+            double[][] km = new double[fromLat.length][];
+            for (int i = 0; i < fromLat.length - 1; i++) {
+                km[i] = fromLat[i] == unroutable.latitude()
+                        ? new double[] { Double.NaN, Double.NaN }
+                        : new double[] { 1.0 + (fromLat[i] - PICKUP_LAT) * 100, 3.0 };
+            }
+            // Pickup row: pickup → delivery by road
+            km[fromLat.length - 1] = new double[] { 0.0, 3.0 };
+            return km;
+        });
+    }
+
+    @Test
+    void matchAnnouncement_UnroutableCandidate_ShouldRankAfterRoutedOnes() {
+        IndexedCourier unroutable = courier(0.0);
+        IndexedCourier routed = courier(0.002);
+        IndexedCourier farther = courier(0.01);
+        nearby(unroutable, routed, farther);
+        roadNetworkWithout(unroutable);
+        when(notificationService.notifyEligibleDeliveryPersons(anyList(), any()))
+                .thenReturn(Flux.just(new Notification()));
+
+        StepVerifier.create(service.matchAnnouncement(announcement)).verifyComplete();
+
+        // Its straight-line detour is the smallest, yet both routed couriers come first
+        verify(notificationService).notifyEligibleDeliveryPersons(
+                argThat(selected -> ids(selected).equals(List.of(routed.id(), farther.id()))), any());
+    }
+
+    @Test
+    void matchAnnouncement_UnroutableCandidate_ShouldFillTheTopKLast() {
+        IndexedCourier unroutable = courier(0.0);
+        IndexedCourier routed = courier(0.01);
+        nearby(unroutable, routed);
+        roadNetworkWithout(unroutable);
+        when(notificationService.notifyEligibleDeliveryPersons(anyList(), any()))
+                .thenReturn(Flux.just(new Notification()));
+
+        StepVerifier.create(service.matchAnnouncement(announcement)).verifyComplete();
+
+        verify(notificationService).notifyEligibleDeliveryPersons(
+                argThat(selected -> ids(selected).equals(List.of(routed.id(), unroutable.id()))), any());
+    }
+}
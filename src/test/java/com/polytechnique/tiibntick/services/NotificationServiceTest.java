@@ -0,0 +1,181 @@
+package com.polytechnique.tiibntick.services;
+
+import com.polytechnique.tiibntick.elasticsearch.models.AnnouncementDocument;
+import com.polytechnique.tiibntick.elasticsearch.models.DeliveryPersonDocument;
+import com.polytechnique.tiibntick.events.MatchingNotificationEvent;
+import com.polytechnique.tiibntick.models.Notification;
+import com.polytechnique.tiibntick.repositories.NotificationRepository;
+import com.polytechnique.tiibntick.services.matching.MatchingLedgerService;
+import com.polytechnique.tiibntick.services.support.EmailService;
+import com.polytechnique.tiibntick.services.support.KafkaEventPublisher;
+import com.polytechnique.tiibntick.services.support.NotificationDispatchQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NotificationService.
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+    @Mock
+    private NotificationDispatchQueue notificationDispatchQueue;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private KafkaEventPublisher kafkaEventPublisher;
+    @Mock
+    private MatchingLedgerService matchingLedgerService;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    @InjectMocks
+    private NotificationService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(emailService.queueAll(any(), anyString(), anyString())).thenReturn(Mono.empty());
+    }
+
+    private DeliveryPersonDocument courier() {
+        return DeliveryPersonDocument.builder()
+                .id(UUID.randomUUID())
+                .personId(UUID.randomUUID())
+                .email("courier@example.com")
+                .build();
+    }
+
+    private void stubInsertAll() {
+        when(notificationRepository.insertAll(any(), anyString(), anyString(), anyString(), anyString(), any()))
+                .thenAnswer(invocation -> {
+                    UUID[] personIds = invocation.getArgument(0);
+                    long[] eventId = { 41 };
+                    return Flux.fromArray(personIds).map(personId -> {
+                        Notification saved = new Notification();
+                        saved.setPersonId(personId);
+                        saved.setAnnouncementId(invocation.getArgument(5));
+                        saved.setEventId(++eventId[0]);
+                        return saved;
+                    });
+                });
+    }
+
+    @Test
+    void notifyEligibleDeliveryPersons_ShouldOnlyNotifyCouriersNotInLedger() {
+        DeliveryPersonDocument alreadyNotified = courier();
+        DeliveryPersonDocument newcomer = courier();
+        AnnouncementDocument announcement = AnnouncementDocument.builder().id(UUID.randomUUID()).build();
+
+        when(matchingLedgerService.claim(eq(announcement.getId()), any()))
+                .thenReturn(Mono.just(new HashSet<>(Set.of(newcomer.getId()))));
+        stubInsertAll();
+        when(kafkaEventPublisher.publishMatchingNotifications(any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.notifyEligibleDeliveryPersons(List.of(alreadyNotified, newcomer), announcement))
+                .expectNextMatches(notification -> notification.getPersonId().equals(newcomer.getPersonId()))
+                .verifyComplete();
+
+        verify(notificationRepository, times(1)).insertAll(argThat(ids -> Arrays.equals(ids,
+                new UUID[] { newcomer.getPersonId() })), eq("NEW_ANNOUNCEMENT"), anyString(), anyString(),
+                eq("SENT"), eq(announcement.getId()));
+        verify(kafkaEventPublisher).publishMatchingNotifications(argThat(events -> events.size() == 1
+                && events.get(0).getDeliveryPersonId().equals(newcomer.getId())
+                && events.get(0).getEventId() == 42L));
+        verify(notificationDispatchQueue).enqueueAll(argThat(dispatches -> dispatches.size() == 1
+                && dispatches.iterator().next().deliveryPersonId().equals(newcomer.getId())));
+    }
+
+    @Test
+    void notifyEligibleDeliveryPersons_ShouldInsertAndPublishEveryNewcomerAtOnce() {
+        List<DeliveryPersonDocument> couriers = List.of(courier(), courier(), courier());
+        AnnouncementDocument announcement = AnnouncementDocument.builder().id(UUID.randomUUID()).build();
+
+        when(matchingLedgerService.claim(eq(announcement.getId()), any())).thenReturn(Mono.just(
+                new HashSet<>(couriers.stream().map(DeliveryPersonDocument::getId).toList())));
+        stubInsertAll();
+        when(kafkaEventPublisher.publishMatchingNotifications(any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.notifyEligibleDeliveryPersons(couriers, announcement))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        verify(notificationRepository, times(1)).insertAll(argThat(ids -> ids.length == 3), anyString(),
+                anyString(), anyString(), anyString(), any());
+        verify(emailService, times(1)).queueAll(argThat(emails -> emails.size() == 3), anyString(), anyString());
+        verify(kafkaEventPublisher, times(1)).publishMatchingNotifications(argThat(events -> events.size() == 3));
+        verify(kafkaEventPublisher, never()).publishMatchingNotification(any());
+        verify(transactionalOperator, times(1)).transactional(any(Mono.class));
+    }
+
+    @Test
+    void notifyEligibleDeliveryPersons_KafkaFailure_ShouldStillReturnTheSavedNotifications() {
+        DeliveryPersonDocument newcomer = courier();
+        AnnouncementDocument announcement = AnnouncementDocument.builder().id(UUID.randomUUID()).build();
+
+        when(matchingLedgerService.claim(eq(announcement.getId()), any()))
+                .thenReturn(Mono.just(new HashSet<>(Set.of(newcomer.getId()))));
+        stubInsertAll();
+        when(kafkaEventPublisher.publishMatchingNotifications(any()))
+                .thenReturn(Mono.error(new RuntimeException("broker unavailable")));
+
+        StepVerifier.create(service.notifyEligibleDeliveryPersons(List.of(newcomer), announcement))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(notificationDispatchQueue).enqueueAll(any());
+    }
+
+    @Test
+    void notifyEligibleDeliveryPersons_AllAlreadyNotified_ShouldSendNothing() {
+        DeliveryPersonDocument alreadyNotified = courier();
+        AnnouncementDocument announcement = AnnouncementDocument.builder().id(UUID.randomUUID()).build();
+
+        when(matchingLedgerService.claim(eq(announcement.getId()), any())).thenReturn(Mono.just(Set.of()));
+
+        StepVerifier.create(service.notifyEligibleDeliveryPersons(List.of(alreadyNotified), announcement))
+                .verifyComplete();
+
+        verifyNoInteractions(notificationRepository, notificationDispatchQueue, kafkaEventPublisher, emailService);
+    }
+
+    @Test
+    void notifyEligibleDeliveryPersons_OutboxFailure_ShouldFailBeforeNotifyingAnyone() {
+        DeliveryPersonDocument newcomer = courier();
+        AnnouncementDocument announcement = AnnouncementDocument.builder().id(UUID.randomUUID()).build();
+
+        when(matchingLedgerService.claim(eq(announcement.getId()), any()))
+                .thenReturn(Mono.just(new HashSet<>(Set.of(newcomer.getId()))));
+        stubInsertAll();
+        when(emailService.queueAll(any(), anyString(), anyString()))
+                .thenReturn(Mono.error(new RuntimeException("outbox unavailable")));
+
+        // The error reaches the transaction, which rolls the notifications back
+        StepVerifier.create(service.notifyEligibleDeliveryPersons(List.of(newcomer), announcement))
+                .verifyError(RuntimeException.class);
+
+        verifyNoInteractions(notificationDispatchQueue, kafkaEventPublisher);
+    }
+}
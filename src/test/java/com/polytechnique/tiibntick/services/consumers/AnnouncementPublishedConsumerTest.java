@@ -0,0 +1,141 @@
+package com.polytechnique.tiibntick.services.consumers;
+
+import com.polytechnique.tiibntick.dtos.announcement.AnnouncementResponseDTO;
+import com.polytechnique.tiibntick.events.AnnouncementPublishedEvent;
+import com.polytechnique.tiibntick.services.MatchingService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.reactive.ReactiveKafkaConsumerTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AnnouncementPublishedConsumer.
+ */
+@ExtendWith(MockitoExtension.class)
+class AnnouncementPublishedConsumerTest {
+
+    @Mock
+    private ReactiveKafkaConsumerTemplate<String, AnnouncementPublishedEvent> consumerTemplate;
+    @Mock
+    private MatchingService matchingService;
+    @Mock
+    private ReceiverOffset receiverOffset;
+
+    private AnnouncementPublishedConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new AnnouncementPublishedConsumer(consumerTemplate, matchingService, 4, false, 32, 200);
+    }
+
+    private ReceiverRecord<String, AnnouncementPublishedEvent> record(AnnouncementPublishedEvent event) {
+        ConsumerRecord<String, AnnouncementPublishedEvent> consumerRecord = new ConsumerRecord<>(
+                "announcement-published", 0, 42L, UUID.randomUUID().toString(), event);
+        return new ReceiverRecord<>(consumerRecord, receiverOffset);
+    }
+
+    @Test
+    void process_ShouldAcknowledgeAfterMatchingCompletes() {
+        AnnouncementResponseDTO announcement = new AnnouncementResponseDTO();
+        announcement.setId(UUID.randomUUID());
+        AnnouncementPublishedEvent event = new AnnouncementPublishedEvent(announcement, null);
+
+        when(matchingService.matchAnnouncement(announcement)).thenReturn(Mono.empty());
+
+        StepVerifier.create(consumer.process(record(event)))
+                .verifyComplete();
+
+        verify(matchingService).matchAnnouncement(announcement);
+        verify(receiverOffset).acknowledge();
+    }
+
+    @Test
+    void process_MatchingError_ShouldStillAcknowledge() {
+        AnnouncementResponseDTO announcement = new AnnouncementResponseDTO();
+        announcement.setId(UUID.randomUUID());
+        AnnouncementPublishedEvent event = new AnnouncementPublishedEvent(announcement, null);
+
+        when(matchingService.matchAnnouncement(announcement))
+                .thenReturn(Mono.error(new IllegalStateException("boom")));
+
+        StepVerifier.create(consumer.process(record(event)))
+                .verifyComplete();
+
+        verify(receiverOffset).acknowledge();
+    }
+
+    @Test
+    void process_UnreadableRecord_ShouldSkipAndAcknowledge() {
+        StepVerifier.create(consumer.process(record(null)))
+                .verifyComplete();
+
+        verify(matchingService, never()).matchAnnouncement(any());
+        verify(receiverOffset).acknowledge();
+    }
+
+    @Test
+    void processBatch_ShouldMatchReadableRecordsTogetherAndAcknowledgeAll() {
+        AnnouncementResponseDTO first = new AnnouncementResponseDTO();
+        first.setId(UUID.randomUUID());
+        AnnouncementResponseDTO second = new AnnouncementResponseDTO();
+        second.setId(UUID.randomUUID());
+
+        when(matchingService.matchBatch(List.of(first, second))).thenReturn(Mono.empty());
+
+        StepVerifier.create(consumer.processBatch(List.of(
+                record(new AnnouncementPublishedEvent(first, null)),
+                record(null),
+                record(new AnnouncementPublishedEvent(second, null)))))
+                .verifyComplete();
+
+        verify(matchingService).matchBatch(List.of(first, second));
+        verify(receiverOffset, times(3)).acknowledge();
+    }
+
+    @Test
+    void consume_SlowBatch_ShouldWaitForDemandInsteadOfOverflowing() {
+        // A long window: batches are cut by size only, never by a timer firing mid-test
+        consumer = new AnnouncementPublishedConsumer(consumerTemplate, matchingService, 4, true, 2, 60_000);
+        List<ReceiverRecord<String, AnnouncementPublishedEvent>> records = IntStream.range(0, 100)
+                .mapToObj(i -> {
+                    AnnouncementResponseDTO announcement = new AnnouncementResponseDTO();
+                    announcement.setId(UUID.randomUUID());
+                    return record(new AnnouncementPublishedEvent(announcement, null));
+                })
+                .toList();
+        when(consumerTemplate.receive()).thenReturn(Flux.fromIterable(records));
+        // The first batch is slow: more batches fill up meanwhile than concatMap prefetches
+        AtomicInteger batches = new AtomicInteger();
+        AtomicInteger matched = new AtomicInteger();
+        when(matchingService.matchBatch(anyList())).thenAnswer(invocation -> {
+            matched.addAndGet(invocation.<List<?>>getArgument(0).size());
+            return batches.getAndIncrement() == 0 ? Mono.delay(Duration.ofMillis(200)).then() : Mono.empty();
+        });
+
+        StepVerifier.create(consumer.consume())
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(100, matched.get());
+        verify(receiverOffset, times(100)).acknowledge();
+    }
+}
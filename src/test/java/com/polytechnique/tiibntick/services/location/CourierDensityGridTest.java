@@ -0,0 +1,88 @@
+package com.polytechnique.tiibntick.services.location;
+
+import com.polytechnique.tiibntick.dtos.admin.CourierDensityDTO;
+import com.polytechnique.tiibntick.services.map.WebMercator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for CourierDensityGrid.
+ */
+class CourierDensityGridTest {
+
+    // Yaoundé and Douala, in different tiles from zoom 8
+    private static final double YAOUNDE_LAT = 3.8667;
+    private static final double YAOUNDE_LON = 11.5167;
+    private static final double DOUALA_LAT = 4.0511;
+    private static final double DOUALA_LON = 9.7679;
+
+    private CourierDensityGrid grid;
+
+    @BeforeEach
+    void setUp() {
+        grid = new CourierDensityGrid(List.of(12, 8));
+    }
+
+    @Test
+    void move_ShouldCountCouriersPerTileAtEveryLevel() {
+        grid.move(null, null, YAOUNDE_LAT, YAOUNDE_LON);
+        grid.move(null, null, YAOUNDE_LAT + 0.001, YAOUNDE_LON);
+        grid.move(null, null, DOUALA_LAT, DOUALA_LON);
+        grid.move(DOUALA_LAT, DOUALA_LON, YAOUNDE_LAT, YAOUNDE_LON);
+
+        CourierDensityDTO snapshot = grid.snapshot(8, -90, -180, 90, 180);
+        assertEquals(8, snapshot.getZoom());
+        assertArrayEquals(new int[] { WebMercator.tileX(8, YAOUNDE_LON),
+                WebMercator.tileY(8, YAOUNDE_LAT), 3 }, snapshot.getCells());
+
+        grid.move(YAOUNDE_LAT, YAOUNDE_LON, null, null);
+        assertEquals(2, grid.snapshot(12, -90, -180, 90, 180).getCells()[2]);
+    }
+
+    @Test
+    void snapshot_ShouldKeepOnlyTilesInsideTheBoxAtTheLevelBelowTheZoom() {
+        grid.move(null, null, YAOUNDE_LAT, YAOUNDE_LON);
+        grid.move(null, null, DOUALA_LAT, DOUALA_LON);
+
+        CourierDensityDTO snapshot = grid.snapshot(14, 3.5, 11.0, 4.0, 12.0);
+
+        assertEquals(12, snapshot.getZoom());
+        assertArrayEquals(new int[] { WebMercator.tileX(12, YAOUNDE_LON),
+                WebMercator.tileY(12, YAOUNDE_LAT), 1 }, snapshot.getCells());
+    }
+
+    @Test
+    void stream_ShouldSendSnapshotThenChangedTilesOnly() {
+        grid.move(null, null, YAOUNDE_LAT, YAOUNDE_LON);
+        grid.publishDeltas();
+        int doualaX = WebMercator.tileX(8, DOUALA_LON);
+        int doualaY = WebMercator.tileY(8, DOUALA_LAT);
+
+        StepVerifier.create(grid.stream(8))
+                .assertNext(snapshot -> {
+                    assertEquals(CourierDensityDTO.Type.SNAPSHOT, snapshot.getType());
+                    assertEquals(3, snapshot.getCells().length);
+                })
+                .then(() -> {
+                    grid.move(null, null, DOUALA_LAT, DOUALA_LON);
+                    grid.publishDeltas();
+                })
+                .assertNext(delta -> {
+                    assertEquals(CourierDensityDTO.Type.DELTA, delta.getType());
+                    assertArrayEquals(new int[] { doualaX, doualaY, 1 }, delta.getCells());
+                })
+                .then(() -> {
+                    grid.move(DOUALA_LAT, DOUALA_LON, null, null);
+                    grid.publishDeltas();
+                })
+                .assertNext(delta -> assertArrayEquals(new int[] { doualaX, doualaY, 0 }, delta.getCells()))
+                .thenCancel()
+                .verify();
+    }
+}
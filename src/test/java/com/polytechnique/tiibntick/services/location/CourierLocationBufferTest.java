@@ -0,0 +1,66 @@
+package com.polytechnique.tiibntick.services.location;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CourierLocationBuffer.
+ */
+class CourierLocationBufferTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CourierLocationBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        buffer = new CourierLocationBuffer(meterRegistry);
+    }
+
+    @Test
+    void offer_ShouldKeepLatestPositionAndOldestTimestamp() {
+        UUID id = UUID.randomUUID();
+        buffer.offer(id, 3.86, 11.50);
+        List<CourierLocationBuffer.PendingLocation> first = List.copyOf(buffer.drain());
+        buffer.requeue(first);
+
+        buffer.offer(id, 3.87, 11.51);
+        buffer.offer(id, 3.88, 11.52);
+
+        List<CourierLocationBuffer.PendingLocation> batch = buffer.drain();
+        assertEquals(1, batch.size());
+        assertEquals(3.88, batch.get(0).latitude());
+        assertEquals(11.52, batch.get(0).longitude());
+        assertEquals(first.get(0).firstReceivedAtNanos(), batch.get(0).firstReceivedAtNanos());
+        assertEquals(2.0, meterRegistry.counter("courier.location.pings.coalesced").count());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void requeue_ShouldNotOverwriteNewerPing() {
+        UUID id = UUID.randomUUID();
+        buffer.offer(id, 3.86, 11.50);
+        List<CourierLocationBuffer.PendingLocation> failed = buffer.drain();
+
+        buffer.offer(id, 3.90, 11.60);
+        buffer.requeue(failed);
+
+        List<CourierLocationBuffer.PendingLocation> batch = buffer.drain();
+        assertEquals(1, batch.size());
+        assertEquals(3.90, batch.get(0).latitude());
+    }
+
+    @Test
+    void gauge_ShouldReportPendingCouriers() {
+        buffer.offer(UUID.randomUUID(), 3.86, 11.50);
+        buffer.offer(UUID.randomUUID(), 4.05, 9.77);
+
+        assertEquals(2.0, meterRegistry.get("courier.location.buffer.pending").gauge().value());
+    }
+}
@@ -0,0 +1,74 @@
+package com.polytechnique.tiibntick.services.location;
+
+import com.polytechnique.tiibntick.testutil.MutableClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CourierPresenceService.
+ */
+class CourierPresenceServiceTest {
+
+    private static final Instant T0 = Instant.parse("2026-10-18T08:00:00Z");
+
+    private MutableClock clock;
+    private CourierPresenceService presence;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(T0);
+        presence = new CourierPresenceService(new SimpleMeterRegistry(), Duration.ofSeconds(60), 1000, clock);
+    }
+
+    @Test
+    void expire_SilentCourier_ShouldBecomeStaleAfterTtl() {
+        UUID courier = UUID.randomUUID();
+        assertTrue(presence.recordPing(courier));
+
+        clock.advance(Duration.ofSeconds(59));
+        assertTrue(presence.expire().isEmpty());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(List.of(courier), presence.expire());
+        assertFalse(presence.isOnline(courier));
+    }
+
+    @Test
+    void expire_PingingCourier_ShouldStayOnline() {
+        UUID courier = UUID.randomUUID();
+        presence.recordPing(courier);
+
+        for (int i = 0; i < 10; i++) {
+            clock.advance(Duration.ofSeconds(30));
+            assertFalse(presence.recordPing(courier));
+            assertTrue(presence.expire().isEmpty());
+        }
+        assertTrue(presence.isOnline(courier));
+    }
+
+    @Test
+    void recordPing_AfterExpiry_ShouldReportCourierBack() {
+        UUID courier = UUID.randomUUID();
+        presence.recordPing(courier);
+        clock.advance(Duration.ofSeconds(61));
+        presence.expire();
+
+        assertTrue(presence.recordPing(courier));
+        assertTrue(presence.isOnline(courier));
+    }
+
+    @Test
+    void isFresh_ShouldApplyTtlToPersistedLastSeen() {
+        assertTrue(presence.isFresh(T0.minusSeconds(30)));
+        assertFalse(presence.isFresh(T0.minusSeconds(90)));
+        assertFalse(presence.isFresh(null));
+    }
+}
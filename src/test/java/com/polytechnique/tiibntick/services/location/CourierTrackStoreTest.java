@@ -0,0 +1,134 @@
+package com.polytechnique.tiibntick.services.location;
+
+import com.polytechnique.tiibntick.testutil.MutableClock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for CourierTrackStore.
+ */
+class CourierTrackStoreTest {
+
+    private static final Instant T0 = Instant.parse("2026-10-18T08:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private MutableClock clock;
+    private CourierTrackStore store;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(T0);
+        store = newStore();
+        store.open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private CourierTrackStore newStore() {
+        return new CourierTrackStore(true, directory, Duration.ofMinutes(10), 4096, Duration.ofHours(1), clock);
+    }
+
+    @Test
+    void replay_ShouldReturnOnlyTheCourierPointsWithinTheWindow() {
+        UUID courier = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+
+        store.append(courier, 3.866700, 11.516700);
+        clock.advance(Duration.ofSeconds(5));
+        store.append(other, 4.051100, 9.767900);
+        store.append(courier, 3.866800, 11.516500);
+        clock.advance(Duration.ofSeconds(5));
+        store.append(courier, 3.867000, 11.516000);
+
+        List<CourierTrackPoint> points = store.replay(courier, T0.plusSeconds(1), T0.plusSeconds(60))
+                .collectList().block();
+
+        assertEquals(2, points.size());
+        assertEquals(T0.plusSeconds(5), points.get(0).recordedAt());
+        assertEquals(3.866800, points.get(0).latitude(), 1e-6);
+        assertEquals(11.516500, points.get(0).longitude(), 1e-6);
+        assertEquals(T0.plusSeconds(10), points.get(1).recordedAt());
+        assertEquals(3.867000, points.get(1).latitude(), 1e-6);
+    }
+
+    @Test
+    void append_ShouldRollSegmentsOverTimeAndReplayAcrossThem() {
+        UUID courier = UUID.randomUUID();
+
+        store.append(courier, 3.86, 11.50);
+        clock.advance(Duration.ofMinutes(15));
+        store.append(courier, 3.87, 11.51);
+
+        assertEquals(2, store.segmentCount());
+        StepVerifier.create(store.replay(courier, T0, T0.plus(Duration.ofMinutes(20))))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void append_ShouldRollFullSegments() {
+        UUID courier = UUID.randomUUID();
+
+        for (int i = 0; i < 1000; i++) {
+            store.append(courier, 3.86 + i * 1e-4, 11.50);
+            clock.advance(Duration.ofMillis(100));
+        }
+
+        assertTrue(store.segmentCount() > 1);
+        StepVerifier.create(store.replay(courier, T0, T0.plus(Duration.ofMinutes(5))))
+                .expectNextCount(1000)
+                .verifyComplete();
+    }
+
+    @Test
+    void enforceRetention_ShouldDeleteExpiredSegmentsButKeepTheActiveOne() {
+        UUID courier = UUID.randomUUID();
+
+        store.append(courier, 3.86, 11.50);
+        clock.advance(Duration.ofMinutes(15));
+        store.append(courier, 3.87, 11.51);
+        clock.advance(Duration.ofHours(2));
+
+        store.enforceRetention();
+
+        assertEquals(1, store.segmentCount());
+        StepVerifier.create(store.replay(courier, T0, clock.instant()))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void open_ShouldRecoverSegmentsFromAPreviousRun() {
+        UUID courier = UUID.randomUUID();
+        store.append(courier, 3.86, 11.50);
+        clock.advance(Duration.ofSeconds(1));
+        store.append(courier, 3.87, 11.51);
+        store.close();
+
+        store = newStore();
+        store.open();
+        clock.advance(Duration.ofSeconds(1));
+        store.append(courier, 3.88, 11.52);
+
+        StepVerifier.create(store.replay(courier, T0, clock.instant()))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+}
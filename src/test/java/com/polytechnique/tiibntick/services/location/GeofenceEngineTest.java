@@ -0,0 +1,153 @@
+package com.polytechnique.tiibntick.services.location;
+
+import com.polytechnique.tiibntick.dtos.geofence.AcceptedSubscriptionStops;
+import com.polytechnique.tiibntick.events.CourierArrivedEvent;
+import com.polytechnique.tiibntick.repositories.AnnouncementSubscriptionRepository;
+import com.polytechnique.tiibntick.repositories.GeofenceArrivalRepository;
+import com.polytechnique.tiibntick.services.support.KafkaEventPublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for GeofenceEngine.
+ */
+@ExtendWith(MockitoExtension.class)
+class GeofenceEngineTest {
+
+    @Mock
+    private AnnouncementSubscriptionRepository subscriptionRepository;
+    @Mock
+    private GeofenceArrivalRepository geofenceArrivalRepository;
+    @Mock
+    private KafkaEventPublisher kafkaEventPublisher;
+
+    private GeofenceEngine engine;
+    private final UUID courierId = UUID.randomUUID();
+    private final UUID subscriptionId = UUID.randomUUID();
+    private final UUID announcementId = UUID.randomUUID();
+
+    // Pickup at Yaoundé Poste Centrale, delivery at Mvog-Mbi (about 2 km apart)
+    private final AcceptedSubscriptionStops stops = new AcceptedSubscriptionStops(subscriptionId, announcementId,
+            courierId, 3.8667, 11.5167, 3.8550, 11.5300, false, false);
+
+    @BeforeEach
+    void setUp() {
+        engine = new GeofenceEngine(subscriptionRepository, geofenceArrivalRepository, kafkaEventPublisher, 75, 75);
+        // No node recorded any arrival yet
+        lenient().when(geofenceArrivalRepository.claim(any(), any(), any()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(subscriptionRepository.findAcceptedStops()).thenReturn(Flux.just(stops));
+        StepVerifier.create(engine.reload()).verifyComplete();
+    }
+
+    @Test
+    void evaluate_EnteringPickupFence_ShouldPublishArrivalOnce() {
+        engine.evaluate(courierId, 3.8670, 11.5170);
+        engine.evaluate(courierId, 3.8668, 11.5168);
+
+        ArgumentCaptor<CourierArrivedEvent> captor = ArgumentCaptor.forClass(CourierArrivedEvent.class);
+        verify(kafkaEventPublisher, times(1)).publishCourierArrived(captor.capture());
+        assertEquals(CourierArrivedEvent.Stop.PICKUP, captor.getValue().getStop());
+        assertEquals(subscriptionId, captor.getValue().getSubscriptionId());
+        assertEquals(announcementId, captor.getValue().getAnnouncementId());
+        verify(geofenceArrivalRepository, times(1)).claim(eq(subscriptionId), eq("PICKUP"), any());
+    }
+
+    @Test
+    void evaluate_ArrivalRecordedByAnotherNode_ShouldNotPublish() {
+        when(geofenceArrivalRepository.claim(any(), any(), any())).thenReturn(Mono.empty());
+
+        engine.evaluate(courierId, 3.8667, 11.5167);
+
+        verify(geofenceArrivalRepository).claim(eq(subscriptionId), eq("PICKUP"), any());
+        verify(kafkaEventPublisher, never()).publishCourierArrived(any());
+    }
+
+    @Test
+    void evaluate_ArrivalNotRecorded_ShouldRetryOnTheNextPing() {
+        when(geofenceArrivalRepository.claim(any(), any(), any()))
+                .thenReturn(Mono.error(new RuntimeException("connection reset")))
+                .thenReturn(Mono.just(subscriptionId));
+
+        engine.evaluate(courierId, 3.8667, 11.5167);
+        verify(kafkaEventPublisher, never()).publishCourierArrived(any());
+
+        engine.evaluate(courierId, 3.8668, 11.5168);
+        verify(kafkaEventPublisher, times(1)).publishCourierArrived(any());
+    }
+
+    @Test
+    void reload_StopsReachedBeforeTheRestart_ShouldNotFireAgain() {
+        GeofenceEngine restarted = new GeofenceEngine(subscriptionRepository, geofenceArrivalRepository,
+                kafkaEventPublisher, 75, 75);
+        when(subscriptionRepository.findAcceptedStops()).thenReturn(Flux.just(new AcceptedSubscriptionStops(
+                subscriptionId, announcementId, courierId, 3.8667, 11.5167, 3.8550, 11.5300, true, false)));
+        StepVerifier.create(restarted.reload()).verifyComplete();
+
+        restarted.evaluate(courierId, 3.8667, 11.5167);
+
+        assertTrue(restarted.hasPendingStops(courierId));
+        verifyNoInteractions(geofenceArrivalRepository);
+        verify(kafkaEventPublisher, never()).publishCourierArrived(any());
+    }
+
+    @Test
+    void evaluate_OutsideFencesOrOtherCourier_ShouldNotPublish() {
+        engine.evaluate(courierId, 3.8700, 11.5200);
+        engine.evaluate(UUID.randomUUID(), 3.8667, 11.5167);
+
+        verify(kafkaEventPublisher, never()).publishCourierArrived(any());
+    }
+
+    @Test
+    void hasPendingStops_ShouldBeFalseOnceBothStopsAreReached() {
+        assertTrue(engine.hasPendingStops(courierId));
+        assertFalse(engine.hasPendingStops(UUID.randomUUID()));
+
+        engine.evaluate(courierId, 3.8667, 11.5167);
+        assertTrue(engine.hasPendingStops(courierId));
+
+        engine.evaluate(courierId, 3.8550, 11.5300);
+        assertFalse(engine.hasPendingStops(courierId));
+    }
+
+    @Test
+    void reload_ShouldKeepFiredFencesFromFiringAgain() {
+        engine.evaluate(courierId, 3.8667, 11.5167);
+
+        StepVerifier.create(engine.reload()).verifyComplete();
+        engine.evaluate(courierId, 3.8667, 11.5167);
+        engine.evaluate(courierId, 3.8550, 11.5300);
+
+        ArgumentCaptor<CourierArrivedEvent> captor = ArgumentCaptor.forClass(CourierArrivedEvent.class);
+        verify(kafkaEventPublisher, times(2)).publishCourierArrived(captor.capture());
+        assertEquals(CourierArrivedEvent.Stop.PICKUP, captor.getAllValues().get(0).getStop());
+        assertEquals(CourierArrivedEvent.Stop.DELIVERY, captor.getAllValues().get(1).getStop());
+    }
+
+    @Test
+    void reload_ShouldDropFencesOfSubscriptionsNoLongerAccepted() {
+        when(subscriptionRepository.findAcceptedStops()).thenReturn(Flux.empty());
+
+        StepVerifier.create(engine.reload()).verifyComplete();
+        engine.evaluate(courierId, 3.8667, 11.5167);
+
+        assertEquals(0, engine.fenceCount());
+        verify(kafkaEventPublisher, never()).publishCourierArrived(any());
+    }
+}
@@ -0,0 +1,71 @@
+package com.polytechnique.tiibntick.services.location;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for HierarchicalTimingWheel.
+ */
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void advance_ShouldExpireTimersOnTheirTickAcrossLevels() {
+        // 4 slots per level, 3 levels: 64 ticks covered
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(10, 2, 3, 0);
+        Random random = new Random(42);
+        List<long[]> timers = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // Includes deadlines beyond the wheel span
+            long deadline = 10L * (1 + random.nextInt(150));
+            timers.add(new long[] { i, deadline });
+            wheel.schedule(i, deadline);
+        }
+        assertEquals(500, wheel.size());
+
+        long[] firedAt = new long[500];
+        for (long now = 10; now <= 1500; now += 10) {
+            long tickNow = now;
+            wheel.advance(now, key -> firedAt[key] = tickNow);
+        }
+
+        assertEquals(0, wheel.size());
+        for (long[] timer : timers) {
+            assertEquals(timer[1], firedAt[(int) timer[0]], "timer " + timer[0]);
+        }
+    }
+
+    @Test
+    void advance_ShouldCatchUpSeveralTicksAtOnce() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 6, 3, 0);
+        wheel.schedule("a", 5_000);
+        wheel.schedule("b", 300_000);
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(10_000, expired::add);
+        assertEquals(List.of("a"), expired);
+
+        wheel.advance(299_999, expired::add);
+        assertEquals(List.of("a"), expired);
+
+        wheel.advance(300_000, expired::add);
+        assertEquals(List.of("a", "b"), expired);
+    }
+
+    @Test
+    void schedule_PastDeadline_ShouldExpireOnNextTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 6, 3, 50_000);
+        wheel.schedule("late", 1_000);
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(50_999, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(51_000, expired::add);
+        assertEquals(List.of("late"), expired);
+    }
+}
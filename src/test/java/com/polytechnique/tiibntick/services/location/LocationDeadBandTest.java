@@ -0,0 +1,82 @@
+package com.polytechnique.tiibntick.services.location;
+
+import com.polytechnique.tiibntick.testutil.MutableClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for LocationDeadBand.
+ */
+class LocationDeadBandTest {
+
+    private MutableClock clock;
+    private LocationDeadBand deadBand;
+    private final UUID courier = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-10-18T08:00:00Z"));
+        // 25 m dead-band, 2 s minimum interval, 60 s maximum silence, pings every 5 to 60 s, 150 m between pings
+        deadBand = new LocationDeadBand(new SimpleMeterRegistry(), 25, 2000, 60000, 5, 60, 150, clock);
+    }
+
+    @Test
+    void evaluate_StationaryCourier_ShouldSkipPingsUntilMaxSilence() {
+        assertTrue(deadBand.evaluate(courier, 3.8667, 11.5167, false).accepted());
+
+        clock.advance(Duration.ofSeconds(30));
+        LocationDeadBand.Decision idle = deadBand.evaluate(courier, 3.86671, 11.51671, false);
+        assertFalse(idle.accepted());
+        assertEquals(60, idle.nextPingSeconds());
+
+        clock.advance(Duration.ofSeconds(30));
+        assertTrue(deadBand.evaluate(courier, 3.86671, 11.51671, false).accepted());
+    }
+
+    @Test
+    void evaluate_PingTooSoon_ShouldBeSkippedEvenIfMoved() {
+        deadBand.evaluate(courier, 3.8667, 11.5167, false);
+
+        clock.advance(Duration.ofMillis(500));
+
+        assertFalse(deadBand.evaluate(courier, 3.8700, 11.5167, false).accepted());
+    }
+
+    @Test
+    void evaluate_MovingCourier_ShouldSuggestIntervalFromSpeed() {
+        deadBand.evaluate(courier, 3.8667, 11.5167, false);
+
+        // About 111 m in 10 s: 11 m/s, so 150 m in about 13 s
+        clock.advance(Duration.ofSeconds(10));
+        LocationDeadBand.Decision moving = deadBand.evaluate(courier, 3.8677, 11.5167, false);
+
+        assertTrue(moving.accepted());
+        assertEquals(13, moving.nextPingSeconds());
+    }
+
+    @Test
+    void evaluate_PendingStops_ShouldSuggestShortestInterval() {
+        deadBand.evaluate(courier, 3.8667, 11.5167, false);
+        clock.advance(Duration.ofSeconds(30));
+
+        assertEquals(5, deadBand.evaluate(courier, 3.8667, 11.5167, true).nextPingSeconds());
+    }
+
+    @Test
+    void forget_ShouldAcceptTheNextPingOfACourierBackOnline() {
+        deadBand.evaluate(courier, 3.8667, 11.5167, false);
+        deadBand.forget(List.of(courier));
+
+        assertTrue(deadBand.evaluate(courier, 3.8667, 11.5167, false).accepted());
+    }
+}
@@ -0,0 +1,197 @@
+package com.polytechnique.tiibntick.services.mail;
+
+import com.polytechnique.tiibntick.models.EmailOutboxMessage;
+import com.polytechnique.tiibntick.models.enums.notification.EmailOutboxStatus;
+import com.polytechnique.tiibntick.repositories.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for EmailOutboxWorker, against an in-process SMTP server.
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxWorkerTest {
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    private LocalSmtpServer smtp;
+    private JavaMailSenderImpl mailSender;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new LocalSmtpServer();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+        Properties properties = new Properties();
+        properties.put("mail.smtp.connectiontimeout", "2000");
+        properties.put("mail.smtp.timeout", "2000");
+        mailSender.setJavaMailProperties(properties);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        smtp.close();
+    }
+
+    private EmailOutboxWorker worker(int workers, int maxAttempts, int messagesPerConnection) {
+        return new EmailOutboxWorker(emailOutboxRepository,
+                new SmtpConnectionPool(mailSender, workers, messagesPerConnection, 30_000),
+                new SendRateLimiter(0, 1), meterRegistry, true, 100, workers, 300, maxAttempts, 30, 3600);
+    }
+
+    private EmailOutboxMessage message(String recipient, int attempts) {
+        return EmailOutboxMessage.builder()
+                .id(UUID.randomUUID())
+                .recipient(recipient)
+                .subject("TiiBnTick - Compte approuvé")
+                .body("Bonjour")
+                .status(EmailOutboxStatus.PENDING)
+                .attempts(attempts)
+                .build();
+    }
+
+    private List<EmailOutboxMessage> messages(int count) {
+        return IntStream.range(0, count).mapToObj(i -> message("courier" + i + "@example.com", 0)).toList();
+    }
+
+    private void claim(List<EmailOutboxMessage> due) {
+        when(emailOutboxRepository.claimDue(anyInt(), anyDouble())).thenReturn(Flux.fromIterable(due));
+    }
+
+    @Test
+    void runBatch_ShouldSendEveryEmailOverOneConnection() {
+        EmailOutboxWorker worker = worker(1, 8, 100);
+        when(emailOutboxRepository.claimDue(anyInt(), anyDouble()))
+                .thenReturn(Flux.fromIterable(messages(5)), Flux.fromIterable(messages(2)));
+        when(emailOutboxRepository.deleteSent(any())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(worker.runBatch()).verifyComplete();
+        StepVerifier.create(worker.runBatch()).verifyComplete();
+
+        assertEquals(7, smtp.received().size());
+        // The second batch reuses the connection left open by the first
+        assertEquals(1, smtp.connections());
+        assertTrue(smtp.received().get(0).data().contains("Subject:"));
+        verify(emailOutboxRepository).deleteSent(argThat(ids -> ids.length == 5));
+        verify(emailOutboxRepository).deleteSent(argThat(ids -> ids.length == 2));
+        assertEquals(7, meterRegistry.get("mail.outbox.sent").counter().count());
+        worker.shutdown();
+    }
+
+    @Test
+    void runBatch_ShouldReconnectOnceTheConnectionSentItsLimit() {
+        EmailOutboxWorker worker = worker(1, 8, 2);
+        claim(messages(5));
+        when(emailOutboxRepository.deleteSent(any())).thenReturn(Mono.just(5));
+
+        StepVerifier.create(worker.runBatch()).verifyComplete();
+
+        assertEquals(5, smtp.received().size());
+        assertEquals(3, smtp.connections());
+        worker.shutdown();
+    }
+
+    @Test
+    void runBatch_ShouldSplitTheBatchBetweenWorkers() {
+        EmailOutboxWorker worker = worker(2, 8, 100);
+        claim(messages(6));
+        when(emailOutboxRepository.deleteSent(any())).thenReturn(Mono.just(3));
+
+        StepVerifier.create(worker.runBatch()).verifyComplete();
+
+        assertEquals(6, smtp.received().size());
+        verify(emailOutboxRepository, times(2)).deleteSent(argThat(ids -> ids.length == 3));
+        worker.shutdown();
+    }
+
+    @Test
+    void runBatch_RejectedRecipient_ShouldRetryWithBackoffAndKeepTheConnection() {
+        EmailOutboxWorker worker = worker(1, 8, 100);
+        EmailOutboxMessage rejected = message(LocalSmtpServer.REJECTED + "@example.com", 2);
+        claim(List.of(rejected, message("courier@example.com", 0)));
+        when(emailOutboxRepository.deleteSent(any())).thenReturn(Mono.just(1));
+        when(emailOutboxRepository.reschedule(any(), anyInt(), anyDouble(), anyString())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(worker.runBatch()).verifyComplete();
+
+        // Third attempt: 30 s * 2^2
+        verify(emailOutboxRepository).reschedule(eq(rejected.getId()), eq(3), eq(120.0), anyString());
+        assertEquals(1, smtp.received().size());
+        assertEquals(1, smtp.connections());
+        worker.shutdown();
+    }
+
+    @Test
+    void runBatch_LastAttempt_ShouldMarkTheEmailFailed() {
+        EmailOutboxWorker worker = worker(1, 3, 100);
+        EmailOutboxMessage rejected = message(LocalSmtpServer.REJECTED + "@example.com", 2);
+        claim(List.of(rejected));
+        when(emailOutboxRepository.markFailed(any(), anyInt(), anyString())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(worker.runBatch()).verifyComplete();
+
+        verify(emailOutboxRepository).markFailed(eq(rejected.getId()), eq(3), anyString());
+        verify(emailOutboxRepository, never()).reschedule(any(), anyInt(), anyDouble(), any());
+        assertEquals(1, meterRegistry.get("mail.outbox.failed").counter().count());
+        worker.shutdown();
+    }
+
+    @Test
+    void runBatch_InvalidAddress_ShouldFailWithoutRetrying() {
+        EmailOutboxWorker worker = worker(1, 8, 100);
+        EmailOutboxMessage invalid = message("<courier@example.com", 0);
+        claim(List.of(invalid));
+        when(emailOutboxRepository.markFailed(any(), anyInt(), anyString())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(worker.runBatch()).verifyComplete();
+
+        verify(emailOutboxRepository).markFailed(eq(invalid.getId()), eq(1), anyString());
+        assertEquals(0, smtp.connections());
+        worker.shutdown();
+    }
+
+    @Test
+    void runBatch_UnreachableServer_ShouldRetryTheWholeShareLater() throws Exception {
+        smtp.close();
+        EmailOutboxWorker worker = worker(1, 8, 100);
+        claim(messages(3));
+        when(emailOutboxRepository.reschedule(any(), anyInt(), anyDouble(), anyString())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(worker.runBatch()).verifyComplete();
+
+        verify(emailOutboxRepository, times(3)).reschedule(any(), eq(1), eq(30.0), anyString());
+        verify(emailOutboxRepository, never()).deleteSent(any());
+        worker.shutdown();
+    }
+}
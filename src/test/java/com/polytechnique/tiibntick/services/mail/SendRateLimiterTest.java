@@ -0,0 +1,47 @@
+package com.polytechnique.tiibntick.services.mail;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for SendRateLimiter.
+ */
+class SendRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void reserve_ShouldAllowTheBurstThenSpaceTheEmails() {
+        long[] now = { 0 };
+        SendRateLimiter limiter = new SendRateLimiter(2, 2, () -> now[0]);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(SECOND / 2, limiter.reserve());
+        assertEquals(SECOND, limiter.reserve());
+    }
+
+    @Test
+    void reserve_ShouldRefillWhileIdleUpToTheBurst() {
+        long[] now = { 0 };
+        SendRateLimiter limiter = new SendRateLimiter(2, 2, () -> now[0]);
+        limiter.reserve();
+        limiter.reserve();
+
+        now[0] += 10 * SECOND;
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(SECOND / 2, limiter.reserve());
+    }
+
+    @Test
+    void reserve_WithoutRate_ShouldNeverWait() {
+        SendRateLimiter limiter = new SendRateLimiter(0, 1);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, limiter.reserve());
+        }
+    }
+}
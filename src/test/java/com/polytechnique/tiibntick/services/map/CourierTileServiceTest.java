@@ -0,0 +1,102 @@
+package com.polytechnique.tiibntick.services.map;
+
+import com.polytechnique.tiibntick.services.location.CourierDensityGrid;
+import com.polytechnique.tiibntick.services.matching.CourierSpatialIndex;
+import com.polytechnique.tiibntick.testutil.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CourierTileService.
+ */
+@ExtendWith(MockitoExtension.class)
+class CourierTileServiceTest {
+
+    private static final double YAOUNDE_LAT = 3.8667;
+    private static final double YAOUNDE_LON = 11.5167;
+
+    @Mock
+    private CourierSpatialIndex courierSpatialIndex;
+
+    private CourierDensityGrid grid;
+    private MutableClock clock;
+    private CourierTileService service;
+
+    @BeforeEach
+    void setUp() {
+        grid = new CourierDensityGrid(List.of(8, 12));
+        clock = new MutableClock(Instant.parse("2026-10-18T10:00:00Z"));
+        service = new CourierTileService(courierSpatialIndex, grid, 13, Duration.ofSeconds(2), 100, clock);
+    }
+
+    @Test
+    void tile_BelowPointsZoom_ShouldClusterFromTheDensityGrid() {
+        grid.move(null, null, YAOUNDE_LAT, YAOUNDE_LON);
+        grid.move(null, null, YAOUNDE_LAT + 0.001, YAOUNDE_LON);
+        grid.move(null, null, 4.0511, 9.7679);
+
+        // Zoom 4 reads the zoom 8 level, where Yaoundé and Douala are distinct clusters
+        List<VectorTileEncoderTest.DecodedPoint> points = VectorTileEncoderTest.decode(service.tile(4,
+                WebMercator.tileX(4, YAOUNDE_LON), WebMercator.tileY(4, YAOUNDE_LAT)));
+
+        assertEquals(2, points.size());
+        assertEquals(Map.of("cluster", true, "point_count", 2), points.stream()
+                .filter(p -> (int) p.properties().get("point_count") == 2).findFirst().orElseThrow().properties());
+        for (VectorTileEncoderTest.DecodedPoint point : points) {
+            assertTrue(point.x() >= 0 && point.x() < CourierTileService.EXTENT);
+            assertTrue(point.y() >= 0 && point.y() < CourierTileService.EXTENT);
+        }
+        verifyNoInteractions(courierSpatialIndex);
+    }
+
+    @Test
+    void tile_AtPointsZoom_ShouldDrawEachCourierInsideTheTile() {
+        UUID inside = UUID.randomUUID();
+        when(courierSpatialIndex.queryBoundingBox(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(List.of(new CourierSpatialIndex.IndexedCourier(inside, UUID.randomUUID(), "Moto Express",
+                        YAOUNDE_LAT, YAOUNDE_LON, 0L),
+                        new CourierSpatialIndex.IndexedCourier(UUID.randomUUID(), UUID.randomUUID(), "Far",
+                                YAOUNDE_LAT, YAOUNDE_LON + 0.5, 0L)));
+        int x = WebMercator.tileX(14, YAOUNDE_LON);
+        int y = WebMercator.tileY(14, YAOUNDE_LAT);
+
+        List<VectorTileEncoderTest.DecodedPoint> points = VectorTileEncoderTest.decode(service.tile(14, x, y));
+
+        assertEquals(1, points.size());
+        assertEquals(Map.of("cluster", false, "point_count", 1, "id", inside.toString(), "name", "Moto Express"),
+                points.get(0).properties());
+        assertEquals((int) ((WebMercator.x(14, YAOUNDE_LON) - x) * CourierTileService.EXTENT), points.get(0).x());
+    }
+
+    @Test
+    void tile_ShouldBeServedFromCacheUntilTheTtlElapses() {
+        when(courierSpatialIndex.queryBoundingBox(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(List.of());
+
+        service.tile(15, 100, 200);
+        clock.advance(Duration.ofMillis(1500));
+        service.tile(15, 100, 200);
+        verify(courierSpatialIndex, times(1)).queryBoundingBox(anyDouble(), anyDouble(), anyDouble(), anyDouble());
+
+        clock.advance(Duration.ofMillis(600));
+        service.tile(15, 100, 200);
+        verify(courierSpatialIndex, times(2)).queryBoundingBox(anyDouble(), anyDouble(), anyDouble(), anyDouble());
+    }
+}
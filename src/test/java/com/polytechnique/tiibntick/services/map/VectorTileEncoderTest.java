@@ -0,0 +1,156 @@
+package com.polytechnique.tiibntick.services.map;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for VectorTileEncoder.
+ */
+class VectorTileEncoderTest {
+
+    record DecodedPoint(int x, int y, Map<String, Object> properties) {
+    }
+
+    @Test
+    void encode_SinglePoint_ShouldMatchTheSpecificationBytes() {
+        VectorTileEncoder encoder = new VectorTileEncoder("a", 4096);
+        encoder.addPoint(25, 17, Map.of("n", 1));
+
+        byte[] expected = {
+                0x1A, 0x1C, // layer, 28 bytes
+                0x78, 0x02, // version 2
+                0x0A, 0x01, 'a', // name
+                0x12, 0x0B, 0x12, 0x02, 0x00, 0x00, 0x18, 0x01, 0x22, 0x03, 0x09, 0x32, 0x22, // feature
+                0x1A, 0x01, 'n', // key
+                0x22, 0x02, 0x28, 0x01, // uint value 1
+                0x28, (byte) 0x80, 0x20 // extent 4096
+        };
+        assertArrayEquals(expected, encoder.encode());
+    }
+
+    @Test
+    void encode_ShouldShareKeysAndValuesAcrossFeatures() {
+        VectorTileEncoder encoder = new VectorTileEncoder("couriers", 4096);
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("cluster", true);
+        first.put("point_count", 12);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("cluster", false);
+        second.put("name", "Moto Express");
+        second.put("skipped", null);
+        encoder.addPoint(0, 4095, first);
+        encoder.addPoint(2048, 10, second);
+
+        List<DecodedPoint> points = decode(encoder.encode());
+
+        assertEquals(List.of(new DecodedPoint(0, 4095, first),
+                new DecodedPoint(2048, 10, Map.of("cluster", false, "name", "Moto Express"))), points);
+    }
+
+    @Test
+    void encode_WithoutFeatures_ShouldBeEmpty() {
+        assertEquals(0, new VectorTileEncoder("couriers", 4096).encode().length);
+    }
+
+    /**
+     * Decodes the point features of a single-layer tile.
+     */
+    static List<DecodedPoint> decode(byte[] tile) {
+        List<DecodedPoint> points = new ArrayList<>();
+        if (tile.length == 0) {
+            return points;
+        }
+        ByteArrayInputStream in = new ByteArrayInputStream(tile);
+        assertEquals(0x1A, in.read());
+        ByteArrayInputStream layer = new ByteArrayInputStream(bytes(in));
+
+        List<byte[]> features = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        while (layer.available() > 0) {
+            long tag = varint(layer);
+            int field = (int) (tag >>> 3);
+            if ((tag & 7) == 0) {
+                varint(layer);
+                continue;
+            }
+            byte[] payload = bytes(layer);
+            switch (field) {
+                case 2 -> features.add(payload);
+                case 3 -> keys.add(new String(payload, StandardCharsets.UTF_8));
+                case 4 -> values.add(decodeValue(payload));
+                default -> {
+                }
+            }
+        }
+
+        for (byte[] feature : features) {
+            ByteArrayInputStream f = new ByteArrayInputStream(feature);
+            Map<String, Object> properties = new LinkedHashMap<>();
+            int x = 0;
+            int y = 0;
+            while (f.available() > 0) {
+                long tag = varint(f);
+                if ((tag & 7) == 0) {
+                    assertEquals(1, varint(f));
+                    continue;
+                }
+                ByteArrayInputStream packed = new ByteArrayInputStream(bytes(f));
+                if (tag >>> 3 == 2) {
+                    while (packed.available() > 0) {
+                        properties.put(keys.get((int) varint(packed)), values.get((int) varint(packed)));
+                    }
+                } else {
+                    assertEquals(9, varint(packed));
+                    x = (int) unZigZag(varint(packed));
+                    y = (int) unZigZag(varint(packed));
+                }
+            }
+            points.add(new DecodedPoint(x, y, properties));
+        }
+        return points;
+    }
+
+    private static Object decodeValue(byte[] payload) {
+        ByteArrayInputStream in = new ByteArrayInputStream(payload);
+        long tag = varint(in);
+        return switch ((int) (tag >>> 3)) {
+            case 1 -> new String(bytes(in), StandardCharsets.UTF_8);
+            case 5 -> (int) varint(in);
+            case 6 -> (int) unZigZag(varint(in));
+            case 7 -> varint(in) == 1;
+            default -> throw new IllegalStateException("Unexpected value field " + (tag >>> 3));
+        };
+    }
+
+    private static byte[] bytes(ByteArrayInputStream in) {
+        byte[] payload = new byte[(int) varint(in)];
+        in.read(payload, 0, payload.length);
+        return payload;
+    }
+
+    private static long varint(ByteArrayInputStream in) {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.read();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
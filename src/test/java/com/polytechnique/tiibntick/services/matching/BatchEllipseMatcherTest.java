@@ -0,0 +1,104 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import com.polytechnique.tiibntick.models.DeliveryPerson;
+import com.polytechnique.tiibntick.repositories.DeliveryPersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for BatchEllipseMatcher.
+ */
+@ExtendWith(MockitoExtension.class)
+class BatchEllipseMatcherTest {
+
+    @Mock
+    private DeliveryPersonRepository deliveryPersonRepository;
+
+    private CourierSpatialIndex index;
+    private BatchEllipseMatcher matcher;
+
+    @BeforeEach
+    void setUp() {
+        index = new CourierSpatialIndex(deliveryPersonRepository, 0.02);
+        // Tiny leaves so the fork-join split and merge paths are exercised
+        matcher = new BatchEllipseMatcher(index, new DistanceEngine(0.01), 2, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        matcher.shutdown();
+    }
+
+    private DeliveryPerson courier(double lat, double lon) {
+        DeliveryPerson dp = new DeliveryPerson();
+        dp.setId(UUID.randomUUID());
+        dp.setPersonId(UUID.randomUUID());
+        dp.setIsActive(true);
+        dp.setLatitudeGps((float) lat);
+        dp.setLongitudeGps((float) lon);
+        return dp;
+    }
+
+    private void load(List<DeliveryPerson> couriers) {
+        when(deliveryPersonRepository.findAllByIsActiveTrueAndLatitudeGpsIsNotNullAndLongitudeGpsIsNotNull())
+                .thenReturn(Flux.fromIterable(couriers));
+        index.reload().block();
+    }
+
+    private BatchEllipseMatcher.Ellipse ellipse(double f1Lat, double f1Lon, double f2Lat, double f2Lon) {
+        double distF1F2 = DistanceEngine.haversineKm(f1Lat, f1Lon, f2Lat, f2Lon);
+        return BatchEllipseMatcher.Ellipse.of(f1Lat, f1Lon, f2Lat, f2Lon, distF1F2, distF1F2 + 20.0);
+    }
+
+    @Test
+    void filter_ShouldMatchEachAnnouncementAgainstSharedSnapshot() {
+        // 20 couriers around Yaoundé and 20 around Douala
+        List<DeliveryPerson> couriers = new ArrayList<>();
+        IntStream.range(0, 20).forEach(i -> couriers.add(courier(3.85 + i * 0.002, 11.50 + i * 0.002)));
+        IntStream.range(0, 20).forEach(i -> couriers.add(courier(4.04 + i * 0.002, 9.70 + i * 0.002)));
+        load(couriers);
+
+        List<BatchEllipseMatcher.Ellipse> batch = List.of(
+                ellipse(3.86, 11.50, 3.88, 11.53),
+                ellipse(4.05, 9.70, 4.06, 9.72));
+
+        CourierCoordinates snapshot = matcher.snapshot(batch).block();
+        List<List<MatchCandidate>> result = matcher.filter(snapshot, batch);
+
+        assertEquals(40, snapshot.size());
+        assertEquals(2, result.size());
+        assertEquals(20, result.get(0).size());
+        assertEquals(20, result.get(1).size());
+        assertTrue(result.get(0).stream().allMatch(c -> c.deliveryPerson().getLocation().getLat() < 4.0));
+        assertTrue(result.get(1).stream().allMatch(c -> c.deliveryPerson().getLocation().getLat() > 4.0));
+    }
+
+    @Test
+    void filter_ShouldComputeSameDistancesAsSequentialCheck() {
+        DeliveryPerson dp = courier(3.8667, 11.5167);
+        load(List.of(dp));
+        BatchEllipseMatcher.Ellipse ellipse = ellipse(3.86, 11.50, 3.88, 11.53);
+
+        List<List<MatchCandidate>> result = matcher.filter(matcher.snapshot(List.of(ellipse)).block(),
+                List.of(ellipse));
+
+        double expected = DistanceEngine.haversineKm(dp.getLatitudeGps(), dp.getLongitudeGps(), 3.86, 11.50)
+                + DistanceEngine.haversineKm(dp.getLatitudeGps(), dp.getLongitudeGps(), 3.88, 11.53);
+        assertEquals(1, result.get(0).size());
+        assertEquals(dp.getId(), result.get(0).get(0).deliveryPerson().getId());
+        assertEquals(expected, result.get(0).get(0).distanceSumKm(), 1e-9);
+    }
+}
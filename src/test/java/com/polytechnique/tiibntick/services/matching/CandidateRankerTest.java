@@ -0,0 +1,109 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import com.polytechnique.tiibntick.dtos.matching.CourierMatchProfile;
+import com.polytechnique.tiibntick.dtos.packet.PacketDTO;
+import com.polytechnique.tiibntick.elasticsearch.models.DeliveryPersonDocument;
+import com.polytechnique.tiibntick.models.enums.logistics.LogisticsClass;
+import com.polytechnique.tiibntick.models.enums.logistics.LogisticsType;
+import com.polytechnique.tiibntick.repositories.DeliveryPersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CandidateRanker.
+ */
+@ExtendWith(MockitoExtension.class)
+class CandidateRankerTest {
+
+    @Mock
+    private DeliveryPersonRepository deliveryPersonRepository;
+
+    private CandidateRanker ranker;
+
+    @BeforeEach
+    void setUp() {
+        ranker = new CandidateRanker(deliveryPersonRepository, 3, 0.5, 0.25, 0.5);
+    }
+
+    private MatchCandidate candidate(double detourKm) {
+        DeliveryPersonDocument doc = DeliveryPersonDocument.builder().id(UUID.randomUUID()).build();
+        return new MatchCandidate(doc, 10.0 + detourKm, detourKm);
+    }
+
+    private CourierMatchProfile vehicle(UUID id, LogisticsType type, LogisticsClass logisticsClass,
+            Double length, Double width, Double height, String unit) {
+        return new CourierMatchProfile(id, 4.0, 0, type, logisticsClass, length, width, height, unit);
+    }
+
+    @Test
+    void topK_ShouldKeepBestScoresInOrder() {
+        List<MatchCandidate> candidates = IntStream.of(5, 1, 4, 2, 3)
+                .mapToObj(this::candidate)
+                .toList();
+
+        List<MatchCandidate> best = ranker.topK(candidates);
+
+        assertEquals(3, best.size());
+        assertEquals(List.of(1.0, 2.0, 3.0), best.stream().map(MatchCandidate::score).toList());
+    }
+
+    @Test
+    void fits_ShouldCheckPayloadDimensionsAndClass() {
+        PacketDTO packet = new PacketDTO();
+        packet.setWeight(20.0);
+        packet.setLength(80.0);
+        packet.setWidth(40.0);
+        packet.setHeight(30.0);
+        packet.setFragile(true);
+
+        UUID id = UUID.randomUUID();
+        assertFalse(CandidateRanker.fits(vehicle(id, LogisticsType.BIKE, LogisticsClass.STANDARD,
+                null, null, null, null), packet));
+        assertTrue(CandidateRanker.fits(vehicle(id, LogisticsType.CAR, LogisticsClass.STANDARD,
+                1.0, 0.5, 0.4, "m"), packet));
+        assertFalse(CandidateRanker.fits(vehicle(id, LogisticsType.CAR, LogisticsClass.STANDARD,
+                60.0, 50.0, 40.0, "cm"), packet));
+        assertFalse(CandidateRanker.fits(vehicle(id, LogisticsType.CAR, LogisticsClass.DAMAGED,
+                null, null, null, null), packet));
+    }
+
+    @Test
+    void scoreAndFilter_ShouldDropUnfitAndRewardRating() {
+        MatchCandidate onBike = candidate(1.0);
+        MatchCandidate inCar = candidate(2.0);
+        MatchCandidate unknown = candidate(3.0);
+
+        PacketDTO packet = new PacketDTO();
+        packet.setWeight(40.0);
+
+        when(deliveryPersonRepository.findMatchProfilesByIdIn(anyCollection())).thenReturn(Flux.just(
+                vehicle(onBike.deliveryPerson().getId(), LogisticsType.BIKE, LogisticsClass.STANDARD,
+                        null, null, null, null),
+                vehicle(inCar.deliveryPerson().getId(), LogisticsType.CAR, LogisticsClass.PREMIUM,
+                        null, null, null, null)));
+
+        StepVerifier.create(ranker.scoreAndFilter(List.of(onBike, inCar, unknown), packet))
+                .assertNext(scored -> {
+                    assertEquals(2, scored.size());
+                    assertEquals(inCar.deliveryPerson().getId(), scored.get(0).deliveryPerson().getId());
+                    // 2.0 km detour - 0.5 * 4 stars - 0.5 premium bonus
+                    assertEquals(-0.5, scored.get(0).score(), 1e-9);
+                    assertEquals(unknown.deliveryPerson().getId(), scored.get(1).deliveryPerson().getId());
+                    assertEquals(3.0, scored.get(1).score(), 1e-9);
+                })
+                .verifyComplete();
+    }
+}
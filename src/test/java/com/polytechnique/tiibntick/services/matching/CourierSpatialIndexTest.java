@@ -0,0 +1,223 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import com.polytechnique.tiibntick.models.DeliveryPerson;
+import com.polytechnique.tiibntick.repositories.DeliveryPersonRepository;
+import com.polytechnique.tiibntick.services.location.CourierDensityGrid;
+import com.polytechnique.tiibntick.services.location.CourierPresenceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CourierSpatialIndex.
+ */
+@ExtendWith(MockitoExtension.class)
+class CourierSpatialIndexTest {
+
+    @Mock
+    private DeliveryPersonRepository deliveryPersonRepository;
+    @Mock
+    private CourierPresenceService courierPresenceService;
+
+    private CourierSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CourierSpatialIndex(deliveryPersonRepository, 0.02);
+    }
+
+    private DeliveryPerson courier(double lat, double lon) {
+        DeliveryPerson dp = new DeliveryPerson();
+        dp.setId(UUID.randomUUID());
+        dp.setPersonId(UUID.randomUUID());
+        dp.setIsActive(true);
+        dp.setLatitudeGps((float) lat);
+        dp.setLongitudeGps((float) lon);
+        return dp;
+    }
+
+    @Test
+    void queryEllipse_ShouldOnlyReturnNearbyCouriers() {
+        // Yaoundé centre and Douala
+        DeliveryPerson yaounde = courier(3.8667, 11.5167);
+        DeliveryPerson douala = courier(4.0511, 9.7679);
+        index.upsert(yaounde);
+        index.upsert(douala);
+
+        List<CourierSpatialIndex.IndexedCourier> result = index.queryEllipse(
+                3.86, 11.50, 3.88, 11.53, 4.0, 24.0);
+
+        assertEquals(1, result.size());
+        assertEquals(yaounde.getId(), result.get(0).id());
+    }
+
+    @Test
+    void upsert_ShouldMoveCourierBetweenCells() {
+        DeliveryPerson dp = courier(3.8667, 11.5167);
+        index.upsert(dp);
+
+        dp.setLatitudeGps(4.0511f);
+        dp.setLongitudeGps(9.7679f);
+        index.upsert(dp);
+
+        assertEquals(1, index.size());
+        assertTrue(index.queryBoundingBox(3.80, 11.45, 3.90, 11.55).isEmpty());
+        assertEquals(1, index.queryBoundingBox(4.00, 9.70, 4.10, 9.80).size());
+    }
+
+    @Test
+    void upsertAndEvict_ShouldKeepCellColumnsInStep() {
+        DeliveryPerson first = courier(3.8667, 11.5167);
+        DeliveryPerson second = courier(3.8670, 11.5170);
+        DeliveryPerson third = courier(3.8673, 11.5173);
+        index.upsert(first);
+        index.upsert(second);
+        index.upsert(third);
+        second.setLatitudeGps(3.8675f);
+        index.upsert(second);
+        index.evict(first.getId());
+
+        List<CourierCoordinates> cells = index.queryCells(3.86, 11.51, 3.87, 11.52);
+
+        assertEquals(1, cells.size());
+        CourierCoordinates cell = cells.get(0);
+        assertEquals(2, cell.size());
+        for (int i = 0; i < cell.size(); i++) {
+            CourierSpatialIndex.IndexedCourier courier = cell.courier(i);
+            assertEquals(Math.toRadians(courier.latitude()), cell.latRad[i]);
+            assertEquals(Math.toRadians(courier.longitude()), cell.lonRad[i]);
+            assertEquals(Math.cos(cell.latRad[i]), cell.cosLat[i]);
+        }
+        assertEquals(List.of(second.getId(), third.getId()), List.of(cell.courier(0).id(), cell.courier(1).id()));
+        assertEquals((double) second.getLatitudeGps(), cell.courier(0).latitude());
+    }
+
+    @Test
+    void reload_ShouldBuildTheSameCellsAsUpserts() {
+        DeliveryPerson first = courier(3.8667, 11.5167);
+        DeliveryPerson second = courier(3.8670, 11.5170);
+        DeliveryPerson douala = courier(4.0511, 9.7679);
+        index.upsert(first);
+        // Second courier is indexed in Douala, then reloaded in Yaoundé
+        second.setLatitudeGps(4.0520f);
+        second.setLongitudeGps(9.7690f);
+        index.upsert(second);
+        second.setLatitudeGps(3.8670f);
+        second.setLongitudeGps(11.5170f);
+
+        when(deliveryPersonRepository.findAllByIsActiveTrueAndLatitudeGpsIsNotNullAndLongitudeGpsIsNotNull())
+                .thenReturn(Flux.just(first, second, douala));
+        StepVerifier.create(index.reload()).verifyComplete();
+
+        assertEquals(3, index.size());
+        List<CourierCoordinates> yaounde = index.queryCells(3.86, 11.51, 3.87, 11.52);
+        assertEquals(1, yaounde.size());
+        assertEquals(2, yaounde.get(0).size());
+        assertEquals(Math.toRadians(second.getLatitudeGps()), yaounde.get(0).latRad[1]);
+        assertEquals(1, index.queryBoundingBox(4.00, 9.70, 4.10, 9.80).size());
+        assertEquals(douala.getId(), index.queryBoundingBox(4.00, 9.70, 4.10, 9.80).get(0).id());
+    }
+
+    @Test
+    void upsert_InactiveCourier_ShouldEvict() {
+        DeliveryPerson dp = courier(3.8667, 11.5167);
+        index.upsert(dp);
+
+        dp.setIsActive(false);
+        index.upsert(dp);
+
+        assertEquals(0, index.size());
+        assertTrue(index.queryBoundingBox(3.80, 11.45, 3.90, 11.55).isEmpty());
+    }
+
+    @Test
+    void reload_ShouldDropCouriersNoLongerInDatabase() {
+        DeliveryPerson stale = courier(3.8667, 11.5167);
+        DeliveryPerson fresh = courier(3.8700, 11.5200);
+        index.upsert(stale);
+
+        when(deliveryPersonRepository.findAllByIsActiveTrueAndLatitudeGpsIsNotNullAndLongitudeGpsIsNotNull())
+                .thenReturn(Flux.just(fresh));
+
+        StepVerifier.create(index.reload()).verifyComplete();
+
+        assertTrue(index.isLoaded());
+        List<CourierSpatialIndex.IndexedCourier> result = index.queryBoundingBox(3.80, 11.45, 3.90, 11.55);
+        assertEquals(1, result.size());
+        assertEquals(fresh.getId(), result.get(0).id());
+    }
+
+    @Test
+    void findInEllipse_ColdIndex_ShouldQueryDatabaseBoundingBoxAndWarmUp() {
+        DeliveryPerson yaounde = courier(3.8667, 11.5167);
+
+        when(deliveryPersonRepository.findActiveInBoundingBox(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(Flux.just(yaounde));
+        when(deliveryPersonRepository.findAllByIsActiveTrueAndLatitudeGpsIsNotNullAndLongitudeGpsIsNotNull())
+                .thenReturn(Flux.just(yaounde));
+
+        StepVerifier.create(index.findInEllipse(3.86, 11.50, 3.88, 11.53, 4.0, 24.0))
+                .assertNext(result -> {
+                    assertEquals(1, result.size());
+                    assertEquals(1, result.get(0).size());
+                    assertEquals(yaounde.getId(), result.get(0).courier(0).id());
+                })
+                .verifyComplete();
+
+        verify(deliveryPersonRepository).findActiveInBoundingBox(anyDouble(), anyDouble(), anyDouble(), anyDouble());
+        assertTrue(index.isLoaded());
+    }
+
+    @Test
+    void upsert_StaleCourier_ShouldBeLeftOutWhenPresenceIsTracked() {
+        CourierSpatialIndex presenceAware = new CourierSpatialIndex(deliveryPersonRepository, 0.02,
+                courierPresenceService, null);
+        DeliveryPerson fresh = courier(3.8667, 11.5167);
+        fresh.setLastSeenAt(Instant.now());
+        DeliveryPerson stale = courier(3.8700, 11.5200);
+        when(courierPresenceService.isFresh(any())).thenAnswer(inv -> inv.getArgument(0) != null);
+
+        presenceAware.upsert(fresh);
+        presenceAware.upsert(stale);
+
+        List<CourierSpatialIndex.IndexedCourier> result = presenceAware.queryBoundingBox(3.80, 11.45, 3.90, 11.55);
+        assertEquals(1, result.size());
+        assertEquals(fresh.getId(), result.get(0).id());
+    }
+
+    @Test
+    void upsertAndEvict_ShouldKeepDensityGridInStep() {
+        CourierDensityGrid grid = new CourierDensityGrid(List.of(8));
+        CourierSpatialIndex withGrid = new CourierSpatialIndex(deliveryPersonRepository, 0.02, null, grid);
+        DeliveryPerson first = courier(3.8667, 11.5167);
+        DeliveryPerson second = courier(4.0511, 9.7679);
+
+        withGrid.upsert(first);
+        withGrid.upsert(second);
+        // Second courier drives to Yaoundé, then the first one goes inactive
+        second.setLatitudeGps(3.8700f);
+        second.setLongitudeGps(11.5200f);
+        withGrid.upsert(second);
+        first.setIsActive(false);
+        withGrid.upsert(first);
+
+        assertArrayEquals(new int[] { 136, 125, 1 }, grid.snapshot(8, -90, -180, 90, 180).getCells());
+
+        withGrid.evict(second.getId());
+        assertEquals(0, grid.snapshot(8, -90, -180, 90, 180).getCells().length);
+    }
+}
@@ -0,0 +1,70 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DistanceEngine.
+ */
+class DistanceEngineTest {
+
+    private final DistanceEngine engine = new DistanceEngine(0.01);
+
+    private static double referenceHaversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.pow(Math.sin(dLat / 2), 2) + Math.pow(Math.sin(dLon / 2), 2)
+                * Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2));
+        return 2 * DistanceEngine.EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    @Test
+    void haversineKm_ShouldMatchReferenceFormula() {
+        // Yaoundé to Douala
+        double distance = DistanceEngine.haversineKm(3.8667, 11.5167, 4.0511, 9.7679);
+
+        assertEquals(referenceHaversine(3.8667, 11.5167, 4.0511, 9.7679), distance, 1e-9);
+        assertEquals(195.0, distance, 5.0);
+    }
+
+    @Test
+    void filterEllipse_ShouldReturnExactlyTheCouriersOfTheSequentialCheck() {
+        Random random = new Random(42);
+        List<CourierSpatialIndex.IndexedCourier> couriers = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            double lat = 3.70 + random.nextDouble() * 0.35;
+            double lon = 11.35 + random.nextDouble() * 0.35;
+            couriers.add(new CourierSpatialIndex.IndexedCourier(UUID.randomUUID(), UUID.randomUUID(), null, lat,
+                    lon, 0L));
+        }
+        CourierCoordinates coordinates = CourierCoordinates.of(couriers);
+
+        double f1Lat = 3.86, f1Lon = 11.50, f2Lat = 3.88, f2Lon = 11.53;
+        double dMax = referenceHaversine(f1Lat, f1Lon, f2Lat, f2Lon) + 8.0;
+
+        int[] rows = new int[coordinates.size()];
+        double[] sums = new double[coordinates.size()];
+        int count = engine.filterEllipse(coordinates, 0, coordinates.size(), f1Lat, f1Lon, f2Lat, f2Lon, dMax,
+                rows, sums);
+
+        int expected = 0;
+        for (int i = 0; i < couriers.size(); i++) {
+            CourierSpatialIndex.IndexedCourier c = couriers.get(i);
+            double sum = referenceHaversine(c.latitude(), c.longitude(), f1Lat, f1Lon)
+                    + referenceHaversine(c.latitude(), c.longitude(), f2Lat, f2Lon);
+            if (sum <= dMax) {
+                assertEquals(i, rows[expected]);
+                assertEquals(sum, sums[expected], 1e-9);
+                expected++;
+            }
+        }
+        assertTrue(expected > 0);
+        assertEquals(expected, count);
+    }
+}
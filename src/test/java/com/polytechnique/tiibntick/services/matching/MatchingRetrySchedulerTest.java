@@ -0,0 +1,94 @@
+package com.polytechnique.tiibntick.services.matching;
+
+import com.polytechnique.tiibntick.dtos.announcement.AnnouncementResponseDTO;
+import com.polytechnique.tiibntick.models.MatchingRetry;
+import com.polytechnique.tiibntick.models.enums.announcement.AnnouncementStatus;
+import com.polytechnique.tiibntick.services.AnnouncementService;
+import com.polytechnique.tiibntick.services.MatchingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for MatchingRetryScheduler.
+ */
+@ExtendWith(MockitoExtension.class)
+class MatchingRetrySchedulerTest {
+
+    @Mock
+    private MatchingRetryService matchingRetryService;
+    @Mock
+    private AnnouncementService announcementService;
+    @Mock
+    private MatchingService matchingService;
+
+    private MatchingRetryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new MatchingRetryScheduler(matchingRetryService, announcementService, matchingService, 10, 2);
+    }
+
+    private MatchingRetry retry(UUID announcementId) {
+        return new MatchingRetry(announcementId, 1, Instant.now(), Instant.now(), Instant.now());
+    }
+
+    @Test
+    void runBatch_PublishedAnnouncement_ShouldRematch() {
+        UUID announcementId = UUID.randomUUID();
+        AnnouncementResponseDTO announcement = new AnnouncementResponseDTO();
+        announcement.setId(announcementId);
+        announcement.setStatus(AnnouncementStatus.PUBLISHED);
+
+        when(matchingRetryService.claimDue(10)).thenReturn(Flux.just(retry(announcementId)));
+        when(announcementService.getAnnouncement(announcementId)).thenReturn(Mono.just(announcement));
+        when(matchingService.matchAnnouncement(announcement)).thenReturn(Mono.empty());
+
+        StepVerifier.create(scheduler.runBatch()).verifyComplete();
+
+        verify(matchingService).matchAnnouncement(announcement);
+        verify(matchingRetryService, never()).cancel(any());
+    }
+
+    @Test
+    void runBatch_AnnouncementNoLongerPublished_ShouldCancel() {
+        UUID announcementId = UUID.randomUUID();
+        AnnouncementResponseDTO announcement = new AnnouncementResponseDTO();
+        announcement.setId(announcementId);
+        announcement.setStatus(AnnouncementStatus.ASSIGNED);
+
+        when(matchingRetryService.claimDue(10)).thenReturn(Flux.just(retry(announcementId)));
+        when(announcementService.getAnnouncement(announcementId)).thenReturn(Mono.just(announcement));
+        when(matchingRetryService.cancel(announcementId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(scheduler.runBatch()).verifyComplete();
+
+        verify(matchingRetryService).cancel(announcementId);
+        verify(matchingService, never()).matchAnnouncement(any());
+    }
+
+    @Test
+    void runBatch_DeletedAnnouncement_ShouldCancel() {
+        UUID announcementId = UUID.randomUUID();
+
+        when(matchingRetryService.claimDue(10)).thenReturn(Flux.just(retry(announcementId)));
+        when(announcementService.getAnnouncement(announcementId)).thenReturn(Mono.empty());
+        when(matchingRetryService.cancel(announcementId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(scheduler.runBatch()).verifyComplete();
+
+        verify(matchingRetryService).cancel(announcementId);
+        verify(matchingService, never()).matchAnnouncement(any());
+    }
+}
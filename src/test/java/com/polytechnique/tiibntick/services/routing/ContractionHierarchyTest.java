@@ -0,0 +1,100 @@
+package com.polytechnique.tiibntick.services.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for ContractionHierarchy.
+ */
+class ContractionHierarchyTest {
+
+    @Test
+    void manyToMany_ShouldMatchPlainDijkstraOnARandomRoadGrid() {
+        Random random = new Random(7);
+        int side = 20;
+        int nodeCount = side * side;
+        List<int[]> edges = new ArrayList<>();
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                int node = row * side + col;
+                if (col + 1 < side) {
+                    addRoad(edges, node, node + 1, 50 + random.nextInt(200), random.nextInt(4) == 0);
+                }
+                if (row + 1 < side) {
+                    addRoad(edges, node, node + side, 50 + random.nextInt(200), random.nextInt(4) == 0);
+                }
+            }
+        }
+        RoadGraph graph = graph(nodeCount, edges);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph, 50);
+
+        int[] sources = random.ints(15, 0, nodeCount).toArray();
+        int[] targets = random.ints(10, 0, nodeCount).toArray();
+        int[][] matrix = hierarchy.manyToMany(sources, targets);
+
+        for (int s = 0; s < sources.length; s++) {
+            int[] expected = dijkstra(graph, sources[s]);
+            for (int t = 0; t < targets.length; t++) {
+                assertEquals(expected[targets[t]], matrix[s][t], "from " + sources[s] + " to " + targets[t]);
+            }
+        }
+    }
+
+    @Test
+    void manyToMany_ShouldReportUnreachableAndUnsnappedNodes() {
+        // 0 -> 1 -> 2 one way, 3 isolated
+        List<int[]> edges = List.of(new int[] { 0, 1, 100 }, new int[] { 1, 2, 100 });
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph(4, edges), 50);
+
+        int[][] matrix = hierarchy.manyToMany(new int[] { 0, 2, -1 }, new int[] { 2, 0, 3 });
+
+        int unreachable = ContractionHierarchy.UNREACHABLE;
+        assertArrayEquals(new int[] { 200, 0, unreachable }, matrix[0]);
+        assertArrayEquals(new int[] { 0, unreachable, unreachable }, matrix[1]);
+        assertArrayEquals(new int[] { unreachable, unreachable, unreachable }, matrix[2]);
+    }
+
+    private static void addRoad(List<int[]> edges, int a, int b, int meters, boolean oneWay) {
+        edges.add(new int[] { a, b, meters });
+        if (!oneWay) {
+            edges.add(new int[] { b, a, meters });
+        }
+    }
+
+    private static RoadGraph graph(int nodeCount, List<int[]> edges) {
+        int[] tails = edges.stream().mapToInt(e -> e[0]).toArray();
+        int[] heads = edges.stream().mapToInt(e -> e[1]).toArray();
+        int[] weights = edges.stream().mapToInt(e -> e[2]).toArray();
+        return new RoadGraph(new double[nodeCount], new double[nodeCount], edges.size(), tails, heads, weights);
+    }
+
+    private static int[] dijkstra(RoadGraph graph, int source) {
+        int[] dist = new int[graph.nodeCount()];
+        Arrays.fill(dist, ContractionHierarchy.UNREACHABLE);
+        dist[source] = 0;
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Integer.compare(a[1], b[1]));
+        queue.add(new int[] { source, 0 });
+        while (!queue.isEmpty()) {
+            int[] entry = queue.poll();
+            if (entry[1] > dist[entry[0]]) {
+                continue;
+            }
+            for (int e = graph.firstOut[entry[0]]; e < graph.firstOut[entry[0] + 1]; e++) {
+                int d = entry[1] + graph.weight[e];
+                if (d < dist[graph.head[e]]) {
+                    dist[graph.head[e]] = d;
+                    queue.add(new int[] { graph.head[e], d });
+                }
+            }
+        }
+        return dist;
+    }
+}
@@ -0,0 +1,136 @@
+package com.polytechnique.tiibntick.services.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RoadRouter.
+ */
+class RoadRouterTest {
+
+    /**
+     * A one-way street (nodes 1 to 4) with a parallel two-way street to the
+     * south (5 to 8) joined at both ends, a footway short-cutting 4 to 1, and
+     * a disconnected two-node fragment far away. Nodes are about 1.11 km
+     * apart.
+     */
+    private static final String EXTRACT = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <osm version="0.6">
+              <way id="100">
+                <nd ref="1"/><nd ref="2"/><nd ref="3"/><nd ref="4"/>
+                <tag k="highway" v="primary"/><tag k="oneway" v="yes"/>
+              </way>
+              <way id="101">
+                <nd ref="5"/><nd ref="6"/><nd ref="7"/><nd ref="8"/>
+                <tag k="highway" v="residential"/>
+              </way>
+              <way id="102"><nd ref="1"/><nd ref="5"/><tag k="highway" v="residential"/></way>
+              <way id="103"><nd ref="4"/><nd ref="8"/><tag k="highway" v="residential"/></way>
+              <way id="104"><nd ref="4"/><nd ref="1"/><tag k="highway" v="footway"/></way>
+              <way id="105"><nd ref="9"/><nd ref="10"/><tag k="highway" v="residential"/></way>
+              <node id="1" lat="3.86" lon="11.50"/>
+              <node id="2" lat="3.86" lon="11.51"/>
+              <node id="3" lat="3.86" lon="11.52"/>
+              <node id="4" lat="3.86" lon="11.53"/>
+              <node id="5" lat="3.85" lon="11.50"/>
+              <node id="6" lat="3.85" lon="11.51"/>
+              <node id="7" lat="3.85" lon="11.52"/>
+              <node id="8" lat="3.85" lon="11.53"/>
+              <node id="9" lat="4.05" lon="9.70"/>
+              <node id="10" lat="4.05" lon="9.71"/>
+            </osm>
+            """;
+
+    /**
+     * Two disjoint three-node streets, one in Yaoundé and one in Douala.
+     */
+    private static final String TWO_CITIES = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <osm version="0.6">
+              <way id="200"><nd ref="1"/><nd ref="2"/><nd ref="3"/><tag k="highway" v="primary"/></way>
+              <way id="201"><nd ref="4"/><nd ref="5"/><nd ref="6"/><tag k="highway" v="primary"/></way>
+              <node id="1" lat="3.86" lon="11.50"/>
+              <node id="2" lat="3.86" lon="11.51"/>
+              <node id="3" lat="3.86" lon="11.52"/>
+              <node id="4" lat="4.05" lon="9.70"/>
+              <node id="5" lat="4.05" lon="9.71"/>
+              <node id="6" lat="4.05" lon="9.72"/>
+            </osm>
+            """;
+
+    @TempDir
+    Path directory;
+
+    private RoadRouter loadedRouter() throws IOException {
+        return loadedRouter(EXTRACT);
+    }
+
+    private RoadRouter loadedRouter(String extract) throws IOException {
+        Path file = directory.resolve("roads.osm");
+        Files.writeString(file, extract);
+        RoadRouter router = new RoadRouter(file.toString(), 500, 100, 3);
+        router.load(file);
+        return router;
+    }
+
+    @Test
+    void distanceMatrixKm_ShouldFollowOneWayStreets() throws IOException {
+        RoadRouter router = loadedRouter();
+
+        double[][] km = router.distanceMatrixKm(new double[] { 3.86, 3.86 }, new double[] { 11.50, 11.53 },
+                new double[] { 3.86, 3.86 }, new double[] { 11.53, 11.50 });
+
+        assertTrue(router.isReady());
+        // West to east along the one-way street
+        assertEquals(3.33, km[0][0], 0.02);
+        // East to west around through the southern street, ignoring the footway
+        assertEquals(5.56, km[1][1], 0.03);
+        assertEquals(0.0, km[0][1], 1e-9);
+    }
+
+    @Test
+    void distanceMatrixKm_ShouldAddSnapDistanceAndRejectFarPoints() throws IOException {
+        RoadRouter router = loadedRouter();
+
+        double[][] km = router.distanceMatrixKm(
+                new double[] { 3.8620, 4.05, 3.0 }, new double[] { 11.50, 9.70, 11.0 },
+                new double[] { 3.86 }, new double[] { 11.51 });
+
+        // About 222 m north of node 1, then 1.11 km east
+        assertEquals(1.33, km[0][0], 0.02);
+        // The fragment is below the minimum size and dropped, and nothing is within 500 m of the last point
+        assertTrue(Double.isNaN(km[1][0]));
+        assertTrue(Double.isNaN(km[2][0]));
+    }
+
+    @Test
+    void distanceMatrixKm_DisjointCityNetworks_ShouldRouteInsideEach() throws IOException {
+        RoadRouter router = loadedRouter(TWO_CITIES);
+
+        double[][] km = router.distanceMatrixKm(new double[] { 3.86, 4.05 }, new double[] { 11.50, 9.70 },
+                new double[] { 3.86, 4.05 }, new double[] { 11.52, 9.72 });
+
+        assertEquals(2.22, km[0][0], 0.02);
+        assertEquals(2.22, km[1][1], 0.02);
+        // No road between the cities
+        assertTrue(Double.isNaN(km[0][1]));
+        assertTrue(Double.isNaN(km[1][0]));
+    }
+
+    @Test
+    void distanceMatrixKm_WithoutNetwork_ShouldReturnNaN() {
+        RoadRouter router = new RoadRouter("", 500, 100, 3);
+        router.loadOnStartup();
+
+        assertFalse(router.isReady());
+        assertTrue(Double.isNaN(router.distanceMatrixKm(new double[] { 3.86 }, new double[] { 11.50 },
+                new double[] { 3.86 }, new double[] { 11.53 })[0][0]));
+    }
+}
@@ -0,0 +1,69 @@
+package com.polytechnique.tiibntick.services.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for NotificationDispatchQueue.
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationDispatchQueueTest {
+
+    @Mock
+    private PushNotificationService pushNotificationService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private NotificationDispatchQueue.Dispatch dispatch() {
+        return new NotificationDispatchQueue.Dispatch(UUID.randomUUID(), "title", "message");
+    }
+
+    @Test
+    void enqueueAll_ShouldSendThePushInTheBackground() {
+        when(pushNotificationService.sendPushNotification(any(), anyString(), anyString())).thenReturn(Mono.empty());
+        NotificationDispatchQueue queue = new NotificationDispatchQueue(pushNotificationService, meterRegistry, 10, 2);
+        NotificationDispatchQueue.Dispatch dispatch = dispatch();
+
+        assertEquals(0, queue.enqueueAll(List.of(dispatch)));
+
+        verify(pushNotificationService, timeout(1000)).sendPushNotification(dispatch.deliveryPersonId(), "title",
+                "message");
+    }
+
+    @Test
+    void enqueueAll_WhenFull_ShouldDropTheOverflow() {
+        // The first dispatch never completes, so it keeps its place in the queue
+        Sinks.Empty<Void> stuck = Sinks.empty();
+        when(pushNotificationService.sendPushNotification(any(), anyString(), anyString()))
+                .thenReturn(stuck.asMono());
+        NotificationDispatchQueue queue = new NotificationDispatchQueue(pushNotificationService, meterRegistry, 2, 1);
+
+        int dropped = queue.enqueueAll(List.of(dispatch(), dispatch(), dispatch()));
+
+        assertEquals(1, dropped);
+        assertEquals(1, meterRegistry.get("notification.dispatch.dropped").counter().count());
+        assertEquals(2, meterRegistry.get("notification.dispatch.queued").gauge().value());
+        stuck.tryEmitEmpty();
+    }
+}
@@ -0,0 +1,98 @@
+package com.polytechnique.tiibntick.services.support;
+
+import com.polytechnique.tiibntick.models.Notification;
+import com.polytechnique.tiibntick.repositories.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for NotificationReplayService.
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationReplayServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-18T10:00:00Z");
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    private NotificationReplayService service;
+    private UUID deliveryPersonId;
+
+    @BeforeEach
+    void setUp() {
+        service = new NotificationReplayService(notificationRepository, 10, Duration.ofHours(1), 2,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        deliveryPersonId = UUID.randomUUID();
+    }
+
+    private Notification notification(long eventId) {
+        Notification notification = new Notification();
+        notification.setAnnouncementId(UUID.randomUUID());
+        notification.setTitle("Nouvelle annonce " + eventId);
+        notification.setMessage("message");
+        notification.setEventId(eventId);
+        return notification;
+    }
+
+    @Test
+    void missedSince_ShouldReturnTheNewestEventsOldestFirst() {
+        when(notificationRepository.findNewestAnnouncementNotifications(deliveryPersonId, 5L,
+                NOW.minus(Duration.ofHours(1)), 10))
+                .thenReturn(Flux.just(notification(8), notification(7), notification(6)));
+
+        StepVerifier.create(service.missedSince(deliveryPersonId, 5L))
+                .expectNextMatches(events -> events.size() == 3
+                        && events.get(0).getEventId() == 6
+                        && events.get(2).getEventId() == 8
+                        && deliveryPersonId.equals(events.get(0).getDeliveryPersonId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void missedSince_ShouldShareOneQueryBetweenIdenticalRequests() {
+        Sinks.Many<Notification> rows = Sinks.many().unicast().onBackpressureBuffer();
+        when(notificationRepository.findNewestAnnouncementNotifications(eq(deliveryPersonId), eq(5L), any(),
+                anyInt())).thenReturn(rows.asFlux());
+
+        var first = service.missedSince(deliveryPersonId, 5L);
+        var second = service.missedSince(deliveryPersonId, 5L);
+        rows.tryEmitNext(notification(6));
+        rows.tryEmitComplete();
+
+        StepVerifier.create(first).expectNextMatches(events -> events.size() == 1).verifyComplete();
+        StepVerifier.create(second).expectNextMatches(events -> events.size() == 1).verifyComplete();
+        verify(notificationRepository, times(1)).findNewestAnnouncementNotifications(any(), anyLong(), any(),
+                anyInt());
+    }
+
+    @Test
+    void missedSince_ShouldReplayNothingWhenTheQueryFails() {
+        when(notificationRepository.findNewestAnnouncementNotifications(any(), anyLong(), any(), anyInt()))
+                .thenReturn(Flux.error(new RuntimeException("connection refused")));
+
+        StepVerifier.create(service.missedSince(deliveryPersonId, 5L))
+                .expectNextMatches(events -> events.isEmpty())
+                .verifyComplete();
+    }
+}
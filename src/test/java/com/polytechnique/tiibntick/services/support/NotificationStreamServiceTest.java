@@ -0,0 +1,256 @@
+package com.polytechnique.tiibntick.services.support;
+
+import com.polytechnique.tiibntick.events.MatchingNotificationEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for NotificationStreamService.
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationStreamServiceTest {
+
+    @Mock
+    private NotificationStreamRouter notificationStreamRouter;
+
+    @Mock
+    private NotificationReplayService notificationReplayService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationStreamService service;
+    private UUID deliveryPersonId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(notificationStreamRouter.route(any())).thenReturn(Mono.empty());
+        service = serviceLingering(0);
+        deliveryPersonId = UUID.randomUUID();
+    }
+
+    private NotificationStreamService serviceLingering(long lingerMs) {
+        return new NotificationStreamService(meterRegistry, notificationStreamRouter, notificationReplayService,
+                3, 15000, 4, lingerMs);
+    }
+
+    private MatchingNotificationEvent event(String title) {
+        return MatchingNotificationEvent.builder()
+                .deliveryPersonId(deliveryPersonId)
+                .announcementId(UUID.randomUUID())
+                .title(title)
+                .build();
+    }
+
+    private MatchingNotificationEvent event(long eventId) {
+        return MatchingNotificationEvent.builder()
+                .deliveryPersonId(deliveryPersonId)
+                .announcementId(UUID.randomUUID())
+                .title(String.valueOf(eventId))
+                .eventId(eventId)
+                .build();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    @Test
+    void pushNotification_ShouldReachEveryOpenStreamOfTheCourier() {
+        StepVerifier.create(service.getNotificationStream(deliveryPersonId)
+                .mergeWith(service.getNotificationStream(deliveryPersonId)))
+                .then(() -> service.pushNotification(event("A")))
+                .expectNextMatches(e -> e.getTitle().equals("A"))
+                .expectNextMatches(e -> e.getTitle().equals("A"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void slowSubscriber_ShouldKeepTheNewestEventsOnly() {
+        StepVerifier.create(service.getNotificationStream(deliveryPersonId), 0)
+                .then(() -> {
+                    for (String title : new String[] { "1", "2", "3", "4", "5" }) {
+                        service.pushNotification(event(title));
+                    }
+                    assertEquals(3, gauge("notification.streams.buffered"));
+                    assertEquals(2, meterRegistry.get("notification.streams.dropped").counter().count());
+                })
+                .thenRequest(10)
+                .expectNextMatches(e -> e.getTitle().equals("3"))
+                .expectNextMatches(e -> e.getTitle().equals("4"))
+                .expectNextMatches(e -> e.getTitle().equals("5"))
+                .then(() -> assertEquals(0, gauge("notification.streams.buffered")))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void cancel_ShouldUnregisterTheConnectionAndReleaseItsBuffer() {
+        StepVerifier.create(service.getNotificationStream(deliveryPersonId), 0)
+                .then(() -> {
+                    assertEquals(1, gauge("notification.streams.open"));
+                    service.pushNotification(event("pending"));
+                })
+                .thenCancel()
+                .verify();
+
+        assertEquals(0, gauge("notification.streams.open"));
+        assertEquals(0, gauge("notification.streams.buffered"));
+        // Nobody is connected any more: the event is not buffered anywhere
+        service.pushNotification(event("late"));
+        assertEquals(0, gauge("notification.streams.buffered"));
+    }
+
+    @Test
+    void serverSentEventStream_ShouldSendHeartbeatComments() {
+        StepVerifier.withVirtualTime(() -> service.getServerSentEventStream(deliveryPersonId, null))
+                .expectSubscription()
+                .thenAwait(Duration.ofSeconds(15))
+                .expectNextMatches(sse -> "heartbeat".equals(sse.comment()) && sse.data() == null)
+                .then(() -> service.pushNotification(event("A")))
+                .expectNextMatches(sse -> sse.data() != null && sse.data().getTitle().equals("A"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void streams_ShouldRegisterWithTheRouterOnFirstOpenAndLastClose() {
+        StepVerifier.create(service.getNotificationStream(deliveryPersonId)
+                .mergeWith(service.getNotificationStream(deliveryPersonId)))
+                .then(() -> {
+                    verify(notificationStreamRouter, times(1)).register(deliveryPersonId);
+                    verify(notificationStreamRouter, never()).unregister(deliveryPersonId);
+                })
+                .thenCancel()
+                .verify();
+
+        verify(notificationStreamRouter, times(1)).unregister(deliveryPersonId);
+    }
+
+    @Test
+    void pushNotification_ShouldRouteToOtherNodesEvenWithoutLocalStream() {
+        MatchingNotificationEvent event = event("remote");
+
+        service.pushNotification(event);
+
+        verify(notificationStreamRouter).route(event);
+    }
+
+    @Test
+    void routedNotification_ShouldBeDeliveredLocallyWithoutRoutingAgain() {
+        Sinks.Many<MatchingNotificationEvent> routed = Sinks.many().multicast().directBestEffort();
+        when(notificationStreamRouter.inbound()).thenReturn(routed.asFlux());
+        service.subscribeToRoutedNotifications();
+
+        StepVerifier.create(service.getNotificationStream(deliveryPersonId))
+                .then(() -> routed.tryEmitNext(event("from another node")))
+                .expectNextMatches(e -> e.getTitle().equals("from another node"))
+                .thenCancel()
+                .verify();
+
+        verify(notificationStreamRouter, never()).route(any());
+    }
+
+    @Test
+    void serverSentEventStream_ShouldCarryTheEventId() {
+        StepVerifier.create(service.getServerSentEventStream(deliveryPersonId, null))
+                .then(() -> service.pushNotification(event(42)))
+                .expectNextMatches(sse -> "42".equals(sse.id()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void resume_ShouldReplayFromMemoryWhenReconnectingWithinTheLinger() {
+        service = serviceLingering(60_000);
+
+        StepVerifier.create(service.getNotificationStream(deliveryPersonId))
+                .then(() -> service.pushNotification(event(1)))
+                .expectNextMatches(e -> e.getEventId() == 1)
+                .thenCancel()
+                .verify();
+        // Sent while the courier is reconnecting
+        service.pushNotification(event(2));
+        service.pushNotification(event(3));
+
+        StepVerifier.create(service.getNotificationStream(deliveryPersonId, 1L))
+                .expectNextMatches(e -> e.getEventId() == 2)
+                .expectNextMatches(e -> e.getEventId() == 3)
+                .thenCancel()
+                .verify();
+
+        verify(notificationReplayService, never()).missedSince(any(), anyLong());
+        verify(notificationStreamRouter, times(1)).register(deliveryPersonId);
+        verify(notificationStreamRouter, never()).unregister(deliveryPersonId);
+        assertEquals(1, meterRegistry.get("notification.streams.resumed").tag("source", "memory").counter().count());
+    }
+
+    @Test
+    void resume_ShouldReadTheDatabaseWhenTheEventIsNoLongerInMemory() {
+        when(notificationReplayService.missedSince(deliveryPersonId, 7L))
+                .thenReturn(Mono.just(List.of(event(8), event(9))));
+
+        StepVerifier.create(service.getNotificationStream(deliveryPersonId, 7L))
+                .expectNextMatches(e -> e.getEventId() == 8)
+                .expectNextMatches(e -> e.getEventId() == 9)
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, meterRegistry.get("notification.streams.resumed").tag("source", "database").counter().count());
+    }
+
+    @Test
+    void resume_ShouldSendLiveEventsAfterTheReplayAndOnlyOnce() {
+        Sinks.One<List<MatchingNotificationEvent>> replay = Sinks.one();
+        when(notificationReplayService.missedSince(deliveryPersonId, 7L)).thenReturn(replay.asMono());
+
+        StepVerifier.create(service.getNotificationStream(deliveryPersonId, 7L))
+                .then(() -> {
+                    // Committed while the replay is being read: both live and in the replay
+                    service.pushNotification(event(9));
+                    service.pushNotification(event(10));
+                })
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> replay.tryEmitValue(List.of(event(8), event(9))))
+                .expectNextMatches(e -> e.getEventId() == 8)
+                .expectNextMatches(e -> e.getEventId() == 9)
+                .expectNextMatches(e -> e.getEventId() == 10)
+                .then(() -> service.pushNotification(event(9)))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void linger_ShouldUnregisterOnceItExpires() {
+        service = serviceLingering(50);
+
+        StepVerifier.create(service.getNotificationStream(deliveryPersonId))
+                .thenCancel()
+                .verify();
+
+        verify(notificationStreamRouter, never()).unregister(deliveryPersonId);
+        verify(notificationStreamRouter, timeout(1000)).unregister(deliveryPersonId);
+    }
+}